@@ -0,0 +1,5 @@
+-- HIS 计费镜像执行科室并行补全参数（SPD 库 spd_system_config）
+-- 并发数即同时占用的 HIS 连接数，实际取值不超过 8 且不超过 his.jdbc.pool.max_active - 1
+INSERT INTO `spd_system_config` (`config_key`, `config_value`, `config_desc`)
+VALUES ('his.charge.backfill.parallelism', '4', 'HIS计费执行科室补全：按天时间片并行数')
+ON DUPLICATE KEY UPDATE `config_key` = `config_key`;
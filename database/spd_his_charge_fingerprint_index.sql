@@ -0,0 +1,5 @@
+-- HIS 计费镜像指纹进程内索引开关（SPD 库 spd_system_config）
+-- 1=启用：同步去重先查进程内索引，仅未命中的主键回查镜像表；0=每块均查库（默认）
+INSERT INTO `spd_system_config` (`config_key`, `config_value`, `config_desc`)
+VALUES ('his.charge.fingerprint_index.enabled', '0', 'HIS计费镜像同步：1=启用进程内指纹索引，0=关闭')
+ON DUPLICATE KEY UPDATE `config_key` = `config_key`;
@@ -0,0 +1,22 @@
+-- 衡水三院：住院/门诊计费镜像增量同步高水位（在耗材 SPD 主库执行）
+-- scminterface 每次同步后记录已抓取到的最大 charge_date；增量模式下仅向 HIS 查询水位（减重叠分钟）之后的行。
+-- 未执行本脚本或未开启开关时，同步仍按「昨天～今天」整窗口抓取。
+
+CREATE TABLE IF NOT EXISTS `his_charge_sync_watermark` (
+  `tenant_id` VARCHAR(64) NOT NULL COMMENT '租户ID',
+  `charge_kind` VARCHAR(16) NOT NULL COMMENT '计费类别：INPATIENT / OUTPATIENT',
+  `watermark_time` DATETIME NOT NULL COMMENT '已同步的最大计费时间',
+  `last_fetch_batch_id` VARCHAR(64) DEFAULT NULL COMMENT '最近一次推进水位的抓取批次',
+  `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`tenant_id`, `charge_kind`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='HIS计费镜像增量同步水位';
+
+-- 开关：1=增量（按水位抓取），0=整窗口（昨天～今天）
+INSERT INTO `spd_system_config` (`config_key`, `config_value`, `config_desc`)
+VALUES ('his.charge.sync.incremental', '1', 'HIS计费镜像增量同步：1=按水位增量抓取，0=每次抓取昨天～今天')
+ON DUPLICATE KEY UPDATE `config_key` = `config_key`;
+
+-- 重叠分钟：水位向前回退的分钟数，用于补抓 HIS 延迟入账的行（已存在行按指纹跳过）
+INSERT INTO `spd_system_config` (`config_key`, `config_value`, `config_desc`)
+VALUES ('his.charge.sync.overlap_minutes', '30', 'HIS计费镜像增量同步：水位回退重叠分钟数')
+ON DUPLICATE KEY UPDATE `config_key` = `config_key`;
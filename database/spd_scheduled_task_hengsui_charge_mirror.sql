@@ -22,3 +22,17 @@ ON DUPLICATE KEY UPDATE
   `cron_expression` = VALUES(`cron_expression`),
   `task_name` = VALUES(`task_name`),
   `status` = '0';
+
+-- 住院+门诊并行同步（住院、门诊各写一条 his_charge_fetch_batch 记录，charge_kind 分别为 INPATIENT / OUTPATIENT）；默认停用，启用时请停用上面两项
+INSERT INTO `spd_scheduled_task` (
+  `task_name`, `task_class`, `task_method`, `cron_expression`, `max_exec_count`, `current_exec_count`, `status`
+) VALUES
+(
+  '衡水住院门诊收费镜像并行同步',
+  'com.scminterface.framework.web.task.HengshuiTask',
+  'syncPatientCharge',
+  '0 0 0/2 * * ?',
+  -1, 0, '1'
+)
+ON DUPLICATE KEY UPDATE
+  `task_name` = VALUES(`task_name`);
@@ -0,0 +1,13 @@
+-- 定时任务租约锁（在 SPD 主库执行）
+-- 多台前置机同时部署时，同一任务每次触发只有取得租约的节点执行；租约由执行节点定期续期，
+-- 节点宕机后租约到期（默认 60 秒）即可由其它节点接管。以数据库时间判断到期，不受各节点时钟偏差影响。
+-- 开关：application.yml 中 scminterface.scheduler.lock-enabled=true（默认关闭，单机部署无需执行本脚本）。
+
+CREATE TABLE IF NOT EXISTS `spd_scheduled_task_lock` (
+  `lock_key` VARCHAR(255) NOT NULL COMMENT '锁键：taskClass#taskMethod',
+  `owner` VARCHAR(128) NOT NULL DEFAULT '' COMMENT '持有节点（主机名:进程号:随机串）',
+  `expire_time` DATETIME(3) NOT NULL COMMENT '租约到期时间',
+  `acquire_time` DATETIME(3) DEFAULT NULL COMMENT '本次取得时间',
+  `renew_time` DATETIME(3) DEFAULT NULL COMMENT '最近续期时间',
+  PRIMARY KEY (`lock_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='定时任务租约锁';
@@ -0,0 +1,22 @@
+-- 定时任务执行历史（在 SPD 主库执行）
+-- scminterface 每次实际执行任务后异步写入一行（开始/结束时间、耗时、结果、同步计数），供 /api/task/history 查询分位耗时与吞吐。
+-- 未执行本脚本时写入失败仅记 DEBUG 日志，不影响任务本身。保留 30 天，由写入线程定期清理。
+
+CREATE TABLE IF NOT EXISTS `spd_scheduled_task_run` (
+  `run_id` BIGINT(20) NOT NULL AUTO_INCREMENT COMMENT '执行ID',
+  `task_class` VARCHAR(255) NOT NULL COMMENT '任务类全限定名',
+  `task_method` VARCHAR(100) NOT NULL COMMENT '任务方法名',
+  `start_time` DATETIME(3) NOT NULL COMMENT '开始时间',
+  `end_time` DATETIME(3) NOT NULL COMMENT '结束时间',
+  `duration_ms` BIGINT(20) NOT NULL COMMENT '耗时（毫秒）',
+  `outcome` VARCHAR(16) NOT NULL COMMENT '结果：SUCCESS / FAILED',
+  `total_count` INT(11) DEFAULT NULL COMMENT '读取总数',
+  `new_count` INT(11) DEFAULT NULL COMMENT '新增数',
+  `skipped_count` INT(11) DEFAULT NULL COMMENT '指纹一致跳过数',
+  `drift_count` INT(11) DEFAULT NULL COMMENT '指纹不一致（已存在）数',
+  `message` VARCHAR(500) DEFAULT NULL COMMENT '结果说明或异常信息',
+  `thread_name` VARCHAR(64) DEFAULT NULL COMMENT '执行线程',
+  PRIMARY KEY (`run_id`),
+  KEY `idx_task_start` (`task_class`, `task_method`, `start_time`),
+  KEY `idx_start_time` (`start_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='定时任务执行历史';
@@ -51,6 +51,27 @@ public final class HisChargeMirrorFetchSql
             + "WHERE charge_date IS NOT NULL AND charge_date <> '' "
             + "AND charge_date >= ? AND charge_date < ?";
 
+    /**
+     * 增量抓取：计费时间不早于水位下界（参数，含）且早于明天 0 点，上界与 {@link #SQLSERVER_INPATIENT_YESTERDAY_TODAY} 一致。
+     */
+    public static final String SQLSERVER_INPATIENT_SINCE =
+        "SELECT inpatient_charge_id, inpatient_charge_id_tf, patient_id, patient_name, inpatient_no, dept_code, dept_name, "
+            + "exec_dept_id, exec_dept_name, "
+            + "doctor_id, doctor_name, charge_item_id, item_name, spec_model, batch_no, expire_date, "
+            + "use_date, charge_date, quantity, unit_price, total_amount, charge_operator, remark "
+            + "FROM v_inpatient_consumable_charge "
+            + "WHERE charge_date IS NOT NULL AND charge_date <> '' "
+            + "AND charge_date >= ? AND charge_date < DATEADD(day, 1, CAST(CAST(GETDATE() AS date) AS datetime))";
+
+    public static final String SQLSERVER_OUTPATIENT_SINCE =
+        "SELECT outpatient_charge_id, outpatient_charge_id_tf, patient_id, patient_name, outpatient_no, clinic_code, clinic_name, "
+            + "exec_dept_id, exec_dept_name, "
+            + "doctor_id, doctor_name, charge_item_id, item_name, spec_model, batch_no, expire_date, "
+            + "charge_date, quantity, unit_price, total_amount, charge_operator, payment_type, receipt_no, remark "
+            + "FROM v_outpatient_consumable_charge "
+            + "WHERE charge_date IS NOT NULL AND charge_date <> '' "
+            + "AND charge_date >= ? AND charge_date < DATEADD(day, 1, CAST(CAST(GETDATE() AS date) AS datetime))";
+
     /** @deprecated 使用 {@link #SQLSERVER_INPATIENT_YESTERDAY_TODAY} */
     @Deprecated
     public static final String SQLSERVER_INPATIENT_RECENT_3D = SQLSERVER_INPATIENT_YESTERDAY_TODAY;
@@ -0,0 +1,21 @@
+package com.scminterface.customer.hengsuiThird.his.mapper;
+
+import java.util.Date;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 计费镜像增量同步水位（SPD 库 his_charge_sync_watermark）。
+ */
+@Mapper
+public interface HisChargeSyncWatermarkMapper
+{
+    Date selectWatermark(@Param("tenantId") String tenantId, @Param("chargeKind") String chargeKind);
+
+    /** 水位只进不退：已有更大水位时保持不变 */
+    int upsertWatermark(
+        @Param("tenantId") String tenantId,
+        @Param("chargeKind") String chargeKind,
+        @Param("watermarkTime") Date watermarkTime,
+        @Param("fetchBatchId") String fetchBatchId);
+}
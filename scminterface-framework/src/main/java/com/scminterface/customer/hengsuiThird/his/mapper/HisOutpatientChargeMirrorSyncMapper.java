@@ -3,6 +3,7 @@ package com.scminterface.customer.hengsuiThird.his.mapper;
 import java.util.List;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import com.scminterface.customer.hengsuiThird.his.model.HisExecDeptBackfillRow;
 import com.scminterface.customer.hengsuiThird.his.model.HisIdFingerprintRow;
 import com.scminterface.customer.hengsuiThird.his.model.HisOutpatientChargeMirrorRow;
 
@@ -16,13 +17,11 @@ public interface HisOutpatientChargeMirrorSyncMapper
 
     List<HisIdFingerprintRow> selectFingerprintsByHisIds(@Param("tenantId") String tenantId, @Param("hisIds") List<String> hisIds);
 
-    int updateExecDeptIfMissing(
+    /**
+     * 多行补全执行科室：仅更新镜像中执行科室为空的行，返回更新行数。
+     */
+    int batchUpdateExecDeptIfMissing(
         @Param("tenantId") String tenantId,
-        @Param("hisChargeId") String hisChargeId,
-        @Param("execDeptId") String execDeptId,
-        @Param("execDeptName") String execDeptName,
-        @Param("rowFingerprint") String rowFingerprint,
+        @Param("list") List<HisExecDeptBackfillRow> list,
         @Param("updateBy") String updateBy);
-
-    String selectMirrorIdByHisChargeId(@Param("tenantId") String tenantId, @Param("hisChargeId") String hisChargeId);
 }
@@ -3,6 +3,7 @@ package com.scminterface.customer.hengsuiThird.his.mapper;
 import java.util.List;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import com.scminterface.customer.hengsuiThird.his.model.HisExecDeptBackfillRow;
 import com.scminterface.customer.hengsuiThird.his.model.HisPatientChargeMirrorUnifiedRow;
 
 /**
@@ -27,6 +28,19 @@ public interface HisPatientChargeMirrorUnifiedSyncMapper
         @Param("execDeptName") String execDeptName,
         @Param("rowFingerprint") String rowFingerprint);
 
+    /** 多行补全住院执行科室（仅执行科室为空的行） */
+    int batchUpdateInpatientExecDeptIfMissing(
+        @Param("tenantId") String tenantId,
+        @Param("list") List<HisExecDeptBackfillRow> list);
+
+    /** 多行补全门诊执行科室（仅执行科室为空的行） */
+    int batchUpdateOutpatientExecDeptIfMissing(
+        @Param("tenantId") String tenantId,
+        @Param("list") List<HisExecDeptBackfillRow> list);
+
+    /** SPD 库 max_allowed_packet（字节），用于多行插入分片 */
+    Long selectMaxAllowedPacket();
+
     int syncInpatientExecDeptFromMirror(@Param("tenantId") String tenantId);
 
     int syncOutpatientExecDeptFromMirror(@Param("tenantId") String tenantId);
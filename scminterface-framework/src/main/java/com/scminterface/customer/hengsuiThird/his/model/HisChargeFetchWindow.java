@@ -0,0 +1,54 @@
+package com.scminterface.customer.hengsuiThird.his.model;
+
+import java.util.Date;
+
+/**
+ * 单次计费镜像抓取的时间窗口（下界含、上界不含）。增量模式下界来自同步水位，整窗口模式为昨天 0 点。
+ */
+public class HisChargeFetchWindow
+{
+    private boolean incremental;
+    private Date windowStart;
+    private Date windowEnd;
+
+    public HisChargeFetchWindow()
+    {
+    }
+
+    public HisChargeFetchWindow(boolean incremental, Date windowStart, Date windowEnd)
+    {
+        this.incremental = incremental;
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+    }
+
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental)
+    {
+        this.incremental = incremental;
+    }
+
+    public Date getWindowStart()
+    {
+        return windowStart;
+    }
+
+    public void setWindowStart(Date windowStart)
+    {
+        this.windowStart = windowStart;
+    }
+
+    public Date getWindowEnd()
+    {
+        return windowEnd;
+    }
+
+    public void setWindowEnd(Date windowEnd)
+    {
+        this.windowEnd = windowEnd;
+    }
+}
@@ -0,0 +1,106 @@
+package com.scminterface.customer.hengsuiThird.his.model;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 执行科室并行补全进度（按时间片统计，供运维查询）。
+ */
+public class HisExecDeptBackfillProgress
+{
+    private final String visitKind;
+    private final String beginTime;
+    private final String endTime;
+    private final int totalSlices;
+    private final int parallelism;
+    private final Date startTime = new Date();
+    private int completedSlices;
+    private int retriedCount;
+    private final List<String> failedSlices = new ArrayList<>();
+    private final HisExecDeptBackfillResult stats = new HisExecDeptBackfillResult();
+    private Date finishTime;
+
+    public HisExecDeptBackfillProgress(String visitKind, String beginTime, String endTime, int totalSlices, int parallelism)
+    {
+        this.visitKind = visitKind;
+        this.beginTime = beginTime;
+        this.endTime = endTime;
+        this.totalSlices = totalSlices;
+        this.parallelism = parallelism;
+    }
+
+    public synchronized void sliceCompleted(HisExecDeptBackfillResult sliceStats)
+    {
+        completedSlices++;
+        stats.add(sliceStats);
+    }
+
+    public synchronized void sliceFailed(String slice)
+    {
+        failedSlices.add(slice);
+    }
+
+    public synchronized void sliceRetried()
+    {
+        retriedCount++;
+    }
+
+    public synchronized void finish()
+    {
+        finishTime = new Date();
+    }
+
+    public synchronized boolean isRunning()
+    {
+        return finishTime == null;
+    }
+
+    public synchronized List<String> getFailedSlices()
+    {
+        return new ArrayList<>(failedSlices);
+    }
+
+    /** 汇总统计的副本 */
+    public synchronized HisExecDeptBackfillResult getStats()
+    {
+        HisExecDeptBackfillResult copy = new HisExecDeptBackfillResult();
+        copy.add(stats);
+        return copy;
+    }
+
+    public synchronized int getCompletedSlices()
+    {
+        return completedSlices;
+    }
+
+    public int getTotalSlices()
+    {
+        return totalSlices;
+    }
+
+    public synchronized Map<String, Object> toMap()
+    {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("visitKind", visitKind);
+        m.put("beginTime", beginTime);
+        m.put("endTime", endTime);
+        m.put("running", finishTime == null);
+        m.put("parallelism", parallelism);
+        m.put("totalSlices", totalSlices);
+        m.put("completedSlices", completedSlices);
+        m.put("failedSlices", new ArrayList<>(failedSlices));
+        m.put("retriedCount", retriedCount);
+        m.put("updatedCount", stats.getUpdatedCount());
+        m.put("skippedCount", stats.getSkippedCount());
+        m.put("hisMissingExecCount", stats.getHisMissingExecCount());
+        m.put("notFoundCount", stats.getNotFoundCount());
+        m.put("startTime", startTime);
+        m.put("finishTime", finishTime);
+        long end = finishTime != null ? finishTime.getTime() : System.currentTimeMillis();
+        m.put("elapsedMs", end - startTime.getTime());
+        return m;
+    }
+}
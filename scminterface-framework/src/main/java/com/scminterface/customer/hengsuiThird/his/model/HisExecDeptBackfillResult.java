@@ -60,4 +60,18 @@ public class HisExecDeptBackfillResult
     {
         this.unifiedSyncedCount = unifiedSyncedCount;
     }
+
+    /** 累加另一时间片的统计（并行补全汇总用，调用方负责同步） */
+    public void add(HisExecDeptBackfillResult other)
+    {
+        if (other == null)
+        {
+            return;
+        }
+        updatedCount += other.updatedCount;
+        skippedCount += other.skippedCount;
+        hisMissingExecCount += other.hisMissingExecCount;
+        notFoundCount += other.notFoundCount;
+        unifiedSyncedCount += other.unifiedSyncedCount;
+    }
 }
@@ -0,0 +1,64 @@
+package com.scminterface.customer.hengsuiThird.his.model;
+
+/**
+ * 执行科室补全暂存行：按块汇总后以多行 UPDATE…JOIN 一次写入镜像表与统一表。
+ */
+public class HisExecDeptBackfillRow
+{
+    private String hisChargeId;
+    private String execDeptId;
+    private String execDeptName;
+    private String rowFingerprint;
+
+    public HisExecDeptBackfillRow()
+    {
+    }
+
+    public HisExecDeptBackfillRow(String hisChargeId, String execDeptId, String execDeptName, String rowFingerprint)
+    {
+        this.hisChargeId = hisChargeId;
+        this.execDeptId = execDeptId;
+        this.execDeptName = execDeptName;
+        this.rowFingerprint = rowFingerprint;
+    }
+
+    public String getHisChargeId()
+    {
+        return hisChargeId;
+    }
+
+    public void setHisChargeId(String hisChargeId)
+    {
+        this.hisChargeId = hisChargeId;
+    }
+
+    public String getExecDeptId()
+    {
+        return execDeptId;
+    }
+
+    public void setExecDeptId(String execDeptId)
+    {
+        this.execDeptId = execDeptId;
+    }
+
+    public String getExecDeptName()
+    {
+        return execDeptName;
+    }
+
+    public void setExecDeptName(String execDeptName)
+    {
+        this.execDeptName = execDeptName;
+    }
+
+    public String getRowFingerprint()
+    {
+        return rowFingerprint;
+    }
+
+    public void setRowFingerprint(String rowFingerprint)
+    {
+        this.rowFingerprint = rowFingerprint;
+    }
+}
@@ -2,11 +2,13 @@ package com.scminterface.customer.hengsuiThird.his.model;
 
 /**
  * HIS 计费主键与行指纹（与 SPD his_*_mirror 去重查询一致）。衡水三院计费镜像同步使用。
+ * 附带镜像当前执行科室，用于判断指纹不一致的行能否按执行科室补全处理。
  */
 public class HisIdFingerprintRow
 {
     private String hisChargeId;
     private String rowFingerprint;
+    private String execDeptId;
 
     public String getHisChargeId()
     {
@@ -27,4 +29,14 @@ public class HisIdFingerprintRow
     {
         this.rowFingerprint = rowFingerprint;
     }
+
+    public String getExecDeptId()
+    {
+        return execDeptId;
+    }
+
+    public void setExecDeptId(String execDeptId)
+    {
+        this.execDeptId = execDeptId;
+    }
 }
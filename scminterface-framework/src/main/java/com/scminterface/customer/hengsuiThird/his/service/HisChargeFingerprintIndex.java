@@ -0,0 +1,404 @@
+package com.scminterface.customer.hengsuiThird.his.service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.scminterface.customer.hengsuiThird.his.model.HisIdFingerprintRow;
+import com.scminterface.framework.web.service.SystemConfigCache;
+
+/**
+ * 计费镜像指纹进程内索引：按（租户, 就诊类型, HIS 计费主键）缓存镜像行指纹，命中时同步去重无需再查 SPD 库。
+ * <p>
+ * 仅覆盖滚动窗口（计费日期不早于昨天），指纹以两个 long 存储；跨日时按计费日期淘汰，单分区超过上限时整体清空。
+ * 镜像表同时由 SPD 侧写入，因此未命中的主键仍回查数据库（仅查未命中部分），查得结果回填索引；
+ * 每 {@link #RECONCILE_INTERVAL_MS} 抽样与数据库比对一次，发现不一致即清空该分区。
+ * <p>
+ * 开关 {@link #CONFIG_ENABLED}（默认关闭）；关闭时释放全部缓存，重新开启后从空索引开始预热。
+ */
+@Component
+public class HisChargeFingerprintIndex
+{
+    private static final Logger log = LoggerFactory.getLogger(HisChargeFingerprintIndex.class);
+
+    /** spd_system_config：1=启用指纹索引 */
+    public static final String CONFIG_ENABLED = "his.charge.fingerprint_index.enabled";
+
+    /** 保留的计费天数（昨天、今天），与同步窗口一致 */
+    private static final int RETENTION_DAYS = 2;
+
+    /** 单分区最大条目数，超过后整体清空重新预热 */
+    private static final int MAX_ENTRIES_PER_PARTITION = 500_000;
+
+    private static final long RECONCILE_INTERVAL_MS = 30 * 60_000L;
+
+    private static final int RECONCILE_SAMPLE_SIZE = 400;
+
+    private static final long CONFIG_RECHECK_MS = 60_000L;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    @Autowired
+    private SystemConfigCache systemConfigCache;
+
+    private final ConcurrentHashMap<String, Partition> partitions = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled;
+
+    private volatile long lastConfigCheckMillis;
+
+    /**
+     * 是否启用（开关值缓存 {@link #CONFIG_RECHECK_MS}）；由开转关时清空索引。
+     */
+    public boolean isEnabled()
+    {
+        long now = System.currentTimeMillis();
+        if (now - lastConfigCheckMillis >= CONFIG_RECHECK_MS)
+        {
+            boolean v = false;
+            try
+            {
+                v = "1".equals(trim(systemConfigCache.getSpdSystemConfig(CONFIG_ENABLED)));
+            }
+            catch (Exception e)
+            {
+                log.debug("读取 {} 失败: {}", CONFIG_ENABLED, e.getMessage());
+            }
+            if (!v && enabled)
+            {
+                partitions.clear();
+                log.info("计费指纹索引已关闭，释放缓存");
+            }
+            enabled = v;
+            lastConfigCheckMillis = now;
+        }
+        return enabled;
+    }
+
+    /**
+     * 查询索引：命中的返回（执行科室为镜像当前值），未命中的主键加入 {@code misses}。
+     */
+    public Map<String, HisIdFingerprintRow> lookup(String tenantId, String visitKind, Collection<String> hisIds, List<String> misses)
+    {
+        Map<String, HisIdFingerprintRow> hits = new HashMap<>();
+        Partition p = partition(tenantId, visitKind);
+        synchronized (p)
+        {
+            p.evictIfDayChanged();
+            for (String id : hisIds)
+            {
+                Entry e = p.entries.get(id);
+                if (e == null)
+                {
+                    misses.add(id);
+                    continue;
+                }
+                HisIdFingerprintRow row = new HisIdFingerprintRow();
+                row.setHisChargeId(id);
+                row.setRowFingerprint(toHex(e.hi, e.lo));
+                row.setExecDeptId(e.execDeptId);
+                hits.put(id, row);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 写入或覆盖一条（新增镜像行、数据库查得的现有行）；计费日期早于保留窗口或指纹格式异常时忽略。
+     */
+    public void put(String tenantId, String visitKind, String hisChargeId, String fingerprint, String execDeptId, Date chargeAt)
+    {
+        if (hisChargeId == null || !isMd5Hex(fingerprint))
+        {
+            return;
+        }
+        int day = chargeAt != null ? (int) chargeAt.toInstant().atZone(ZONE).toLocalDate().toEpochDay() : today();
+        Partition p = partition(tenantId, visitKind);
+        synchronized (p)
+        {
+            p.evictIfDayChanged();
+            if (day < p.minDay)
+            {
+                return;
+            }
+            if (p.entries.size() >= MAX_ENTRIES_PER_PARTITION && !p.entries.containsKey(hisChargeId))
+            {
+                log.warn("计费指纹索引 {} 超过 {} 条，清空后重新预热", p.key, MAX_ENTRIES_PER_PARTITION);
+                p.entries.clear();
+            }
+            p.entries.put(hisChargeId, new Entry(parseHex(fingerprint, 0), parseHex(fingerprint, 16), day, execDeptId));
+        }
+    }
+
+    /**
+     * 执行科室补全成功后更新已缓存条目的指纹与执行科室（未缓存的不新增）。
+     */
+    public void updateIfPresent(String tenantId, String visitKind, String hisChargeId, String fingerprint, String execDeptId)
+    {
+        Partition p = partitions.get(partitionKey(tenantId, visitKind));
+        if (p == null)
+        {
+            return;
+        }
+        synchronized (p)
+        {
+            Entry old = p.entries.get(hisChargeId);
+            if (old == null)
+            {
+                return;
+            }
+            if (isMd5Hex(fingerprint))
+            {
+                p.entries.put(hisChargeId, new Entry(parseHex(fingerprint, 0), parseHex(fingerprint, 16), old.day, execDeptId));
+            }
+            else
+            {
+                p.entries.remove(hisChargeId);
+            }
+        }
+    }
+
+    /** 移除条目，下次由数据库回查 */
+    public void invalidate(String tenantId, String visitKind, Collection<String> hisIds)
+    {
+        Partition p = partitions.get(partitionKey(tenantId, visitKind));
+        if (p == null)
+        {
+            return;
+        }
+        synchronized (p)
+        {
+            for (String id : hisIds)
+            {
+                p.entries.remove(id);
+            }
+        }
+    }
+
+    /**
+     * 到期时抽样与数据库比对，任一条缺失或指纹不一致即清空分区。
+     * 抽样从分区游标位置起取连续 {@link #RECONCILE_SAMPLE_SIZE} 条（到末尾回绕），游标每次后移，多次对账轮流覆盖整个分区。
+     *
+     * @param loader 按主键批量查询数据库现有指纹（键为 HIS 计费主键）
+     */
+    public void reconcileIfDue(String tenantId, String visitKind, Function<List<String>, Map<String, HisIdFingerprintRow>> loader)
+    {
+        Partition p = partitions.get(partitionKey(tenantId, visitKind));
+        if (p == null)
+        {
+            return;
+        }
+        List<String> sample = new ArrayList<>();
+        Map<String, String> expected = new HashMap<>();
+        synchronized (p)
+        {
+            long now = System.currentTimeMillis();
+            if (now - p.lastReconcileMillis < RECONCILE_INTERVAL_MS)
+            {
+                return;
+            }
+            p.lastReconcileMillis = now;
+            int size = p.entries.size();
+            if (size == 0)
+            {
+                return;
+            }
+            int take = Math.min(RECONCILE_SAMPLE_SIZE, size);
+            int start = p.reconcileCursor % size;
+            int end = start + take;
+            int index = 0;
+            for (Map.Entry<String, Entry> e : p.entries.entrySet())
+            {
+                // [start, end) 段，超出末尾的部分从头回绕
+                if ((index >= start && index < end) || index < end - size)
+                {
+                    sample.add(e.getKey());
+                    expected.put(e.getKey(), toHex(e.getValue().hi, e.getValue().lo));
+                }
+                index++;
+            }
+            p.reconcileCursor = end % size;
+        }
+        if (sample.isEmpty())
+        {
+            return;
+        }
+        Map<String, HisIdFingerprintRow> actual;
+        try
+        {
+            actual = loader.apply(sample);
+        }
+        catch (Exception e)
+        {
+            log.warn("计费指纹索引 {} 对账查询失败: {}", p.key, e.toString());
+            return;
+        }
+        int mismatch = 0;
+        for (String id : sample)
+        {
+            HisIdFingerprintRow row = actual.get(id);
+            if (row == null || !expected.get(id).equalsIgnoreCase(trim(row.getRowFingerprint())))
+            {
+                mismatch++;
+            }
+        }
+        if (mismatch > 0)
+        {
+            synchronized (p)
+            {
+                p.entries.clear();
+            }
+            log.warn("计费指纹索引 {} 抽样 {} 条中 {} 条与数据库不一致，已清空重新预热", p.key, sample.size(), mismatch);
+        }
+        else
+        {
+            log.debug("计费指纹索引 {} 抽样 {} 条与数据库一致", p.key, sample.size());
+        }
+    }
+
+    /** 各分区条目数（运维查看） */
+    public Map<String, Integer> sizes()
+    {
+        Map<String, Integer> m = new HashMap<>();
+        for (Partition p : partitions.values())
+        {
+            synchronized (p)
+            {
+                m.put(p.key, p.entries.size());
+            }
+        }
+        return m;
+    }
+
+    private Partition partition(String tenantId, String visitKind)
+    {
+        String key = partitionKey(tenantId, visitKind);
+        return partitions.computeIfAbsent(key, Partition::new);
+    }
+
+    private static String partitionKey(String tenantId, String visitKind)
+    {
+        return tenantId + "/" + visitKind;
+    }
+
+    private static int today()
+    {
+        return (int) LocalDate.now(ZONE).toEpochDay();
+    }
+
+    private static String trim(String s)
+    {
+        return s == null ? null : s.trim();
+    }
+
+    private static boolean isMd5Hex(String s)
+    {
+        if (s == null || s.length() != 32)
+        {
+            return false;
+        }
+        for (int i = 0; i < 32; i++)
+        {
+            if (Character.digit(s.charAt(i), 16) < 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseHex(String s, int offset)
+    {
+        long v = 0L;
+        for (int i = offset; i < offset + 16; i++)
+        {
+            v = (v << 4) | Character.digit(s.charAt(i), 16);
+        }
+        return v;
+    }
+
+    private static String toHex(long hi, long lo)
+    {
+        char[] c = new char[32];
+        for (int i = 15; i >= 0; i--)
+        {
+            c[i] = Character.forDigit((int) (hi & 0x0f), 16);
+            hi >>>= 4;
+            c[i + 16] = Character.forDigit((int) (lo & 0x0f), 16);
+            lo >>>= 4;
+        }
+        return new String(c);
+    }
+
+    /** 单条缓存：128 位指纹 + 计费日（epochDay）+ 镜像当前执行科室 */
+    private static final class Entry
+    {
+        final long hi;
+        final long lo;
+        final int day;
+        final String execDeptId;
+
+        Entry(long hi, long lo, int day, String execDeptId)
+        {
+            this.hi = hi;
+            this.lo = lo;
+            this.day = day;
+            this.execDeptId = execDeptId;
+        }
+    }
+
+    private static final class Partition
+    {
+        final String key;
+        final HashMap<String, Entry> entries = new HashMap<>();
+        int minDay;
+        int sweptDay;
+        long lastReconcileMillis = System.currentTimeMillis();
+        /** 下次对账抽样的起始位置（按 entries 迭代顺序） */
+        int reconcileCursor;
+
+        Partition(String key)
+        {
+            this.key = key;
+            this.sweptDay = today();
+            this.minDay = sweptDay - RETENTION_DAYS + 1;
+        }
+
+        /** 跨日后淘汰计费日期早于保留窗口的条目 */
+        void evictIfDayChanged()
+        {
+            int d = today();
+            if (d == sweptDay)
+            {
+                return;
+            }
+            sweptDay = d;
+            minDay = d - RETENTION_DAYS + 1;
+            Iterator<Entry> it = entries.values().iterator();
+            int removed = 0;
+            while (it.hasNext())
+            {
+                if (it.next().day < minDay)
+                {
+                    it.remove();
+                    removed++;
+                }
+            }
+            if (removed > 0)
+            {
+                log.info("计费指纹索引 {} 跨日淘汰 {} 条，剩余 {} 条", key, removed, entries.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.scminterface.customer.hengsuiThird.his.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.scminterface.customer.hengsuiThird.his.mapper.HisInpatientChargeMirrorSyncMapper;
+import com.scminterface.customer.hengsuiThird.his.mapper.HisOutpatientChargeMirrorSyncMapper;
+import com.scminterface.customer.hengsuiThird.his.mapper.HisPatientChargeMirrorUnifiedSyncMapper;
+import com.scminterface.customer.hengsuiThird.his.model.HisInpatientChargeMirrorRow;
+import com.scminterface.customer.hengsuiThird.his.model.HisOutpatientChargeMirrorRow;
+import com.scminterface.customer.hengsuiThird.his.model.HisPatientChargeMirrorUnifiedRow;
+import com.scminterface.customer.hengsuiThird.his.support.HisChargeMirrorSyncSupport;
+
+/**
+ * 计费镜像批量写入：一块新增行在同一事务内写入就诊类型镜像表与统一表，
+ * 多行 INSERT 的行数按 SPD 库 max_allowed_packet、估算行字节数与绑定参数上限自适应切分。
+ */
+@Component
+public class HisChargeMirrorWriter
+{
+    private static final Logger log = LoggerFactory.getLogger(HisChargeMirrorWriter.class);
+
+    /** 单条 INSERT 最大行数 */
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    /** MySQL 预编译语句占位符上限 65535，留余量 */
+    private static final int MAX_BIND_PARAMS = 60000;
+
+    /** 统一表列数（多于镜像表，按其约束绑定参数） */
+    private static final int UNIFIED_COLUMNS = 42;
+
+    /** 读取 max_allowed_packet 失败时的假定值（MySQL 5.7 默认 4MB） */
+    private static final long DEFAULT_MAX_PACKET_BYTES = 4L * 1024 * 1024;
+
+    /** 单条语句字节上限：不超过 max_allowed_packet 的一半，且不超过 8MB */
+    private static final long STATEMENT_BYTES_CAP = 8L * 1024 * 1024;
+
+    private static final long STATEMENT_BYTES_FLOOR = 256L * 1024;
+
+    /** 行定长部分（主键、数值、时间、指纹及 SQL 分隔符）估算字节 */
+    private static final int FIXED_ROW_BYTES = 640;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private HisInpatientChargeMirrorSyncMapper hisInpatientChargeMirrorSyncMapper;
+
+    @Autowired
+    private HisOutpatientChargeMirrorSyncMapper hisOutpatientChargeMirrorSyncMapper;
+
+    @Autowired
+    private HisPatientChargeMirrorUnifiedSyncMapper hisPatientChargeMirrorUnifiedSyncMapper;
+
+    private volatile long statementByteBudget;
+
+    /**
+     * 写入一块住院新增行（镜像 + 统一表，单事务）。
+     *
+     * @return 写入行数
+     */
+    public int writeInpatient(List<HisInpatientChargeMirrorRow> rows)
+    {
+        return write("住院", rows, HisChargeMirrorWriter::estimateInpatientBytes,
+            hisInpatientChargeMirrorSyncMapper::insertBatch, HisChargeMirrorSyncSupport::unifiedFromInpatient);
+    }
+
+    /**
+     * 写入一块门诊新增行（镜像 + 统一表，单事务）。
+     *
+     * @return 写入行数
+     */
+    public int writeOutpatient(List<HisOutpatientChargeMirrorRow> rows)
+    {
+        return write("门诊", rows, HisChargeMirrorWriter::estimateOutpatientBytes,
+            hisOutpatientChargeMirrorSyncMapper::insertBatch, HisChargeMirrorSyncSupport::unifiedFromOutpatient);
+    }
+
+    private <T> int write(String label, List<T> rows, ToIntFunction<T> estimator, Consumer<List<T>> mirrorInsert,
+        Function<T, HisPatientChargeMirrorUnifiedRow> toUnified)
+    {
+        if (rows == null || rows.isEmpty())
+        {
+            return 0;
+        }
+        long budget = resolveStatementByteBudget();
+        int maxRows = Math.min(MAX_ROWS_PER_STATEMENT, MAX_BIND_PARAMS / UNIFIED_COLUMNS);
+        long begin = System.currentTimeMillis();
+        int[] statements = new int[1];
+        new TransactionTemplate(transactionManager).execute(status -> {
+            int i = 0;
+            while (i < rows.size())
+            {
+                int end = i;
+                long bytes = 0L;
+                while (end < rows.size() && end - i < maxRows)
+                {
+                    long rowBytes = estimator.applyAsInt(rows.get(end));
+                    if (end > i && bytes + rowBytes > budget)
+                    {
+                        break;
+                    }
+                    bytes += rowBytes;
+                    end++;
+                }
+                List<T> slice = rows.subList(i, end);
+                mirrorInsert.accept(slice);
+                List<HisPatientChargeMirrorUnifiedRow> unified = new ArrayList<>(slice.size());
+                for (T e : slice)
+                {
+                    unified.add(toUnified.apply(e));
+                }
+                hisPatientChargeMirrorUnifiedSyncMapper.insertBatch(unified);
+                statements[0]++;
+                i = end;
+            }
+            return null;
+        });
+        long millis = Math.max(1L, System.currentTimeMillis() - begin);
+        log.info("写入{}计费镜像 {} 行（{} 批多行插入，单批上限 {} 字节），耗时 {}ms，{} 行/秒",
+            label, rows.size(), statements[0], budget, millis, rows.size() * 1000L / millis);
+        return rows.size();
+    }
+
+    private long resolveStatementByteBudget()
+    {
+        long budget = statementByteBudget;
+        if (budget > 0)
+        {
+            return budget;
+        }
+        long packet = DEFAULT_MAX_PACKET_BYTES;
+        try
+        {
+            Long v = hisPatientChargeMirrorUnifiedSyncMapper.selectMaxAllowedPacket();
+            if (v != null && v > 0)
+            {
+                packet = v;
+            }
+        }
+        catch (Exception e)
+        {
+            log.debug("读取 max_allowed_packet 失败，按 {} 字节处理: {}", DEFAULT_MAX_PACKET_BYTES, e.getMessage());
+        }
+        budget = Math.max(STATEMENT_BYTES_FLOOR, Math.min(packet / 2, STATEMENT_BYTES_CAP));
+        statementByteBudget = budget;
+        return budget;
+    }
+
+    /** 变长文本按 UTF-8 最坏 3 字节/字符估算 */
+    private static int estimateInpatientBytes(HisInpatientChargeMirrorRow e)
+    {
+        return FIXED_ROW_BYTES + 3 * (len(e.getPatientName()) + len(e.getInpatientNo()) + len(e.getDeptCode())
+            + len(e.getDeptName()) + len(e.getExecDeptId()) + len(e.getExecDeptName()) + len(e.getDoctorId())
+            + len(e.getDoctorName()) + len(e.getChargeItemId()) + len(e.getItemName()) + len(e.getSpecModel())
+            + len(e.getBatchNo()) + len(e.getExpireDate()) + len(e.getChargeOperator()) + len(e.getRemark()));
+    }
+
+    private static int estimateOutpatientBytes(HisOutpatientChargeMirrorRow e)
+    {
+        return FIXED_ROW_BYTES + 3 * (len(e.getPatientName()) + len(e.getOutpatientNo()) + len(e.getClinicCode())
+            + len(e.getClinicName()) + len(e.getExecDeptId()) + len(e.getExecDeptName()) + len(e.getDoctorId())
+            + len(e.getDoctorName()) + len(e.getChargeItemId()) + len(e.getItemName()) + len(e.getSpecModel())
+            + len(e.getBatchNo()) + len(e.getExpireDate()) + len(e.getChargeDate()) + len(e.getChargeOperator())
+            + len(e.getPaymentType()) + len(e.getReceiptNo()) + len(e.getRemark()));
+    }
+
+    private static int len(String s)
+    {
+        return s == null ? 0 : s.length();
+    }
+}
@@ -6,6 +6,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -15,7 +16,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import com.scminterface.customer.hengsuiThird.his.HisBillingTenantConstants;
-import com.scminterface.framework.web.mapper.SpdSysConfigMapper;
+import com.scminterface.framework.web.service.SystemConfigCache;
 
 /**
  * 镜像同步完成后调用 SPD 内部接口，执行与 SPD 抓取后相同的自动低值消耗/退费逻辑。
@@ -30,9 +31,10 @@ public class SpdPatientChargeInternalClient
     private static final String DEFAULT_SPD_BASE_URL = "http://127.0.0.1:8080";
 
     @Autowired
+    @Qualifier("spdRestTemplate")
     private RestTemplate restTemplate;
     @Autowired
-    private SpdSysConfigMapper spdSysConfigMapper;
+    private SystemConfigCache systemConfigCache;
     @Autowired
     private TenantBillingSettingService tenantBillingSettingService;
 
@@ -91,7 +93,7 @@ public class SpdPatientChargeInternalClient
     {
         try
         {
-            String v = spdSysConfigMapper.selectValueByKey(HisBillingTenantConstants.CONFIG_SPD_INTERNAL_BASE_URL);
+            String v = systemConfigCache.getSpdSysConfig(HisBillingTenantConstants.CONFIG_SPD_INTERNAL_BASE_URL);
             if (StringUtils.isNotBlank(v))
             {
                 return v.trim();
@@ -108,7 +110,7 @@ public class SpdPatientChargeInternalClient
     {
         try
         {
-            return StringUtils.trimToNull(spdSysConfigMapper.selectValueByKey(HisBillingTenantConstants.CONFIG_INTERNAL_API_KEY));
+            return StringUtils.trimToNull(systemConfigCache.getSpdSysConfig(HisBillingTenantConstants.CONFIG_INTERNAL_API_KEY));
         }
         catch (Exception e)
         {
@@ -2,8 +2,10 @@ package com.scminterface.customer.hengsuiThird.his.service;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import com.scminterface.common.annotation.DataSource;
 import com.scminterface.common.enums.DataSourceType;
@@ -16,6 +18,12 @@ public class TenantBillingSettingService
     @Autowired
     private SbTenantSettingMapper sbTenantSettingMapper;
 
+    @Value("${scminterface.config-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    /** 自动处理开关缓存（每次抓取后都会判断），key 为 tenantId|settingKey；本节点保存时失效 */
+    private final Map<String, CachedSetting> autoProcessCache = new ConcurrentHashMap<>();
+
     @DataSource(DataSourceType.SPD)
     public Map<String, String> getBillingSettings(String tenantId)
     {
@@ -36,17 +44,34 @@ public class TenantBillingSettingService
             "低值计费抓取后自动生成消耗");
         saveOne(tid, HisBillingTenantConstants.SETTING_BILLING_AUTO_REFUND_ENABLED, billingAutoRefundEnabled,
             "计费退费镜像抓取后自动返还库存");
+        autoProcessCache.remove(tid + "|" + HisBillingTenantConstants.SETTING_LV_AUTO_CONSUME_ENABLED);
+        autoProcessCache.remove(tid + "|" + HisBillingTenantConstants.SETTING_BILLING_AUTO_REFUND_ENABLED);
     }
 
     @DataSource(DataSourceType.SPD)
     public boolean isAnyAutoProcessEnabled(String tenantId)
     {
-        if (!HisBillingTenantConstants.TENANT_HENGSHUI_THIRD.equals(resolveTenantId(tenantId)))
+        String tid = resolveTenantId(tenantId);
+        if (!HisBillingTenantConstants.TENANT_HENGSHUI_THIRD.equals(tid))
         {
             return false;
         }
-        return "1".equals(nz(getValue(resolveTenantId(tenantId), HisBillingTenantConstants.SETTING_LV_AUTO_CONSUME_ENABLED)))
-            || "1".equals(nz(getValue(resolveTenantId(tenantId), HisBillingTenantConstants.SETTING_BILLING_AUTO_REFUND_ENABLED)));
+        return "1".equals(nz(getCachedValue(tid, HisBillingTenantConstants.SETTING_LV_AUTO_CONSUME_ENABLED)))
+            || "1".equals(nz(getCachedValue(tid, HisBillingTenantConstants.SETTING_BILLING_AUTO_REFUND_ENABLED)));
+    }
+
+    private String getCachedValue(String tenantId, String key)
+    {
+        String cacheKey = tenantId + "|" + key;
+        long now = System.currentTimeMillis();
+        CachedSetting c = autoProcessCache.get(cacheKey);
+        if (c != null && now < c.expiresAt)
+        {
+            return c.value;
+        }
+        String value = getValue(tenantId, key);
+        autoProcessCache.put(cacheKey, new CachedSetting(value, now + Math.max(1L, ttlSeconds) * 1000L));
+        return value;
     }
 
     private String getValue(String tenantId, String key)
@@ -74,6 +99,18 @@ public class TenantBillingSettingService
         }
     }
 
+    private static final class CachedSetting
+    {
+        final String value;
+        final long expiresAt;
+
+        CachedSetting(String value, long expiresAt)
+        {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
     private static String resolveTenantId(String tenantId)
     {
         return StringUtils.isNotBlank(tenantId) ? tenantId.trim() : HisBillingTenantConstants.TENANT_HENGSHUI_THIRD;
@@ -0,0 +1,154 @@
+package com.scminterface.customer.hengsuiThird.his.support;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.scminterface.customer.hengsuiThird.his.model.HisExecDeptBackfillProgress;
+import com.scminterface.customer.hengsuiThird.his.model.HisExecDeptBackfillResult;
+
+/**
+ * 执行科室补全并行引擎：将时间窗口切为按天的时间片，在有界线程池上并发执行，
+ * 单片失败按退避重试，最终失败的时间片记录在进度中供重跑。
+ */
+public final class HisBackfillSliceRunner
+{
+    private static final Logger log = LoggerFactory.getLogger(HisBackfillSliceRunner.class);
+
+    private static final DateTimeFormatter SLICE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final long RETRY_BACKOFF_MILLIS = 2000L;
+
+    private HisBackfillSliceRunner()
+    {
+    }
+
+    /**
+     * 单个时间片的补全逻辑（在工作线程执行，须自行获取 HIS 连接并设置数据源上下文）。
+     */
+    public interface SliceWork
+    {
+        HisExecDeptBackfillResult run(LocalDateTime lo, LocalDateTime hi) throws Exception;
+    }
+
+    /**
+     * 按 {@code sliceDays} 切分 [start, endExclusive)。
+     */
+    public static List<LocalDateTime[]> split(LocalDateTime start, LocalDateTime endExclusive, int sliceDays)
+    {
+        int days = Math.max(1, sliceDays);
+        List<LocalDateTime[]> slices = new ArrayList<>();
+        LocalDateTime cursor = start;
+        while (cursor.isBefore(endExclusive))
+        {
+            LocalDateTime next = cursor.plusDays(days);
+            if (next.isAfter(endExclusive))
+            {
+                next = endExclusive;
+            }
+            slices.add(new LocalDateTime[] { cursor, next });
+            cursor = next;
+        }
+        return slices;
+    }
+
+    public static String describe(LocalDateTime[] slice)
+    {
+        return slice[0].format(SLICE_FMT) + " ~ " + slice[1].format(SLICE_FMT);
+    }
+
+    /**
+     * 并发执行全部时间片，阻塞至完成；结果与失败片累加至 {@code progress}。
+     *
+     * @param parallelism 并发上限（同时占用的 HIS 连接数）
+     * @param maxAttempts 单片最大尝试次数（含首次）
+     */
+    public static void run(String label, List<LocalDateTime[]> slices, int parallelism, int maxAttempts,
+        HisExecDeptBackfillProgress progress, SliceWork work) throws InterruptedException
+    {
+        if (slices.isEmpty())
+        {
+            return;
+        }
+        int threads = Math.max(1, Math.min(parallelism, slices.size()));
+        AtomicInteger seq = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "his-backfill-" + label + "-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>(slices.size());
+            for (LocalDateTime[] slice : slices)
+            {
+                futures.add(pool.submit(() -> runSlice(label, slice, maxAttempts, progress, work)));
+            }
+            for (Future<?> f : futures)
+            {
+                try
+                {
+                    f.get();
+                }
+                catch (ExecutionException e)
+                {
+                    log.error("执行科室补全[{}] 时间片任务异常", label, e.getCause());
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdownNow();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void runSlice(String label, LocalDateTime[] slice, int maxAttempts,
+        HisExecDeptBackfillProgress progress, SliceWork work)
+    {
+        String desc = describe(slice);
+        int attempts = Math.max(1, maxAttempts);
+        for (int attempt = 1; attempt <= attempts; attempt++)
+        {
+            long begin = System.currentTimeMillis();
+            try
+            {
+                HisExecDeptBackfillResult r = work.run(slice[0], slice[1]);
+                progress.sliceCompleted(r);
+                log.info("执行科室补全[{}] 时间片 {} 完成（{}/{}），更新 {} 条，耗时 {}ms",
+                    label, desc, progress.getCompletedSlices(), progress.getTotalSlices(),
+                    r != null ? r.getUpdatedCount() : 0, System.currentTimeMillis() - begin);
+                return;
+            }
+            catch (Exception e)
+            {
+                if (attempt >= attempts)
+                {
+                    log.error("执行科室补全[{}] 时间片 {} 失败，已重试 {} 次", label, desc, attempt - 1, e);
+                    progress.sliceFailed(desc);
+                    return;
+                }
+                progress.sliceRetried();
+                log.warn("执行科室补全[{}] 时间片 {} 第 {} 次失败，稍后重试: {}", label, desc, attempt, e.toString());
+                try
+                {
+                    Thread.sleep(RETRY_BACKOFF_MILLIS * attempt);
+                }
+                catch (InterruptedException ie)
+                {
+                    Thread.currentThread().interrupt();
+                    progress.sliceFailed(desc);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -2,14 +2,13 @@ package com.scminterface.customer.hengsuiThird.his.support;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
+import java.util.List;
 import java.util.Objects;
-import org.springframework.util.DigestUtils;
 import com.scminterface.customer.hengsuiThird.his.model.HisInpatientChargeMirrorRow;
 import com.scminterface.customer.hengsuiThird.his.model.HisOutpatientChargeMirrorRow;
 import com.scminterface.customer.hengsuiThird.his.model.HisPatientChargeMirrorUnifiedRow;
@@ -146,45 +145,32 @@ public final class HisChargeMirrorSyncSupport
 
     public static String fingerprintInpatient(HisInpatientChargeMirrorRow e)
     {
-        String raw = String.join("|",
-            nz(e.getHisInpatientChargeId()),
-            nz(e.getHisInpatientChargeIdTf()),
-            nz(e.getPatientId()),
-            nz(e.getChargeItemId()),
-            nz(e.getQuantity()),
-            nz(e.getUnitPrice()),
-            nz(e.getTotalAmount()),
-            nz(e.getChargeDate()),
-            nz(e.getExecDeptId()));
-        return DigestUtils.md5DigestAsHex(raw.getBytes(StandardCharsets.UTF_8));
+        return HisChargeFingerprint.begin()
+            .field(e.getHisInpatientChargeId())
+            .field(e.getHisInpatientChargeIdTf())
+            .field(e.getPatientId())
+            .field(e.getChargeItemId())
+            .field(e.getQuantity())
+            .field(e.getUnitPrice())
+            .field(e.getTotalAmount())
+            .field(e.getChargeDate())
+            .field(e.getExecDeptId())
+            .finish();
     }
 
     public static String fingerprintOutpatient(HisOutpatientChargeMirrorRow e)
     {
-        String raw = String.join("|",
-            nz(e.getHisOutpatientChargeId()),
-            nz(e.getHisOutpatientChargeIdTf()),
-            nz(e.getPatientId()),
-            nz(e.getChargeItemId()),
-            nz(e.getQuantity()),
-            nz(e.getUnitPrice()),
-            nz(e.getTotalAmount()),
-            nz(e.getChargeDate()),
-            nz(e.getExecDeptId()));
-        return DigestUtils.md5DigestAsHex(raw.getBytes(StandardCharsets.UTF_8));
-    }
-
-    private static String nz(Object o)
-    {
-        if (o == null)
-        {
-            return "";
-        }
-        if (o instanceof BigDecimal)
-        {
-            return ((BigDecimal) o).stripTrailingZeros().toPlainString();
-        }
-        return String.valueOf(o);
+        return HisChargeFingerprint.begin()
+            .field(e.getHisOutpatientChargeId())
+            .field(e.getHisOutpatientChargeIdTf())
+            .field(e.getPatientId())
+            .field(e.getChargeItemId())
+            .field(e.getQuantity())
+            .field(e.getUnitPrice())
+            .field(e.getTotalAmount())
+            .field(e.getChargeDate())
+            .field(e.getExecDeptId())
+            .finish();
     }
 
     public static HisPatientChargeMirrorUnifiedRow unifiedFromInpatient(HisInpatientChargeMirrorRow e)
@@ -309,6 +295,48 @@ public final class HisChargeMirrorSyncSupport
         return s;
     }
 
+    /**
+     * 一块住院镜像行中的最大计费时间（与 {@code current} 取较大者），用于推进增量同步水位。
+     */
+    public static Date maxInpatientChargeAt(List<HisInpatientChargeMirrorRow> rows, Date current)
+    {
+        Date max = current;
+        if (rows == null)
+        {
+            return max;
+        }
+        for (HisInpatientChargeMirrorRow r : rows)
+        {
+            Date d = r != null ? r.getChargeDate() : null;
+            if (d != null && (max == null || d.after(max)))
+            {
+                max = d;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 一块门诊镜像行中的最大计费时间（门诊 charge_date 为展示串，解析后比较）。
+     */
+    public static Date maxOutpatientChargeAt(List<HisOutpatientChargeMirrorRow> rows, Date current)
+    {
+        Date max = current;
+        if (rows == null)
+        {
+            return max;
+        }
+        for (HisOutpatientChargeMirrorRow r : rows)
+        {
+            Date d = r != null ? parseChargeAtFromDisplay(r.getChargeDate()) : null;
+            if (d != null && (max == null || d.after(max)))
+            {
+                max = d;
+            }
+        }
+        return max;
+    }
+
     public static boolean isBlank(String s)
     {
         return s == null || s.trim().isEmpty();
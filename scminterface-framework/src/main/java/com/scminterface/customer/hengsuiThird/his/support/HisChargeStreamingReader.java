@@ -0,0 +1,156 @@
+package com.scminterface.customer.hengsuiThird.his.support;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HIS 计费视图流式读取：只进只读游标 + fetchSize，按固定块大小回调处理。
+ * <p>
+ * 内存峰值取决于块大小而非抓取窗口大小；每块处理完即释放，再继续读取下一块。
+ */
+public final class HisChargeStreamingReader
+{
+    private HisChargeStreamingReader()
+    {
+    }
+
+    /**
+     * 单行映射；返回 null 表示该行无效（仍计入读取总数，不进入块）。
+     */
+    public interface RowMapper<T>
+    {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * 块处理回调；回调返回后块内对象即可回收。
+     */
+    public interface ChunkHandler<T>
+    {
+        void handle(List<T> chunk) throws Exception;
+    }
+
+    /**
+     * 分段耗时：执行查询、游标取行、单行映射、块处理分开计时，行映射吞吐不受写库耗时影响。
+     */
+    public static final class StreamStats
+    {
+        private long queryNanos;
+        private long fetchNanos;
+        private long mapNanos;
+        private long handleNanos;
+
+        public long getQueryMillis()
+        {
+            return queryNanos / 1_000_000L;
+        }
+
+        public long getFetchMillis()
+        {
+            return fetchNanos / 1_000_000L;
+        }
+
+        public long getMapMillis()
+        {
+            return mapNanos / 1_000_000L;
+        }
+
+        public long getHandleMillis()
+        {
+            return handleNanos / 1_000_000L;
+        }
+
+        /** 仅按行映射耗时计算的吞吐（行/秒） */
+        public long mapRowsPerSecond(int rows)
+        {
+            return mapNanos > 0 ? rows * 1_000_000_000L / mapNanos : 0L;
+        }
+    }
+
+    /**
+     * 执行查询并按块回调。
+     *
+     * @param params 位置参数（可为 null）
+     * @return 从 HIS 读取的总行数
+     */
+    public static <T> int stream(Connection conn, String sql, Object[] params, int queryTimeoutSeconds,
+        int fetchSize, int chunkSize, RowMapper<T> mapper, ChunkHandler<T> handler) throws Exception
+    {
+        return stream(conn, sql, params, queryTimeoutSeconds, fetchSize, chunkSize, mapper, handler, new StreamStats());
+    }
+
+    /**
+     * 执行查询并按块回调，分段耗时写入 stats。
+     *
+     * @param params 位置参数（可为 null）
+     * @return 从 HIS 读取的总行数
+     */
+    public static <T> int stream(Connection conn, String sql, Object[] params, int queryTimeoutSeconds,
+        int fetchSize, int chunkSize, RowMapper<T> mapper, ChunkHandler<T> handler, StreamStats stats) throws Exception
+    {
+        int size = chunkSize > 0 ? chunkSize : 1000;
+        int total = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY))
+        {
+            if (queryTimeoutSeconds > 0)
+            {
+                pstmt.setQueryTimeout(queryTimeoutSeconds);
+            }
+            if (fetchSize > 0)
+            {
+                pstmt.setFetchSize(fetchSize);
+            }
+            if (params != null)
+            {
+                for (int i = 0; i < params.length; i++)
+                {
+                    pstmt.setObject(i + 1, params[i]);
+                }
+            }
+            long t0 = System.nanoTime();
+            try (ResultSet rs = pstmt.executeQuery())
+            {
+                long t1 = System.nanoTime();
+                stats.queryNanos += t1 - t0;
+                List<T> chunk = new ArrayList<>(size);
+                while (true)
+                {
+                    t0 = System.nanoTime();
+                    boolean hasRow = rs.next();
+                    t1 = System.nanoTime();
+                    stats.fetchNanos += t1 - t0;
+                    if (!hasRow)
+                    {
+                        break;
+                    }
+                    total++;
+                    T row = mapper.map(rs);
+                    stats.mapNanos += System.nanoTime() - t1;
+                    if (row == null)
+                    {
+                        continue;
+                    }
+                    chunk.add(row);
+                    if (chunk.size() >= size)
+                    {
+                        t0 = System.nanoTime();
+                        handler.handle(chunk);
+                        stats.handleNanos += System.nanoTime() - t0;
+                        chunk = new ArrayList<>(size);
+                    }
+                }
+                if (!chunk.isEmpty())
+                {
+                    t0 = System.nanoTime();
+                    handler.handle(chunk);
+                    stats.handleNanos += System.nanoTime() - t0;
+                }
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,175 @@
+package com.scminterface.customer.hengsuiThird.his.support;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import com.scminterface.customer.hengsuiThird.his.model.HisInpatientChargeMirrorRow;
+
+/**
+ * 住院计费视图行映射：首行时按列名解析一次列序号，之后按序号直接写入 {@link HisInpatientChargeMirrorRow}，
+ * 不经中间 Map。视图缺少的列视为 null。非线程安全，每次流式读取新建一个实例。
+ */
+public class HisInpatientChargeRowMapper implements HisChargeStreamingReader.RowMapper<HisInpatientChargeMirrorRow>
+{
+    private final String tenantId;
+    private final String fetchBatchId;
+    private final String createBy;
+    private final Date createTime;
+    private final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+    private ResultSet resolvedFor;
+    private int colChargeId;
+    private int colChargeIdTf;
+    private int colPatientId;
+    private int colPatientName;
+    private int colInpatientNo;
+    private int colDeptCode;
+    private int colDeptName;
+    private int colExecDeptId;
+    private int colExecDeptName;
+    private int colDoctorId;
+    private int colDoctorName;
+    private int colChargeItemId;
+    private int colItemName;
+    private int colSpecModel;
+    private int colBatchNo;
+    private int colExpireDate;
+    private int colUseDate;
+    private int colChargeDate;
+    private int colQuantity;
+    private int colUnitPrice;
+    private int colTotalAmount;
+    private int colChargeOperator;
+    private int colRemark;
+
+    public HisInpatientChargeRowMapper(String tenantId, String fetchBatchId, String createBy, Date createTime)
+    {
+        this.tenantId = tenantId;
+        this.fetchBatchId = fetchBatchId;
+        this.createBy = createBy;
+        this.createTime = createTime;
+    }
+
+    @Override
+    public HisInpatientChargeMirrorRow map(ResultSet rs) throws SQLException
+    {
+        if (rs != resolvedFor)
+        {
+            resolveColumns(rs);
+        }
+        String hid = HisChargeMirrorSyncSupport.toHisIdString(get(rs, colChargeId));
+        if (HisChargeMirrorSyncSupport.isBlank(hid))
+        {
+            return null;
+        }
+        HisInpatientChargeMirrorRow r = new HisInpatientChargeMirrorRow();
+        r.setTenantId(tenantId);
+        r.setFetchBatchId(fetchBatchId);
+        r.setHisInpatientChargeId(hid);
+        r.setHisInpatientChargeIdTf(HisChargeMirrorSyncSupport.toHisIdString(get(rs, colChargeIdTf)));
+        r.setPatientId(HisChargeMirrorSyncSupport.toHisIdString(get(rs, colPatientId)));
+        r.setPatientName(text(rs, colPatientName));
+        r.setInpatientNo(text(rs, colInpatientNo));
+        r.setDeptCode(text(rs, colDeptCode));
+        r.setDeptName(text(rs, colDeptName));
+        r.setExecDeptId(text(rs, colExecDeptId));
+        r.setExecDeptName(text(rs, colExecDeptName));
+        r.setDoctorId(text(rs, colDoctorId));
+        r.setDoctorName(text(rs, colDoctorName));
+        r.setChargeItemId(text(rs, colChargeItemId));
+        r.setItemName(text(rs, colItemName));
+        r.setSpecModel(text(rs, colSpecModel));
+        r.setBatchNo(text(rs, colBatchNo));
+        r.setExpireDate(dateText(get(rs, colExpireDate), sdf));
+        r.setUseDate(HisChargeMirrorSyncSupport.parseHisDateTime(get(rs, colUseDate)));
+        r.setChargeDate(HisChargeMirrorSyncSupport.parseHisDateTime(get(rs, colChargeDate)));
+        r.setQuantity(HisChargeMirrorSyncSupport.toBigDecimal(get(rs, colQuantity)));
+        r.setUnitPrice(HisChargeMirrorSyncSupport.toBigDecimal(get(rs, colUnitPrice)));
+        r.setTotalAmount(HisChargeMirrorSyncSupport.resolveDetailLineAmount(
+            r.getQuantity(), r.getUnitPrice(), HisChargeMirrorSyncSupport.toBigDecimal(get(rs, colTotalAmount))));
+        r.setChargeOperator(text(rs, colChargeOperator));
+        r.setRemark(text(rs, colRemark));
+        r.setProcessStatus("PENDING_CONSUME");
+        r.setCreateBy(createBy);
+        r.setCreateTime(createTime);
+        r.setRowFingerprint(HisChargeMirrorSyncSupport.fingerprintInpatient(r));
+        return r;
+    }
+
+    private void resolveColumns(ResultSet rs) throws SQLException
+    {
+        colChargeId = colChargeIdTf = colPatientId = colPatientName = colInpatientNo = 0;
+        colDeptCode = colDeptName = colExecDeptId = colExecDeptName = colDoctorId = colDoctorName = 0;
+        colChargeItemId = colItemName = colSpecModel = colBatchNo = colExpireDate = colUseDate = 0;
+        colChargeDate = colQuantity = colUnitPrice = colTotalAmount = colChargeOperator = colRemark = 0;
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        for (int i = 1; i <= columnCount; i++)
+        {
+            switch (metaData.getColumnName(i).toLowerCase(Locale.ROOT))
+            {
+                case "inpatient_charge_id": colChargeId = i; break;
+                case "inpatient_charge_id_tf": colChargeIdTf = i; break;
+                case "patient_id": colPatientId = i; break;
+                case "patient_name": colPatientName = i; break;
+                case "inpatient_no": colInpatientNo = i; break;
+                case "dept_code": colDeptCode = i; break;
+                case "dept_name": colDeptName = i; break;
+                case "exec_dept_id": colExecDeptId = i; break;
+                case "exec_dept_name": colExecDeptName = i; break;
+                case "doctor_id": colDoctorId = i; break;
+                case "doctor_name": colDoctorName = i; break;
+                case "charge_item_id": colChargeItemId = i; break;
+                case "item_name": colItemName = i; break;
+                case "spec_model": colSpecModel = i; break;
+                case "batch_no": colBatchNo = i; break;
+                case "expire_date": colExpireDate = i; break;
+                case "use_date": colUseDate = i; break;
+                case "charge_date": colChargeDate = i; break;
+                case "quantity": colQuantity = i; break;
+                case "unit_price": colUnitPrice = i; break;
+                case "total_amount": colTotalAmount = i; break;
+                case "charge_operator": colChargeOperator = i; break;
+                case "remark": colRemark = i; break;
+                default: break;
+            }
+        }
+        resolvedFor = rs;
+    }
+
+    /** 列序号为 0（视图无此列）时返回 null */
+    private static Object get(ResultSet rs, int column) throws SQLException
+    {
+        return column > 0 ? rs.getObject(column) : null;
+    }
+
+    /** 文本列：去首尾空格，空串视为 null */
+    private static String text(ResultSet rs, int column) throws SQLException
+    {
+        Object v = get(rs, column);
+        if (v == null)
+        {
+            return null;
+        }
+        String s = v.toString().trim();
+        return s.isEmpty() ? null : s;
+    }
+
+    /** 日期文本列（效期等）：日期类型按 yyyy-MM-dd HH:mm:ss 格式化，其余按文本处理 */
+    private static String dateText(Object v, SimpleDateFormat sdf)
+    {
+        if (v == null)
+        {
+            return null;
+        }
+        if (v instanceof Date)
+        {
+            return sdf.format((Date) v);
+        }
+        String s = v.toString().trim();
+        return s.isEmpty() ? null : s;
+    }
+}
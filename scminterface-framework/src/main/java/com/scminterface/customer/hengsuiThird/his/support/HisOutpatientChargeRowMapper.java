@@ -0,0 +1,192 @@
+package com.scminterface.customer.hengsuiThird.his.support;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import com.scminterface.customer.hengsuiThird.his.model.HisOutpatientChargeMirrorRow;
+
+/**
+ * 门诊计费视图行映射：首行时按列名解析一次列序号，之后按序号直接写入 {@link HisOutpatientChargeMirrorRow}，
+ * 不经中间 Map。视图缺少的列视为 null。非线程安全，每次流式读取新建一个实例。
+ */
+public class HisOutpatientChargeRowMapper implements HisChargeStreamingReader.RowMapper<HisOutpatientChargeMirrorRow>
+{
+    /** 门诊镜像 charge_date 为展示字符串，列宽 32 */
+    private static final int CHARGE_DATE_MAX_LENGTH = 32;
+
+    private final String tenantId;
+    private final String fetchBatchId;
+    private final String createBy;
+    private final Date createTime;
+    private final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+    private ResultSet resolvedFor;
+    private int colChargeId;
+    private int colChargeIdTf;
+    private int colPatientId;
+    private int colPatientName;
+    private int colOutpatientNo;
+    private int colClinicCode;
+    private int colClinicName;
+    private int colExecDeptId;
+    private int colExecDeptName;
+    private int colDoctorId;
+    private int colDoctorName;
+    private int colChargeItemId;
+    private int colItemName;
+    private int colSpecModel;
+    private int colBatchNo;
+    private int colExpireDate;
+    private int colChargeDate;
+    private int colQuantity;
+    private int colUnitPrice;
+    private int colTotalAmount;
+    private int colChargeOperator;
+    private int colPaymentType;
+    private int colReceiptNo;
+    private int colRemark;
+
+    public HisOutpatientChargeRowMapper(String tenantId, String fetchBatchId, String createBy, Date createTime)
+    {
+        this.tenantId = tenantId;
+        this.fetchBatchId = fetchBatchId;
+        this.createBy = createBy;
+        this.createTime = createTime;
+    }
+
+    @Override
+    public HisOutpatientChargeMirrorRow map(ResultSet rs) throws SQLException
+    {
+        if (rs != resolvedFor)
+        {
+            resolveColumns(rs);
+        }
+        String hid = HisChargeMirrorSyncSupport.toHisIdString(get(rs, colChargeId));
+        if (HisChargeMirrorSyncSupport.isBlank(hid))
+        {
+            return null;
+        }
+        HisOutpatientChargeMirrorRow r = new HisOutpatientChargeMirrorRow();
+        r.setTenantId(tenantId);
+        r.setFetchBatchId(fetchBatchId);
+        r.setHisOutpatientChargeId(hid);
+        r.setHisOutpatientChargeIdTf(HisChargeMirrorSyncSupport.toHisIdString(get(rs, colChargeIdTf)));
+        r.setPatientId(HisChargeMirrorSyncSupport.toHisIdString(get(rs, colPatientId)));
+        r.setPatientName(text(rs, colPatientName));
+        r.setOutpatientNo(text(rs, colOutpatientNo));
+        r.setClinicCode(text(rs, colClinicCode));
+        r.setClinicName(text(rs, colClinicName));
+        r.setExecDeptId(text(rs, colExecDeptId));
+        r.setExecDeptName(text(rs, colExecDeptName));
+        r.setDoctorId(text(rs, colDoctorId));
+        r.setDoctorName(text(rs, colDoctorName));
+        r.setChargeItemId(text(rs, colChargeItemId));
+        r.setItemName(text(rs, colItemName));
+        r.setSpecModel(text(rs, colSpecModel));
+        r.setBatchNo(text(rs, colBatchNo));
+        r.setExpireDate(dateText(get(rs, colExpireDate), sdf));
+        Object rawCharge = get(rs, colChargeDate);
+        Date chargeAt = HisChargeMirrorSyncSupport.parseHisDateTime(rawCharge);
+        r.setChargeDate(clip(chargeAt != null
+            ? HisChargeMirrorSyncSupport.formatChargeDateDisplay(chargeAt)
+            : (rawCharge == null ? null : String.valueOf(rawCharge))));
+        r.setQuantity(HisChargeMirrorSyncSupport.toBigDecimal(get(rs, colQuantity)));
+        r.setUnitPrice(HisChargeMirrorSyncSupport.toBigDecimal(get(rs, colUnitPrice)));
+        r.setTotalAmount(HisChargeMirrorSyncSupport.resolveDetailLineAmount(
+            r.getQuantity(), r.getUnitPrice(), HisChargeMirrorSyncSupport.toBigDecimal(get(rs, colTotalAmount))));
+        r.setChargeOperator(text(rs, colChargeOperator));
+        r.setPaymentType(text(rs, colPaymentType));
+        r.setReceiptNo(text(rs, colReceiptNo));
+        r.setRemark(text(rs, colRemark));
+        r.setProcessStatus("PENDING_CONSUME");
+        r.setCreateBy(createBy);
+        r.setCreateTime(createTime);
+        r.setRowFingerprint(HisChargeMirrorSyncSupport.fingerprintOutpatient(r));
+        return r;
+    }
+
+    private void resolveColumns(ResultSet rs) throws SQLException
+    {
+        colChargeId = colChargeIdTf = colPatientId = colPatientName = colOutpatientNo = colClinicCode = 0;
+        colClinicName = colExecDeptId = colExecDeptName = colDoctorId = colDoctorName = colChargeItemId = 0;
+        colItemName = colSpecModel = colBatchNo = colExpireDate = colChargeDate = colQuantity = 0;
+        colUnitPrice = colTotalAmount = colChargeOperator = colPaymentType = colReceiptNo = colRemark = 0;
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+        for (int i = 1; i <= columnCount; i++)
+        {
+            switch (metaData.getColumnName(i).toLowerCase(Locale.ROOT))
+            {
+                case "outpatient_charge_id": colChargeId = i; break;
+                case "outpatient_charge_id_tf": colChargeIdTf = i; break;
+                case "patient_id": colPatientId = i; break;
+                case "patient_name": colPatientName = i; break;
+                case "outpatient_no": colOutpatientNo = i; break;
+                case "clinic_code": colClinicCode = i; break;
+                case "clinic_name": colClinicName = i; break;
+                case "exec_dept_id": colExecDeptId = i; break;
+                case "exec_dept_name": colExecDeptName = i; break;
+                case "doctor_id": colDoctorId = i; break;
+                case "doctor_name": colDoctorName = i; break;
+                case "charge_item_id": colChargeItemId = i; break;
+                case "item_name": colItemName = i; break;
+                case "spec_model": colSpecModel = i; break;
+                case "batch_no": colBatchNo = i; break;
+                case "expire_date": colExpireDate = i; break;
+                case "charge_date": colChargeDate = i; break;
+                case "quantity": colQuantity = i; break;
+                case "unit_price": colUnitPrice = i; break;
+                case "total_amount": colTotalAmount = i; break;
+                case "charge_operator": colChargeOperator = i; break;
+                case "payment_type": colPaymentType = i; break;
+                case "receipt_no": colReceiptNo = i; break;
+                case "remark": colRemark = i; break;
+                default: break;
+            }
+        }
+        resolvedFor = rs;
+    }
+
+    private static String clip(String s)
+    {
+        if (s == null)
+        {
+            return null;
+        }
+        String t = s.trim();
+        return t.length() > CHARGE_DATE_MAX_LENGTH ? t.substring(0, CHARGE_DATE_MAX_LENGTH) : t;
+    }
+
+    private static Object get(ResultSet rs, int column) throws SQLException
+    {
+        return column > 0 ? rs.getObject(column) : null;
+    }
+
+    private static String text(ResultSet rs, int column) throws SQLException
+    {
+        Object v = get(rs, column);
+        if (v == null)
+        {
+            return null;
+        }
+        String s = v.toString().trim();
+        return s.isEmpty() ? null : s;
+    }
+
+    private static String dateText(Object v, SimpleDateFormat sdf)
+    {
+        if (v == null)
+        {
+            return null;
+        }
+        if (v instanceof Date)
+        {
+            return sdf.format((Date) v);
+        }
+        String s = v.toString().trim();
+        return s.isEmpty() ? null : s;
+    }
+}
@@ -5,17 +5,21 @@ import com.scminterface.common.core.domain.AjaxResult;
 import com.scminterface.customer.msun.hospital.zaoqiangtcm.ZaoqiangTcmHospitalConstants;
 import com.scminterface.customer.msun.hospital.zaoqiangtcm.config.ZaoqiangTcmMsunProperties;
 import com.scminterface.customer.msun.spd.sync.service.MsunSpdMasterPullService;
+import com.scminterface.customer.msun.spd.sync.service.MsunSpdMasterSyncJobService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -31,13 +35,42 @@ public class ZaoqiangTcmMsunMasterSyncController
 
     private final MsunSpdMasterPullService pullService;
     private final ZaoqiangTcmMsunProperties msunProperties;
+    private final MsunSpdMasterSyncJobService syncJobService;
 
     public ZaoqiangTcmMsunMasterSyncController(
             MsunSpdMasterPullService pullService,
-            ZaoqiangTcmMsunProperties msunProperties)
+            ZaoqiangTcmMsunProperties msunProperties,
+            MsunSpdMasterSyncJobService syncJobService)
     {
         this.pullService = pullService;
         this.msunProperties = msunProperties;
+        this.syncJobService = syncJobService;
+    }
+
+    @ApiOperation("SPD 主数据异步同步任务列表与队列统计（可按 apiCode / status 过滤）")
+    @GetMapping("/jobs")
+    public AjaxResult listJobs(
+            @RequestParam(required = false) String apiCode,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "50") int limit)
+    {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("metrics", syncJobService.getMetrics());
+        data.put("jobs", syncJobService.listJobs(
+                ZaoqiangTcmHospitalConstants.HOSPITAL_KEY, parseString(apiCode), parseString(status), limit));
+        return AjaxResult.success(data);
+    }
+
+    @ApiOperation("SPD 主数据异步同步任务状态（任务号见同步结果 spdJobIds）")
+    @GetMapping("/jobs/{jobId}")
+    public AjaxResult getJob(@PathVariable String jobId)
+    {
+        Map<String, Object> job = syncJobService.getJob(jobId);
+        if (job == null || !ZaoqiangTcmHospitalConstants.HOSPITAL_KEY.equals(job.get("hospitalKey")))
+        {
+            return AjaxResult.error("同步任务不存在或已过期: " + jobId);
+        }
+        return AjaxResult.success(job);
     }
 
     @ApiOperation("单条耗材档案同步（2.5.44，按 drugId / drugSpecPackingId）")
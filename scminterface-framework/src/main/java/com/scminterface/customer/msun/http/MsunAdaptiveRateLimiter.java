@@ -0,0 +1,106 @@
+package com.scminterface.customer.msun.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单个医院单个接口的自适应令牌桶（线程安全）。
+ * <p>
+ * 令牌按当前速率连续补充，桶容量即允许的突发请求数；HIS 响应快且成功时速率线性上调，
+ * 变慢时小幅下调，429/5xx/超时等错误时减半并清空积攒的令牌（加性增、乘性减）。
+ */
+public class MsunAdaptiveRateLimiter
+{
+    private final double minRate;
+    private final double maxRate;
+    private final double burst;
+    private final double increaseStep;
+    private final long slowLatencyMillis;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+    private long throttledMillis;
+    private long decreases;
+
+    public MsunAdaptiveRateLimiter(double initialRate, double minRate, double maxRate, int burst,
+            double increaseStep, long slowLatencyMillis)
+    {
+        this.minRate = Math.max(0.01d, minRate);
+        this.maxRate = Math.max(this.minRate, maxRate);
+        this.burst = Math.max(1, burst);
+        this.increaseStep = Math.max(0d, increaseStep);
+        this.slowLatencyMillis = slowLatencyMillis;
+        this.rate = clamp(initialRate);
+        this.tokens = 1d;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * 取得一个令牌，必要时等待。令牌在锁内预占（可为负），等待在锁外进行，并发调用按预占顺序排队。
+     */
+    public void acquire() throws InterruptedException
+    {
+        long waitMillis;
+        synchronized (this)
+        {
+            refill();
+            tokens -= 1d;
+            waitMillis = tokens >= 0 ? 0L : (long) Math.ceil(-tokens / rate * 1000d);
+            throttledMillis += waitMillis;
+        }
+        if (waitMillis > 0)
+        {
+            Thread.sleep(waitMillis);
+        }
+    }
+
+    /** 调用成功（HTTP 2xx-4xx 且非 429） */
+    public synchronized void onSuccess(long latencyMillis)
+    {
+        refill();
+        if (slowLatencyMillis > 0 && latencyMillis > slowLatencyMillis)
+        {
+            rate = clamp(rate * 0.9d);
+            decreases++;
+        }
+        else
+        {
+            rate = clamp(rate + increaseStep);
+        }
+    }
+
+    /** 限流、服务端错误或超时 */
+    public synchronized void onError()
+    {
+        refill();
+        rate = clamp(rate * 0.5d);
+        tokens = Math.min(tokens, 0d);
+        decreases++;
+    }
+
+    public synchronized Map<String, Object> toMap()
+    {
+        refill();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("ratePerSecond", Math.round(rate * 100d) / 100d);
+        m.put("tokens", Math.round(tokens * 100d) / 100d);
+        m.put("burst", (int) burst);
+        m.put("throttledMillis", throttledMillis);
+        m.put("decreases", decreases);
+        return m;
+    }
+
+    private void refill()
+    {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastRefillNanos) / 1_000_000_000d;
+        lastRefillNanos = now;
+        tokens = Math.min(burst, tokens + elapsedSeconds * rate);
+    }
+
+    private double clamp(double value)
+    {
+        return Math.max(minRate, Math.min(maxRate, value));
+    }
+}
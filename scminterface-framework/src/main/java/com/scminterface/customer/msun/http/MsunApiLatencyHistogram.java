@@ -0,0 +1,108 @@
+package com.scminterface.customer.msun.http;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个众阳接口的耗时直方图（固定分桶，按每次 HTTP 尝试计）与调用计数，线程安全。
+ * 分位数取所在桶上界，超出最大桶时取观测到的最大值。
+ */
+public class MsunApiLatencyHistogram
+{
+    /** 分桶上界（毫秒） */
+    private static final long[] BOUNDS = {25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder httpErrors = new LongAdder();
+    private final LongAdder totalMillis = new LongAdder();
+    private final AtomicLong maxMillis = new AtomicLong();
+
+    public void recordCall()
+    {
+        calls.increment();
+    }
+
+    public void recordAttempt(long millis, int httpStatus)
+    {
+        attempts.increment();
+        totalMillis.add(millis);
+        maxMillis.accumulateAndGet(millis, Math::max);
+        int i = 0;
+        while (i < BOUNDS.length && millis > BOUNDS[i])
+        {
+            i++;
+        }
+        buckets.incrementAndGet(i);
+        if (httpStatus >= 400)
+        {
+            httpErrors.increment();
+        }
+    }
+
+    public void recordRetry()
+    {
+        retries.increment();
+    }
+
+    /** 重试用尽或不可重试的失败（IO 异常） */
+    public void recordFailure()
+    {
+        failures.increment();
+    }
+
+    public Map<String, Object> toMap()
+    {
+        long[] counts = new long[buckets.length()];
+        long n = 0;
+        for (int i = 0; i < counts.length; i++)
+        {
+            counts[i] = buckets.get(i);
+            n += counts[i];
+        }
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("calls", calls.sum());
+        m.put("attempts", attempts.sum());
+        m.put("retries", retries.sum());
+        m.put("failures", failures.sum());
+        m.put("httpErrors", httpErrors.sum());
+        m.put("avgMillis", n > 0 ? totalMillis.sum() / n : 0L);
+        long max = maxMillis.get();
+        m.put("maxMillis", max);
+        m.put("p50Millis", percentile(counts, n, max, 0.50));
+        m.put("p95Millis", percentile(counts, n, max, 0.95));
+        m.put("p99Millis", percentile(counts, n, max, 0.99));
+        Map<String, Object> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++)
+        {
+            histogram.put(i < BOUNDS.length ? "le" + BOUNDS[i] : "gt" + BOUNDS[BOUNDS.length - 1], counts[i]);
+        }
+        m.put("histogram", histogram);
+        return m;
+    }
+
+    private static long percentile(long[] counts, long n, long max, double p)
+    {
+        if (n == 0)
+        {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(p * n);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++)
+        {
+            seen += counts[i];
+            if (seen >= rank)
+            {
+                return i < BOUNDS.length ? Math.min(BOUNDS[i], max) : max;
+            }
+        }
+        return max;
+    }
+}
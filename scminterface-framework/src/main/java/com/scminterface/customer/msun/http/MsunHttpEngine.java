@@ -0,0 +1,293 @@
+package com.scminterface.customer.msun.http;
+
+import cn.hutool.core.net.url.UrlBuilder;
+import com.scminterface.customer.msun.http.config.MsunHttpProperties;
+import com.scminterface.customer.msun.support.MsunSignedHttpResult;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 众阳 OpenAPI 共享 HTTP 引擎：独立连接池（按医院 HIS 地址限制连接数并 keep-alive 复用，不占用 RestTemplate 连接池）、
+ * 连接/读取超时、查询重试、按医院按接口的自适应限流（{@link MsunAdaptiveRateLimiter}），以及按接口路径统计耗时直方图。
+ * <p>
+ * 只对幂等调用重试（GET 查询及调用方声明为查询的 POST），2.5.41/2.5.42 等推送失败直接抛出，避免 HIS 重复入账。
+ * 每次尝试重新生成请求（签名含时间戳）。
+ */
+@Component
+public class MsunHttpEngine
+{
+    private static final Logger log = LoggerFactory.getLogger(MsunHttpEngine.class);
+
+    private static final long MAX_BACKOFF_MILLIS = 10_000L;
+
+    @Autowired
+    private MsunHttpProperties properties;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    private CloseableHttpClient httpClient;
+
+    private final Map<String, MsunApiLatencyHistogram> latency = new ConcurrentHashMap<>();
+
+    /** key 为 host:port + 接口路径 */
+    private final Map<String, MsunAdaptiveRateLimiter> limiters = new ConcurrentHashMap<>();
+
+    /** 一次尝试的请求（每次尝试重新生成，签名随时间戳变化） */
+    public interface RequestFactory
+    {
+        MsunHttpRequest create() throws Exception;
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(Math.max(1, properties.getMaxTotal()));
+        connectionManager.setDefaultMaxPerRoute(Math.max(1, properties.getMaxPerRoute()));
+        connectionManager.setValidateAfterInactivity(2000);
+        long defaultKeepAlive = Math.max(1, properties.getKeepAliveSeconds()) * 1000L;
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(properties.getConnectTimeoutMillis())
+                .setSocketTimeout(properties.getReadTimeoutMillis())
+                .setConnectionRequestTimeout(properties.getConnectionRequestTimeoutMillis())
+                .build();
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return duration > 0 ? duration : defaultKeepAlive;
+                })
+                // 重试由本类按幂等性控制，关闭 HttpClient 自带重试
+                .disableAutomaticRetries()
+                .evictExpiredConnections()
+                .evictIdleConnections(Math.max(1, properties.getIdleEvictSeconds()), TimeUnit.SECONDS)
+                .build();
+        log.info("众阳 HTTP 连接池已创建，单医院连接数: {}，总连接数: {}，连接/读取超时: {}ms/{}ms，查询重试: {} 次",
+                connectionManager.getDefaultMaxPerRoute(), connectionManager.getMaxTotal(),
+                properties.getConnectTimeoutMillis(), properties.getReadTimeoutMillis(), properties.getMaxRetries());
+    }
+
+    @PreDestroy
+    public void close() throws IOException
+    {
+        if (httpClient != null)
+        {
+            httpClient.close();
+        }
+    }
+
+    /**
+     * 执行调用
+     *
+     * @param url 接口地址（不含查询串亦可；按其 host:port 与路径分组限流、统计耗时）
+     * @param idempotent 是否可重试（查询 true，推送 false）
+     * @param factory 生成单次请求（限流等待之后才调用，签名时间戳不受等待影响）
+     */
+    public MsunSignedHttpResult execute(String url, boolean idempotent, RequestFactory factory) throws Exception
+    {
+        String apiPath = apiPathOf(url);
+        MsunAdaptiveRateLimiter limiter = limiterFor(url, apiPath);
+        MsunApiLatencyHistogram histogram = latency.computeIfAbsent(apiPath, k -> new MsunApiLatencyHistogram());
+        histogram.recordCall();
+        int maxRetries = idempotent ? Math.max(0, properties.getMaxRetries()) : 0;
+        for (int attempt = 0; ; attempt++)
+        {
+            if (limiter != null)
+            {
+                limiter.acquire();
+            }
+            MsunHttpRequest request = factory.create();
+            long start = System.currentTimeMillis();
+            try
+            {
+                MsunSignedHttpResult result = send(request);
+                long elapsed = System.currentTimeMillis() - start;
+                histogram.recordAttempt(elapsed, result.getHttpStatus());
+                if (limiter != null)
+                {
+                    if (result.getHttpStatus() == 429 || result.getHttpStatus() >= 500)
+                    {
+                        limiter.onError();
+                    }
+                    else
+                    {
+                        limiter.onSuccess(elapsed);
+                    }
+                }
+                if (attempt < maxRetries && properties.getRetryStatuses().contains(result.getHttpStatus()))
+                {
+                    histogram.recordRetry();
+                    log.warn("众阳接口 {} 返回 HTTP {}，{}ms 后第 {} 次重试", apiPath, result.getHttpStatus(),
+                            backoff(attempt), attempt + 1);
+                    sleep(backoff(attempt));
+                    continue;
+                }
+                return result;
+            }
+            catch (IOException ex)
+            {
+                histogram.recordAttempt(System.currentTimeMillis() - start, 0);
+                if (limiter != null)
+                {
+                    limiter.onError();
+                }
+                if (attempt >= maxRetries)
+                {
+                    histogram.recordFailure();
+                    throw ex;
+                }
+                histogram.recordRetry();
+                log.warn("众阳接口 {} 调用异常（{}），{}ms 后第 {} 次重试", apiPath, ex.toString(), backoff(attempt), attempt + 1);
+                sleep(backoff(attempt));
+            }
+        }
+    }
+
+    /**
+     * 连接池与各接口耗时统计
+     */
+    public Map<String, Object> getMetrics()
+    {
+        Map<String, Object> m = new LinkedHashMap<>();
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("total", toMap(connectionManager.getTotalStats()));
+        Map<String, Object> routes = new TreeMap<>();
+        for (HttpRoute route : connectionManager.getRoutes())
+        {
+            routes.put(route.getTargetHost().toURI(), toMap(connectionManager.getStats(route)));
+        }
+        pool.put("routes", routes);
+        m.put("pool", pool);
+        Map<String, Object> apis = new TreeMap<>();
+        for (Map.Entry<String, MsunApiLatencyHistogram> e : latency.entrySet())
+        {
+            apis.put(e.getKey(), e.getValue().toMap());
+        }
+        m.put("apis", apis);
+        Map<String, Object> rateLimits = new TreeMap<>();
+        for (Map.Entry<String, MsunAdaptiveRateLimiter> e : limiters.entrySet())
+        {
+            rateLimits.put(e.getKey(), e.getValue().toMap());
+        }
+        m.put("rateLimits", rateLimits);
+        return m;
+    }
+
+    private MsunAdaptiveRateLimiter limiterFor(String url, String apiPath)
+    {
+        MsunHttpProperties.RateLimit cfg = properties.getRateLimit();
+        if (cfg == null || !cfg.isEnabled())
+        {
+            return null;
+        }
+        return limiters.computeIfAbsent(hostOf(url) + apiPath, k -> new MsunAdaptiveRateLimiter(
+                cfg.getInitialPerSecond(), cfg.getMinPerSecond(), cfg.getMaxPerSecond(), cfg.getBurst(),
+                cfg.getIncreaseStep(), cfg.getSlowLatencyMillis()));
+    }
+
+    /** 去掉协议、主机与查询串，作为限流与耗时统计的接口标识 */
+    private static String apiPathOf(String url)
+    {
+        int start = url.indexOf("://");
+        int pathStart = url.indexOf('/', start >= 0 ? start + 3 : 0);
+        if (pathStart < 0)
+        {
+            return "/";
+        }
+        int query = url.indexOf('?', pathStart);
+        return query >= 0 ? url.substring(pathStart, query) : url.substring(pathStart);
+    }
+
+    /** 协议后至第一个 / 之间的 host:port */
+    private static String hostOf(String url)
+    {
+        int start = url.indexOf("://");
+        start = start >= 0 ? start + 3 : 0;
+        int end = url.indexOf('/', start);
+        return end >= 0 ? url.substring(start, end) : url.substring(start);
+    }
+
+    private MsunSignedHttpResult send(MsunHttpRequest request) throws IOException
+    {
+        URI uri = UrlBuilder.ofHttp(request.getUrl(), StandardCharsets.UTF_8).toURI();
+        HttpRequestBase http;
+        if ("POST".equals(request.getMethod()))
+        {
+            HttpPost post = new HttpPost(uri);
+            post.setEntity(new StringEntity(request.getBody() != null ? request.getBody() : "", ContentType.APPLICATION_JSON));
+            http = post;
+        }
+        else
+        {
+            http = new HttpGet(uri);
+        }
+        for (Map.Entry<String, String> h : request.getHeaders().entrySet())
+        {
+            http.setHeader(h.getKey(), h.getValue());
+        }
+        try (CloseableHttpResponse response = httpClient.execute(http))
+        {
+            String body = response.getEntity() != null
+                    ? EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8)
+                    : null;
+            return new MsunSignedHttpResult(
+                    request.getMethod(),
+                    request.getUrl(),
+                    request.getHeaders(),
+                    request.getBody(),
+                    body,
+                    response.getStatusLine().getStatusCode());
+        }
+    }
+
+    private long backoff(int attempt)
+    {
+        long base = Math.max(0L, properties.getRetryBackoffMillis());
+        return Math.min(MAX_BACKOFF_MILLIS, base << Math.min(attempt, 10));
+    }
+
+    private static void sleep(long millis) throws InterruptedException
+    {
+        if (millis > 0)
+        {
+            Thread.sleep(millis);
+        }
+    }
+
+    private static Map<String, Object> toMap(PoolStats stats)
+    {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("leased", stats.getLeased());
+        m.put("available", stats.getAvailable());
+        m.put("pending", stats.getPending());
+        m.put("max", stats.getMax());
+        return m;
+    }
+}
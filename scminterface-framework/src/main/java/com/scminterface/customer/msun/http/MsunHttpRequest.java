@@ -0,0 +1,53 @@
+package com.scminterface.customer.msun.http;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 众阳 OpenAPI 单次 HTTP 请求（已签名）。
+ */
+public class MsunHttpRequest
+{
+    private final String method;
+    private final String url;
+    private final Map<String, String> headers;
+    private final String body;
+
+    public MsunHttpRequest(String method, String url, Map<String, String> headers, String body)
+    {
+        this.method = method;
+        this.url = url;
+        this.headers = headers == null ? Collections.emptyMap() : headers;
+        this.body = body;
+    }
+
+    public static MsunHttpRequest get(String url, Map<String, String> headers)
+    {
+        return new MsunHttpRequest("GET", url, headers, null);
+    }
+
+    public static MsunHttpRequest post(String url, Map<String, String> headers, String body)
+    {
+        return new MsunHttpRequest("POST", url, headers, body);
+    }
+
+    public String getMethod()
+    {
+        return method;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    public Map<String, String> getHeaders()
+    {
+        return headers;
+    }
+
+    public String getBody()
+    {
+        return body;
+    }
+}
@@ -0,0 +1,10 @@
+package com.scminterface.customer.msun.http.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(MsunHttpProperties.class)
+public class MsunHttpConfiguration
+{
+}
@@ -0,0 +1,250 @@
+package com.scminterface.customer.msun.http.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 众阳 OpenAPI HTTP 连接池、超时与重试配置（各医院客户共用）。
+ */
+@ConfigurationProperties(prefix = "scminterface.vendor.msun.http")
+public class MsunHttpProperties
+{
+    /** 建立连接超时（毫秒） */
+    private int connectTimeoutMillis = 5000;
+
+    /** 读取响应超时（毫秒）；HIS 单次调用最长等待该时长 */
+    private int readTimeoutMillis = 30000;
+
+    /** 连接数已满时等待取连接超时（毫秒） */
+    private int connectionRequestTimeoutMillis = 5000;
+
+    /** 每个医院 HIS 地址（host:port）最大连接数 */
+    private int maxPerRoute = 8;
+
+    /** 连接池总连接数 */
+    private int maxTotal = 32;
+
+    /** 服务端未返回 Keep-Alive 时连接保活秒数 */
+    private int keepAliveSeconds = 30;
+
+    /** 空闲超过该秒数的连接由后台线程关闭 */
+    private int idleEvictSeconds = 30;
+
+    /** 查询（GET 及标记为幂等的 POST 查询）失败后最多重试次数；推送接口不重试 */
+    private int maxRetries = 2;
+
+    /** 首次重试等待（毫秒），之后每次翻倍 */
+    private long retryBackoffMillis = 500L;
+
+    /** 查询返回这些 HTTP 状态码时重试（连接/读取超时等 IO 异常总是重试） */
+    private List<Integer> retryStatuses = new ArrayList<>(Arrays.asList(429, 502, 503, 504));
+
+    /** 按医院、按接口的自适应限流（替代分页/链式调用间的固定间隔） */
+    private RateLimit rateLimit = new RateLimit();
+
+    public int getConnectTimeoutMillis()
+    {
+        return connectTimeoutMillis;
+    }
+
+    public void setConnectTimeoutMillis(int connectTimeoutMillis)
+    {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public int getReadTimeoutMillis()
+    {
+        return readTimeoutMillis;
+    }
+
+    public void setReadTimeoutMillis(int readTimeoutMillis)
+    {
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    public int getConnectionRequestTimeoutMillis()
+    {
+        return connectionRequestTimeoutMillis;
+    }
+
+    public void setConnectionRequestTimeoutMillis(int connectionRequestTimeoutMillis)
+    {
+        this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+    }
+
+    public int getMaxPerRoute()
+    {
+        return maxPerRoute;
+    }
+
+    public void setMaxPerRoute(int maxPerRoute)
+    {
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    public int getMaxTotal()
+    {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal)
+    {
+        this.maxTotal = maxTotal;
+    }
+
+    public int getKeepAliveSeconds()
+    {
+        return keepAliveSeconds;
+    }
+
+    public void setKeepAliveSeconds(int keepAliveSeconds)
+    {
+        this.keepAliveSeconds = keepAliveSeconds;
+    }
+
+    public int getIdleEvictSeconds()
+    {
+        return idleEvictSeconds;
+    }
+
+    public void setIdleEvictSeconds(int idleEvictSeconds)
+    {
+        this.idleEvictSeconds = idleEvictSeconds;
+    }
+
+    public int getMaxRetries()
+    {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries)
+    {
+        this.maxRetries = maxRetries;
+    }
+
+    public long getRetryBackoffMillis()
+    {
+        return retryBackoffMillis;
+    }
+
+    public void setRetryBackoffMillis(long retryBackoffMillis)
+    {
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    public List<Integer> getRetryStatuses()
+    {
+        return retryStatuses;
+    }
+
+    public void setRetryStatuses(List<Integer> retryStatuses)
+    {
+        this.retryStatuses = retryStatuses;
+    }
+
+    public RateLimit getRateLimit()
+    {
+        return rateLimit;
+    }
+
+    public void setRateLimit(RateLimit rateLimit)
+    {
+        this.rateLimit = rateLimit;
+    }
+
+    /** 自适应令牌桶配置 */
+    public static class RateLimit
+    {
+        private boolean enabled = true;
+
+        /** 初始速率（次/秒），约等于原分页固定间隔 300ms */
+        private double initialPerSecond = 3d;
+
+        /** 速率下限（次/秒），HIS 持续报错时降到该值 */
+        private double minPerSecond = 0.5d;
+
+        /** 速率上限（次/秒） */
+        private double maxPerSecond = 20d;
+
+        /** 允许的突发请求数（令牌桶容量） */
+        private int burst = 5;
+
+        /** 每次快速成功后速率增加量（次/秒） */
+        private double increaseStep = 0.25d;
+
+        /** 单次耗时超过该毫秒数视为 HIS 变慢，速率下调 10% */
+        private long slowLatencyMillis = 3000L;
+
+        public boolean isEnabled()
+        {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled)
+        {
+            this.enabled = enabled;
+        }
+
+        public double getInitialPerSecond()
+        {
+            return initialPerSecond;
+        }
+
+        public void setInitialPerSecond(double initialPerSecond)
+        {
+            this.initialPerSecond = initialPerSecond;
+        }
+
+        public double getMinPerSecond()
+        {
+            return minPerSecond;
+        }
+
+        public void setMinPerSecond(double minPerSecond)
+        {
+            this.minPerSecond = minPerSecond;
+        }
+
+        public double getMaxPerSecond()
+        {
+            return maxPerSecond;
+        }
+
+        public void setMaxPerSecond(double maxPerSecond)
+        {
+            this.maxPerSecond = maxPerSecond;
+        }
+
+        public int getBurst()
+        {
+            return burst;
+        }
+
+        public void setBurst(int burst)
+        {
+            this.burst = burst;
+        }
+
+        public double getIncreaseStep()
+        {
+            return increaseStep;
+        }
+
+        public void setIncreaseStep(double increaseStep)
+        {
+            this.increaseStep = increaseStep;
+        }
+
+        public long getSlowLatencyMillis()
+        {
+            return slowLatencyMillis;
+        }
+
+        public void setSlowLatencyMillis(long slowLatencyMillis)
+        {
+            this.slowLatencyMillis = slowLatencyMillis;
+        }
+    }
+}
@@ -19,6 +19,17 @@ public class MsunHisMirrorProperties
     /** 自动建表失败时是否中断当前请求（false 仅记日志，与 scm.schema.fail-on-error 一致） */
     private boolean schemaFailOnError = false;
 
+    /** 多行 upsert 每条 SQL 最多行数（另受 max_allowed_packet 限制）；≤1 时逐行写入 */
+    private int batchSize = 500;
+
+    /** 分块事务行数：每块独立提交并在 m_msun_sync_batch 登记进度，失败块回滚后继续下一块；≤0 时整批一个事务 */
+    private int chunkSize = 1000;
+
+    /**
+     * raw_item_json 原始行备份：full 原文（默认）、gzip 压缩后 Base64（前缀 gz:，镜像查询时自动还原）、off 不写入。
+     */
+    private String rawItemJson = "full";
+
     public boolean isEnabled()
     {
         return enabled;
@@ -48,4 +59,34 @@ public class MsunHisMirrorProperties
     {
         this.schemaFailOnError = schemaFailOnError;
     }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    public int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize)
+    {
+        this.chunkSize = chunkSize;
+    }
+
+    public String getRawItemJson()
+    {
+        return rawItemJson;
+    }
+
+    public void setRawItemJson(String rawItemJson)
+    {
+        this.rawItemJson = rawItemJson;
+    }
 }
@@ -19,6 +19,16 @@ public interface MsunHisMirrorMapper
     @InsertProvider(type = MsunHisMirrorSqlProvider.class, method = "upsertMirrorRow")
     int upsertMirrorRow(@Param("table") String table, @Param("row") Map<String, Object> row);
 
+    /** 多行 upsert，rows 各行须含 columns 全部列 */
+    @InsertProvider(type = MsunHisMirrorSqlProvider.class, method = "upsertMirrorRows")
+    int upsertMirrorRows(
+            @Param("table") String table,
+            @Param("columns") List<String> columns,
+            @Param("rows") List<Map<String, Object>> rows);
+
+    @SelectProvider(type = MsunHisMirrorSqlProvider.class, method = "selectMaxAllowedPacket")
+    Long selectMaxAllowedPacket();
+
     @UpdateProvider(type = MsunHisMirrorSqlProvider.class, method = "backfillDrugDictMaterialOrDrug")
     int backfillDrugDictMaterialOrDrug(Map<String, Object> params);
 
@@ -0,0 +1,152 @@
+package com.scminterface.customer.msun.mirror.service;
+
+import com.scminterface.customer.msun.mirror.mapper.MsunHisMirrorMapper;
+import com.scminterface.customer.msun.mirror.support.MsunHisMirrorRowSupport;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 镜像行批量 upsert 缓冲（单次落库内使用，非线程安全）。
+ * <p>
+ * 按 表 + 列集合 分组（HIS 省略空字段时各行列集合不同，分组后仍保持「未返回字段不覆盖」的单行语义），
+ * 每组达到行数上限或估算 SQL 体积接近 max_allowed_packet 时写出一条多行 INSERT … ON DUPLICATE KEY UPDATE。
+ * 同一唯一键在一次落库中以不同列集合重复出现时，写入顺序按分组而非原始顺序。
+ */
+final class MsunHisMirrorBatchWriter
+{
+    /** MySQL 单条语句占位符上限 65535，留余量 */
+    private static final int MAX_PLACEHOLDERS = 60000;
+
+    private final MsunHisMirrorMapper mirrorMapper;
+    private final int maxRows;
+    private final long maxBytes;
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+
+    private int statements;
+
+    MsunHisMirrorBatchWriter(MsunHisMirrorMapper mirrorMapper, int maxRows, long maxBytes)
+    {
+        this.mirrorMapper = mirrorMapper;
+        this.maxRows = Math.max(1, maxRows);
+        this.maxBytes = Math.max(1L, maxBytes);
+    }
+
+    /**
+     * 补主键与时间戳后加入缓冲；batch-size≤1 时直接单行写入。
+     */
+    void add(String table, Map<String, Object> row)
+    {
+        MsunHisMirrorRowSupport.ensurePrimaryKey(table, row);
+        MsunHisMirrorRowSupport.stampTimestamps(row);
+        if (maxRows <= 1)
+        {
+            mirrorMapper.upsertMirrorRow(table, row);
+            statements++;
+            return;
+        }
+        List<String> columns = new ArrayList<>(row.size());
+        for (String key : row.keySet())
+        {
+            if (MsunHisMirrorRowSupport.isValidColumn(key))
+            {
+                columns.add(key);
+            }
+        }
+        if (columns.isEmpty())
+        {
+            throw new IllegalArgumentException("镜像行无有效列");
+        }
+        Collections.sort(columns);
+        String groupKey = table + '|' + String.join(",", columns);
+        Group group = groups.get(groupKey);
+        if (group == null)
+        {
+            group = new Group(table, columns);
+            groups.put(groupKey, group);
+        }
+        long rowBytes = estimateBytes(row, columns);
+        int rowLimit = Math.min(maxRows, Math.max(1, MAX_PLACEHOLDERS / columns.size()));
+        if (!group.rows.isEmpty() && (group.rows.size() >= rowLimit || group.bytes + rowBytes > maxBytes))
+        {
+            write(group);
+        }
+        group.rows.add(row);
+        group.bytes += rowBytes;
+    }
+
+    /**
+     * 写出全部缓冲行（依赖已写入数据的操作前、落库结束时调用）
+     */
+    void flush()
+    {
+        for (Group group : groups.values())
+        {
+            if (!group.rows.isEmpty())
+            {
+                write(group);
+            }
+        }
+        groups.clear();
+    }
+
+    /** 已执行的 SQL 条数 */
+    int getStatements()
+    {
+        return statements;
+    }
+
+    private void write(Group group)
+    {
+        if (group.rows.size() == 1)
+        {
+            mirrorMapper.upsertMirrorRow(group.table, group.rows.get(0));
+        }
+        else
+        {
+            mirrorMapper.upsertMirrorRows(group.table, group.columns, group.rows);
+        }
+        statements++;
+        group.rows = new ArrayList<>();
+        group.bytes = 0L;
+    }
+
+    /** 按 utf8mb4 中文 3 字节、转义与分隔符余量粗估该行在 SQL 中的体积 */
+    private static long estimateBytes(Map<String, Object> row, List<String> columns)
+    {
+        long bytes = 4L;
+        for (String col : columns)
+        {
+            Object value = row.get(col);
+            if (value == null)
+            {
+                bytes += 6L;
+            }
+            else if (value instanceof CharSequence)
+            {
+                bytes += ((CharSequence) value).length() * 3L + 4L;
+            }
+            else
+            {
+                bytes += 24L;
+            }
+        }
+        return bytes;
+    }
+
+    private static final class Group
+    {
+        private final String table;
+        private final List<String> columns;
+        private List<Map<String, Object>> rows = new ArrayList<>();
+        private long bytes;
+
+        private Group(String table, List<String> columns)
+        {
+            this.table = table;
+            this.columns = columns;
+        }
+    }
+}
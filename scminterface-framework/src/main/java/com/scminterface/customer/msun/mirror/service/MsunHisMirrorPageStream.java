@@ -0,0 +1,178 @@
+package com.scminterface.customer.msun.mirror.service;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.scminterface.customer.msun.hospital.MsunHospitalRuntime;
+import com.scminterface.customer.msun.mirror.support.MsunHisMirrorChunkReport;
+import com.scminterface.customer.msun.mirror.support.MsunHisMirrorSyncOutcome;
+import com.scminterface.customer.msun.spd.sync.service.MsunSpdMasterSyncJobService;
+import com.scminterface.customer.msun.spd.sync.support.MsunHisPaginationSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 分页流式落库：每页到达即写镜像并提交 SPD 主数据同步（异步时每页一个任务），仅累计汇总，由 {@link MsunHisMirrorSyncService#openPageStream} 创建。
+ * <p>
+ * 每页使用独立批次号「基础批次号-P页码」（m_msun_sync_batch 每页一行），SPD 主数据按页批次读取镜像，
+ * 不再一次读出整个字典；outcome 的 syncBatchNo 为基础批次号，mirrorRows/spdRows 为各页累计。
+ * 翻页结束后基础批次登记于 m_msun_sync_batch（页批次的 parent_batch_no 指向它），按基础批次查询、探针手动同步时匹配全部页。
+ * 某页镜像写入失败不中止翻页，失败页批次列于 outcome 的 mirrorFailedBatches；SPD 队列满时整次拉取累计最多等待
+ * submit-wait-millis，用尽后不再等待，未能入队的页批次列于 spdRejectedBatches（镜像已落库，可按页批次手动同步）。
+ */
+public class MsunHisMirrorPageStream implements MsunHisPaginationSupport.PageConsumer
+{
+    private static final Logger log = LoggerFactory.getLogger(MsunHisMirrorPageStream.class);
+
+    private final MsunHospitalRuntime runtime;
+    private final String apiCode;
+    private final String baseBatchNo;
+    private final boolean writable;
+    private final MsunHisMirrorSyncExecutor syncExecutor;
+    private final MsunSpdMasterSyncJobService spdMasterSyncJobService;
+    private final MsunHisMirrorSyncOutcome outcome;
+
+    private final long begin = System.currentTimeMillis();
+
+    private int pages;
+    private String firstMirrorError;
+    /** 剩余的 SPD 入队等待额度（毫秒） */
+    private long spdWaitBudgetMillis;
+
+    MsunHisMirrorPageStream(
+            MsunHospitalRuntime runtime,
+            String apiCode,
+            String baseBatchNo,
+            boolean writable,
+            MsunHisMirrorSyncExecutor syncExecutor,
+            MsunSpdMasterSyncJobService spdMasterSyncJobService,
+            MsunHisMirrorSyncOutcome outcome)
+    {
+        this.runtime = runtime;
+        this.apiCode = apiCode;
+        this.baseBatchNo = baseBatchNo;
+        this.writable = writable;
+        this.syncExecutor = syncExecutor;
+        this.spdMasterSyncJobService = spdMasterSyncJobService;
+        this.outcome = outcome;
+        this.spdWaitBudgetMillis = spdMasterSyncJobService.getSubmitWaitMillis();
+    }
+
+    @Override
+    public void accept(int pageNum, JSONObject page)
+    {
+        if (!writable)
+        {
+            return;
+        }
+        String pageBatchNo = pageBatchNo(pageNum);
+        pages++;
+        MsunHisMirrorChunkReport report;
+        try
+        {
+            report = syncExecutor.execute(runtime, apiCode, pageBatchNo, baseBatchNo, page);
+        }
+        catch (Exception ex)
+        {
+            log.warn("众阳HIS镜像分页落库失败 hospital={} api={} batch={} err={}",
+                    runtime.getHospitalKey(), apiCode, pageBatchNo, ex.getMessage(), ex);
+            recordMirrorFailure(pageNum, pageBatchNo, ex.getMessage());
+            return;
+        }
+        int rows = report.getCommittedRows();
+        outcome.setMirrorRows(outcome.getMirrorRows() + rows);
+        if (report.hasFailures())
+        {
+            recordMirrorFailure(pageNum, pageBatchNo, report.failureDetail());
+        }
+        if (rows <= 0)
+        {
+            return;
+        }
+        MsunHisMirrorSyncOutcome pageOutcome = new MsunHisMirrorSyncOutcome();
+        long submitStart = System.currentTimeMillis();
+        spdMasterSyncJobService.submit(pageOutcome, runtime, apiCode, pageBatchNo, rows, spdWaitBudgetMillis);
+        spdWaitBudgetMillis = Math.max(0L, spdWaitBudgetMillis - (System.currentTimeMillis() - submitStart));
+        outcome.setSpdRows(outcome.getSpdRows() + pageOutcome.getSpdRows());
+        for (String jobId : pageOutcome.getSpdJobIds())
+        {
+            outcome.addSpdJobId(jobId);
+        }
+        for (String rejectedBatch : pageOutcome.getSpdRejectedBatches())
+        {
+            outcome.addSpdRejectedBatch(rejectedBatch);
+        }
+        if (pageOutcome.getSpdSyncError() != null && outcome.getSpdSyncError() == null)
+        {
+            outcome.setSpdSyncError("第 " + pageNum + " 页: " + pageOutcome.getSpdSyncError());
+        }
+        if (pageOutcome.getSpdNote() != null)
+        {
+            outcome.setSpdNote(pageOutcome.getSpdNote());
+        }
+    }
+
+    /**
+     * 翻页结束（含 HIS 翻页异常中止）后调用：登记基础批次并补全汇总结果
+     *
+     * @param hisRows HIS 已返回的档案行数
+     */
+    public MsunHisMirrorSyncOutcome finish(int hisRows)
+    {
+        if (!writable)
+        {
+            return outcome;
+        }
+        if (pages > 0)
+        {
+            try
+            {
+                syncExecutor.recordPagedBatch(runtime, apiCode, baseBatchNo, pages, outcome.getMirrorRows(),
+                        outcome.getMirrorFailedBatches(), System.currentTimeMillis() - begin);
+            }
+            catch (Exception ex)
+            {
+                log.warn("众阳HIS镜像分页批次登记失败 hospital={} api={} batch={} err={}",
+                        runtime.getHospitalKey(), apiCode, baseBatchNo, ex.getMessage(), ex);
+            }
+        }
+        if (outcome.getMirrorRows() <= 0 && outcome.getMirrorError() == null)
+        {
+            outcome.setMirrorError(hisRows <= 0 ? "HIS data 为空，未落镜像" : "落库执行返回 0 行（请查服务端日志）");
+        }
+        if (outcome.getSpdRejectedBatches().size() > 1)
+        {
+            outcome.setSpdSyncError(outcome.getSpdRejectedBatches().size()
+                    + " 页 SPD 主数据同步未入队（见 spdRejectedBatches），首个为" + outcome.getSpdSyncError());
+        }
+        if (!outcome.getSpdJobIds().isEmpty())
+        {
+            outcome.setSpdNote("SPD 主数据同步已排队 " + outcome.getSpdJobIds().size() + " 个任务（每页一个）");
+        }
+        if (outcome.getMirrorRows() > 0)
+        {
+            log.info("众阳HIS镜像分页落库完成 hospital={} api={} batch={} pages={} rows={} failedPages={} spdRows={} spdRejected={}",
+                    runtime.getHospitalKey(), apiCode, baseBatchNo, pages, outcome.getMirrorRows(),
+                    outcome.getMirrorFailedBatches().size(), outcome.getSpdRows(), outcome.getSpdRejectedBatches().size());
+        }
+        return outcome;
+    }
+
+    /** 页批次号：基础批次-P页码（按基础批次查询镜像时以 LIKE '基础批次-P%' 匹配） */
+    private String pageBatchNo(int pageNum)
+    {
+        return baseBatchNo + "-P" + String.format("%04d", pageNum);
+    }
+
+    private void recordMirrorFailure(int pageNum, String pageBatchNo, String error)
+    {
+        outcome.addMirrorFailedBatch(pageBatchNo);
+        if (firstMirrorError == null)
+        {
+            firstMirrorError = "第 " + pageNum + " 页（批次 " + pageBatchNo + "）: " + error;
+        }
+        int failed = outcome.getMirrorFailedBatches().size();
+        outcome.setMirrorError((failed == 1
+                ? firstMirrorError
+                : failed + " 页镜像落库失败（见 mirrorFailedBatches），首个为" + firstMirrorError)
+                + "；" + MsunHisMirrorChunkReport.RERUN_HINT);
+    }
+}
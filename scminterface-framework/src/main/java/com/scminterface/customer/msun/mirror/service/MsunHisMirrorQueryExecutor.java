@@ -7,6 +7,7 @@ import com.scminterface.customer.msun.mirror.mapper.MsunHisMirrorMapper;
 import com.scminterface.customer.msun.mirror.support.MsunHisMirrorProbeRegistry;
 import com.scminterface.customer.msun.mirror.support.MsunHisMirrorProbeRegistry.MirrorTableSpec;
 import com.scminterface.customer.msun.mirror.support.MsunHisMirrorProbeRegistry.ProbeMirrorSpec;
+import com.scminterface.customer.msun.mirror.support.MsunHisMirrorRowSupport;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -67,6 +68,7 @@ public class MsunHisMirrorQueryExecutor
             query.put("limit", safeLimit);
             query.put("offset", safeOffset);
             List<Map<String, Object>> rows = mirrorMapper.listMirrorRows(query);
+            MsunHisMirrorRowSupport.decodeRawItemJsonRows(rows);
 
             Map<String, Object> view = new LinkedHashMap<>(8);
             view.put("table", tableSpec.getTable());
@@ -112,6 +114,7 @@ public class MsunHisMirrorQueryExecutor
             query.put("batchNumber", batchNumber);
         }
         List<Map<String, Object>> batchRows = mirrorMapper.queryEntryHisMirror(query);
+        MsunHisMirrorRowSupport.decodeRawItemJsonRows(batchRows);
 
         Map<String, Object> result = new LinkedHashMap<>(10);
         result.put("hospitalKey", runtime.getHospitalKey());
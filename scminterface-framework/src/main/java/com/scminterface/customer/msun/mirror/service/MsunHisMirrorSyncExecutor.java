@@ -7,90 +7,217 @@ import com.scminterface.common.annotation.DataSource;
 import com.scminterface.common.enums.DataSourceType;
 import com.scminterface.common.utils.StringUtils;
 import com.scminterface.customer.msun.hospital.MsunHospitalRuntime;
+import com.scminterface.customer.msun.mirror.config.MsunHisMirrorProperties;
 import com.scminterface.customer.msun.mirror.mapper.MsunHisMirrorMapper;
+import com.scminterface.customer.msun.mirror.support.MsunHisMirrorChunkReport;
 import com.scminterface.customer.msun.mirror.support.MsunHisMirrorRowSupport;
 import com.scminterface.customer.msun.mirror.support.MsunHisMirrorTableNames;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * 镜像库写入执行器（独立 Bean 以保证 {@link DataSource} 切面生效）。
+ * 回参各行经 {@link MsunHisMirrorBatchWriter} 按表与列集合合并为多行 upsert，单条 SQL 体积不超过 max_allowed_packet 的一半；
+ * 按分块提交事务，进度与失败区间登记在 m_msun_sync_batch。
  */
 @Service
 public class MsunHisMirrorSyncExecutor
 {
+    private static final Logger log = LoggerFactory.getLogger(MsunHisMirrorSyncExecutor.class);
+
     private static final String MIRROR_SOURCE_API = "api";
 
+    private static final Set<String> SUPPORTED_APIS = new HashSet<>(Arrays.asList(
+            "2.1.9", "2.1.12", "2.5.44", "2.5.58", "2.5.62", "2.5.63", "2.5.82", "2.5.43", "2.5.102"));
+
+    /** 查询 max_allowed_packet 失败时按 MySQL 5.7 默认 4MB 计 */
+    private static final long DEFAULT_MAX_ALLOWED_PACKET = 4L * 1024 * 1024;
+
     private final MsunHisMirrorMapper mirrorMapper;
+    private final MsunHisMirrorProperties properties;
+    private final PlatformTransactionManager transactionManager;
 
-    public MsunHisMirrorSyncExecutor(MsunHisMirrorMapper mirrorMapper)
+    /** SPD 库 max_allowed_packet，首次写入时查询 */
+    private volatile long maxAllowedPacket;
+
+    public MsunHisMirrorSyncExecutor(
+            MsunHisMirrorMapper mirrorMapper,
+            MsunHisMirrorProperties properties,
+            PlatformTransactionManager transactionManager)
     {
         this.mirrorMapper = mirrorMapper;
+        this.properties = properties;
+        this.transactionManager = transactionManager;
     }
 
+    /**
+     * 按 mirror.chunk-size 分块写入，每块一个事务：块内镜像行与 m_msun_sync_batch 进度（已提交行数/块数、耗时）同时提交，
+     * 失败块整体回滚并登记行区间与错误后继续下一块（镜像为 upsert，重新查询即可补齐失败块）。
+     */
     @DataSource(DataSourceType.SPD)
-    public int execute(MsunHospitalRuntime runtime, String apiCode, String batchNo, JSONObject wrappedResponse)
+    public MsunHisMirrorChunkReport execute(
+            MsunHospitalRuntime runtime,
+            String apiCode,
+            String batchNo,
+            JSONObject wrappedResponse)
     {
+        return execute(runtime, apiCode, batchNo, null, wrappedResponse);
+    }
+
+    /**
+     * 分页落库的一页：batchNo 为页批次，parentBatchNo 为整次拉取的基础批次（登记于 m_msun_sync_batch.parent_batch_no）
+     */
+    @DataSource(DataSourceType.SPD)
+    public MsunHisMirrorChunkReport execute(
+            MsunHospitalRuntime runtime,
+            String apiCode,
+            String batchNo,
+            String parentBatchNo,
+            JSONObject wrappedResponse)
+    {
+        MsunHisMirrorChunkReport report = new MsunHisMirrorChunkReport();
+        report.setSyncBatchNo(batchNo);
+        report.setParentBatchNo(parentBatchNo);
+        report.setStatus(MsunHisMirrorChunkReport.STATUS_SUCCESS);
         Object hisBodyObj = wrappedResponse.get("hisBody");
         if (!(hisBodyObj instanceof JSONObject))
         {
-            return 0;
+            return report;
         }
         JSONObject hisBody = (JSONObject) hisBodyObj;
         if (!Boolean.TRUE.equals(hisBody.getBoolean("success")))
         {
-            return 0;
+            return report;
         }
         JSONArray data = hisBody.getJSONArray("data");
-        if (data == null || data.isEmpty())
+        if (data == null || data.isEmpty() || !SUPPORTED_APIS.contains(apiCode))
         {
-            return 0;
+            return report;
         }
 
         String traceId = hisBody.getString("traceId");
         Object requestParams = wrappedResponse.get("requestParams");
         String requestJson = requestParams == null ? null : JSON.toJSONString(requestParams);
 
-        int rows;
+        long begin = System.currentTimeMillis();
+        int total = data.size();
+        int chunkSize = properties.getChunkSize() > 0 ? properties.getChunkSize() : total;
+        report.setTotalRows(total);
+        report.setChunkSize(chunkSize);
+        report.setChunkTotal((total + chunkSize - 1) / chunkSize);
+        report.setStatus(MsunHisMirrorChunkReport.STATUS_RUNNING);
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        for (int chunk = 0; chunk < report.getChunkTotal(); chunk++)
+        {
+            int from = chunk * chunkSize;
+            int to = Math.min(total, from + chunkSize);
+            JSONArray slice = new JSONArray(data.subList(from, to));
+            int rowsBefore = report.getCommittedRows();
+            int chunksBefore = report.getCommittedChunks();
+            try
+            {
+                tx.execute(status -> {
+                    MsunHisMirrorBatchWriter writer = newWriter();
+                    int rows = writeChunk(writer, runtime, apiCode, batchNo, traceId, requestJson, slice);
+                    writer.flush();
+                    report.setCommittedRows(rowsBefore + rows);
+                    report.setCommittedChunks(chunksBefore + 1);
+                    report.setElapsedMillis(System.currentTimeMillis() - begin);
+                    upsertSyncBatch(runtime, apiCode, report);
+                    return null;
+                });
+            }
+            catch (RuntimeException ex)
+            {
+                report.setCommittedRows(rowsBefore);
+                report.setCommittedChunks(chunksBefore);
+                report.addFailedChunk(chunk, from, to, ex.getMessage());
+                log.warn("众阳HIS镜像分块落库失败 hospital={} api={} batch={} chunk={}/{} rows=[{},{}) err={}",
+                        runtime.getHospitalKey(), apiCode, batchNo, chunk + 1, report.getChunkTotal(), from, to,
+                        ex.getMessage(), ex);
+            }
+        }
+
+        String queryMaterialOrDrug = "2.5.44".equals(apiCode)
+                ? MsunHisMirrorRowSupport.resolveQueryMaterialOrDrug(requestJson) : null;
+        if (report.getCommittedRows() > 0 && StringUtils.isNotEmpty(queryMaterialOrDrug))
+        {
+            backfillDrugDictMaterialOrDrug(runtime, batchNo, queryMaterialOrDrug);
+        }
+        if (!report.hasFailures())
+        {
+            report.setStatus(MsunHisMirrorChunkReport.STATUS_SUCCESS);
+        }
+        else
+        {
+            report.setStatus(report.getCommittedChunks() > 0
+                    ? MsunHisMirrorChunkReport.STATUS_PARTIAL : MsunHisMirrorChunkReport.STATUS_FAILED);
+        }
+        report.setElapsedMillis(System.currentTimeMillis() - begin);
+        try
+        {
+            upsertSyncBatch(runtime, apiCode, report);
+        }
+        catch (RuntimeException ex)
+        {
+            log.warn("众阳HIS镜像批次登记失败 hospital={} api={} batch={} err={}",
+                    runtime.getHospitalKey(), apiCode, batchNo, ex.getMessage(), ex);
+        }
+        return report;
+    }
+
+    private int writeChunk(
+            MsunHisMirrorBatchWriter writer,
+            MsunHospitalRuntime runtime,
+            String apiCode,
+            String batchNo,
+            String traceId,
+            String requestJson,
+            JSONArray data)
+    {
         switch (apiCode)
         {
             case "2.1.9":
-                rows = syncDepts(runtime, apiCode, batchNo, traceId, requestJson, data);
-                break;
+                return syncDepts(writer, runtime, apiCode, batchNo, traceId, requestJson, data);
             case "2.1.12":
-                rows = syncIdentities(runtime, apiCode, batchNo, traceId, requestJson, data);
-                break;
+                return syncIdentities(writer, runtime, apiCode, batchNo, traceId, requestJson, data);
             case "2.5.44":
-                rows = syncFlatRows(runtime, apiCode, batchNo, traceId, requestJson, data, MsunHisMirrorTableNames.DRUG_DICT);
-                break;
+                return syncFlatRows(writer, runtime, apiCode, batchNo, traceId, requestJson, data,
+                        MsunHisMirrorTableNames.DRUG_DICT);
             case "2.5.58":
-                rows = syncFlatRows(runtime, apiCode, batchNo, traceId, requestJson, data, MsunHisMirrorTableNames.DICT_CATEGORY);
-                break;
+                return syncFlatRows(writer, runtime, apiCode, batchNo, traceId, requestJson, data,
+                        MsunHisMirrorTableNames.DICT_CATEGORY);
             case "2.5.62":
-                rows = syncFlatRows(runtime, apiCode, batchNo, traceId, requestJson, data, MsunHisMirrorTableNames.SUPPLIER);
-                break;
+                return syncFlatRows(writer, runtime, apiCode, batchNo, traceId, requestJson, data,
+                        MsunHisMirrorTableNames.SUPPLIER);
             case "2.5.63":
-                rows = syncFlatRows(runtime, apiCode, batchNo, traceId, requestJson, data, MsunHisMirrorTableNames.PRODUCER);
-                break;
+                return syncFlatRows(writer, runtime, apiCode, batchNo, traceId, requestJson, data,
+                        MsunHisMirrorTableNames.PRODUCER);
             case "2.5.82":
-                rows = syncFlatRows(runtime, apiCode, batchNo, traceId, requestJson, data, MsunHisMirrorTableNames.MERGE_STOCK);
-                break;
+                return syncFlatRows(writer, runtime, apiCode, batchNo, traceId, requestJson, data,
+                        MsunHisMirrorTableNames.MERGE_STOCK);
             case "2.5.43":
-                rows = syncFlatRows(runtime, apiCode, batchNo, traceId, requestJson, data, MsunHisMirrorTableNames.DRUG_BATCH_STOCK);
-                break;
+                return syncFlatRows(writer, runtime, apiCode, batchNo, traceId, requestJson, data,
+                        MsunHisMirrorTableNames.DRUG_BATCH_STOCK);
             case "2.5.102":
-                rows = syncYkInstock(runtime, apiCode, batchNo, traceId, requestJson, data);
-                break;
+                return syncYkInstock(writer, runtime, apiCode, batchNo, traceId, requestJson, data);
             default:
                 return 0;
         }
-
-        upsertSyncBatch(runtime, apiCode, batchNo, rows);
-        return rows;
     }
 
     private int syncDepts(
+            MsunHisMirrorBatchWriter writer,
             MsunHospitalRuntime runtime,
             String apiCode,
             String batchNo,
@@ -103,8 +230,9 @@ public class MsunHisMirrorSyncExecutor
         {
             JSONObject item = data.getJSONObject(i);
             Map<String, Object> row = MsunHisMirrorRowSupport.buildMirrorRow(
-                    runtime, apiCode, batchNo, traceId, requestJson, item, MIRROR_SOURCE_API);
-            upsertRow(MsunHisMirrorTableNames.DEPT, row);
+                    runtime, apiCode, batchNo, traceId, requestJson, item, MIRROR_SOURCE_API,
+                    properties.getRawItemJson());
+            writer.add(MsunHisMirrorTableNames.DEPT, row);
             count++;
 
             JSONArray cats = item.getJSONArray("categoryIdList");
@@ -117,7 +245,7 @@ public class MsunHisMirrorSyncExecutor
                     relFields.put("dept_id", deptId);
                     relFields.put("category_id", String.valueOf(cats.get(j)));
                     Map<String, Object> rel = MsunHisMirrorRowSupport.buildChildRelRow(runtime, batchNo, relFields);
-                    upsertRow(MsunHisMirrorTableNames.DEPT_CATEGORY_REL, rel);
+                    writer.add(MsunHisMirrorTableNames.DEPT_CATEGORY_REL, rel);
                 }
             }
         }
@@ -125,6 +253,7 @@ public class MsunHisMirrorSyncExecutor
     }
 
     private int syncIdentities(
+            MsunHisMirrorBatchWriter writer,
             MsunHospitalRuntime runtime,
             String apiCode,
             String batchNo,
@@ -137,8 +266,9 @@ public class MsunHisMirrorSyncExecutor
         {
             JSONObject item = data.getJSONObject(i);
             Map<String, Object> row = MsunHisMirrorRowSupport.buildMirrorRow(
-                    runtime, apiCode, batchNo, traceId, requestJson, item, MIRROR_SOURCE_API);
-            upsertRow(MsunHisMirrorTableNames.USER_IDENTITY, row);
+                    runtime, apiCode, batchNo, traceId, requestJson, item, MIRROR_SOURCE_API,
+                    properties.getRawItemJson());
+            writer.add(MsunHisMirrorTableNames.USER_IDENTITY, row);
             count++;
 
             JSONArray accounts = item.getJSONArray("accountList");
@@ -156,7 +286,7 @@ public class MsunHisMirrorSyncExecutor
                     relFields.put("identity_id", identityId);
                     relFields.put("account_no", accountNo);
                     Map<String, Object> rel = MsunHisMirrorRowSupport.buildChildRelRow(runtime, batchNo, relFields);
-                    upsertRow(MsunHisMirrorTableNames.USER_IDENTITY_ACCOUNT, rel);
+                    writer.add(MsunHisMirrorTableNames.USER_IDENTITY_ACCOUNT, rel);
                 }
             }
         }
@@ -164,6 +294,7 @@ public class MsunHisMirrorSyncExecutor
     }
 
     private int syncFlatRows(
+            MsunHisMirrorBatchWriter writer,
             MsunHospitalRuntime runtime,
             String apiCode,
             String batchNo,
@@ -173,16 +304,12 @@ public class MsunHisMirrorSyncExecutor
             String table)
     {
         int count = 0;
-        String queryMaterialOrDrug = null;
-        if (MsunHisMirrorTableNames.DRUG_DICT.equals(table))
-        {
-            queryMaterialOrDrug = MsunHisMirrorRowSupport.resolveQueryMaterialOrDrug(requestJson);
-        }
         for (int i = 0; i < data.size(); i++)
         {
             JSONObject item = data.getJSONObject(i);
             Map<String, Object> row = MsunHisMirrorRowSupport.buildMirrorRow(
-                    runtime, apiCode, batchNo, traceId, requestJson, item, MIRROR_SOURCE_API);
+                    runtime, apiCode, batchNo, traceId, requestJson, item, MIRROR_SOURCE_API,
+                    properties.getRawItemJson());
             if (MsunHisMirrorTableNames.DRUG_DICT.equals(table))
             {
                 MsunHisMirrorRowSupport.enrichDrugDictRow(row, requestJson);
@@ -191,14 +318,9 @@ public class MsunHisMirrorSyncExecutor
             {
                 MsunHisMirrorRowSupport.enrichDrugBatchStockRow(row);
             }
-            upsertRow(table, row);
+            writer.add(table, row);
             count++;
         }
-        if (MsunHisMirrorTableNames.DRUG_DICT.equals(table) && count > 0
-                && StringUtils.isNotEmpty(queryMaterialOrDrug))
-        {
-            backfillDrugDictMaterialOrDrug(runtime, batchNo, queryMaterialOrDrug);
-        }
         return count;
     }
 
@@ -217,6 +339,7 @@ public class MsunHisMirrorSyncExecutor
     }
 
     private int syncYkInstock(
+            MsunHisMirrorBatchWriter writer,
             MsunHospitalRuntime runtime,
             String apiCode,
             String batchNo,
@@ -229,14 +352,17 @@ public class MsunHisMirrorSyncExecutor
         {
             JSONObject item = data.getJSONObject(i);
             Map<String, Object> header = MsunHisMirrorRowSupport.buildMirrorRow(
-                    runtime, apiCode, batchNo, traceId, requestJson, item, MIRROR_SOURCE_API);
-            upsertRow(MsunHisMirrorTableNames.YK_INSTOCK, header);
+                    runtime, apiCode, batchNo, traceId, requestJson, item, MIRROR_SOURCE_API,
+                    properties.getRawItemJson());
+            writer.add(MsunHisMirrorTableNames.YK_INSTOCK, header);
             count++;
 
             String storageInstockId = item.getString("storageInstockId");
             String instockCode = item.getString("instockCode");
             if (StringUtils.isNotEmpty(storageInstockId))
             {
+                // 先写出已缓冲明细，保证「删旧明细再写新明细」的顺序
+                writer.flush();
                 mirrorMapper.deleteYkInstockDetails(
                         runtime.getHospitalKey(), runtime.getActiveEnv(), storageInstockId);
             }
@@ -248,32 +374,82 @@ public class MsunHisMirrorSyncExecutor
                 {
                     JSONObject detail = details.getJSONObject(j);
                     Map<String, Object> detailRow = MsunHisMirrorRowSupport.buildMirrorRow(
-                            runtime, apiCode, batchNo, traceId, requestJson, detail, MIRROR_SOURCE_API);
+                            runtime, apiCode, batchNo, traceId, requestJson, detail, MIRROR_SOURCE_API,
+                            MsunHisMirrorRowSupport.RAW_ITEM_JSON_OFF);
                     detailRow.put("storage_instock_id", storageInstockId);
                     detailRow.put("instock_code", instockCode);
                     detailRow.remove("api_code");
                     detailRow.remove("his_trace_id");
                     detailRow.remove("request_params_json");
-                    detailRow.remove("raw_item_json");
                     detailRow.remove("mirror_source");
-                    upsertRow(MsunHisMirrorTableNames.YK_INSTOCK_DETAIL, detailRow);
+                    writer.add(MsunHisMirrorTableNames.YK_INSTOCK_DETAIL, detailRow);
                 }
             }
         }
         return count;
     }
 
-    private void upsertSyncBatch(MsunHospitalRuntime runtime, String apiCode, String batchNo, int recordCount)
+    /**
+     * 登记批次：record_count 为已提交行数，另含分块进度、失败区间与耗时
+     */
+    private void upsertSyncBatch(MsunHospitalRuntime runtime, String apiCode, MsunHisMirrorChunkReport report)
     {
-        Map<String, Object> batch = new HashMap<>(8);
-        batch.put("sync_batch_no", batchNo);
+        Map<String, Object> batch = new HashMap<>(16);
+        batch.put("sync_batch_no", report.getSyncBatchNo());
         batch.put("hospital_key", runtime.getHospitalKey());
         batch.put("tenant_id", runtime.getTenantId());
         batch.put("active_env", runtime.getActiveEnv());
         batch.put("api_code", apiCode);
         batch.put("mirror_source", MIRROR_SOURCE_API);
-        batch.put("record_count", recordCount);
+        batch.put("record_count", report.getCommittedRows());
         batch.put("remark", "API查询自动落库");
+        batch.put("sync_status", report.getStatus());
+        batch.put("chunk_size", report.getChunkSize());
+        batch.put("chunk_total", report.getChunkTotal());
+        batch.put("committed_chunks", report.getCommittedChunks());
+        batch.put("failed_chunks", report.hasFailures() ? JSON.toJSONString(report.getFailedChunks()) : null);
+        batch.put("elapsed_millis", report.getElapsedMillis());
+        batch.put("parent_batch_no", report.getParentBatchNo());
+        upsertRow(MsunHisMirrorTableNames.SYNC_BATCH, batch);
+    }
+
+    /**
+     * 分页拉取结束后登记基础批次（镜像行在各页批次「基础批次-P页码」上，按基础批次查询/同步时一并匹配）；
+     * 失败页批次写入 failed_page_batches，failed_chunks 只存单批次的失败分块，各页失败分块见其页批次行。
+     *
+     * @param failedPageBatches 镜像写入失败（含部分失败）的页批次
+     */
+    @DataSource(DataSourceType.SPD)
+    public void recordPagedBatch(
+            MsunHospitalRuntime runtime,
+            String apiCode,
+            String baseBatchNo,
+            int pages,
+            int committedRows,
+            List<String> failedPageBatches,
+            long elapsedMillis)
+    {
+        String status;
+        if (failedPageBatches.isEmpty())
+        {
+            status = MsunHisMirrorChunkReport.STATUS_SUCCESS;
+        }
+        else
+        {
+            status = committedRows > 0 ? MsunHisMirrorChunkReport.STATUS_PARTIAL : MsunHisMirrorChunkReport.STATUS_FAILED;
+        }
+        Map<String, Object> batch = new HashMap<>(16);
+        batch.put("sync_batch_no", baseBatchNo);
+        batch.put("hospital_key", runtime.getHospitalKey());
+        batch.put("tenant_id", runtime.getTenantId());
+        batch.put("active_env", runtime.getActiveEnv());
+        batch.put("api_code", apiCode);
+        batch.put("mirror_source", MIRROR_SOURCE_API);
+        batch.put("record_count", committedRows);
+        batch.put("remark", "API分页查询自动落库，共 " + pages + " 页");
+        batch.put("sync_status", status);
+        batch.put("failed_page_batches", failedPageBatches.isEmpty() ? null : JSON.toJSONString(failedPageBatches));
+        batch.put("elapsed_millis", elapsedMillis);
         upsertRow(MsunHisMirrorTableNames.SYNC_BATCH, batch);
     }
 
@@ -313,6 +489,32 @@ public class MsunHisMirrorSyncExecutor
         return mirrorMapper.countMirrorRows(params);
     }
 
+    private MsunHisMirrorBatchWriter newWriter()
+    {
+        return new MsunHisMirrorBatchWriter(mirrorMapper, properties.getBatchSize(), resolveMaxAllowedPacket() / 2);
+    }
+
+    private long resolveMaxAllowedPacket()
+    {
+        long packet = maxAllowedPacket;
+        if (packet > 0)
+        {
+            return packet;
+        }
+        try
+        {
+            Long value = mirrorMapper.selectMaxAllowedPacket();
+            packet = value != null && value > 0 ? value : DEFAULT_MAX_ALLOWED_PACKET;
+        }
+        catch (Exception ex)
+        {
+            log.warn("查询 SPD 库 max_allowed_packet 失败，按 {} 字节分块: {}", DEFAULT_MAX_ALLOWED_PACKET, ex.getMessage());
+            packet = DEFAULT_MAX_ALLOWED_PACKET;
+        }
+        maxAllowedPacket = packet;
+        return packet;
+    }
+
     private void upsertRow(String table, Map<String, Object> row)
     {
         MsunHisMirrorRowSupport.ensurePrimaryKey(table, row);
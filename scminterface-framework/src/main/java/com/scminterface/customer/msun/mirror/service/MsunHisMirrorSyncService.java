@@ -6,9 +6,11 @@ import com.scminterface.common.enums.DataSourceType;
 import com.scminterface.common.utils.StringUtils;
 import com.scminterface.customer.msun.hospital.MsunHospitalRuntime;
 import com.scminterface.customer.msun.mirror.config.MsunHisMirrorProperties;
+import com.scminterface.customer.msun.mirror.support.MsunHisMirrorChunkReport;
 import com.scminterface.customer.msun.mirror.support.MsunHisMirrorProbeRegistry;
 import com.scminterface.customer.msun.mirror.support.MsunHisMirrorSyncOutcome;
 import com.scminterface.customer.msun.spd.sync.config.MsunSpdMasterSyncProperties;
+import com.scminterface.customer.msun.spd.sync.service.MsunSpdMasterSyncJobService;
 import com.scminterface.customer.msun.spd.sync.service.MsunSpdMasterSyncService;
 import com.scminterface.customer.msun.spd.sync.support.MsunSpdMasterSyncSupport;
 import com.scminterface.framework.datasource.DataSourceAvailability;
@@ -34,6 +36,7 @@ public class MsunHisMirrorSyncService
     private final MsunHisMirrorSchemaService schemaService;
     private final MsunHisMirrorSyncExecutor syncExecutor;
     private final MsunSpdMasterSyncService spdMasterSyncService;
+    private final MsunSpdMasterSyncJobService spdMasterSyncJobService;
 
     public MsunHisMirrorSyncService(
             MsunHisMirrorProperties mirrorProperties,
@@ -41,7 +44,8 @@ public class MsunHisMirrorSyncService
             DataSourceAvailability dataSourceAvailability,
             MsunHisMirrorSchemaService schemaService,
             MsunHisMirrorSyncExecutor syncExecutor,
-            MsunSpdMasterSyncService spdMasterSyncService)
+            MsunSpdMasterSyncService spdMasterSyncService,
+            MsunSpdMasterSyncJobService spdMasterSyncJobService)
     {
         this.mirrorProperties = mirrorProperties;
         this.spdMasterSyncProperties = spdMasterSyncProperties;
@@ -49,10 +53,11 @@ public class MsunHisMirrorSyncService
         this.schemaService = schemaService;
         this.syncExecutor = syncExecutor;
         this.spdMasterSyncService = spdMasterSyncService;
+        this.spdMasterSyncJobService = spdMasterSyncJobService;
     }
 
     /**
-     * HIS 查询成功后写入镜像表并尝试同步 SPD 主数据；失败时 outcome 携带原因，不影响接口 data 返回。
+     * HIS 查询成功后写入镜像表并提交 SPD 主数据同步（异步时仅入队，outcome 带任务号）；失败时 outcome 携带原因，不影响接口 data 返回。
      */
     public MsunHisMirrorSyncOutcome syncQueryResult(
             MsunHospitalRuntime runtime,
@@ -80,21 +85,7 @@ public class MsunHisMirrorSyncService
         try
         {
             schemaService.ensureTablesForApi(apiCode);
-            String batchNo = buildBatchNo();
-            int rows = syncExecutor.execute(runtime, apiCode, batchNo, wrappedResponse);
-            outcome.setMirrorRows(rows);
-            outcome.setSyncBatchNo(batchNo);
-            if (rows > 0)
-            {
-                log.info("众阳HIS镜像落库完成 hospital={} api={} batch={} rows={}",
-                        runtime.getHospitalKey(), apiCode, batchNo, rows);
-                spdMasterSyncService.fillSpdSyncOutcome(outcome, runtime, apiCode, batchNo, rows);
-            }
-            else
-            {
-                outcome.setMirrorError(diagnoseZeroMirrorRows(wrappedResponse));
-                spdMasterSyncService.fillSpdSyncOutcome(outcome, runtime, apiCode, batchNo, 0);
-            }
+            writeAndSync(outcome, runtime, apiCode, buildBatchNo(), wrappedResponse);
         }
         catch (Exception ex)
         {
@@ -106,7 +97,41 @@ public class MsunHisMirrorSyncService
     }
 
     /**
-     * 探针页手动：将指定批次（或最新批次）镜像 upsert 至 SPD 主数据表。
+     * 分页拉取时逐页落镜像并同步 SPD 主数据（配合 MsunHisPaginationSupport.streamAllPages）；
+     * 镜像未启用或 SPD 数据源不可用时返回的 stream 不写库，原因见 outcome。
+     */
+    public MsunHisMirrorPageStream openPageStream(MsunHospitalRuntime runtime, String apiCode)
+    {
+        MsunHisMirrorSyncOutcome outcome = createBaseOutcome(apiCode);
+        boolean writable = false;
+        if (!mirrorProperties.isEnabled())
+        {
+            outcome.setMirrorSkippedReason("mirror.enabled=false，未落镜像库");
+        }
+        else if (!dataSourceAvailability.isAvailable(DataSourceType.SPD))
+        {
+            outcome.setMirrorSkippedReason("spring.datasource.druid.spd.enabled=false，SPD 数据源未启用");
+        }
+        else if (runtime == null || StringUtils.isEmpty(apiCode))
+        {
+            outcome.setMirrorSkippedReason("runtime 或接口编码为空");
+        }
+        else
+        {
+            schemaService.ensureTablesForApi(apiCode);
+            writable = true;
+        }
+        String batchNo = buildBatchNo();
+        if (writable)
+        {
+            outcome.setSyncBatchNo(batchNo);
+        }
+        return new MsunHisMirrorPageStream(
+                runtime, apiCode, batchNo, writable, syncExecutor, spdMasterSyncJobService, outcome);
+    }
+
+    /**
+     * 探针页手动：将指定批次（或最新批次）镜像 upsert 至 SPD 主数据表（异步时入队，重复点击同一批次不重复排队）。
      */
     public MsunHisMirrorSyncOutcome syncSpdFromProbe(
             MsunHospitalRuntime runtime,
@@ -160,7 +185,7 @@ public class MsunHisMirrorSyncService
                 outcome.setSpdSyncError("批次 " + resolvedBatch + " 无镜像行");
                 return outcome;
             }
-            spdMasterSyncService.fillSpdSyncOutcome(outcome, runtime, apiCode, resolvedBatch, outcome.getMirrorRows());
+            spdMasterSyncJobService.submit(outcome, runtime, apiCode, resolvedBatch, outcome.getMirrorRows());
             if (outcome.getSpdRows() > 0 && MsunSpdMasterSyncSupport.spdTableHint(apiCode).length() > 0)
             {
                 outcome.setSpdNote("已 upsert 至 " + MsunSpdMasterSyncSupport.spdTableHint(apiCode));
@@ -175,6 +200,39 @@ public class MsunHisMirrorSyncService
         return outcome;
     }
 
+    private void writeAndSync(
+            MsunHisMirrorSyncOutcome outcome,
+            MsunHospitalRuntime runtime,
+            String apiCode,
+            String batchNo,
+            JSONObject wrappedResponse)
+    {
+        MsunHisMirrorChunkReport report = syncExecutor.execute(runtime, apiCode, batchNo, wrappedResponse);
+        int rows = report.getCommittedRows();
+        outcome.setMirrorRows(rows);
+        outcome.setSyncBatchNo(batchNo);
+        outcome.setMirrorChunks(report);
+        if (report.hasFailures())
+        {
+            outcome.setMirrorError(report.failureSummary());
+        }
+        if (rows > 0)
+        {
+            log.info("众阳HIS镜像落库完成 hospital={} api={} batch={} rows={} status={} chunks={}/{} elapsed={}ms",
+                    runtime.getHospitalKey(), apiCode, batchNo, rows, report.getStatus(),
+                    report.getCommittedChunks(), report.getChunkTotal(), report.getElapsedMillis());
+            spdMasterSyncJobService.submit(outcome, runtime, apiCode, batchNo, rows);
+        }
+        else
+        {
+            if (!report.hasFailures())
+            {
+                outcome.setMirrorError(diagnoseZeroMirrorRows(wrappedResponse));
+            }
+            spdMasterSyncService.fillSpdSyncOutcome(outcome, runtime, apiCode, batchNo, 0);
+        }
+    }
+
     private MsunHisMirrorSyncOutcome createBaseOutcome(String apiCode)
     {
         MsunHisMirrorSyncOutcome outcome = new MsunHisMirrorSyncOutcome();
@@ -0,0 +1,188 @@
+package com.scminterface.customer.msun.mirror.support;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一次镜像落库的分块结果（与 m_msun_sync_batch 中 sync_status / chunk_* / failed_chunks 对应）。
+ */
+public class MsunHisMirrorChunkReport
+{
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_SUCCESS = "success";
+    public static final String STATUS_PARTIAL = "partial";
+    public static final String STATUS_FAILED = "failed";
+
+    /** partial / failed 后的补救方式：HIS 响应不留存，无法按失败分块续传 */
+    public static final String RERUN_HINT = "已提交部分保留，HIS 响应未留存无法续传，请重新执行该查询补齐";
+
+    private String syncBatchNo;
+    /** 分页落库时的基础批次号，单次查询为空 */
+    private String parentBatchNo;
+    private String status = STATUS_RUNNING;
+    private int totalRows;
+    private int chunkSize;
+    private int chunkTotal;
+    private int committedChunks;
+    private int committedRows;
+    private long elapsedMillis;
+    /** 失败分块：chunk（从 0 起）、fromRow、toRow（不含）、error */
+    private final List<Map<String, Object>> failedChunks = new ArrayList<>();
+
+    public void addFailedChunk(int chunk, int fromRow, int toRow, String error)
+    {
+        Map<String, Object> failed = new LinkedHashMap<>(4);
+        failed.put("chunk", chunk);
+        failed.put("fromRow", fromRow);
+        failed.put("toRow", toRow);
+        failed.put("error", error);
+        failedChunks.add(failed);
+    }
+
+    public boolean hasFailures()
+    {
+        return !failedChunks.isEmpty();
+    }
+
+    /**
+     * 失败摘要（首个失败块的行区间与错误，附补救提示），无失败时为 null
+     */
+    public String failureSummary()
+    {
+        String detail = failureDetail();
+        return detail == null ? null : detail + "；" + RERUN_HINT;
+    }
+
+    /**
+     * 失败分块概要（不含补救提示），无失败时为 null
+     */
+    public String failureDetail()
+    {
+        if (failedChunks.isEmpty())
+        {
+            return null;
+        }
+        Map<String, Object> first = failedChunks.get(0);
+        return "分块落库失败 " + failedChunks.size() + "/" + chunkTotal + " 块，首个失败第 " + first.get("chunk")
+                + " 块（行 " + first.get("fromRow") + "~" + first.get("toRow") + "）: " + first.get("error");
+    }
+
+    public String getSyncBatchNo()
+    {
+        return syncBatchNo;
+    }
+
+    public void setSyncBatchNo(String syncBatchNo)
+    {
+        this.syncBatchNo = syncBatchNo;
+    }
+
+    public String getParentBatchNo()
+    {
+        return parentBatchNo;
+    }
+
+    public void setParentBatchNo(String parentBatchNo)
+    {
+        this.parentBatchNo = parentBatchNo;
+    }
+
+    public String getStatus()
+    {
+        return status;
+    }
+
+    public void setStatus(String status)
+    {
+        this.status = status;
+    }
+
+    public int getTotalRows()
+    {
+        return totalRows;
+    }
+
+    public void setTotalRows(int totalRows)
+    {
+        this.totalRows = totalRows;
+    }
+
+    public int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize)
+    {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkTotal()
+    {
+        return chunkTotal;
+    }
+
+    public void setChunkTotal(int chunkTotal)
+    {
+        this.chunkTotal = chunkTotal;
+    }
+
+    public int getCommittedChunks()
+    {
+        return committedChunks;
+    }
+
+    public void setCommittedChunks(int committedChunks)
+    {
+        this.committedChunks = committedChunks;
+    }
+
+    public int getCommittedRows()
+    {
+        return committedRows;
+    }
+
+    public void setCommittedRows(int committedRows)
+    {
+        this.committedRows = committedRows;
+    }
+
+    public long getElapsedMillis()
+    {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis)
+    {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<Map<String, Object>> getFailedChunks()
+    {
+        return failedChunks;
+    }
+
+    public Map<String, Object> toMap()
+    {
+        Map<String, Object> map = new LinkedHashMap<>(12);
+        map.put("syncBatchNo", syncBatchNo);
+        if (parentBatchNo != null)
+        {
+            map.put("parentBatchNo", parentBatchNo);
+        }
+        map.put("status", status);
+        map.put("totalRows", totalRows);
+        map.put("chunkSize", chunkSize);
+        map.put("chunkTotal", chunkTotal);
+        map.put("committedChunks", committedChunks);
+        map.put("committedRows", committedRows);
+        map.put("elapsedMillis", elapsedMillis);
+        if (!failedChunks.isEmpty())
+        {
+            map.put("failedChunks", failedChunks);
+        }
+        return map;
+    }
+}
@@ -6,12 +6,21 @@ import com.alibaba.fastjson2.JSONObject;
 import com.scminterface.common.utils.StringUtils;
 import com.scminterface.customer.msun.hospital.MsunHospitalRuntime;
 import com.scminterface.framework.util.ZsUuid7;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * 众阳 HIS 回参行 → 镜像表列（camelCase → snake_case）。
@@ -20,6 +29,27 @@ public final class MsunHisMirrorRowSupport
 {
     private static final Pattern COLUMN_NAME = Pattern.compile("^[a-z][a-z0-9_]*$");
 
+    private static final int VALID_COLUMNS_MAX = 4096;
+
+    /** raw_item_json：原文 */
+    public static final String RAW_ITEM_JSON_FULL = "full";
+    /** raw_item_json：gzip 后 Base64，带 {@link #RAW_ITEM_GZIP_PREFIX} 前缀 */
+    public static final String RAW_ITEM_JSON_GZIP = "gzip";
+    /** raw_item_json：不写入 */
+    public static final String RAW_ITEM_JSON_OFF = "off";
+
+    public static final String RAW_ITEM_GZIP_PREFIX = "gz:";
+
+    /** 不落镜像列的 HIS 字段（合法列名非空） */
+    private static final String NO_COLUMN = "";
+
+    private static final int COLUMN_MAPPING_MAX = 1024;
+
+    /** 接口编码 → (HIS 字段名 → 镜像列名) */
+    private static final Map<String, Map<String, String>> COLUMN_MAPPINGS = new ConcurrentHashMap<>(32);
+
+    private static final Map<String, Boolean> VALID_COLUMNS = new ConcurrentHashMap<>(256);
+
     private static final Map<String, String> TABLE_PRIMARY_KEY = new HashMap<>(16);
 
     static
@@ -65,6 +95,9 @@ public final class MsunHisMirrorRowSupport
         }
     }
 
+    /**
+     * @param rawItemJsonMode raw_item_json 写法：full 原文、gzip 压缩（{@link #RAW_ITEM_GZIP_PREFIX} + Base64）、off 不写该列
+     */
     public static Map<String, Object> buildMirrorRow(
             MsunHospitalRuntime runtime,
             String apiCode,
@@ -72,9 +105,10 @@ public final class MsunHisMirrorRowSupport
             String hisTraceId,
             String requestParamsJson,
             JSONObject item,
-            String mirrorSource)
+            String mirrorSource,
+            String rawItemJsonMode)
     {
-        Map<String, Object> row = new LinkedHashMap<>(item.size() + 13);
+        Map<String, Object> row = new LinkedHashMap<>((item == null ? 0 : item.size()) + 13);
         row.put("hospital_key", runtime.getHospitalKey());
         row.put("tenant_id", runtime.getTenantId());
         row.put("active_env", runtime.getActiveEnv());
@@ -82,26 +116,125 @@ public final class MsunHisMirrorRowSupport
         row.put("sync_batch_no", syncBatchNo);
         row.put("his_trace_id", hisTraceId);
         row.put("request_params_json", requestParamsJson);
-        row.put("raw_item_json", item == null ? null : item.toJSONString());
+        if (!RAW_ITEM_JSON_OFF.equals(rawItemJsonMode))
+        {
+            row.put("raw_item_json", encodeRawItemJson(item, rawItemJsonMode));
+        }
         row.put("mirror_source", mirrorSource);
         if (item != null)
         {
-            for (String key : item.keySet())
+            Map<String, String> mapping = columnMapping(apiCode);
+            for (Map.Entry<String, Object> e : item.entrySet())
             {
-                if ("categoryIdList".equals(key) || "accountList".equals(key) || "stockDetailList".equals(key))
-                {
-                    continue;
-                }
-                String col = camelToSnake(key);
-                if (isValidColumn(col))
+                String col = columnOf(mapping, e.getKey());
+                if (!col.isEmpty())
                 {
-                    row.put(col, normalizeValue(item.get(key)));
+                    row.put(col, normalizeValue(e.getValue()));
                 }
             }
         }
         return row;
     }
 
+    /**
+     * HIS 字段名 → 镜像列名（按接口缓存，首次出现时计算；非法列名及子列表字段映射为 {@link #NO_COLUMN}）
+     */
+    private static String columnOf(Map<String, String> mapping, String key)
+    {
+        String col = mapping.get(key);
+        if (col != null)
+        {
+            return col;
+        }
+        if ("categoryIdList".equals(key) || "accountList".equals(key) || "stockDetailList".equals(key))
+        {
+            col = NO_COLUMN;
+        }
+        else
+        {
+            String snake = camelToSnake(key);
+            col = isValidColumn(snake) ? snake : NO_COLUMN;
+        }
+        if (mapping.size() < COLUMN_MAPPING_MAX)
+        {
+            mapping.put(key, col);
+        }
+        return col;
+    }
+
+    private static Map<String, String> columnMapping(String apiCode)
+    {
+        return COLUMN_MAPPINGS.computeIfAbsent(apiCode == null ? "" : apiCode, k -> new ConcurrentHashMap<>(128));
+    }
+
+    private static String encodeRawItemJson(JSONObject item, String mode)
+    {
+        if (item == null)
+        {
+            return null;
+        }
+        if (!RAW_ITEM_JSON_GZIP.equals(mode))
+        {
+            return item.toJSONString();
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes))
+        {
+            JSON.writeTo(gzip, item);
+        }
+        catch (IOException ex)
+        {
+            return item.toJSONString();
+        }
+        return RAW_ITEM_GZIP_PREFIX + Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * 镜像查询结果中的 raw_item_json 列原地还原（各镜像查询返回行前统一调用）
+     */
+    public static void decodeRawItemJsonRows(List<Map<String, Object>> rows)
+    {
+        for (Map<String, Object> row : rows)
+        {
+            if (row.get("raw_item_json") != null)
+            {
+                row.put("raw_item_json", decodeRawItemJson(row.get("raw_item_json")));
+            }
+        }
+    }
+
+    /**
+     * 读取 raw_item_json：gzip 写入的还原为 JSON 文本，其余原样返回
+     */
+    public static String decodeRawItemJson(Object stored)
+    {
+        if (stored == null)
+        {
+            return null;
+        }
+        String text = String.valueOf(stored);
+        if (!text.startsWith(RAW_ITEM_GZIP_PREFIX))
+        {
+            return text;
+        }
+        byte[] compressed = Base64.getDecoder().decode(text.substring(RAW_ITEM_GZIP_PREFIX.length()));
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed));
+                ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4))
+        {
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = gzip.read(buf)) > 0)
+            {
+                out.write(buf, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+        catch (IOException | IllegalArgumentException ex)
+        {
+            return text;
+        }
+    }
+
     /**
      * 2.5.44 字典行：HIS data 项常不带 materialOrDrug，从请求参数补全至 material_or_drug 列。
      */
@@ -253,9 +386,25 @@ public final class MsunHisMirrorRowSupport
         return text.isEmpty() ? null : text;
     }
 
+    /**
+     * 列名校验（结果缓存；列名来自 HIS 字段，种类有限，超过上限后不再缓存新列名）
+     */
     public static boolean isValidColumn(String col)
     {
-        return col != null && COLUMN_NAME.matcher(col).matches();
+        if (col == null)
+        {
+            return false;
+        }
+        Boolean valid = VALID_COLUMNS.get(col);
+        if (valid == null)
+        {
+            valid = COLUMN_NAME.matcher(col).matches();
+            if (VALID_COLUMNS.size() < VALID_COLUMNS_MAX)
+            {
+                VALID_COLUMNS.put(col, valid);
+            }
+        }
+        return valid;
     }
 
     /** 镜像表 VARCHAR 列写入前截断，避免 Data truncation。 */
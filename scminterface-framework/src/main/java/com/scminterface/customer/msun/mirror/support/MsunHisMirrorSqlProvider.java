@@ -1,7 +1,9 @@
 package com.scminterface.customer.msun.mirror.support;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -14,6 +16,28 @@ public final class MsunHisMirrorSqlProvider
 {
     private static final Set<String> ALLOWED_TABLES = new HashSet<>(MsunHisMirrorTableNames.allTableNames());
 
+    /** 按批次匹配镜像行：分页落库的基础批次同时匹配其各页批次「基础批次-P页码」 */
+    private static final String BATCH_WITH_PAGES_WHERE =
+            "(sync_batch_no = #{syncBatchNo} OR sync_batch_no LIKE CONCAT(#{syncBatchNo}, '-P%'))";
+
+    private static final int SQL_CACHE_SIZE = 512;
+
+    /**
+     * 动态 INSERT/UPSERT SQL 模板（LRU）：key 为 语句类型 + 表 + 行的列名顺序（多行另含行数），
+     * 同一接口各行列相同，命中后不再逐列校验与拼接。
+     */
+    private static final Map<SqlKey, String> SQL_CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<SqlKey, String>(128, 0.75f, true)
+            {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<SqlKey, String> eldest)
+                {
+                    return size() > SQL_CACHE_SIZE;
+                }
+            });
+
     private MsunHisMirrorSqlProvider()
     {
     }
@@ -23,46 +47,77 @@ public final class MsunHisMirrorSqlProvider
     {
         String table = (String) params.get("table");
         Map<String, Object> row = (Map<String, Object>) params.get("row");
+        checkRow(table, row);
+        SqlKey key = new SqlKey("upsert", table, new ArrayList<>(row.keySet()), 1);
+        String cached = SQL_CACHE.get(key);
+        if (cached != null)
+        {
+            return cached;
+        }
+        List<String> cols = validColumns(key.columns);
+        if (cols.isEmpty())
+        {
+            throw new IllegalArgumentException("镜像行无有效列");
+        }
+        StringBuilder sql = new StringBuilder(256 + cols.size() * 64);
+        appendInsertValues(sql, table, cols);
+        appendUpdateClause(sql, cols);
+        return cache(key, sql);
+    }
+
+    /**
+     * 多行 upsert：INSERT … VALUES (…),(…) ON DUPLICATE KEY UPDATE。
+     * 各行列集合须与 columns 一致（由调用方按列集合分组）；SQL 按 表+列+行数 缓存，同组各分块复用。
+     */
+    @SuppressWarnings("unchecked")
+    public static String upsertMirrorRows(Map<String, Object> params)
+    {
+        String table = (String) params.get("table");
+        List<String> cols = (List<String>) params.get("columns");
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) params.get("rows");
         if (!ALLOWED_TABLES.contains(table))
         {
             throw new IllegalArgumentException("非法镜像表: " + table);
         }
-        if (row == null || row.isEmpty())
+        if (cols == null || cols.isEmpty() || rows == null || rows.isEmpty())
         {
             throw new IllegalArgumentException("镜像行数据为空");
         }
-        List<String> cols = new ArrayList<>();
-        for (String key : row.keySet())
+        SqlKey key = new SqlKey("upsertRows", table, cols, rows.size());
+        String cached = SQL_CACHE.get(key);
+        if (cached != null)
         {
-            if (MsunHisMirrorRowSupport.isValidColumn(key))
-            {
-                cols.add(key);
-            }
+            return cached;
         }
-        if (cols.isEmpty())
+        if (validColumns(cols).size() != cols.size())
         {
-            throw new IllegalArgumentException("镜像行无有效列");
+            throw new IllegalArgumentException("镜像行含非法列: " + cols);
         }
-        StringBuilder sql = new StringBuilder(256 + cols.size() * 24);
+        StringBuilder sql = new StringBuilder(64 + cols.size() * (24 + rows.size() * 20));
         sql.append("INSERT INTO `").append(table).append("` (");
-        for (int i = 0; i < cols.size(); i++)
+        appendColumns(sql, cols);
+        sql.append(") VALUES ");
+        for (int r = 0; r < rows.size(); r++)
         {
-            if (i > 0)
+            sql.append(r > 0 ? ",(" : "(");
+            for (int i = 0; i < cols.size(); i++)
             {
-                sql.append(',');
+                if (i > 0)
+                {
+                    sql.append(',');
+                }
+                sql.append("#{rows[").append(r).append("].").append(cols.get(i)).append('}');
             }
-            sql.append('`').append(cols.get(i)).append('`');
+            sql.append(')');
         }
-        sql.append(") VALUES (");
-        for (int i = 0; i < cols.size(); i++)
-        {
-            if (i > 0)
-            {
-                sql.append(',');
-            }
-            sql.append("#{row.").append(cols.get(i)).append('}');
-        }
-        sql.append(") ON DUPLICATE KEY UPDATE ");
+        appendUpdateClause(sql, cols);
+        return cache(new SqlKey(key.kind, table, new ArrayList<>(cols), key.rows), sql);
+    }
+
+    /** 冲突走业务唯一键时不更新主键列与 insert_time */
+    private static void appendUpdateClause(StringBuilder sql, List<String> cols)
+    {
+        sql.append(" ON DUPLICATE KEY UPDATE ");
         boolean first = true;
         for (String col : cols)
         {
@@ -78,7 +133,11 @@ public final class MsunHisMirrorSqlProvider
             sql.append('`').append(col).append("` = VALUES(`").append(col).append("`)");
             first = false;
         }
-        return sql.toString();
+    }
+
+    public static String selectMaxAllowedPacket()
+    {
+        return "SELECT @@max_allowed_packet";
     }
 
     public static String backfillDrugDictMaterialOrDrug(Map<String, Object> params)
@@ -128,7 +187,7 @@ public final class MsunHisMirrorSqlProvider
         }
         if (params.get("syncBatchNo") != null)
         {
-            sql.append(" AND sync_batch_no = #{syncBatchNo}");
+            sql.append(" AND ").append(BATCH_WITH_PAGES_WHERE);
         }
         if (!countOnly)
         {
@@ -141,7 +200,7 @@ public final class MsunHisMirrorSqlProvider
     {
         return "SELECT sync_batch_no FROM `" + MsunHisMirrorTableNames.SYNC_BATCH
                 + "` WHERE hospital_key = #{hospitalKey} AND tenant_id = #{tenantId} AND active_env = #{activeEnv} "
-                + "AND api_code = #{apiCode} ORDER BY update_time DESC LIMIT 1";
+                + "AND api_code = #{apiCode} AND parent_batch_no IS NULL ORDER BY update_time DESC LIMIT 1";
     }
 
     @SuppressWarnings("unchecked")
@@ -149,6 +208,21 @@ public final class MsunHisMirrorSqlProvider
     {
         String table = (String) params.get("table");
         Map<String, Object> row = (Map<String, Object>) params.get("row");
+        checkRow(table, row);
+        SqlKey key = new SqlKey("insert", table, new ArrayList<>(row.keySet()), 1);
+        String cached = SQL_CACHE.get(key);
+        if (cached != null)
+        {
+            return cached;
+        }
+        List<String> cols = validColumns(key.columns);
+        StringBuilder sql = new StringBuilder(128 + cols.size() * 48);
+        appendInsertValues(sql, table, cols);
+        return cache(key, sql);
+    }
+
+    private static void checkRow(String table, Map<String, Object> row)
+    {
         if (!ALLOWED_TABLES.contains(table))
         {
             throw new IllegalArgumentException("非法镜像表: " + table);
@@ -157,35 +231,55 @@ public final class MsunHisMirrorSqlProvider
         {
             throw new IllegalArgumentException("镜像行数据为空");
         }
-        List<String> cols = new ArrayList<>();
-        for (String key : row.keySet())
+    }
+
+    private static List<String> validColumns(List<String> keys)
+    {
+        List<String> cols = new ArrayList<>(keys.size());
+        for (String key : keys)
         {
             if (MsunHisMirrorRowSupport.isValidColumn(key))
             {
                 cols.add(key);
             }
         }
-        StringBuilder sql = new StringBuilder(128 + cols.size() * 20);
+        return cols;
+    }
+
+    /** INSERT INTO `t` (`c1`,…) VALUES (#{row.c1},…) */
+    private static void appendInsertValues(StringBuilder sql, String table, List<String> cols)
+    {
         sql.append("INSERT INTO `").append(table).append("` (");
+        appendColumns(sql, cols);
+        sql.append(") VALUES (");
         for (int i = 0; i < cols.size(); i++)
         {
             if (i > 0)
             {
                 sql.append(',');
             }
-            sql.append('`').append(cols.get(i)).append('`');
+            sql.append("#{row.").append(cols.get(i)).append('}');
         }
-        sql.append(") VALUES (");
+        sql.append(')');
+    }
+
+    private static void appendColumns(StringBuilder sql, List<String> cols)
+    {
         for (int i = 0; i < cols.size(); i++)
         {
             if (i > 0)
             {
                 sql.append(',');
             }
-            sql.append("#{row.").append(cols.get(i)).append('}');
+            sql.append('`').append(cols.get(i)).append('`');
         }
-        sql.append(')');
-        return sql.toString();
+    }
+
+    private static String cache(SqlKey key, StringBuilder sql)
+    {
+        String built = sql.toString();
+        SQL_CACHE.put(key, built);
+        return built;
     }
 
     public static String queryEntryHisMirror(Map<String, Object> params)
@@ -237,4 +331,45 @@ public final class MsunHisMirrorSqlProvider
         sql.append("ORDER BY insert_time DESC LIMIT 50");
         return sql.toString();
     }
+
+    /** SQL 模板缓存键（列名列表按行内顺序，行顺序不同视为不同模板） */
+    private static final class SqlKey
+    {
+        private final String kind;
+        private final String table;
+        private final List<String> columns;
+        private final int rows;
+        private final int hash;
+
+        private SqlKey(String kind, String table, List<String> columns, int rows)
+        {
+            this.kind = kind;
+            this.table = table;
+            this.columns = columns;
+            this.rows = rows;
+            this.hash = ((kind.hashCode() * 31 + table.hashCode()) * 31 + columns.hashCode()) * 31 + rows;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof SqlKey))
+            {
+                return false;
+            }
+            SqlKey other = (SqlKey) o;
+            return hash == other.hash && rows == other.rows && kind.equals(other.kind)
+                    && table.equals(other.table) && columns.equals(other.columns);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
 }
@@ -1,6 +1,8 @@
 package com.scminterface.customer.msun.mirror.support;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -19,6 +21,15 @@ public class MsunHisMirrorSyncOutcome
     private String mirrorError;
     private String spdSyncError;
     private String spdNote;
+    /** 分块落库进度（未写镜像时为空） */
+    private MsunHisMirrorChunkReport mirrorChunks;
+    /** 分页落库时镜像写入失败（含部分失败）的页批次 */
+    private final List<String> mirrorFailedBatches = new ArrayList<>();
+    /** 异步 SPD 主数据同步任务号（状态见 .../sync/jobs/{jobId}） */
+    private final List<String> spdJobIds = new ArrayList<>();
+
+    /** SPD 主数据同步未能入队的镜像批次（镜像已落库，可手动同步） */
+    private final List<String> spdRejectedBatches = new ArrayList<>();
 
     public String getApiCode()
     {
@@ -130,6 +141,46 @@ public class MsunHisMirrorSyncOutcome
         this.spdNote = spdNote;
     }
 
+    public MsunHisMirrorChunkReport getMirrorChunks()
+    {
+        return mirrorChunks;
+    }
+
+    public void setMirrorChunks(MsunHisMirrorChunkReport mirrorChunks)
+    {
+        this.mirrorChunks = mirrorChunks;
+    }
+
+    public List<String> getMirrorFailedBatches()
+    {
+        return mirrorFailedBatches;
+    }
+
+    public void addMirrorFailedBatch(String batchNo)
+    {
+        mirrorFailedBatches.add(batchNo);
+    }
+
+    public List<String> getSpdJobIds()
+    {
+        return spdJobIds;
+    }
+
+    public void addSpdJobId(String spdJobId)
+    {
+        spdJobIds.add(spdJobId);
+    }
+
+    public List<String> getSpdRejectedBatches()
+    {
+        return spdRejectedBatches;
+    }
+
+    public void addSpdRejectedBatch(String batchNo)
+    {
+        spdRejectedBatches.add(batchNo);
+    }
+
     public Map<String, Object> toMap()
     {
         Map<String, Object> map = new LinkedHashMap<>(16);
@@ -156,6 +207,22 @@ public class MsunHisMirrorSyncOutcome
         {
             map.put("spdNote", spdNote);
         }
+        if (mirrorChunks != null && mirrorChunks.getChunkTotal() > 0)
+        {
+            map.put("mirrorChunks", mirrorChunks.toMap());
+        }
+        if (!mirrorFailedBatches.isEmpty())
+        {
+            map.put("mirrorFailedBatches", mirrorFailedBatches);
+        }
+        if (!spdJobIds.isEmpty())
+        {
+            map.put("spdJobIds", spdJobIds);
+        }
+        if (!spdRejectedBatches.isEmpty())
+        {
+            map.put("spdRejectedBatches", spdRejectedBatches);
+        }
         return map;
     }
 }
@@ -185,7 +185,7 @@ public class MsunSpdQueryService
             Map<String, Object> body) throws Exception
     {
         String url = MsunOpenApiSupport.buildUrl(runtime, path);
-        MsunSignedHttpResult http = MsunOpenApiSupport.createClient(runtime).postWithDebug(url, body);
+        MsunSignedHttpResult http = MsunOpenApiSupport.createClient(runtime).postWithDebug(url, body, true);
         JSONObject wrapped = MsunOpenApiSupport.wrapRawResponse(http.getResponseBody(), body);
         MsunHisInvokeDebugSupport.attachInvokeDebug(wrapped,
                 MsunHisInvokeDebugSupport.buildDebug(runtime, apiNo, path, http, wrapped));
@@ -13,13 +13,13 @@ import org.springframework.stereotype.Service;
 
 /**
  * 2.5.82 合并库存落库后，按行自动链式调用 2.5.43 批次库存并落镜像库。
+ * 调用间不固定等待，2.5.43 调用频率由 {@link com.scminterface.customer.msun.http.MsunHttpEngine} 自适应限流。
  */
 @Service
 public class MsunSpdStockCascadeService
 {
     private static final Logger log = LoggerFactory.getLogger(MsunSpdStockCascadeService.class);
     private static final int DEFAULT_MAX_CASCADE = 500;
-    private static final long CASCADE_DELAY_MS = 100L;
 
     private final MsunSpdQueryService spdQueryService;
     private final MsunHisMirrorSyncService mirrorSyncService;
@@ -106,11 +106,6 @@ public class MsunSpdStockCascadeService
                         deptId, drugId, drugSpecPackingId, ex.getMessage());
             }
             details.add(item);
-
-            if (requested < limit && i < mergeRows.size() - 1)
-            {
-                sleepQuietly(CASCADE_DELAY_MS);
-            }
         }
         summary.put("message", "链式批次库存完成");
         return summary;
@@ -129,16 +124,4 @@ public class MsunSpdStockCascadeService
         }
         return hisBody.getJSONArray("data");
     }
-
-    private static void sleepQuietly(long ms)
-    {
-        try
-        {
-            Thread.sleep(ms);
-        }
-        catch (InterruptedException ex)
-        {
-            Thread.currentThread().interrupt();
-        }
-    }
 }
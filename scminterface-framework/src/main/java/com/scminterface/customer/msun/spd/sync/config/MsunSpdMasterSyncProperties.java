@@ -11,6 +11,23 @@ public class MsunSpdMasterSyncProperties
     /** 镜像 m_* 写入成功后是否 upsert 至 SPD 主数据表 */
     private boolean enabled = true;
 
+    /**
+     * 是否异步同步：镜像落库后按 医院+接口+批次 入队由后台线程写 SPD 主数据，接口立即返回任务号；false 时在请求线程内同步执行
+     */
+    private boolean async = true;
+
+    /** 后台同步线程数；默认 1，保证同一医院各接口按入队顺序写入（供应商/生产厂家先于耗材档案） */
+    private int workerThreads = 1;
+
+    /** 排队任务上限；队列满时单批次提交被拒绝（镜像批次保留，可在探针页手动同步），分页流式提交在 submitWaitMillis 内等待空位 */
+    private int queueCapacity = 200;
+
+    /** 一次分页拉取因队列满累计等待的上限（毫秒），用尽后的页批次不再等待、直接列为未入队 */
+    private long submitWaitMillis = 500L;
+
+    /** 内存中保留的已结束任务数（供任务状态查询） */
+    private int jobHistory = 500;
+
     public boolean isEnabled()
     {
         return enabled;
@@ -20,4 +37,54 @@ public class MsunSpdMasterSyncProperties
     {
         this.enabled = enabled;
     }
+
+    public boolean isAsync()
+    {
+        return async;
+    }
+
+    public void setAsync(boolean async)
+    {
+        this.async = async;
+    }
+
+    public int getWorkerThreads()
+    {
+        return workerThreads;
+    }
+
+    public void setWorkerThreads(int workerThreads)
+    {
+        this.workerThreads = workerThreads;
+    }
+
+    public int getQueueCapacity()
+    {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity)
+    {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public long getSubmitWaitMillis()
+    {
+        return submitWaitMillis;
+    }
+
+    public void setSubmitWaitMillis(long submitWaitMillis)
+    {
+        this.submitWaitMillis = submitWaitMillis;
+    }
+
+    public int getJobHistory()
+    {
+        return jobHistory;
+    }
+
+    public void setJobHistory(int jobHistory)
+    {
+        this.jobHistory = jobHistory;
+    }
 }
@@ -4,6 +4,7 @@ import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
 import com.scminterface.common.utils.StringUtils;
 import com.scminterface.customer.msun.hospital.MsunHospitalRuntime;
+import com.scminterface.customer.msun.mirror.service.MsunHisMirrorPageStream;
 import com.scminterface.customer.msun.mirror.service.MsunHisMirrorSyncService;
 import com.scminterface.customer.msun.service.MsunProbeService;
 import com.scminterface.customer.msun.service.MsunSpdQueryService;
@@ -54,40 +55,36 @@ public class MsunSpdMasterPullService
 
     public JSONObject pullSuppliers(MsunHospitalRuntime runtime) throws Exception
     {
-        JSONObject data = MsunHisPaginationSupport.pullAllPages(
+        return finishStream(runtime, "2.5.62", "供应商(材料)",
                 cursor -> spdQueryService.queryDrugSuppliers(
                         runtime, null, 100, MATERIAL_ONLY, null, null, cursor),
-                "supplierId");
-        return finish(runtime, "2.5.62", "供应商(材料)", data);
+                "supplierId", 100);
     }
 
     public JSONObject pullProducers(MsunHospitalRuntime runtime) throws Exception
     {
-        JSONObject data = MsunHisPaginationSupport.pullAllPages(
+        return finishStream(runtime, "2.5.63", "生产厂家(材料)",
                 cursor -> spdQueryService.queryDrugProducers(
                         runtime, null, 100, MATERIAL_ONLY, null, null, cursor),
-                "producerId");
-        return finish(runtime, "2.5.63", "生产厂家(材料)", data);
+                "producerId", 100);
     }
 
     public JSONObject pullCategories(MsunHospitalRuntime runtime) throws Exception
     {
-        JSONObject data = MsunHisPaginationSupport.pullAllPages(
+        return finishStream(runtime, "2.5.58", "库房分类",
                 cursor -> spdQueryService.queryDictCategory(runtime, null, 100, cursor),
-                "hisDictId");
-        return finish(runtime, "2.5.58", "库房分类", data);
+                "hisDictId", 100);
     }
 
     public JSONObject pullMaterials(MsunHospitalRuntime runtime) throws Exception
     {
         log.info("众阳HIS 耗材档案全量下载开始 hospital={} materialOrDrug={} limitCount=不传",
                 runtime.getHospitalKey(), MATERIAL_ONLY_INT);
-        JSONObject data = MsunHisPaginationSupport.pullAllPages(
+        return finishStream(runtime, "2.5.44", "耗材档案(材料)",
                 cursor -> spdQueryService.queryDrugDictInfos(
                         runtime, null, cursor, null, null, null, null,
                         MATERIAL_ONLY_INT, null, null, null, null),
                 "drugId", null);
-        return finish(runtime, "2.5.44", "耗材档案(材料)", data);
     }
 
     /**
@@ -163,6 +160,43 @@ public class MsunSpdMasterPullService
         return result;
     }
 
+    /**
+     * 分页档案：逐页落镜像并同步 SPD 主数据，不合并全部分页；返回的 hisBody 仅含 _probeMerged 汇总与 mirrorSync 结果。
+     */
+    private JSONObject finishStream(
+            MsunHospitalRuntime runtime,
+            String apiCode,
+            String label,
+            MsunHisPaginationSupport.PageFetcher fetcher,
+            String cursorField,
+            Integer pageSizeHint) throws Exception
+    {
+        MsunHisMirrorPageStream stream = mirrorSyncService.openPageStream(runtime, apiCode);
+        JSONObject summary;
+        try
+        {
+            summary = MsunHisPaginationSupport.streamAllPages(fetcher, cursorField, pageSizeHint, stream);
+        }
+        catch (Exception ex)
+        {
+            // HIS 翻页失败：已落库的页仍登记基础批次
+            stream.finish(0);
+            throw ex;
+        }
+        JSONObject hisBody = summary.getJSONObject("hisBody");
+        JSONObject merged = hisBody.getJSONObject("_probeMerged");
+        int rows = merged.getIntValue("totalRows");
+        hisBody.put("mirrorSync", stream.finish(rows).toMap());
+        log.info("众阳主数据拉取完成 hospital={} api={} type={} hisUrl={} archiveRows={}",
+                runtime.getHospitalKey(), apiCode, label, resolveHisUrl(summary), rows);
+        JSONObject result = new JSONObject();
+        result.put("label", label);
+        result.put("apiCode", apiCode);
+        result.put("rows", rows);
+        result.put("hisBody", hisBody);
+        return result;
+    }
+
     private static String resolveHisUrl(JSONObject data)
     {
         if (data == null)
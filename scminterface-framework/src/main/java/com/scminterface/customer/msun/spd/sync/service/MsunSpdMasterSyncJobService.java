@@ -0,0 +1,336 @@
+package com.scminterface.customer.msun.spd.sync.service;
+
+import com.scminterface.customer.msun.hospital.MsunHospitalRuntime;
+import com.scminterface.customer.msun.mirror.support.MsunHisMirrorSyncOutcome;
+import com.scminterface.customer.msun.spd.sync.config.MsunSpdMasterSyncProperties;
+import com.scminterface.customer.msun.spd.sync.support.MsunSpdMasterSyncJob;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * SPD 主数据异步同步队列：镜像批次落库后按 医院+接口+批次 入队，由有界线程池写入 SPD 主数据表，HIS 查询接口不再等待。
+ * <p>
+ * 相同 医院+接口+批次 仍在排队时不重复入队（返回已有任务号）；队列满时单批次提交被拒绝，分页流式提交在调用方给定的时限内等待空位
+ * （保持入队顺序，不阻塞请求超过 submit-wait-millis），仍未入队的批次列于 outcome 的 spdRejectedBatches，镜像批次保留可手动同步。
+ * 任务状态仅保存在内存（最近 job-history 个已结束任务），重启后丢失。
+ * 后台线程经 {@link MsunSpdMasterSyncExecutor} 的 @DataSource(SPD) 切换数据源，不依赖请求线程上下文。
+ */
+@Service
+public class MsunSpdMasterSyncJobService
+{
+    private static final Logger log = LoggerFactory.getLogger(MsunSpdMasterSyncJobService.class);
+    private static final DateTimeFormatter JOB_FMT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final MsunSpdMasterSyncProperties properties;
+    private final MsunSpdMasterSyncService spdMasterSyncService;
+
+    /** 排队中的任务，key 为 医院|接口|批次（开始执行即移除，之后相同批次可再次入队） */
+    private final Map<String, MsunSpdMasterSyncJob> queuedJobs = new ConcurrentHashMap<>();
+
+    /** 全部任务按提交顺序，超出 job-history 时淘汰最早的已结束任务 */
+    private final Map<String, MsunSpdMasterSyncJob> jobs = new LinkedHashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong waitedFull = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalQueueMillis = new AtomicLong();
+    private final AtomicLong maxQueueMillis = new AtomicLong();
+    private final AtomicLong totalRunMillis = new AtomicLong();
+    private final AtomicLong maxRunMillis = new AtomicLong();
+
+    private ThreadPoolExecutor executor;
+
+    public MsunSpdMasterSyncJobService(
+            MsunSpdMasterSyncProperties properties,
+            MsunSpdMasterSyncService spdMasterSyncService)
+    {
+        this.properties = properties;
+        this.spdMasterSyncService = spdMasterSyncService;
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        int threads = Math.max(1, properties.getWorkerThreads());
+        AtomicInteger seq = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                r -> {
+                    Thread t = new Thread(r, "msun-spd-sync-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        // 队列满时分页提交直接 offer 进队列，须保证工作线程已启动
+        executor.prestartAllCoreThreads();
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if (executor != null)
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 镜像批次落库后同步 SPD 主数据：async=true 时入队，任务号写入 outcome 的 spdJobIds；否则在当前线程执行。
+     */
+    public void submit(
+            MsunHisMirrorSyncOutcome outcome,
+            MsunHospitalRuntime runtime,
+            String apiCode,
+            String batchNo,
+            int mirrorRows)
+    {
+        submit(outcome, runtime, apiCode, batchNo, mirrorRows, 0L);
+    }
+
+    /**
+     * 同 {@link #submit(MsunHisMirrorSyncOutcome, MsunHospitalRuntime, String, String, int)}；
+     * 队列满时最多等待 maxWaitMillis 毫秒空位（分页流式落库用），超时仍未入队则记为拒绝。
+     */
+    public void submit(
+            MsunHisMirrorSyncOutcome outcome,
+            MsunHospitalRuntime runtime,
+            String apiCode,
+            String batchNo,
+            int mirrorRows,
+            long maxWaitMillis)
+    {
+        if (!spdMasterSyncService.checkSpdSync(outcome, runtime, apiCode, batchNo, mirrorRows))
+        {
+            return;
+        }
+        if (!properties.isAsync())
+        {
+            spdMasterSyncService.runSpdSync(outcome, runtime, apiCode, batchNo, mirrorRows);
+            return;
+        }
+        String key = runtime.getHospitalKey() + "|" + apiCode + "|" + batchNo;
+        MsunSpdMasterSyncJob job = new MsunSpdMasterSyncJob(
+                buildJobId(), runtime.getHospitalKey(), apiCode, batchNo, mirrorRows);
+        MsunSpdMasterSyncJob queued = queuedJobs.putIfAbsent(key, job);
+        if (queued != null)
+        {
+            deduplicated.incrementAndGet();
+            queued.incrementDedupHits();
+            outcome.addSpdJobId(queued.getJobId());
+            outcome.setSpdNote("相同批次 SPD 主数据同步已在排队，任务号 " + queued.getJobId());
+            return;
+        }
+        remember(job);
+        Runnable task = () -> run(key, job, runtime);
+        try
+        {
+            executeWaiting(task, maxWaitMillis);
+        }
+        catch (RejectedExecutionException ex)
+        {
+            queuedJobs.remove(key, job);
+            rejected.incrementAndGet();
+            String error = "SPD 主数据同步入队失败（" + ex.getMessage() + "），批次 " + batchNo
+                    + " 未同步，可稍后在探针页手动同步";
+            job.finish(MsunSpdMasterSyncJob.STATUS_REJECTED, 0, null, error);
+            log.warn("众阳HIS SPD主数据同步任务被拒绝 hospital={} api={} batch={} queued={}",
+                    runtime.getHospitalKey(), apiCode, batchNo, executor.getQueue().size());
+            outcome.addSpdRejectedBatch(batchNo);
+            outcome.setSpdSyncError(error);
+            return;
+        }
+        submitted.incrementAndGet();
+        outcome.addSpdJobId(job.getJobId());
+        outcome.setSpdNote("SPD 主数据同步已排队，任务号 " + job.getJobId());
+    }
+
+    /**
+     * 按任务号查询，不存在（或已淘汰）时返回 null
+     */
+    public Map<String, Object> getJob(String jobId)
+    {
+        MsunSpdMasterSyncJob job;
+        synchronized (jobs)
+        {
+            job = jobs.get(jobId);
+        }
+        return job == null ? null : job.toMap();
+    }
+
+    /**
+     * 最近的任务（新在前），可按医院、接口、状态过滤
+     */
+    public List<Map<String, Object>> listJobs(String hospitalKey, String apiCode, String status, int limit)
+    {
+        List<MsunSpdMasterSyncJob> snapshot;
+        synchronized (jobs)
+        {
+            snapshot = new ArrayList<>(jobs.values());
+        }
+        Collections.reverse(snapshot);
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (MsunSpdMasterSyncJob job : snapshot)
+        {
+            if (list.size() >= Math.max(1, limit))
+            {
+                break;
+            }
+            if ((hospitalKey == null || hospitalKey.equals(job.getHospitalKey()))
+                    && (apiCode == null || apiCode.equals(job.getApiCode()))
+                    && (status == null || status.equals(job.getStatus())))
+            {
+                list.add(job.toMap());
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 一次分页拉取因队列满可累计等待的毫秒数
+     */
+    public long getSubmitWaitMillis()
+    {
+        return Math.max(0L, properties.getSubmitWaitMillis());
+    }
+
+    /**
+     * 队列与执行统计
+     */
+    public Map<String, Object> getMetrics()
+    {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("async", properties.isAsync());
+        m.put("workerThreads", executor.getCorePoolSize());
+        m.put("queueCapacity", properties.getQueueCapacity());
+        m.put("submitWaitMillis", properties.getSubmitWaitMillis());
+        m.put("queued", executor.getQueue().size());
+        m.put("running", executor.getActiveCount());
+        m.put("submitted", submitted.get());
+        m.put("deduplicated", deduplicated.get());
+        m.put("rejected", rejected.get());
+        m.put("waitedFull", waitedFull.get());
+        m.put("succeeded", succeeded.get());
+        m.put("failed", failed.get());
+        long finished = succeeded.get() + failed.get();
+        m.put("avgQueueMillis", finished > 0 ? totalQueueMillis.get() / finished : 0L);
+        m.put("maxQueueMillis", maxQueueMillis.get());
+        m.put("avgRunMillis", finished > 0 ? totalRunMillis.get() / finished : 0L);
+        m.put("maxRunMillis", maxRunMillis.get());
+        return m;
+    }
+
+    /**
+     * 入队，队列满时最多等待 maxWaitMillis 毫秒空位；超时、线程池已关闭或等待被中断时抛 RejectedExecutionException
+     */
+    private void executeWaiting(Runnable task, long maxWaitMillis)
+    {
+        try
+        {
+            executor.execute(task);
+            return;
+        }
+        catch (RejectedExecutionException ex)
+        {
+            if (executor.isShutdown())
+            {
+                throw new RejectedExecutionException("同步线程池已关闭", ex);
+            }
+            if (maxWaitMillis <= 0)
+            {
+                throw new RejectedExecutionException("队列已满（" + properties.getQueueCapacity() + "）", ex);
+            }
+        }
+        waitedFull.incrementAndGet();
+        try
+        {
+            if (!executor.getQueue().offer(task, maxWaitMillis, TimeUnit.MILLISECONDS))
+            {
+                throw new RejectedExecutionException("队列已满（" + properties.getQueueCapacity() + "），等待 "
+                        + maxWaitMillis + "ms 仍无空位");
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("等待队列空位时被中断", ex);
+        }
+        if (executor.isShutdown() && executor.getQueue().remove(task))
+        {
+            throw new RejectedExecutionException("同步线程池已关闭");
+        }
+    }
+
+    private void run(String key, MsunSpdMasterSyncJob job, MsunHospitalRuntime runtime)
+    {
+        job.start();
+        queuedJobs.remove(key, job);
+        MsunHisMirrorSyncOutcome outcome = new MsunHisMirrorSyncOutcome();
+        try
+        {
+            spdMasterSyncService.runSpdSync(
+                    outcome, runtime, job.getApiCode(), job.getSyncBatchNo(), job.getMirrorRows());
+        }
+        catch (RuntimeException ex)
+        {
+            log.warn("众阳HIS SPD主数据同步任务异常 job={} api={} batch={} err={}",
+                    job.getJobId(), job.getApiCode(), job.getSyncBatchNo(), ex.getMessage(), ex);
+            outcome.setSpdSyncError(ex.getMessage());
+        }
+        boolean ok = outcome.getSpdSyncError() == null;
+        job.finish(ok ? MsunSpdMasterSyncJob.STATUS_SUCCESS : MsunSpdMasterSyncJob.STATUS_FAILED,
+                outcome.getSpdRows(), outcome.getSpdNote(), outcome.getSpdSyncError());
+        (ok ? succeeded : failed).incrementAndGet();
+        totalQueueMillis.addAndGet(job.getQueueMillis());
+        maxQueueMillis.accumulateAndGet(job.getQueueMillis(), Math::max);
+        totalRunMillis.addAndGet(job.getRunMillis());
+        maxRunMillis.accumulateAndGet(job.getRunMillis(), Math::max);
+        log.info("众阳HIS SPD主数据同步任务结束 job={} hospital={} api={} batch={} status={} spdRows={} queue={}ms run={}ms",
+                job.getJobId(), job.getHospitalKey(), job.getApiCode(), job.getSyncBatchNo(), job.getStatus(),
+                job.getSpdRows(), job.getQueueMillis(), job.getRunMillis());
+    }
+
+    private void remember(MsunSpdMasterSyncJob job)
+    {
+        int limit = Math.max(1, properties.getJobHistory());
+        synchronized (jobs)
+        {
+            jobs.put(job.getJobId(), job);
+            Iterator<MsunSpdMasterSyncJob> it = jobs.values().iterator();
+            while (jobs.size() > limit && it.hasNext())
+            {
+                if (it.next().isFinished())
+                {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static String buildJobId()
+    {
+        String suffix = UUID.randomUUID().toString().replace("-", "").substring(0, 8);
+        return "SPD-" + LocalDateTime.now().format(JOB_FMT) + "-" + suffix;
+    }
+}
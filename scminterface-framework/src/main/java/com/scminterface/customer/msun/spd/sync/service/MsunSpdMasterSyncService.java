@@ -42,35 +42,60 @@ public class MsunSpdMasterSyncService
             String apiCode,
             String batchNo,
             int mirrorRows)
+    {
+        if (checkSpdSync(outcome, runtime, apiCode, batchNo, mirrorRows))
+        {
+            runSpdSync(outcome, runtime, apiCode, batchNo, mirrorRows);
+        }
+    }
+
+    /**
+     * 写入开关与数据源状态，判断本批次是否需要同步 SPD 主数据（不需要时原因写入 outcome）
+     */
+    boolean checkSpdSync(
+            MsunHisMirrorSyncOutcome outcome,
+            MsunHospitalRuntime runtime,
+            String apiCode,
+            String batchNo,
+            int mirrorRows)
     {
         if (outcome == null)
         {
-            return;
+            return false;
         }
         outcome.setSpdSyncEnabled(properties.isEnabled());
         outcome.setSpdDataSourceAvailable(dataSourceAvailability.isAvailable(DataSourceType.SPD));
         if (!properties.isEnabled())
         {
             outcome.setSpdNote("spd-master-sync.enabled=false，未写入 SPD 主数据");
-            return;
+            return false;
         }
         if (mirrorRows <= 0)
         {
-            return;
+            return false;
         }
         if (!dataSourceAvailability.isAvailable(DataSourceType.SPD))
         {
             outcome.setSpdSyncError("spring.datasource.druid.spd.enabled=false，SPD 数据源未启用");
-            return;
+            return false;
         }
         if (runtime == null || StringUtils.isEmpty(apiCode) || StringUtils.isEmpty(batchNo))
         {
-            return;
-        }
-        if (!MsunSpdMasterSyncSupport.isMasterDataApi(apiCode))
-        {
-            return;
+            return false;
         }
+        return MsunSpdMasterSyncSupport.isMasterDataApi(apiCode);
+    }
+
+    /**
+     * 执行本批次 SPD 主数据 upsert（已通过 {@link #checkSpdSync}），行数与错误写入 outcome
+     */
+    void runSpdSync(
+            MsunHisMirrorSyncOutcome outcome,
+            MsunHospitalRuntime runtime,
+            String apiCode,
+            String batchNo,
+            int mirrorRows)
+    {
         try
         {
             int rows = syncExecutor.execute(runtime, apiCode, batchNo);
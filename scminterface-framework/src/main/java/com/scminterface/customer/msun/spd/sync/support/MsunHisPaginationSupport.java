@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 
 /**
  * 众阳 HIS 分页查询合并（游标翻页，供 SPD 一键同步使用）。
+ * 翻页间不固定等待，调用频率由 {@link com.scminterface.customer.msun.http.MsunHttpEngine} 按接口自适应限流。
  */
 public final class MsunHisPaginationSupport
 {
@@ -16,7 +17,6 @@ public final class MsunHisPaginationSupport
 
     private static final int DEFAULT_PAGE_SIZE = 100;
     private static final int MAX_PAGES = 500;
-    private static final long DELAY_MS = 300L;
 
     private MsunHisPaginationSupport()
     {
@@ -28,20 +28,54 @@ public final class MsunHisPaginationSupport
         JSONObject fetch(Long cursor) throws Exception;
     }
 
+    /**
+     * 逐页回调（页码从 1 开始，仅回调非空页）；抛出异常时中止翻页。
+     */
+    @FunctionalInterface
+    public interface PageConsumer
+    {
+        void accept(int pageNum, JSONObject page) throws Exception;
+    }
+
     public static JSONObject pullAllPages(PageFetcher fetcher, String cursorField) throws Exception
     {
         return pullAllPages(fetcher, cursorField, DEFAULT_PAGE_SIZE);
     }
 
     /**
+     * 拉取全部分页并合并为一个 hisBody.data（全量驻留内存，适合条数不多的档案；大字典请用 {@link #streamAllPages}）。
+     *
      * @param pageSizeHint 与请求 limitCount 一致时用于判断末页；null 表示不按条数截断（如 2.5.44 不传 limitCount）
      */
     public static JSONObject pullAllPages(PageFetcher fetcher, String cursorField, Integer pageSizeHint) throws Exception
     {
         JSONArray allItems = new JSONArray();
+        JSONObject merged = streamAllPages(fetcher, cursorField, pageSizeHint,
+                (pageNum, page) -> allItems.addAll(extractData(page)));
+        JSONObject hisBody = merged.getJSONObject("hisBody");
+        hisBody.put("data", allItems);
+        hisBody.put("message", "合并完成");
+        hisBody.getJSONObject("_probeMerged").put("mode", "allPages");
+        return merged;
+    }
+
+    /**
+     * 流式翻页：每页到达即交给 consumer 处理，不累积各页数据，内存占用与档案总量无关。
+     * <p>
+     * 返回末页的外层结构（hisInvoke 等），hisBody 不含 data，仅含 _probeMerged 汇总（pages、totalRows 等）。
+     *
+     * @param pageSizeHint 与请求 limitCount 一致时用于判断末页；null 表示不按条数截断（如 2.5.44 不传 limitCount）
+     */
+    public static JSONObject streamAllPages(
+            PageFetcher fetcher,
+            String cursorField,
+            Integer pageSizeHint,
+            PageConsumer consumer) throws Exception
+    {
         Long cursor = null;
         JSONObject lastPage = null;
         int pageNum = 0;
+        int totalRows = 0;
 
         while (pageNum < MAX_PAGES)
         {
@@ -54,13 +88,14 @@ public final class MsunHisPaginationSupport
             }
             JSONArray items = extractData(page);
             int pageRows = items != null ? items.size() : 0;
+            totalRows += pageRows;
             log.info("众阳HIS 档案分页拉取 page={} cursor={} pageRows={} totalRows={} hisUrl={}",
-                    pageNum, cursor, pageRows, allItems.size() + pageRows, resolveHisUrl(page));
+                    pageNum, cursor, pageRows, totalRows, resolveHisUrl(page));
             if (items == null || items.isEmpty())
             {
                 break;
             }
-            allItems.addAll(items);
+            consumer.accept(pageNum, page);
             if (pageSizeHint != null && items.size() < pageSizeHint)
             {
                 break;
@@ -71,33 +106,27 @@ public final class MsunHisPaginationSupport
                 break;
             }
             cursor = next;
-            if (pageNum < MAX_PAGES)
-            {
-                Thread.sleep(DELAY_MS);
-            }
         }
 
-        JSONObject merged = lastPage != null ? JSONObject.parseObject(lastPage.toJSONString()) : new JSONObject();
-        JSONObject hisBody = merged.getJSONObject("hisBody");
-        if (hisBody == null)
-        {
-            hisBody = new JSONObject();
-            merged.put("hisBody", hisBody);
-        }
-        hisBody.put("data", allItems);
+        // 末页的 hisBody.data 不带出，避免调用方误持有最后一页数据
+        JSONObject summary = lastPage != null ? new JSONObject(lastPage) : new JSONObject();
+        JSONObject lastBody = summary.getJSONObject("hisBody");
+        JSONObject hisBody = lastBody != null ? new JSONObject(lastBody) : new JSONObject();
+        hisBody.remove("data");
         hisBody.put("success", true);
         hisBody.put("code", "0000");
-        hisBody.put("message", "合并完成");
+        hisBody.put("message", "分页处理完成");
         JSONObject probeMerged = new JSONObject();
-        probeMerged.put("mode", "allPages");
+        probeMerged.put("mode", "stream");
         probeMerged.put("pages", pageNum);
-        probeMerged.put("totalRows", allItems.size());
+        probeMerged.put("totalRows", totalRows);
         probeMerged.put("pageSize", pageSizeHint);
         probeMerged.put("cursorField", cursorField);
         hisBody.put("_probeMerged", probeMerged);
+        summary.put("hisBody", hisBody);
         log.info("众阳HIS 档案分页拉取完成 pages={} totalArchiveRows={} cursorField={}",
-                pageNum, allItems.size(), cursorField);
-        return merged;
+                pageNum, totalRows, cursorField);
+        return summary;
     }
 
     private static String resolveHisUrl(JSONObject wrapped)
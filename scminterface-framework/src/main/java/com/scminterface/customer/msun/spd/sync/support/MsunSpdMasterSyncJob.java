@@ -0,0 +1,161 @@
+package com.scminterface.customer.msun.spd.sync.support;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个异步 SPD 主数据同步任务（医院 + 接口 + 镜像批次），状态由后台线程更新、查询接口读取。
+ */
+public class MsunSpdMasterSyncJob
+{
+    public static final String STATUS_QUEUED = "queued";
+    public static final String STATUS_RUNNING = "running";
+    public static final String STATUS_SUCCESS = "success";
+    public static final String STATUS_FAILED = "failed";
+    public static final String STATUS_REJECTED = "rejected";
+
+    private final String jobId;
+    private final String hospitalKey;
+    private final String apiCode;
+    private final String syncBatchNo;
+    private final int mirrorRows;
+    private final long submitTime;
+    /** 排队期间相同批次再次提交的次数 */
+    private final AtomicInteger dedupHits = new AtomicInteger();
+
+    private volatile String status = STATUS_QUEUED;
+    private volatile long startTime;
+    private volatile long endTime;
+    private volatile int spdRows;
+    private volatile String spdNote;
+    private volatile String spdSyncError;
+
+    public MsunSpdMasterSyncJob(String jobId, String hospitalKey, String apiCode, String syncBatchNo, int mirrorRows)
+    {
+        this.jobId = jobId;
+        this.hospitalKey = hospitalKey;
+        this.apiCode = apiCode;
+        this.syncBatchNo = syncBatchNo;
+        this.mirrorRows = mirrorRows;
+        this.submitTime = System.currentTimeMillis();
+    }
+
+    public void start()
+    {
+        startTime = System.currentTimeMillis();
+        status = STATUS_RUNNING;
+    }
+
+    public void finish(String finalStatus, int rows, String note, String error)
+    {
+        spdRows = rows;
+        spdNote = note;
+        spdSyncError = error;
+        endTime = System.currentTimeMillis();
+        status = finalStatus;
+    }
+
+    public boolean isFinished()
+    {
+        String s = status;
+        return !STATUS_QUEUED.equals(s) && !STATUS_RUNNING.equals(s);
+    }
+
+    public int incrementDedupHits()
+    {
+        return dedupHits.incrementAndGet();
+    }
+
+    /** 排队耗时（未开始时为至今） */
+    public long getQueueMillis()
+    {
+        long start = startTime;
+        if (start > 0)
+        {
+            return start - submitTime;
+        }
+        return (endTime > 0 ? endTime : System.currentTimeMillis()) - submitTime;
+    }
+
+    /** 执行耗时（执行中为至今） */
+    public long getRunMillis()
+    {
+        long start = startTime;
+        if (start <= 0)
+        {
+            return 0L;
+        }
+        return (endTime > 0 ? endTime : System.currentTimeMillis()) - start;
+    }
+
+    public String getJobId()
+    {
+        return jobId;
+    }
+
+    public String getHospitalKey()
+    {
+        return hospitalKey;
+    }
+
+    public String getApiCode()
+    {
+        return apiCode;
+    }
+
+    public String getSyncBatchNo()
+    {
+        return syncBatchNo;
+    }
+
+    public int getMirrorRows()
+    {
+        return mirrorRows;
+    }
+
+    public String getStatus()
+    {
+        return status;
+    }
+
+    public int getSpdRows()
+    {
+        return spdRows;
+    }
+
+    public String getSpdNote()
+    {
+        return spdNote;
+    }
+
+    public String getSpdSyncError()
+    {
+        return spdSyncError;
+    }
+
+    public Map<String, Object> toMap()
+    {
+        Map<String, Object> map = new LinkedHashMap<>(16);
+        map.put("jobId", jobId);
+        map.put("hospitalKey", hospitalKey);
+        map.put("apiCode", apiCode);
+        map.put("syncBatchNo", syncBatchNo);
+        map.put("status", status);
+        map.put("mirrorRows", mirrorRows);
+        map.put("spdRows", spdRows);
+        map.put("submitTime", submitTime);
+        map.put("queueMillis", getQueueMillis());
+        map.put("runMillis", getRunMillis());
+        map.put("dedupHits", dedupHits.get());
+        if (spdNote != null)
+        {
+            map.put("spdNote", spdNote);
+        }
+        if (spdSyncError != null)
+        {
+            map.put("spdSyncError", spdSyncError);
+        }
+        return map;
+    }
+}
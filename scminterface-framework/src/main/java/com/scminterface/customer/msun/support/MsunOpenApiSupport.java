@@ -2,26 +2,49 @@ package com.scminterface.customer.msun.support;
 
 import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONObject;
+import com.scminterface.common.utils.spring.SpringUtils;
 import com.scminterface.customer.msun.hospital.MsunHospitalRuntime;
+import com.scminterface.customer.msun.http.MsunHttpEngine;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 众阳 OpenAPI 公共辅助（URL 拼接、回参包装、客户端创建）。
  */
 public final class MsunOpenApiSupport
 {
+    /** 按医院缓存的客户端（私钥只解析一次）；切换环境或修改连接信息后按新配置重建 */
+    private static final Map<String, CachedClient> CLIENTS = new ConcurrentHashMap<>();
+
     private MsunOpenApiSupport()
     {
     }
 
     public static MsunSignedHttpClient createClient(MsunHospitalRuntime runtime)
     {
-        return new MsunSignedHttpClient(
+        List<String> settings = Arrays.asList(
+                runtime.getActiveEnv(),
+                runtime.getAppId(),
+                runtime.getAppSecret(),
+                runtime.getHospitalId(),
+                runtime.getOrgId(),
+                runtime.getLoginUser());
+        CachedClient cached = CLIENTS.get(runtime.getHospitalKey());
+        if (cached != null && cached.settings.equals(settings))
+        {
+            return cached.client;
+        }
+        MsunSignedHttpClient client = new MsunSignedHttpClient(
+                SpringUtils.getBean(MsunHttpEngine.class),
                 runtime.getAppId(),
                 runtime.getAppSecret(),
                 runtime.getHospitalId(),
                 runtime.getOrgId(),
                 runtime.getLoginUser());
+        CLIENTS.put(runtime.getHospitalKey(), new CachedClient(settings, client));
+        return client;
     }
 
     public static String buildUrl(String baseUrl, String path)
@@ -56,4 +79,16 @@ public final class MsunOpenApiSupport
     {
         return wrapRawResponse(raw, (Object) requestParams);
     }
+
+    private static final class CachedClient
+    {
+        private final List<String> settings;
+        private final MsunSignedHttpClient client;
+
+        private CachedClient(List<String> settings, MsunSignedHttpClient client)
+        {
+            this.settings = settings;
+            this.client = client;
+        }
+    }
 }
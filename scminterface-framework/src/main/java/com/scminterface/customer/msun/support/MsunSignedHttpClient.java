@@ -1,46 +1,46 @@
 package com.scminterface.customer.msun.support;
 
 import cn.hutool.core.collection.CollectionUtil;
-import cn.hutool.http.HttpRequest;
-import cn.hutool.http.HttpResponse;
-import cn.hutool.http.HttpUtil;
 import com.msun.util.OpenapiUtil;
+import com.scminterface.customer.msun.http.MsunHttpEngine;
+import com.scminterface.customer.msun.http.MsunHttpRequest;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
-import java.security.PrivateKey;
-import java.security.Signature;
-import java.security.spec.PKCS8EncodedKeySpec;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
-import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.lang3.StringUtils;
 
 /**
  * 众阳标准 OpenAPI 签名 HTTP 客户端（GET/POST），逻辑与 zhongyang {@code ToInterfaceTool} 对齐。
+ * <p>
+ * 构造时解析签名私钥，实例线程安全，按医院运行时复用（见 {@link MsunOpenApiSupport#createClient}）。
+ * 请求经 {@link MsunHttpEngine} 发送（连接池、超时、查询重试、耗时统计），每次重试重新签名。
  */
 public class MsunSignedHttpClient
 {
-    private static final String RSA2 = "RSA2";
-    private static final String SM2 = "SM2";
-
     private final String appId;
     private final String appSecret;
     private final String hospitalId;
     private final String orgId;
     private final String loginUser;
+    private final MsunRequestSigner signer;
+    private final MsunHttpEngine engine;
 
-    public MsunSignedHttpClient(String appId, String appSecret, String hospitalId, String orgId, String loginUser)
+    public MsunSignedHttpClient(
+            MsunHttpEngine engine, String appId, String appSecret, String hospitalId, String orgId, String loginUser)
     {
+        this.engine = engine;
         this.appId = appId;
         this.appSecret = appSecret;
         this.hospitalId = hospitalId;
         this.orgId = orgId;
         this.loginUser = loginUser;
+        this.signer = new MsunRequestSigner(appSecret);
     }
 
     public String get(String url, Map<String, Object> params) throws Exception
@@ -57,28 +57,13 @@ public class MsunSignedHttpClient
         }
 
         String sortedParamsStr = buildQueryString(sorted);
-        long timestamp = System.currentTimeMillis();
-        String signatureStr = sortedParamsStr + timestamp;
-        String keyType = resolveKeyType(appSecret);
-        String sign = signPayload(signatureStr, keyType);
-
-        Map<String, String> headers = buildHeaders(sign, timestamp, keyType);
-        String finalUrl = url;
-        if (StringUtils.isNotBlank(sortedParamsStr))
-        {
-            finalUrl = url + "?" + sortedParamsStr;
-        }
-
-        HttpRequest request = HttpUtil.createGet(finalUrl);
-        request.addHeaders(headers);
-        HttpResponse response = request.execute();
-        return new MsunSignedHttpResult(
-                "GET",
-                finalUrl,
-                headers,
-                null,
-                response.body(),
-                response.getStatus());
+        String finalUrl = StringUtils.isNotBlank(sortedParamsStr) ? url + "?" + sortedParamsStr : url;
+        return engine.execute(url, true, () -> {
+            long timestamp = System.currentTimeMillis();
+            String signatureStr = sortedParamsStr + timestamp;
+            String sign = signer.sign(signatureStr);
+            return MsunHttpRequest.get(finalUrl, buildHeaders(sign, timestamp, signer.getKeyType()));
+        });
     }
 
     public String post(String url, Map<String, Object> body) throws Exception
@@ -86,28 +71,30 @@ public class MsunSignedHttpClient
         return postWithDebug(url, body).getResponseBody();
     }
 
+    /**
+     * POST 调用，不重试（推送类接口，如 2.5.41/2.5.42）
+     */
     public MsunSignedHttpResult postWithDebug(String url, Map<String, Object> body) throws Exception
     {
-        String paramsJsonStr = CollectionUtil.isNotEmpty(body) ? MsunHisJsonSupport.toRequestJson(body) : "";
-        long timestamp = System.currentTimeMillis();
-        String signatureStr = paramsJsonStr + timestamp;
-        MessageDigest md = MessageDigest.getInstance("MD5");
-        String md5Str = Hex.encodeHexString(md.digest(signatureStr.getBytes(StandardCharsets.UTF_8)));
-        String keyType = resolveKeyType(appSecret);
-        String sign = signPayload(md5Str, keyType);
+        return postWithDebug(url, body, false);
+    }
 
-        Map<String, String> headers = buildHeaders(sign, timestamp, keyType);
-        HttpRequest request = HttpUtil.createPost(url);
-        request.addHeaders(headers);
-        request.body(paramsJsonStr);
-        HttpResponse response = request.execute();
-        return new MsunSignedHttpResult(
-                "POST",
-                url,
-                headers,
-                paramsJsonStr,
-                response.body(),
-                response.getStatus());
+    /**
+     * POST 调用
+     *
+     * @param idempotent 查询类 POST 传 true，失败时按配置重试；推送类必须传 false
+     */
+    public MsunSignedHttpResult postWithDebug(String url, Map<String, Object> body, boolean idempotent) throws Exception
+    {
+        String paramsJsonStr = CollectionUtil.isNotEmpty(body) ? MsunHisJsonSupport.toRequestJson(body) : "";
+        return engine.execute(url, idempotent, () -> {
+            long timestamp = System.currentTimeMillis();
+            String signatureStr = paramsJsonStr + timestamp;
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            String md5Str = Hex.encodeHexString(md.digest(signatureStr.getBytes(StandardCharsets.UTF_8)));
+            String sign = signer.sign(md5Str);
+            return MsunHttpRequest.post(url, buildHeaders(sign, timestamp, signer.getKeyType()), paramsJsonStr);
+        });
     }
 
     private Map<String, String> buildHeaders(String sign, long timestamp, String keyType)
@@ -128,40 +115,6 @@ public class MsunSignedHttpClient
         return headers;
     }
 
-    private String signPayload(String payload, String keyType) throws Exception
-    {
-        if (RSA2.equals(keyType))
-        {
-            return rsaSign(payload);
-        }
-        if (SM2.equals(keyType))
-        {
-            return MsunSm2Util.sign(payload, appSecret);
-        }
-        throw new IllegalStateException("不支持的 signType: " + keyType);
-    }
-
-    private String rsaSign(String preStr) throws Exception
-    {
-        String normalizedSecret = appSecret
-                .replace("-----    BEGIN PRIVATE KEY-----", "")
-                .replace("-----END PRIVATE KEY-----", "")
-                .replace("\r", "")
-                .replace("\n", "")
-                .trim();
-        Signature signature = Signature.getInstance("SHA256WithRSA");
-        PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(Base64.decodeBase64(normalizedSecret));
-        PrivateKey privateKey = java.security.KeyFactory.getInstance("RSA").generatePrivate(keySpec);
-        signature.initSign(privateKey);
-        signature.update(preStr.getBytes(StandardCharsets.UTF_8));
-        return Base64.encodeBase64String(signature.sign());
-    }
-
-    private static String resolveKeyType(String secret)
-    {
-        return secret.matches("[0-9A-Fa-f]+") ? SM2 : RSA2;
-    }
-
     private static String buildQueryString(Map<String, Object> params)
     {
         if (CollectionUtil.isEmpty(params))
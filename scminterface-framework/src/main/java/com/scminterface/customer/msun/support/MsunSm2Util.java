@@ -5,6 +5,7 @@ import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
 import java.security.Signature;
 import java.security.SignatureException;
 import java.security.spec.InvalidKeySpecException;
@@ -12,7 +13,6 @@ import java.util.Base64;
 import org.bouncycastle.asn1.gm.GMNamedCurves;
 import org.bouncycastle.asn1.gm.GMObjectIdentifiers;
 import org.bouncycastle.asn1.x9.X9ECParameters;
-import org.bouncycastle.jcajce.provider.asymmetric.ec.BCECPrivateKey;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.jce.spec.ECParameterSpec;
 import org.bouncycastle.jce.spec.ECPrivateKeySpec;
@@ -50,12 +50,26 @@ public final class MsunSm2Util
     public static String sign(String plainText, String privateKeyHex)
             throws NoSuchAlgorithmException, InvalidKeySpecException, InvalidKeyException, SignatureException
     {
-        Signature signature = Signature.getInstance(GMObjectIdentifiers.sm2sign_with_sm3.toString(), PROVIDER);
-        BigInteger bigInteger = new BigInteger(privateKeyHex, 16);
-        BCECPrivateKey privateKey = (BCECPrivateKey) KEY_FACTORY.generatePrivate(
-                new ECPrivateKeySpec(bigInteger, EC_PARAMETER_SPEC));
-        signature.initSign(privateKey);
+        Signature signature = newSignature();
+        signature.initSign(parsePrivateKey(privateKeyHex));
         signature.update(plainText.getBytes(StandardCharsets.UTF_8));
         return Base64.getEncoder().encodeToString(signature.sign());
     }
+
+    /**
+     * 十六进制私钥解析为 SM2 私钥（调用方缓存复用，见 {@link MsunRequestSigner}）
+     */
+    public static PrivateKey parsePrivateKey(String privateKeyHex) throws InvalidKeySpecException
+    {
+        BigInteger bigInteger = new BigInteger(privateKeyHex, 16);
+        return KEY_FACTORY.generatePrivate(new ECPrivateKeySpec(bigInteger, EC_PARAMETER_SPEC));
+    }
+
+    /**
+     * 未初始化的 SM2withSM3 签名实例
+     */
+    public static Signature newSignature() throws NoSuchAlgorithmException
+    {
+        return Signature.getInstance(GMObjectIdentifiers.sm2sign_with_sm3.toString(), PROVIDER);
+    }
 }
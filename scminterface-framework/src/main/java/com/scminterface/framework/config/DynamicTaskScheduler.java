@@ -0,0 +1,279 @@
+package com.scminterface.framework.config;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import com.scminterface.framework.config.properties.ScheduledTaskPoolProperties;
+import com.scminterface.framework.web.service.ScheduledTaskLockService;
+
+/**
+ * 动态定时任务调度器：共享线程池 + 可选的单任务专用通道。
+ * <p>
+ * 同一任务（taskClass#taskMethod）同一时刻只执行一次：上次未结束时本次触发直接跳过并计数，
+ * 刷新任务配置后重新注册的任务与仍在执行的旧实例共用该保护。
+ * 启用租约锁时，执行前须取得 {@link ScheduledTaskLockService} 租约（多节点部署只由一个节点执行）。
+ * 每次执行记录触发延迟（实际开始时间 - 计划触发时间），用于发现线程池被占满导致的晚触发。
+ *
+ * @author scminterface
+ */
+@Component
+public class DynamicTaskScheduler
+{
+    private static final Logger log = LoggerFactory.getLogger(DynamicTaskScheduler.class);
+
+    @Autowired
+    private ScheduledTaskPoolProperties properties;
+
+    @Autowired
+    private ScheduledTaskLockService scheduledTaskLockService;
+
+    private volatile ThreadPoolTaskScheduler sharedScheduler;
+
+    /** 专用通道，key 为 taskClass#taskMethod */
+    private final Map<String, ThreadPoolTaskScheduler> lanes = new ConcurrentHashMap<>();
+
+    private final Map<String, TaskStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * 共享调度线程池（亦供 {@link org.springframework.scheduling.config.ScheduledTaskRegistrar} 使用）
+     */
+    public ThreadPoolTaskScheduler getSharedScheduler()
+    {
+        ThreadPoolTaskScheduler s = sharedScheduler;
+        if (s == null)
+        {
+            synchronized (this)
+            {
+                s = sharedScheduler;
+                if (s == null)
+                {
+                    int size = Math.max(1, properties.getPoolSize());
+                    s = newScheduler("spd-task-", size);
+                    sharedScheduler = s;
+                    log.info("定时任务共享线程池已创建，线程数: {}", size);
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * 注册任务：按配置选择共享线程池或专用通道，并加防重入与延迟统计。
+     *
+     * @param taskKey taskClass#taskMethod
+     * @param taskMethod 方法名（用于匹配仅写方法名的专用通道配置）
+     */
+    public ScheduledFuture<?> schedule(String taskKey, String taskMethod, Runnable body, Trigger trigger)
+    {
+        TaskStats s = stats.computeIfAbsent(taskKey, TaskStats::new);
+        boolean dedicated = isDedicated(taskKey, taskMethod);
+        s.dedicated = dedicated;
+        ThreadPoolTaskScheduler scheduler = dedicated
+            ? lanes.computeIfAbsent(taskKey, k -> newScheduler("spd-task-lane-" + taskMethod + "-", 1))
+            : getSharedScheduler();
+        Trigger tracked = ctx -> {
+            Date next = trigger.nextExecutionTime(ctx);
+            s.expectedAt = next != null ? next.getTime() : 0L;
+            return next;
+        };
+        return scheduler.schedule(() -> runGuarded(s, body, true), tracked);
+    }
+
+    /**
+     * 手动触发：与定时执行共用防重入保护，上次未结束时返回 false。
+     */
+    public boolean runNow(String taskKey, Runnable body)
+    {
+        return runGuarded(stats.computeIfAbsent(taskKey, TaskStats::new), body, false);
+    }
+
+    /**
+     * 运行指标：线程池活动/排队数与各任务执行统计。
+     */
+    public Map<String, Object> getMetrics()
+    {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("shared", poolMetrics(sharedScheduler));
+        Map<String, Object> laneMetrics = new TreeMap<>();
+        for (Map.Entry<String, ThreadPoolTaskScheduler> e : lanes.entrySet())
+        {
+            laneMetrics.put(e.getKey(), poolMetrics(e.getValue()));
+        }
+        m.put("lanes", laneMetrics);
+        Map<String, Object> taskMetrics = new TreeMap<>();
+        for (TaskStats s : stats.values())
+        {
+            taskMetrics.put(s.key, s.toMap());
+        }
+        m.put("tasks", taskMetrics);
+        m.put("lagWarnMillis", properties.getLagWarnMillis());
+        m.put("lockEnabled", scheduledTaskLockService.isEnabled());
+        m.put("lockOwner", scheduledTaskLockService.getOwner());
+        return m;
+    }
+
+    private boolean runGuarded(TaskStats s, Runnable body, boolean scheduled)
+    {
+        long start = System.currentTimeMillis();
+        long lag = scheduled && s.expectedAt > 0 ? Math.max(0L, start - s.expectedAt) : 0L;
+        if (!s.running.compareAndSet(false, true))
+        {
+            s.recordOverlap();
+            log.warn("定时任务 {} 上次执行尚未结束，跳过本次{}", s.key, scheduled ? "触发" : "手动触发");
+            return false;
+        }
+        if (!scheduledTaskLockService.tryAcquire(s.key))
+        {
+            s.running.set(false);
+            s.recordLockSkipped();
+            log.debug("定时任务 {} 租约由其它节点持有，本节点跳过", s.key);
+            return false;
+        }
+        try
+        {
+            if (lag >= properties.getLagWarnMillis())
+            {
+                log.warn("定时任务 {} 晚于计划 {}ms 触发，请检查线程池是否被长耗时任务占满", s.key, lag);
+            }
+            body.run();
+        }
+        finally
+        {
+            s.recordRun(start, lag, System.currentTimeMillis() - start);
+            scheduledTaskLockService.release(s.key);
+            s.running.set(false);
+        }
+        return true;
+    }
+
+    private boolean isDedicated(String taskKey, String taskMethod)
+    {
+        for (String d : properties.getDedicatedTasks())
+        {
+            if (d == null)
+            {
+                continue;
+            }
+            String v = d.trim();
+            if (v.equals(taskKey) || (v.indexOf('#') < 0 && v.equals(taskMethod)))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ThreadPoolTaskScheduler newScheduler(String threadNamePrefix, int poolSize)
+    {
+        ThreadPoolTaskScheduler s = new ThreadPoolTaskScheduler();
+        s.setPoolSize(poolSize);
+        s.setThreadNamePrefix(threadNamePrefix);
+        s.setRemoveOnCancelPolicy(true);
+        s.setWaitForTasksToCompleteOnShutdown(false);
+        s.setErrorHandler(t -> log.error("定时任务执行异常", t));
+        s.initialize();
+        return s;
+    }
+
+    private static Map<String, Object> poolMetrics(ThreadPoolTaskScheduler s)
+    {
+        Map<String, Object> m = new LinkedHashMap<>();
+        if (s == null)
+        {
+            m.put("initialized", false);
+            return m;
+        }
+        ScheduledThreadPoolExecutor executor = s.getScheduledThreadPoolExecutor();
+        m.put("poolSize", executor.getCorePoolSize());
+        m.put("activeCount", executor.getActiveCount());
+        m.put("queueSize", executor.getQueue().size());
+        m.put("completedTaskCount", executor.getCompletedTaskCount());
+        return m;
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        for (ThreadPoolTaskScheduler lane : lanes.values())
+        {
+            lane.shutdown();
+        }
+        lanes.clear();
+        ThreadPoolTaskScheduler s = sharedScheduler;
+        if (s != null)
+        {
+            s.shutdown();
+        }
+    }
+
+    /** 单任务执行统计 */
+    private static final class TaskStats
+    {
+        final String key;
+        final AtomicBoolean running = new AtomicBoolean();
+        volatile boolean dedicated;
+        volatile long expectedAt;
+        long runCount;
+        long overlapSkipped;
+        long lockSkipped;
+        long lastStartMillis;
+        long lastDurationMillis;
+        long maxDurationMillis;
+        long lastLagMillis;
+        long maxLagMillis;
+
+        TaskStats(String key)
+        {
+            this.key = key;
+        }
+
+        synchronized void recordRun(long start, long lag, long duration)
+        {
+            runCount++;
+            lastStartMillis = start;
+            lastDurationMillis = duration;
+            maxDurationMillis = Math.max(maxDurationMillis, duration);
+            lastLagMillis = lag;
+            maxLagMillis = Math.max(maxLagMillis, lag);
+        }
+
+        synchronized void recordOverlap()
+        {
+            overlapSkipped++;
+        }
+
+        synchronized void recordLockSkipped()
+        {
+            lockSkipped++;
+        }
+
+        synchronized Map<String, Object> toMap()
+        {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("dedicated", dedicated);
+            m.put("running", running.get());
+            m.put("runCount", runCount);
+            m.put("overlapSkipped", overlapSkipped);
+            m.put("lockSkipped", lockSkipped);
+            m.put("lastStart", lastStartMillis > 0 ? new Date(lastStartMillis) : null);
+            m.put("lastDurationMillis", lastDurationMillis);
+            m.put("maxDurationMillis", maxDurationMillis);
+            m.put("lastLagMillis", lastLagMillis);
+            m.put("maxLagMillis", maxLagMillis);
+            m.put("nextFire", expectedAt > 0 ? new Date(expectedAt) : null);
+            return m;
+        }
+    }
+}
@@ -14,7 +14,7 @@ import com.scminterface.framework.web.service.ScheduledTaskService;
 import com.scminterface.framework.web.service.SpdHospitalContextService;
 
 /**
- * 衡水三院：住院/门诊计费镜像定时任务默认注册（每 2 小时；抓取昨天+今天，见 {@link com.scminterface.customer.hengsuiThird.his.HisChargeMirrorFetchSql}）。
+ * 衡水三院：住院/门诊计费镜像定时任务默认注册（另注册一项默认停用的住院+门诊并行同步）（每 2 小时；抓取昨天+今天，见 {@link com.scminterface.customer.hengsuiThird.his.HisChargeMirrorFetchSql}）。
  * 仅当库中尚无对应 task_class+task_method 时插入，不覆盖现场已改过的 Cron。
  */
 @Component
@@ -61,8 +61,10 @@ public class HengshuiChargeScheduledTaskBootstrap implements ApplicationRunner
         }
         try
         {
-            ensureChargeMirrorTask("衡水住院收费镜像同步", "syncInpatientCharge");
-            ensureChargeMirrorTask("衡水门诊收费镜像同步", "syncOutpatientCharge");
+            ensureChargeMirrorTask("衡水住院收费镜像同步", "syncInpatientCharge", "0");
+            ensureChargeMirrorTask("衡水门诊收费镜像同步", "syncOutpatientCharge", "0");
+            // 合并并行同步默认停用，与上面两项二选一
+            ensureChargeMirrorTask("衡水住院门诊收费镜像并行同步", "syncPatientCharge", "1");
         }
         catch (Exception e)
         {
@@ -70,14 +72,14 @@ public class HengshuiChargeScheduledTaskBootstrap implements ApplicationRunner
         }
     }
 
-    private void ensureChargeMirrorTask(String taskName, String taskMethod)
+    private void ensureChargeMirrorTask(String taskName, String taskMethod, String status)
     {
         if (scheduledTaskService.getTaskConfigByClassAndMethod(TASK_CLASS, taskMethod) != null)
         {
             return;
         }
         scheduledTaskService.insertSpdTask(
-            taskName, TASK_CLASS, taskMethod, DEFAULT_CRON_EVERY_2_HOURS, -1, "0");
+            taskName, TASK_CLASS, taskMethod, DEFAULT_CRON_EVERY_2_HOURS, -1, status);
         log.info("已注册默认定时任务: {}.{} cron={}", TASK_CLASS, taskMethod, DEFAULT_CRON_EVERY_2_HOURS);
     }
 }
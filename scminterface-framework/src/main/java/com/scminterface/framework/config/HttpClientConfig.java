@@ -1,32 +1,139 @@
 package com.scminterface.framework.config;
 
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
+import com.scminterface.framework.config.properties.HttpClientPoolProperties;
 
 /**
  * HTTP客户端配置
- * 
+ * <p>
+ * 各 RestTemplate 共用一个 Apache HttpClient 连接池（keep-alive 复用连接、按目标地址限制连接数、后台关闭空闲连接、gzip 压缩），
+ * 按调用对象区分超时：{@code restTemplate}（公网 interface 平台，默认注入）、{@code spdRestTemplate}（SPD 内部接口）。
+ * 连接池指标见 GET /api/http/pool。
+ *
  * @author scminterface
  */
 @Configuration
 public class HttpClientConfig
 {
+    private static final Logger log = LoggerFactory.getLogger(HttpClientConfig.class);
+
+    @Autowired
+    private HttpClientPoolProperties properties;
+
+    @Bean
+    public PoolingHttpClientConnectionManager httpClientConnectionManager()
+    {
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager();
+        manager.setMaxTotal(Math.max(1, properties.getMaxTotal()));
+        manager.setDefaultMaxPerRoute(Math.max(1, properties.getDefaultMaxPerRoute()));
+        manager.setValidateAfterInactivity(properties.getValidateAfterInactivityMillis());
+        for (Map.Entry<String, Integer> e : properties.getMaxPerRoute().entrySet())
+        {
+            HttpRoute route = parseRoute(e.getKey());
+            if (route == null || e.getValue() == null)
+            {
+                log.warn("忽略无法解析的连接池目标地址配置: {}", e.getKey());
+                continue;
+            }
+            manager.setMaxPerRoute(route, Math.max(1, e.getValue()));
+        }
+        log.info("HTTP 连接池已创建，总连接数: {}，单目标默认连接数: {}，单独配置: {}", manager.getMaxTotal(),
+            manager.getDefaultMaxPerRoute(), properties.getMaxPerRoute());
+        return manager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient pooledHttpClient(PoolingHttpClientConnectionManager httpClientConnectionManager)
+    {
+        long defaultKeepAlive = Math.max(1, properties.getKeepAliveSeconds()) * 1000L;
+        ConnectionKeepAliveStrategy keepAlive = (response, context) -> {
+            // 服务端 Keep-Alive: timeout=N 优先，未返回时使用默认保活时长（避免无限期持有被对端关闭的连接）
+            long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : defaultKeepAlive;
+        };
+        HttpClientBuilder builder = HttpClientBuilder.create()
+            .setConnectionManager(httpClientConnectionManager)
+            .setKeepAliveStrategy(keepAlive)
+            .evictExpiredConnections()
+            .evictIdleConnections(Math.max(1, properties.getIdleEvictSeconds()), TimeUnit.SECONDS);
+        if (!properties.isCompression())
+        {
+            builder.disableContentCompression();
+        }
+        return builder.build();
+    }
+
+    @Bean
+    @Primary
+    public RestTemplate restTemplate(@Qualifier("clientHttpRequestFactory") ClientHttpRequestFactory clientHttpRequestFactory)
+    {
+        return new RestTemplate(clientHttpRequestFactory);
+    }
+
     @Bean
-    public RestTemplate restTemplate()
+    public ClientHttpRequestFactory clientHttpRequestFactory(CloseableHttpClient pooledHttpClient)
     {
-        return new RestTemplate(clientHttpRequestFactory());
+        return requestFactory(pooledHttpClient, properties.getPlatform());
     }
 
     @Bean
-    public ClientHttpRequestFactory clientHttpRequestFactory()
+    public RestTemplate spdRestTemplate(CloseableHttpClient pooledHttpClient)
+    {
+        return new RestTemplate(requestFactory(pooledHttpClient, properties.getSpd()));
+    }
+
+    private static ClientHttpRequestFactory requestFactory(CloseableHttpClient httpClient, HttpClientPoolProperties.Timeout timeout)
     {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setReadTimeout(30000); // 读取超时时间30秒
-        factory.setConnectTimeout(10000); // 连接超时时间10秒
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        factory.setConnectTimeout(timeout.getConnectTimeout());
+        factory.setReadTimeout(timeout.getReadTimeout());
+        factory.setConnectionRequestTimeout(timeout.getConnectionRequestTimeout());
         return factory;
     }
-}
 
+    /**
+     * 解析 host:port 或 http(s)://host:port
+     */
+    private static HttpRoute parseRoute(String key)
+    {
+        if (key == null || key.trim().isEmpty())
+        {
+            return null;
+        }
+        String v = key.trim();
+        try
+        {
+            URI uri = URI.create(v.contains("://") ? v : "http://" + v);
+            if (uri.getHost() == null)
+            {
+                return null;
+            }
+            boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+            int port = uri.getPort() > 0 ? uri.getPort() : (secure ? 443 : 80);
+            return new HttpRoute(new HttpHost(uri.getHost(), port, uri.getScheme()), null, secure);
+        }
+        catch (IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+}
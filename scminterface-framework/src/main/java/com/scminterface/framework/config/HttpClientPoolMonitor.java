@@ -0,0 +1,49 @@
+package com.scminterface.framework.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * RestTemplate 共享连接池指标
+ *
+ * @author scminterface
+ */
+@Component
+public class HttpClientPoolMonitor
+{
+    @Autowired
+    private PoolingHttpClientConnectionManager httpClientConnectionManager;
+
+    /**
+     * 连接池总体与各目标地址的租用/空闲/等待连接数。
+     * pending 持续大于 0 表示连接数不足（请求在等待取连接），available 为可复用的 keep-alive 连接。
+     */
+    public Map<String, Object> getMetrics()
+    {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("total", toMap(httpClientConnectionManager.getTotalStats()));
+        Map<String, Object> routes = new TreeMap<>();
+        for (HttpRoute route : httpClientConnectionManager.getRoutes())
+        {
+            routes.put(route.getTargetHost().toURI(), toMap(httpClientConnectionManager.getStats(route)));
+        }
+        m.put("routes", routes);
+        return m;
+    }
+
+    private static Map<String, Object> toMap(PoolStats stats)
+    {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("leased", stats.getLeased());
+        m.put("available", stats.getAvailable());
+        m.put("pending", stats.getPending());
+        m.put("max", stats.getMax());
+        return m;
+    }
+}
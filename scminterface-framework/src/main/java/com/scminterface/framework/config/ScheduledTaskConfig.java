@@ -1,6 +1,11 @@
 package com.scminterface.framework.config;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -11,8 +16,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.Trigger;
-import org.springframework.scheduling.TriggerContext;
 import org.springframework.scheduling.annotation.SchedulingConfigurer;
 import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.scheduling.support.CronTrigger;
@@ -25,6 +28,9 @@ import com.scminterface.framework.web.service.SpdHospitalContextService;
 
 /**
  * 动态定时任务配置
+ * <p>
+ * 注册时一次性编译 Cron 触发器并将任务方法绑定为 {@link MethodHandle}；刷新为增量方式，
+ * 仅取消并重新注册 Cron、状态或类发生变化的任务，未变化的任务（含正在执行的）不受影响。
  * 
  * @author scminterface
  */
@@ -48,15 +54,20 @@ public class ScheduledTaskConfig implements SchedulingConfigurer
     @Autowired
     private SpdHospitalContextService spdHospitalContextService;
 
+    @Autowired
+    private DynamicTaskScheduler dynamicTaskScheduler;
+
     private ScheduledTaskRegistrar taskRegistrar;
     
-    // 存储所有任务的Future，key为 taskClass#taskMethod
-    private Map<String, ScheduledFuture<?>> taskFutures = new ConcurrentHashMap<>();
+    // 已注册任务，key为 taskClass#taskMethod
+    private final Map<String, RegisteredTask> registeredTasks = new ConcurrentHashMap<>();
 
     @Override
     public void configureTasks(ScheduledTaskRegistrar taskRegistrar)
     {
         this.taskRegistrar = taskRegistrar;
+        // 默认调度器为单线程，长耗时同步会阻塞其它任务，改用可配置线程数的共享池
+        taskRegistrar.setScheduler(dynamicTaskScheduler.getSharedScheduler());
     }
 
     @PostConstruct
@@ -77,78 +88,160 @@ public class ScheduledTaskConfig implements SchedulingConfigurer
     }
 
     /**
-     * 刷新定时任务配置
+     * 增量刷新定时任务配置：仅变更（Cron、状态、类）的任务重新注册，已删除或停用的任务取消。
+     * 取消不中断正在执行的实例（同一任务的重叠执行由 {@link DynamicTaskScheduler} 防止）。
      */
-    public void refreshTasks()
+    public synchronized void refreshTasks()
     {
         try
         {
-            // 取消所有现有任务
-            for (Map.Entry<String, ScheduledFuture<?>> entry : taskFutures.entrySet())
+            Map<String, Map<String, Object>> desired = loadTaskConfigs();
+            if (desired == null)
             {
-                ScheduledFuture<?> future = entry.getValue();
-                if (future != null && !future.isCancelled())
-                {
-                    future.cancel(false);
-                }
+                log.warn("读取定时任务配置失败，保留当前已注册任务");
+                return;
             }
-            taskFutures.clear();
 
-            // 从数据库读取所有SPD任务配置并注册
-            try
+            int changed = 0;
+            int unchanged = 0;
+            int removed = 0;
+            for (Map.Entry<String, Map<String, Object>> entry : desired.entrySet())
             {
-                if (!dataSourceAvailability.isAvailable(DataSourceType.SPD))
+                String taskKey = entry.getKey();
+                Map<String, Object> taskConfig = entry.getValue();
+                String signature = signatureOf(taskConfig);
+                RegisteredTask current = registeredTasks.get(taskKey);
+                if (current != null && current.signature.equals(signature) && !current.future.isCancelled())
                 {
-                    log.info("SPD 数据源未启用，跳过 SPD 定时任务注册");
+                    unchanged++;
+                    continue;
                 }
-                else
+                if (current != null)
                 {
-                log.info("SPD 定时任务注册：当前医院 {}", spdHospitalContextService.describeCurrentHospital());
-                List<Map<String, Object>> tasks = scheduledTaskService.getAllSpdTasks();
-                if (tasks != null && !tasks.isEmpty())
+                    current.future.cancel(false);
+                    registeredTasks.remove(taskKey);
+                }
+                try
                 {
-                    for (Map<String, Object> taskConfig : tasks)
+                    ScheduledFuture<?> future = registerTask(taskConfig);
+                    if (future != null)
                     {
-                        try
-                        {
-                            registerTask(taskConfig);
-                        }
-                        catch (Exception e)
-                        {
-                            log.warn("注册定时任务失败: {}.{}", 
-                                taskConfig.get("taskClass"), taskConfig.get("taskMethod"), e);
-                        }
+                        registeredTasks.put(taskKey, new RegisteredTask(signature, future));
+                    }
+                    if (future != null || current != null)
+                    {
+                        changed++;
                     }
                 }
+                catch (Exception e)
+                {
+                    log.warn("注册定时任务失败: {}.{}",
+                        taskConfig.get("taskClass"), taskConfig.get("taskMethod"), e);
                 }
             }
-            catch (Exception e)
+
+            // 库中已删除的任务
+            Iterator<Map.Entry<String, RegisteredTask>> it = registeredTasks.entrySet().iterator();
+            while (it.hasNext())
             {
-                log.warn("获取SPD任务配置失败: {}", e.getMessage());
+                Map.Entry<String, RegisteredTask> entry = it.next();
+                if (!desired.containsKey(entry.getKey()))
+                {
+                    entry.getValue().future.cancel(false);
+                    it.remove();
+                    removed++;
+                    log.info("定时任务已移除: {}", entry.getKey());
+                }
             }
+            log.info("定时任务刷新完成：注册/变更 {} 个，未变化 {} 个，移除 {} 个，当前 {} 个",
+                changed, unchanged, removed, registeredTasks.size());
+        }
+        catch (Exception e)
+        {
+            log.error("刷新定时任务配置异常", e);
+        }
+    }
 
-            // 兼容旧版本：注册SPD和SCM任务（如果存在）
-            try
+    /**
+     * 取消全部任务后按库中配置重新注册（医院切换、数据源启停等不体现在任务配置中的变化后使用）
+     */
+    public synchronized void rebuildTasks()
+    {
+        for (RegisteredTask task : registeredTasks.values())
+        {
+            task.future.cancel(false);
+        }
+        registeredTasks.clear();
+        refreshTasks();
+    }
+
+    /**
+     * 读取全部任务配置（含旧版本 SPD/SCM 任务），key 为 taskClass#taskMethod；SPD 读取失败返回 null。
+     */
+    private Map<String, Map<String, Object>> loadTaskConfigs()
+    {
+        Map<String, Map<String, Object>> configs = new LinkedHashMap<>();
+        try
+        {
+            if (!dataSourceAvailability.isAvailable(DataSourceType.SPD))
             {
-                registerLegacyTasks();
+                log.info("SPD 数据源未启用，跳过 SPD 定时任务注册");
             }
-            catch (Exception e)
+            else
             {
-                log.warn("注册旧版本任务失败: {}", e.getMessage());
+                log.info("SPD 定时任务注册：当前医院 {}", spdHospitalContextService.describeCurrentHospital());
+                List<Map<String, Object>> tasks = scheduledTaskService.getAllSpdTasks();
+                if (tasks != null)
+                {
+                    for (Map<String, Object> taskConfig : tasks)
+                    {
+                        putTaskConfig(configs, taskConfig);
+                    }
+                }
             }
         }
         catch (Exception e)
         {
-            log.error("刷新定时任务配置异常", e);
+            log.warn("获取SPD任务配置失败: {}", e.getMessage());
+            return null;
+        }
+
+        // 兼容旧版本：注册SPD和SCM任务（如果存在）
+        try
+        {
+            loadLegacyTaskConfigs(configs);
+        }
+        catch (Exception e)
+        {
+            log.warn("注册旧版本任务失败: {}", e.getMessage());
         }
+        return configs;
+    }
+
+    private static void putTaskConfig(Map<String, Map<String, Object>> configs, Map<String, Object> taskConfig)
+    {
+        Object taskClass = taskConfig.get("taskClass");
+        Object taskMethod = taskConfig.get("taskMethod");
+        if (taskClass == null || taskMethod == null)
+        {
+            log.debug("任务配置缺少类名或方法名，跳过注册");
+            return;
+        }
+        configs.put(taskClass + "#" + taskMethod, taskConfig);
+    }
+
+    private static String signatureOf(Map<String, Object> taskConfig)
+    {
+        return taskConfig.get("taskClass") + "|" + taskConfig.get("cronExpression") + "|" + taskConfig.get("status");
     }
 
     /**
      * 注册单个定时任务
      * 
      * @param taskConfig 任务配置
+     * @return 调度句柄；停用、不适用于当前医院或注册失败时返回 null
      */
-    private void registerTask(Map<String, Object> taskConfig)
+    private ScheduledFuture<?> registerTask(Map<String, Object> taskConfig)
     {
         try
         {
@@ -159,18 +252,18 @@ public class ScheduledTaskConfig implements SchedulingConfigurer
             if (taskClass == null || taskMethod == null)
             {
                 log.debug("任务配置缺少类名或方法名，跳过注册");
-                return;
+                return null;
             }
 
             if (!"0".equals(status))
             {
                 log.debug("任务 {}.{} 已停用，跳过注册", taskClass, taskMethod);
-                return;
+                return null;
             }
 
             if (!hospitalScheduledTaskMatcher.matches(taskClass))
             {
-                return;
+                return null;
             }
 
             String cronExpression = (String) taskConfig.get("cronExpression");
@@ -198,46 +291,30 @@ public class ScheduledTaskConfig implements SchedulingConfigurer
                     TaskDataSourceSupport.requiredType(actualClass, method);
                 log.info("任务 {}.{} 依赖未启用的数据源 {}，跳过注册",
                     taskClass, taskMethod, required != null ? required.name() : "?");
-                return;
+                return null;
             }
 
             Object taskBean = applicationContext.getBean(actualClass);
 
-            // 创建触发器
-            final String finalCronExpression = cronExpression;
-            Trigger trigger = new Trigger()
+            // 触发器在注册时编译一次（Cron 非法时在此抛出，不注册）
+            CronTrigger trigger;
+            try
             {
-                @Override
-                public java.util.Date nextExecutionTime(TriggerContext triggerContext)
-                {
-                    CronTrigger cronTrigger = new CronTrigger(finalCronExpression);
-                    return cronTrigger.nextExecutionTime(triggerContext);
-                }
-            };
-
-            // 注册任务
-            final Object finalTaskBean = taskBean;
-            final Method finalMethod = method;
-            ScheduledFuture<?> future = taskRegistrar.getScheduler().schedule(new Runnable()
+                trigger = new CronTrigger(cronExpression);
+            }
+            catch (IllegalArgumentException e)
             {
-                @Override
-                public void run()
-                {
-                    try
-                    {
-                        finalMethod.invoke(finalTaskBean);
-                    }
-                    catch (Exception e)
-                    {
-                        log.error("执行定时任务异常: {}.{}", taskClass, taskMethod, e);
-                    }
-                }
-            }, trigger);
+                log.warn("任务 {}.{} Cron表达式非法: {}，跳过注册", taskClass, taskMethod, cronExpression);
+                return null;
+            }
 
+            // 注册任务（共享线程池或专用通道，同一任务不重叠执行）
             String taskKey = taskClass + "#" + taskMethod;
-            taskFutures.put(taskKey, future);
+            ScheduledFuture<?> future = dynamicTaskScheduler.schedule(taskKey, taskMethod,
+                bindTaskMethod(taskBean, method, taskClass, taskMethod), trigger);
 
             log.info("定时任务注册成功: {}.{}, Cron表达式: {}", taskClass, taskMethod, cronExpression);
+            return future;
         }
         catch (ClassNotFoundException e)
         {
@@ -251,12 +328,52 @@ public class ScheduledTaskConfig implements SchedulingConfigurer
         {
             log.error("注册定时任务异常: {}.{}", taskConfig.get("taskClass"), taskConfig.get("taskMethod"), e);
         }
+        return null;
+    }
+
+    /**
+     * 将任务方法绑定到 bean（代理对象，切面照常生效）得到无参 {@link MethodHandle}，执行时不再经反射校验；
+     * 无法取得句柄时退回 {@link Method#invoke}。
+     */
+    private static Runnable bindTaskMethod(Object taskBean, Method method, String taskClass, String taskMethod)
+    {
+        MethodHandle handle;
+        try
+        {
+            handle = MethodHandles.publicLookup().unreflect(method).bindTo(taskBean)
+                .asType(MethodType.methodType(void.class));
+        }
+        catch (IllegalAccessException e)
+        {
+            log.debug("任务 {}.{} 无法绑定 MethodHandle，使用反射调用: {}", taskClass, taskMethod, e.getMessage());
+            return () -> {
+                try
+                {
+                    method.invoke(taskBean);
+                }
+                catch (Exception ex)
+                {
+                    log.error("执行定时任务异常: {}.{}", taskClass, taskMethod, ex);
+                }
+            };
+        }
+        final MethodHandle bound = handle;
+        return () -> {
+            try
+            {
+                bound.invokeExact();
+            }
+            catch (Throwable ex)
+            {
+                log.error("执行定时任务异常: {}.{}", taskClass, taskMethod, ex);
+            }
+        };
     }
 
     /**
-     * 注册旧版本任务（兼容性支持）
+     * 读取旧版本任务配置（兼容性支持）
      */
-    private void registerLegacyTasks()
+    private void loadLegacyTaskConfigs(Map<String, Map<String, Object>> configs)
     {
         // 注册SPD定时任务（如果存在）
         try
@@ -269,7 +386,7 @@ public class ScheduledTaskConfig implements SchedulingConfigurer
                 // 旧版本任务，使用固定类和方法
                 taskConfig.put("taskClass", "com.scminterface.framework.web.task.SpdScheduledTask");
                 taskConfig.put("taskMethod", "execute");
-                registerTask(taskConfig);
+                putTaskConfig(configs, taskConfig);
             }
             }
         }
@@ -293,7 +410,7 @@ public class ScheduledTaskConfig implements SchedulingConfigurer
                 // 旧版本任务，使用固定类和方法
                 taskConfig.put("taskClass", "com.scminterface.framework.web.task.ScmScheduledTask");
                 taskConfig.put("taskMethod", "execute");
-                registerTask(taskConfig);
+                putTaskConfig(configs, taskConfig);
             }
             }
         }
@@ -302,4 +419,17 @@ public class ScheduledTaskConfig implements SchedulingConfigurer
             log.debug("注册旧版本SCM任务失败: {}", e.getMessage());
         }
     }
+
+    /** 已注册任务：配置签名（类|Cron|状态）与调度句柄 */
+    private static final class RegisteredTask
+    {
+        final String signature;
+        final ScheduledFuture<?> future;
+
+        RegisteredTask(String signature, ScheduledFuture<?> future)
+        {
+            this.signature = signature;
+            this.future = future;
+        }
+    }
 }
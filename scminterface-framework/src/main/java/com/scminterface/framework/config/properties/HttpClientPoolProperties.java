@@ -0,0 +1,186 @@
+package com.scminterface.framework.config.properties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * RestTemplate 连接池配置
+ *
+ * @author scminterface
+ */
+@Component
+@ConfigurationProperties(prefix = "scminterface.http")
+public class HttpClientPoolProperties
+{
+    /** 连接池总连接数 */
+    private int maxTotal = 200;
+
+    /** 每个目标地址（host:port）默认最大连接数 */
+    private int defaultMaxPerRoute = 20;
+
+    /** 指定目标地址的最大连接数，key 为 host:port（端口省略时按 http 80 / https 443） */
+    private Map<String, Integer> maxPerRoute = new LinkedHashMap<>();
+
+    /** 服务端未返回 Keep-Alive 时连接保活秒数 */
+    private int keepAliveSeconds = 30;
+
+    /** 空闲超过该秒数的连接由后台线程关闭 */
+    private int idleEvictSeconds = 30;
+
+    /** 连接空闲超过该毫秒数后复用前先校验 */
+    private int validateAfterInactivityMillis = 2000;
+
+    /** 请求携带 Accept-Encoding: gzip,deflate 并自动解压响应 */
+    private boolean compression = true;
+
+    /** 公网 interface 平台（档案/订单推送、ZS 转发） */
+    private Timeout platform = new Timeout(10000, 30000);
+
+    /** SPD 内部接口 */
+    private Timeout spd = new Timeout(5000, 60000);
+
+    public int getMaxTotal()
+    {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal)
+    {
+        this.maxTotal = maxTotal;
+    }
+
+    public int getDefaultMaxPerRoute()
+    {
+        return defaultMaxPerRoute;
+    }
+
+    public void setDefaultMaxPerRoute(int defaultMaxPerRoute)
+    {
+        this.defaultMaxPerRoute = defaultMaxPerRoute;
+    }
+
+    public Map<String, Integer> getMaxPerRoute()
+    {
+        return maxPerRoute;
+    }
+
+    public void setMaxPerRoute(Map<String, Integer> maxPerRoute)
+    {
+        this.maxPerRoute = maxPerRoute;
+    }
+
+    public int getKeepAliveSeconds()
+    {
+        return keepAliveSeconds;
+    }
+
+    public void setKeepAliveSeconds(int keepAliveSeconds)
+    {
+        this.keepAliveSeconds = keepAliveSeconds;
+    }
+
+    public int getIdleEvictSeconds()
+    {
+        return idleEvictSeconds;
+    }
+
+    public void setIdleEvictSeconds(int idleEvictSeconds)
+    {
+        this.idleEvictSeconds = idleEvictSeconds;
+    }
+
+    public int getValidateAfterInactivityMillis()
+    {
+        return validateAfterInactivityMillis;
+    }
+
+    public void setValidateAfterInactivityMillis(int validateAfterInactivityMillis)
+    {
+        this.validateAfterInactivityMillis = validateAfterInactivityMillis;
+    }
+
+    public boolean isCompression()
+    {
+        return compression;
+    }
+
+    public void setCompression(boolean compression)
+    {
+        this.compression = compression;
+    }
+
+    public Timeout getPlatform()
+    {
+        return platform;
+    }
+
+    public void setPlatform(Timeout platform)
+    {
+        this.platform = platform;
+    }
+
+    public Timeout getSpd()
+    {
+        return spd;
+    }
+
+    public void setSpd(Timeout spd)
+    {
+        this.spd = spd;
+    }
+
+    /** 超时配置（毫秒） */
+    public static class Timeout
+    {
+        /** 建立连接超时 */
+        private int connectTimeout;
+
+        /** 读取响应超时 */
+        private int readTimeout;
+
+        /** 从连接池取连接的等待超时（连接数已满时） */
+        private int connectionRequestTimeout = 5000;
+
+        public Timeout()
+        {
+        }
+
+        public Timeout(int connectTimeout, int readTimeout)
+        {
+            this.connectTimeout = connectTimeout;
+            this.readTimeout = readTimeout;
+        }
+
+        public int getConnectTimeout()
+        {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(int connectTimeout)
+        {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public int getReadTimeout()
+        {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(int readTimeout)
+        {
+            this.readTimeout = readTimeout;
+        }
+
+        public int getConnectionRequestTimeout()
+        {
+            return connectionRequestTimeout;
+        }
+
+        public void setConnectionRequestTimeout(int connectionRequestTimeout)
+        {
+            this.connectionRequestTimeout = connectionRequestTimeout;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.scminterface.framework.config.properties;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 动态定时任务线程池配置
+ *
+ * @author scminterface
+ */
+@Component
+@ConfigurationProperties(prefix = "scminterface.scheduler")
+public class ScheduledTaskPoolProperties
+{
+    /** 共享调度线程数 */
+    private int poolSize = 4;
+
+    /**
+     * 独占线程（专用通道）的任务，格式 taskClass#taskMethod 或仅 taskMethod；
+     * 用于长耗时同步，避免占满共享线程池
+     */
+    private List<String> dedicatedTasks = new ArrayList<>();
+
+    /** 触发延迟超过该毫秒数时记 WARN 日志 */
+    private long lagWarnMillis = 60000L;
+
+    /** 多节点部署时启用数据库租约锁，同一任务每次只由一个节点执行 */
+    private boolean lockEnabled = false;
+
+    /** 租约时长（秒）；执行期间每 1/3 时长续期，节点宕机后最迟该时长后可被接管 */
+    private int lockLeaseSeconds = 60;
+
+    public int getPoolSize()
+    {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize)
+    {
+        this.poolSize = poolSize;
+    }
+
+    public List<String> getDedicatedTasks()
+    {
+        return dedicatedTasks;
+    }
+
+    public void setDedicatedTasks(List<String> dedicatedTasks)
+    {
+        this.dedicatedTasks = dedicatedTasks;
+    }
+
+    public long getLagWarnMillis()
+    {
+        return lagWarnMillis;
+    }
+
+    public void setLagWarnMillis(long lagWarnMillis)
+    {
+        this.lagWarnMillis = lagWarnMillis;
+    }
+
+    public boolean isLockEnabled()
+    {
+        return lockEnabled;
+    }
+
+    public void setLockEnabled(boolean lockEnabled)
+    {
+        this.lockEnabled = lockEnabled;
+    }
+
+    public int getLockLeaseSeconds()
+    {
+        return lockLeaseSeconds;
+    }
+
+    public void setLockLeaseSeconds(int lockLeaseSeconds)
+    {
+        this.lockLeaseSeconds = lockLeaseSeconds;
+    }
+}
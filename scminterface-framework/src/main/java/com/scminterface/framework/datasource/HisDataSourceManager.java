@@ -0,0 +1,253 @@
+package com.scminterface.framework.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import com.alibaba.druid.pool.DruidDataSource;
+import com.scminterface.framework.web.service.SystemConfigCache;
+
+/**
+ * HIS（SQL Server）连接池：按 spd_system_config 中 {@code his.jdbc.*} 参数构建 Druid 池，替代每次同步
+ * {@code DriverManager.getConnection} 建连。
+ * <p>
+ * HIS 连接信息存于 SPD 库且可在页面修改，故不作为 {@link DynamicDataSource} 的路由键（启动时固定），
+ * 而是独立维护：参数变更（保存配置时 {@link #invalidate()}，或每 {@link #CONFIG_RECHECK_MS} 复核一次）后重建池并关闭旧池。
+ * Socket/查询超时在此统一设置。读取参数时须处于 SPD 数据源上下文。
+ */
+@Component
+public class HisDataSourceManager
+{
+    private static final Logger log = LoggerFactory.getLogger(HisDataSourceManager.class);
+
+    public static final String CONFIG_DRIVER = "his.jdbc.driver";
+    public static final String CONFIG_URL = "his.jdbc.url";
+    public static final String CONFIG_USERNAME = "his.jdbc.username";
+    public static final String CONFIG_PASSWORD = "his.jdbc.password";
+
+    /** 可选：连接池最大连接数（默认 {@link #DEFAULT_MAX_ACTIVE}） */
+    public static final String CONFIG_POOL_MAX_ACTIVE = "his.jdbc.pool.max_active";
+
+    public static final String CONFIG_PREFIX = "his.jdbc.";
+
+    /** HIS 单次查询超时（秒），计费视图大窗口查询较慢 */
+    public static final int QUERY_TIMEOUT_SECONDS = 300;
+
+    /** Socket 读超时须不小于查询超时，否则 SQL Server 驱动先报 Read timed out */
+    private static final int SOCKET_TIMEOUT_MILLIS = QUERY_TIMEOUT_SECONDS * 1000;
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 30000;
+
+    private static final long MAX_WAIT_MILLIS = 60000L;
+
+    private static final int DEFAULT_MAX_ACTIVE = 8;
+
+    /** 未显式失效时，参数复核间隔 */
+    private static final long CONFIG_RECHECK_MS = 60_000L;
+
+    @Autowired
+    private SystemConfigCache systemConfigCache;
+
+    private volatile DruidDataSource dataSource;
+
+    private volatile String signature;
+
+    private volatile String url;
+
+    private volatile long lastCheckMillis;
+
+    /**
+     * 从池中获取 HIS 连接（调用方负责 close 归还）。
+     *
+     * @throws IllegalStateException HIS 连接参数不完整
+     */
+    public Connection getConnection() throws SQLException
+    {
+        return resolveDataSource().getConnection();
+    }
+
+    /** 当前 HIS JDBC URL（仅用于日志） */
+    public String getUrl()
+    {
+        return url;
+    }
+
+    /**
+     * 标记参数已变更，下次取连接时重新读取 {@code his.jdbc.*} 并在变化时重建连接池。
+     */
+    public void invalidate()
+    {
+        lastCheckMillis = 0L;
+    }
+
+    /** 连接池最大连接数（未初始化时按配置值） */
+    public int getMaxActive()
+    {
+        DruidDataSource ds = dataSource;
+        return ds != null ? ds.getMaxActive() : resolveMaxActive();
+    }
+
+    public static boolean isHisJdbcKey(String configKey)
+    {
+        return configKey != null && configKey.startsWith(CONFIG_PREFIX);
+    }
+
+    /**
+     * 连接池运行指标（未初始化时 initialized=false）。
+     */
+    public Map<String, Object> getPoolStats()
+    {
+        Map<String, Object> m = new LinkedHashMap<>();
+        DruidDataSource ds = dataSource;
+        m.put("initialized", ds != null);
+        if (ds == null)
+        {
+            return m;
+        }
+        m.put("url", url);
+        m.put("maxActive", ds.getMaxActive());
+        m.put("activeCount", ds.getActiveCount());
+        m.put("activePeak", ds.getActivePeak());
+        m.put("poolingCount", ds.getPoolingCount());
+        m.put("waitThreadCount", ds.getWaitThreadCount());
+        m.put("notEmptyWaitCount", ds.getNotEmptyWaitCount());
+        m.put("connectCount", ds.getConnectCount());
+        m.put("closeCount", ds.getCloseCount());
+        m.put("createCount", ds.getCreateCount());
+        m.put("destroyCount", ds.getDestroyCount());
+        m.put("errorCount", ds.getErrorCount());
+        m.put("queryTimeoutSeconds", QUERY_TIMEOUT_SECONDS);
+        m.put("socketTimeoutMillis", SOCKET_TIMEOUT_MILLIS);
+        return m;
+    }
+
+    private DruidDataSource resolveDataSource()
+    {
+        DruidDataSource current = dataSource;
+        if (current != null && System.currentTimeMillis() - lastCheckMillis < CONFIG_RECHECK_MS)
+        {
+            return current;
+        }
+        synchronized (this)
+        {
+            current = dataSource;
+            if (current != null && System.currentTimeMillis() - lastCheckMillis < CONFIG_RECHECK_MS)
+            {
+                return current;
+            }
+            String driver = systemConfigCache.getSpdSystemConfig(CONFIG_DRIVER);
+            String jdbcUrl = systemConfigCache.getSpdSystemConfig(CONFIG_URL);
+            String username = systemConfigCache.getSpdSystemConfig(CONFIG_USERNAME);
+            String password = systemConfigCache.getSpdSystemConfig(CONFIG_PASSWORD);
+            if (driver == null || jdbcUrl == null || username == null || password == null)
+            {
+                throw new IllegalStateException("HIS数据库连接配置不完整，请检查系统参数配置");
+            }
+            int maxActive = resolveMaxActive();
+            String sig = driver + '\u0001' + jdbcUrl + '\u0001' + username + '\u0001'
+                + Objects.hashCode(password) + '\u0001' + maxActive;
+            if (current == null || !sig.equals(signature))
+            {
+                DruidDataSource created = build(driver.trim(), jdbcUrl.trim(), username, password, maxActive);
+                dataSource = created;
+                signature = sig;
+                url = jdbcUrl.trim();
+                if (current != null)
+                {
+                    log.info("HIS 连接参数已变更，重建连接池: {}", url);
+                    closeQuietly(current);
+                }
+                else
+                {
+                    log.info("HIS 连接池已创建: {}, maxActive={}", url, maxActive);
+                }
+                current = created;
+            }
+            lastCheckMillis = System.currentTimeMillis();
+            return current;
+        }
+    }
+
+    private static DruidDataSource build(String driver, String jdbcUrl, String username, String password, int maxActive)
+    {
+        DruidDataSource ds = new DruidDataSource();
+        ds.setName("his");
+        ds.setDriverClassName(driver);
+        ds.setUrl(jdbcUrl);
+        ds.setUsername(username);
+        ds.setPassword(password);
+        ds.setInitialSize(0);
+        ds.setMinIdle(0);
+        ds.setMaxActive(maxActive);
+        ds.setMaxWait(MAX_WAIT_MILLIS);
+        ds.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        ds.setSocketTimeout(SOCKET_TIMEOUT_MILLIS);
+        ds.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+        ds.setValidationQuery("SELECT 1");
+        ds.setValidationQueryTimeout(5);
+        ds.setTestWhileIdle(true);
+        ds.setTestOnBorrow(false);
+        ds.setTestOnReturn(false);
+        ds.setTimeBetweenEvictionRunsMillis(60000L);
+        ds.setMinEvictableIdleTimeMillis(300000L);
+        ds.setMaxEvictableIdleTimeMillis(900000L);
+        // HIS 不可达时快速失败，不在后台无限重试
+        ds.setConnectionErrorRetryAttempts(1);
+        ds.setBreakAfterAcquireFailure(false);
+        try
+        {
+            ds.setFilters("stat");
+        }
+        catch (SQLException e)
+        {
+            log.debug("HIS 连接池启用 stat 监控失败: {}", e.getMessage());
+        }
+        return ds;
+    }
+
+    private int resolveMaxActive()
+    {
+        try
+        {
+            String v = systemConfigCache.getSpdSystemConfig(CONFIG_POOL_MAX_ACTIVE);
+            if (v != null && !v.trim().isEmpty())
+            {
+                return Math.max(1, Integer.parseInt(v.trim()));
+            }
+        }
+        catch (Exception e)
+        {
+            log.debug("读取 {} 失败: {}", CONFIG_POOL_MAX_ACTIVE, e.getMessage());
+        }
+        return DEFAULT_MAX_ACTIVE;
+    }
+
+    @PreDestroy
+    public void close()
+    {
+        DruidDataSource ds = dataSource;
+        dataSource = null;
+        if (ds != null)
+        {
+            closeQuietly(ds);
+        }
+    }
+
+    private static void closeQuietly(DruidDataSource ds)
+    {
+        try
+        {
+            ds.close();
+        }
+        catch (Exception e)
+        {
+            log.warn("关闭 HIS 连接池异常: {}", e.getMessage());
+        }
+    }
+}
@@ -5,11 +5,15 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import com.scminterface.common.core.domain.AjaxResult;
+import com.scminterface.customer.hengsuiThird.his.service.HisChargeFingerprintIndex;
+import com.scminterface.framework.datasource.HisDataSourceManager;
 import com.scminterface.framework.web.service.HengshuiTaskService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -27,6 +31,12 @@ public class HengshuisanController
     @Autowired
     private HengshuiTaskService hengshuiTaskService;
 
+    @Autowired
+    private HisDataSourceManager hisDataSourceManager;
+
+    @Autowired
+    private HisChargeFingerprintIndex hisChargeFingerprintIndex;
+
     @ApiOperation("补全历史住院收费镜像执行科室")
     @PostMapping("/charge/backfillExecDept/inpatient")
     public AjaxResult backfillInpatientExecDept(@RequestBody Map<String, String> body)
@@ -47,6 +57,75 @@ public class HengshuisanController
         return toAjaxResult(result);
     }
 
+    @ApiOperation("查询执行科室补全进度（visitKind：INPATIENT / OUTPATIENT）")
+    @GetMapping("/charge/backfillExecDept/progress")
+    public AjaxResult backfillExecDeptProgress(@RequestParam(value = "visitKind", defaultValue = "INPATIENT") String visitKind)
+    {
+        Map<String, Object> progress = hengshuiTaskService.getExecDeptBackfillProgress(visitKind);
+        if (progress == null)
+        {
+            return AjaxResult.error("暂无补全记录");
+        }
+        return AjaxResult.success(progress);
+    }
+
+    @ApiOperation("手动同步住院收费镜像（fullWindow=true 时忽略增量水位，按昨天～今天整窗口抓取）")
+    @PostMapping("/charge/sync/inpatient")
+    public AjaxResult syncInpatientCharge(@RequestBody(required = false) Map<String, Object> body)
+    {
+        Map<String, Object> result = hengshuiTaskService.syncInpatientCharge(isFullWindow(body));
+        return toSyncAjaxResult(result);
+    }
+
+    @ApiOperation("手动同步门诊收费镜像（fullWindow=true 时忽略增量水位，按昨天～今天整窗口抓取）")
+    @PostMapping("/charge/sync/outpatient")
+    public AjaxResult syncOutpatientCharge(@RequestBody(required = false) Map<String, Object> body)
+    {
+        Map<String, Object> result = hengshuiTaskService.syncOutpatientCharge(isFullWindow(body));
+        return toSyncAjaxResult(result);
+    }
+
+    @ApiOperation("手动并行同步住院与门诊收费镜像（共用一个抓取批次；fullWindow 含义同上）")
+    @PostMapping("/charge/sync/all")
+    public AjaxResult syncPatientCharge(@RequestBody(required = false) Map<String, Object> body)
+    {
+        Map<String, Object> result = hengshuiTaskService.syncPatientCharge(isFullWindow(body));
+        return toSyncAjaxResult(result);
+    }
+
+    @ApiOperation("HIS 连接池运行指标")
+    @GetMapping("/his/pool")
+    public AjaxResult hisPoolStats()
+    {
+        return AjaxResult.success(hisDataSourceManager.getPoolStats());
+    }
+
+    @ApiOperation("计费指纹索引各分区条目数")
+    @GetMapping("/charge/fingerprintIndex")
+    public AjaxResult fingerprintIndexStats()
+    {
+        return AjaxResult.success(hisChargeFingerprintIndex.sizes());
+    }
+
+    private static boolean isFullWindow(Map<String, Object> body)
+    {
+        Object v = body == null ? null : body.get("fullWindow");
+        return v != null && ("true".equalsIgnoreCase(String.valueOf(v)) || "1".equals(String.valueOf(v)));
+    }
+
+    private AjaxResult toSyncAjaxResult(Map<String, Object> result)
+    {
+        if (result == null)
+        {
+            return AjaxResult.error("无返回结果");
+        }
+        if (Boolean.TRUE.equals(result.get("success")))
+        {
+            return AjaxResult.success(String.valueOf(result.get("message")), result);
+        }
+        return AjaxResult.error(String.valueOf(result.get("message")));
+    }
+
     private AjaxResult toAjaxResult(Map<String, Object> result)
     {
         if (result == null)
@@ -62,6 +141,7 @@ public class HengshuisanController
             data.put("hisMissingExecCount", result.get("hisMissingExecCount"));
             data.put("notFoundCount", result.get("notFoundCount"));
             data.put("unifiedSyncedCount", result.get("unifiedSyncedCount"));
+            data.put("totalSlices", result.get("totalSlices"));
             ok.put(AjaxResult.DATA_TAG, data);
             return ok;
         }
@@ -0,0 +1,52 @@
+package com.scminterface.framework.web.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import com.scminterface.common.core.domain.AjaxResult;
+import com.scminterface.customer.msun.http.MsunHttpEngine;
+import com.scminterface.framework.config.HttpClientPoolMonitor;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+
+/**
+ * HTTP 客户端监控控制器
+ * 
+ * @author scminterface
+ */
+@Api(tags = "HTTP客户端监控")
+@RestController
+@RequestMapping("/api/http")
+public class HttpClientController
+{
+    @Autowired
+    private HttpClientPoolMonitor httpClientPoolMonitor;
+
+    @Autowired
+    private MsunHttpEngine msunHttpEngine;
+
+    /**
+     * RestTemplate 连接池指标
+     * 
+     * @return 总体与各目标地址的租用/空闲/等待连接数
+     */
+    @ApiOperation("RestTemplate连接池指标")
+    @GetMapping("/pool")
+    public AjaxResult getPoolMetrics()
+    {
+        return AjaxResult.success(httpClientPoolMonitor.getMetrics());
+    }
+
+    /**
+     * 众阳 OpenAPI 连接池与各接口耗时直方图
+     * 
+     * @return 连接池租用/空闲/等待连接数；各接口调用/重试/失败次数与耗时分位
+     */
+    @ApiOperation("众阳HIS接口连接池与耗时统计")
+    @GetMapping("/msun")
+    public AjaxResult getMsunMetrics()
+    {
+        return AjaxResult.success(msunHttpEngine.getMetrics());
+    }
+}
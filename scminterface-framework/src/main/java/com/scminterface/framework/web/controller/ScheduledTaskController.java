@@ -16,8 +16,11 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import com.scminterface.common.core.domain.AjaxResult;
 import com.scminterface.common.enums.DataSourceType;
+import com.scminterface.framework.config.DynamicTaskScheduler;
 import com.scminterface.framework.config.ScheduledTaskConfig;
 import com.scminterface.framework.datasource.DataSourceAvailability;
+import com.scminterface.framework.web.service.ScheduledTaskHistoryService;
+import com.scminterface.framework.web.service.ScheduledTaskLockService;
 import com.scminterface.framework.web.service.ScheduledTaskService;
 import com.scminterface.framework.web.task.ScmScheduledTask;
 import com.scminterface.framework.web.task.SpdScheduledTask;
@@ -52,6 +55,15 @@ public class ScheduledTaskController
     @Autowired
     private DataSourceAvailability dataSourceAvailability;
 
+    @Autowired
+    private DynamicTaskScheduler dynamicTaskScheduler;
+
+    @Autowired
+    private ScheduledTaskHistoryService scheduledTaskHistoryService;
+
+    @Autowired
+    private ScheduledTaskLockService scheduledTaskLockService;
+
     /**
      * 获取SPD所有定时任务列表
      * 
@@ -398,7 +410,26 @@ public class ScheduledTaskController
                 Class<?> clazz = Class.forName(taskClass);
                 Object taskBean = applicationContext.getBean(clazz);
                 Method method = clazz.getMethod(taskMethod);
-                method.invoke(taskBean);
+                // 与定时执行共用防重入保护，避免与正在执行的同一任务重叠
+                final Exception[] failure = new Exception[1];
+                boolean ran = dynamicTaskScheduler.runNow(taskClass + "#" + taskMethod, () -> {
+                    try
+                    {
+                        method.invoke(taskBean);
+                    }
+                    catch (Exception e)
+                    {
+                        failure[0] = e;
+                    }
+                });
+                if (!ran)
+                {
+                    return AjaxResult.error("任务正在执行中，请稍后再试");
+                }
+                if (failure[0] != null)
+                {
+                    throw failure[0];
+                }
             }
             else
             {
@@ -437,18 +468,111 @@ public class ScheduledTaskController
         }
     }
 
+    /**
+     * 定时任务调度指标
+     * 
+     * @return 线程池活动/排队数、各任务执行次数、重叠跳过次数与触发延迟
+     */
+    @ApiOperation("定时任务调度指标")
+    @GetMapping("/metrics")
+    public AjaxResult getSchedulerMetrics()
+    {
+        return AjaxResult.success(dynamicTaskScheduler.getMetrics());
+    }
+
+    /**
+     * 查询定时任务租约（多节点部署）
+     * 
+     * @return 各任务租约持有节点与到期时间
+     */
+    @ApiOperation("查询定时任务租约")
+    @GetMapping("/locks")
+    public AjaxResult getTaskLocks()
+    {
+        try
+        {
+            Map<String, Object> data = new HashMap<>();
+            data.put("enabled", scheduledTaskLockService.isEnabled());
+            data.put("owner", scheduledTaskLockService.getOwner());
+            data.put("locks", scheduledTaskLockService.isEnabled() ? scheduledTaskLockService.listLocks() : new ArrayList<>());
+            return AjaxResult.success(data);
+        }
+        catch (Exception e)
+        {
+            return AjaxResult.error("查询失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 查询定时任务执行历史
+     * 
+     * @param taskClass 任务类全限定名（为空时全部任务）
+     * @param taskMethod 任务方法名
+     * @param limit 最大行数
+     * @return 结果
+     */
+    @ApiOperation("查询定时任务执行历史")
+    @GetMapping("/history")
+    public AjaxResult getTaskHistory(@RequestParam(value = "taskClass", required = false) String taskClass,
+                                     @RequestParam(value = "taskMethod", required = false) String taskMethod,
+                                     @RequestParam(value = "limit", defaultValue = "100") int limit)
+    {
+        try
+        {
+            return AjaxResult.success("查询成功", scheduledTaskHistoryService.getRecentRuns(taskClass, taskMethod, limit));
+        }
+        catch (Exception e)
+        {
+            return AjaxResult.error("查询失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 定时任务耗时分位与吞吐统计
+     * 
+     * @param taskClass 任务类全限定名（为空时全部任务）
+     * @param taskMethod 任务方法名
+     * @param hours 统计窗口（小时）
+     * @param bucketMinutes 趋势分段（分钟，0 表示不分段）
+     * @return p50/p95/p99 耗时、失败次数、行/秒、次/小时
+     */
+    @ApiOperation("定时任务耗时分位与吞吐统计")
+    @GetMapping("/history/stats")
+    public AjaxResult getTaskHistoryStats(@RequestParam(value = "taskClass", required = false) String taskClass,
+                                          @RequestParam(value = "taskMethod", required = false) String taskMethod,
+                                          @RequestParam(value = "hours", defaultValue = "24") int hours,
+                                          @RequestParam(value = "bucketMinutes", defaultValue = "60") int bucketMinutes)
+    {
+        try
+        {
+            return AjaxResult.success(scheduledTaskHistoryService.getStats(taskClass, taskMethod, hours, bucketMinutes));
+        }
+        catch (Exception e)
+        {
+            return AjaxResult.error("查询失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 刷新定时任务配置
      * 
+     * @param force true 时取消全部任务后重新注册，默认仅重新注册有变化的任务
      * @return 结果
      */
-    @ApiOperation("刷新定时任务配置")
+    @ApiOperation("刷新定时任务配置（force=true 全量重建）")
     @PostMapping("/refresh")
-    public AjaxResult refreshTasks()
+    public AjaxResult refreshTasks(@RequestParam(value = "force", defaultValue = "false") boolean force)
     {
         try
         {
-            scheduledTaskConfig.refreshTasks();
+            if (force)
+            {
+                scheduledTaskConfig.rebuildTasks();
+            }
+            else
+            {
+                scheduledTaskConfig.refreshTasks();
+            }
             return AjaxResult.success("刷新成功");
         }
         catch (Exception e)
@@ -9,8 +9,10 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import com.scminterface.common.core.domain.AjaxResult;
+import com.scminterface.framework.datasource.HisDataSourceManager;
 import com.scminterface.framework.web.service.ScmSystemConfigService;
 import com.scminterface.framework.web.service.SpdSystemConfigService;
+import com.scminterface.framework.web.service.SystemConfigCache;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 
@@ -32,6 +34,12 @@ public class SystemConfigController
     @Autowired
     private ScmSystemConfigService scmSystemConfigService;
 
+    @Autowired
+    private HisDataSourceManager hisDataSourceManager;
+
+    @Autowired
+    private SystemConfigCache systemConfigCache;
+
     /**
      * 获取SPD所有配置
      * 
@@ -92,6 +100,10 @@ public class SystemConfigController
             }
 
             spdSystemConfigService.saveConfig(configKey, configValue, configDesc);
+            if (HisDataSourceManager.isHisJdbcKey(configKey))
+            {
+                hisDataSourceManager.invalidate();
+            }
             return AjaxResult.success("保存成功");
         }
         catch (Exception e)
@@ -148,6 +160,10 @@ public class SystemConfigController
             }
 
             spdSystemConfigService.deleteConfig(configKey);
+            if (HisDataSourceManager.isHisJdbcKey(configKey))
+            {
+                hisDataSourceManager.invalidate();
+            }
             return AjaxResult.success("删除成功");
         }
         catch (Exception e)
@@ -181,4 +197,37 @@ public class SystemConfigController
             return AjaxResult.error("删除失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 系统参数缓存状态
+     * 
+     * @return 结果
+     */
+    @ApiOperation("系统参数缓存状态")
+    @GetMapping("/cache/stats")
+    public AjaxResult getCacheStats()
+    {
+        return AjaxResult.success("查询成功", systemConfigCache.getStats());
+    }
+
+    /**
+     * 清空系统参数缓存（直接修改数据库参数后调用，否则最迟一个缓存周期后生效）
+     * 
+     * @return 结果
+     */
+    @ApiOperation("清空系统参数缓存")
+    @PostMapping("/cache/refresh")
+    public AjaxResult refreshCache()
+    {
+        try
+        {
+            systemConfigCache.invalidateAll();
+            hisDataSourceManager.invalidate();
+            return AjaxResult.success("已清空，下次读取时重新载入", systemConfigCache.getStats());
+        }
+        catch (Exception e)
+        {
+            return AjaxResult.error("清空失败: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,60 @@
+package com.scminterface.framework.web.mapper;
+
+import java.util.List;
+import java.util.Map;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 定时任务租约锁Mapper接口（到期判断均以数据库时间为准）
+ * 
+ * @author scminterface
+ */
+@Mapper
+public interface SpdScheduledTaskLockMapper
+{
+    /**
+     * 锁行不存在时插入（已到期、无持有者）
+     * 
+     * @param lockKey 锁键
+     * @return 结果
+     */
+    int insertIfAbsent(@Param("lockKey") String lockKey);
+
+    /**
+     * 租约已到期或本节点已持有时取得租约
+     * 
+     * @param lockKey 锁键
+     * @param owner 节点标识
+     * @param leaseMillis 租约时长（毫秒）
+     * @return 1 表示取得
+     */
+    int tryAcquire(@Param("lockKey") String lockKey, @Param("owner") String owner, @Param("leaseMillis") long leaseMillis);
+
+    /**
+     * 续期本节点持有的租约
+     * 
+     * @param lockKey 锁键
+     * @param owner 节点标识
+     * @param leaseMillis 租约时长（毫秒）
+     * @return 0 表示租约已被其它节点接管
+     */
+    int renew(@Param("lockKey") String lockKey, @Param("owner") String owner, @Param("leaseMillis") long leaseMillis);
+
+    /**
+     * 释放本节点持有的租约（到期时间置为当前，但不早于取得后 minHoldMillis）
+     * 
+     * @param lockKey 锁键
+     * @param owner 节点标识
+     * @param minHoldMillis 最短持有时长（毫秒）
+     * @return 结果
+     */
+    int release(@Param("lockKey") String lockKey, @Param("owner") String owner, @Param("minHoldMillis") long minHoldMillis);
+
+    /**
+     * 查询全部租约
+     * 
+     * @return 租约列表
+     */
+    List<Map<String, Object>> selectAll();
+}
@@ -0,0 +1,56 @@
+package com.scminterface.framework.web.mapper;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 定时任务执行历史Mapper接口
+ * 
+ * @author scminterface
+ */
+@Mapper
+public interface SpdScheduledTaskRunMapper
+{
+    /**
+     * 批量插入执行记录
+     * 
+     * @param list 执行记录
+     * @return 结果
+     */
+    int batchInsert(@Param("list") List<Map<String, Object>> list);
+
+    /**
+     * 查询时间窗口内的执行记录（按开始时间倒序，超出 limit 时保留最新的记录，用于统计）
+     * 
+     * @param taskClass 任务类全限定名（为空时查询全部任务）
+     * @param taskMethod 任务方法名
+     * @param since 开始时间下界
+     * @param limit 最大行数
+     * @return 执行记录
+     */
+    List<Map<String, Object>> selectSince(@Param("taskClass") String taskClass, @Param("taskMethod") String taskMethod,
+                                          @Param("since") Date since, @Param("limit") int limit);
+
+    /**
+     * 查询最近的执行记录
+     * 
+     * @param taskClass 任务类全限定名（为空时查询全部任务）
+     * @param taskMethod 任务方法名
+     * @param limit 最大行数
+     * @return 执行记录
+     */
+    List<Map<String, Object>> selectRecent(@Param("taskClass") String taskClass, @Param("taskMethod") String taskMethod,
+                                           @Param("limit") int limit);
+
+    /**
+     * 删除早于指定时间的执行记录
+     * 
+     * @param before 时间上界
+     * @param limit 单次最大删除行数
+     * @return 删除行数
+     */
+    int deleteBefore(@Param("before") Date before, @Param("limit") int limit);
+}
@@ -1,5 +1,7 @@
 package com.scminterface.framework.web.mapper;
 
+import java.util.List;
+import java.util.Map;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
@@ -10,4 +12,7 @@ import org.apache.ibatis.annotations.Param;
 public interface SpdSysConfigMapper
 {
     String selectValueByKey(@Param("configKey") String configKey);
+
+    /** 全部参数（configKey、configValue），供系统参数缓存整表载入 */
+    List<Map<String, Object>> selectAll();
 }
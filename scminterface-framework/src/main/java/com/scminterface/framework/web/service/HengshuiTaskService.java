@@ -1,8 +1,6 @@
 package com.scminterface.framework.web.service;
 
-import java.math.BigDecimal;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -12,9 +10,19 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -30,16 +38,26 @@ import com.scminterface.customer.hengsuiThird.his.mapper.HisInpatientChargeMirro
 import com.scminterface.customer.hengsuiThird.his.mapper.HisOutpatientChargeMirrorSyncMapper;
 import com.scminterface.customer.hengsuiThird.his.mapper.HisPatientChargeMirrorUnifiedSyncMapper;
 import com.scminterface.customer.hengsuiThird.his.mapper.HisChargeFetchBatchSyncMapper;
+import com.scminterface.customer.hengsuiThird.his.model.HisChargeFetchWindow;
+import com.scminterface.customer.hengsuiThird.his.model.HisExecDeptBackfillProgress;
 import com.scminterface.customer.hengsuiThird.his.model.HisExecDeptBackfillResult;
+import com.scminterface.customer.hengsuiThird.his.model.HisExecDeptBackfillRow;
 import com.scminterface.customer.hengsuiThird.his.model.HisIdFingerprintRow;
 import com.scminterface.customer.hengsuiThird.his.model.HisInpatientChargeMirrorRow;
 import com.scminterface.customer.hengsuiThird.his.model.HisOutpatientChargeMirrorRow;
-import com.scminterface.customer.hengsuiThird.his.model.HisPatientChargeMirrorUnifiedRow;
 import com.scminterface.customer.hengsuiThird.his.HisChargeMirrorFetchSql;
+import com.scminterface.customer.hengsuiThird.his.service.HisChargeFingerprintIndex;
+import com.scminterface.customer.hengsuiThird.his.service.HisChargeMirrorWriter;
+import com.scminterface.customer.hengsuiThird.his.service.HisChargeSyncWatermarkService;
 import com.scminterface.customer.hengsuiThird.his.service.SpdPatientChargeInternalClient;
+import com.scminterface.customer.hengsuiThird.his.support.HisBackfillSliceRunner;
 import com.scminterface.customer.hengsuiThird.his.support.HisChargeMirrorSyncSupport;
+import com.scminterface.customer.hengsuiThird.his.support.HisChargeStreamingReader;
+import com.scminterface.customer.hengsuiThird.his.support.HisInpatientChargeRowMapper;
+import com.scminterface.customer.hengsuiThird.his.support.HisOutpatientChargeRowMapper;
+import com.scminterface.framework.datasource.DynamicDataSourceContextHolder;
+import com.scminterface.framework.datasource.HisDataSourceManager;
 import com.scminterface.framework.web.mapper.HisHcInfoMapper;
-import com.scminterface.framework.web.mapper.SpdSystemConfigMapper;
 
 /**
  * 衡水定时任务服务
@@ -51,11 +69,16 @@ public class HengshuiTaskService
 {
     private static final Logger log = LoggerFactory.getLogger(HengshuiTaskService.class);
 
-    /** 住院/门诊收费明细从 HIS 拉取：单次查询超时（秒） */
-    private static final int HIS_CHARGE_SYNC_QUERY_TIMEOUT_SECONDS = 300;
+    /** 住院/门诊收费明细从 HIS 拉取：单次查询超时（秒），与 HIS 连接池统一 */
+    private static final int HIS_CHARGE_SYNC_QUERY_TIMEOUT_SECONDS = HisDataSourceManager.QUERY_TIMEOUT_SECONDS;
+
+    /** HIS 游标每次网络往返抓取行数 */
+    private static final int HIS_CHARGE_FETCH_SIZE = 1000;
+
+    /** 流式同步分块大小：每块独立完成指纹比对与写入，内存峰值与此相关 */
+    private static final int HIS_CHARGE_STREAM_CHUNK_SIZE = 2000;
 
     private static final int HIS_ID_QUERY_BATCH = 400;
-    private static final int INSERT_BATCH_SIZE = 80;
 
     /** 与 SPD HisBillingTenantConstants.TENANT_HENGSHUI_THIRD 一致；可通过参数 his.charge.mirror.tenant_id 覆盖 */
     private static final String DEFAULT_CHARGE_MIRROR_TENANT_ID = "hengsui-third-001";
@@ -64,12 +87,35 @@ public class HengshuiTaskService
 
     private static final String SYNC_CREATE_BY = "scminterface";
 
+    /** v_charge_item 列名（小写）-> his_hc_info 批量写入 Map 键 */
+    private static final Map<String, String> CHARGE_ITEM_COLUMN_KEYS = new HashMap<>();
+
+    static
+    {
+        CHARGE_ITEM_COLUMN_KEYS.put("charge_item_id", "chargeItemId");
+        CHARGE_ITEM_COLUMN_KEYS.put("item_code", "itemCode");
+        CHARGE_ITEM_COLUMN_KEYS.put("item_name", "itemName");
+        CHARGE_ITEM_COLUMN_KEYS.put("item_type", "itemType");
+        CHARGE_ITEM_COLUMN_KEYS.put("consumable_type", "consumableType");
+        CHARGE_ITEM_COLUMN_KEYS.put("spec_model", "specModel");
+        CHARGE_ITEM_COLUMN_KEYS.put("unit", "unit");
+        CHARGE_ITEM_COLUMN_KEYS.put("price", "price");
+        CHARGE_ITEM_COLUMN_KEYS.put("manufacturer", "manufacturer");
+        CHARGE_ITEM_COLUMN_KEYS.put("register_no", "registerNo");
+        CHARGE_ITEM_COLUMN_KEYS.put("is_active", "isActive");
+        CHARGE_ITEM_COLUMN_KEYS.put("create_time", "createTime");
+        CHARGE_ITEM_COLUMN_KEYS.put("update_time", "updateTime");
+    }
+
     @Autowired
-    private SpdSystemConfigMapper spdSystemConfigMapper;
+    private SystemConfigCache systemConfigCache;
 
     @Autowired
     private HisHcInfoMapper hisHcInfoMapper;
 
+    @Autowired
+    private HisDataSourceManager hisDataSourceManager;
+
     @Autowired
     private HisInpatientChargeMirrorSyncMapper hisInpatientChargeMirrorSyncMapper;
 
@@ -85,37 +131,35 @@ public class HengshuiTaskService
     @Autowired
     private SpdPatientChargeInternalClient spdPatientChargeInternalClient;
 
-    /**
-     * 处理日期字段值，如果为空字符串则返回null
-     * 
-     * @param value 原始值
-     * @param sdf 日期格式化器
-     * @return 处理后的日期字符串或null
-     */
-    private String processDateValue(Object value, SimpleDateFormat sdf)
+    @Autowired
+    private HisChargeSyncWatermarkService hisChargeSyncWatermarkService;
+
+    @Autowired
+    private HisChargeFingerprintIndex hisChargeFingerprintIndex;
+
+    @Autowired
+    private HisChargeMirrorWriter hisChargeMirrorWriter;
+
+    /** 住院/门诊合并同步线程池：两类各占一个线程（即各占一个 HIS 连接） */
+    private final ExecutorService chargeSyncExecutor = Executors.newFixedThreadPool(2, new ThreadFactory()
     {
-        if (value == null)
-        {
-            return null;
-        }
-        if (value instanceof Date)
-        {
-            return sdf.format((Date) value);
-        }
-        String strValue = value.toString().trim();
-        if (strValue.isEmpty())
+        private final AtomicInteger seq = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r)
         {
-            return null;
+            Thread t = new Thread(r, "his-charge-sync-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
         }
-        return strValue;
-    }
+    });
 
     private String resolveChargeMirrorTenantId()
     {
         String v = null;
         try
         {
-            v = spdSystemConfigMapper.selectValueByKey(CONFIG_CHARGE_MIRROR_TENANT_ID);
+            v = systemConfigCache.getSpdSystemConfig(CONFIG_CHARGE_MIRROR_TENANT_ID);
         }
         catch (Exception e)
         {
@@ -125,30 +169,6 @@ public class HengshuiTaskService
         return t != null ? t : DEFAULT_CHARGE_MIRROR_TENANT_ID;
     }
 
-    private static String strTrim(Object o)
-    {
-        if (o == null)
-        {
-            return null;
-        }
-        String s = o.toString().trim();
-        return s.isEmpty() ? null : s;
-    }
-
-    private static String clipOutpatientChargeDate(String s)
-    {
-        if (s == null)
-        {
-            return null;
-        }
-        String t = s.trim();
-        if (t.length() > 32)
-        {
-            return t.substring(0, 32);
-        }
-        return t;
-    }
-
     /**
      * 同步收费项目数据
      * 从HIS数据库的v_charge_item视图读取数据，保存到SPD数据库的his_hc_info表
@@ -167,25 +187,10 @@ public class HengshuiTaskService
 
         try
         {
-            // 1. 从系统参数配置读取HIS数据库连接信息
-            String driver = spdSystemConfigMapper.selectValueByKey("his.jdbc.driver");
-            String url = spdSystemConfigMapper.selectValueByKey("his.jdbc.url");
-            String username = spdSystemConfigMapper.selectValueByKey("his.jdbc.username");
-            String password = spdSystemConfigMapper.selectValueByKey("his.jdbc.password");
-
-            if (driver == null || url == null || username == null || password == null)
-            {
-                log.error("HIS数据库连接配置不完整");
-                result.put("success", false);
-                result.put("message", "HIS数据库连接配置不完整，请检查系统参数配置");
-                return result;
-            }
-
-            log.info("开始同步HIS收费项目数据，数据库URL: {}", url);
-
-            // 2. 动态创建HIS数据库连接
-            Class.forName(driver);
-            hisConnection = DriverManager.getConnection(url, username, password);
+            // 1. HIS 连接参数由 HisDataSourceManager 从系统参数配置读取
+            // 2. 从 HIS 连接池获取连接（参数不完整时抛出 IllegalStateException）
+            hisConnection = hisDataSourceManager.getConnection();
+            log.info("开始同步HIS收费项目数据，数据库URL: {}", hisDataSourceManager.getUrl());
 
             // 3. 查询视图v_charge_item数据
             String sql = "SELECT charge_item_id, item_code, item_name, item_type, consumable_type, " +
@@ -197,6 +202,13 @@ public class HengshuiTaskService
             ResultSetMetaData metaData = rs.getMetaData();
             int columnCount = metaData.getColumnCount();
 
+            // 列布局只解析一次：列序号 -> Map 键（null 表示忽略该列）
+            String[] keys = new String[columnCount + 1];
+            for (int i = 1; i <= columnCount; i++)
+            {
+                keys[i] = CHARGE_ITEM_COLUMN_KEYS.get(metaData.getColumnName(i).toLowerCase(Locale.ROOT));
+            }
+
             List<Map<String, Object>> dataList = new ArrayList<>();
             SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
@@ -206,65 +218,30 @@ public class HengshuiTaskService
                 Map<String, Object> item = new HashMap<>();
                 for (int i = 1; i <= columnCount; i++)
                 {
-                    String columnName = metaData.getColumnName(i).toLowerCase();
+                    String key = keys[i];
+                    if (key == null)
+                    {
+                        continue;
+                    }
                     Object value = rs.getObject(i);
-
-                    // 处理字段名映射
-                    switch (columnName)
+                    if ("price".equals(key))
+                    {
+                        item.put(key, value);
+                    }
+                    else if ("createTime".equals(key) || "updateTime".equals(key))
+                    {
+                        if (value instanceof Date)
+                        {
+                            item.put(key, sdf.format((Date) value));
+                        }
+                        else if (value != null)
+                        {
+                            item.put(key, value.toString());
+                        }
+                    }
+                    else
                     {
-                        case "charge_item_id":
-                            item.put("chargeItemId", value != null ? value.toString().trim() : null);
-                            break;
-                        case "item_code":
-                            item.put("itemCode", value != null ? value.toString().trim() : null);
-                            break;
-                        case "item_name":
-                            item.put("itemName", value != null ? value.toString().trim() : null);
-                            break;
-                        case "item_type":
-                            item.put("itemType", value != null ? value.toString().trim() : null);
-                            break;
-                        case "consumable_type":
-                            item.put("consumableType", value != null ? value.toString().trim() : null);
-                            break;
-                        case "spec_model":
-                            item.put("specModel", value != null ? value.toString().trim() : null);
-                            break;
-                        case "unit":
-                            item.put("unit", value != null ? value.toString().trim() : null);
-                            break;
-                        case "price":
-                            item.put("price", value);
-                            break;
-                        case "manufacturer":
-                            item.put("manufacturer", value != null ? value.toString().trim() : null);
-                            break;
-                        case "register_no":
-                            item.put("registerNo", value != null ? value.toString().trim() : null);
-                            break;
-                        case "is_active":
-                            item.put("isActive", value != null ? value.toString().trim() : null);
-                            break;
-                        case "create_time":
-                            if (value instanceof Date)
-                            {
-                                item.put("createTime", sdf.format((Date) value));
-                            }
-                            else if (value != null)
-                            {
-                                item.put("createTime", value.toString());
-                            }
-                            break;
-                        case "update_time":
-                            if (value instanceof Date)
-                            {
-                                item.put("updateTime", sdf.format((Date) value));
-                            }
-                            else if (value != null)
-                            {
-                                item.put("updateTime", value.toString());
-                            }
-                            break;
+                        item.put(key, value != null ? value.toString().trim() : null);
                     }
                 }
                 dataList.add(item);
@@ -390,489 +367,313 @@ public class HengshuiTaskService
      * 同步住院收费明细数据
      * 从HIS数据库的v_inpatient_consumable_charge视图读取昨天与今天的数据，写入 SPD 库
      * {@code his_inpatient_charge_mirror} 与 {@code his_patient_charge_mirror_unified}（去重逻辑对齐 SPD）
+     * <p>
+     * 只进游标流式读取，按 {@link #HIS_CHARGE_STREAM_CHUNK_SIZE} 分块完成指纹比对与写入，内存占用与窗口行数无关。
      * 
      * @return 同步结果
      */
     @DataSource(DataSourceType.SPD)
     public Map<String, Object> syncInpatientCharge()
     {
-        Map<String, Object> result = new HashMap<>();
-        int errorCount = 0;
-        Connection hisConnection = null;
+        return syncInpatientCharge(false);
+    }
 
+    /**
+     * 同步住院收费明细数据；开启增量（{@code his.charge.sync.incremental=1}）时仅抓取水位之后的行。
+     *
+     * @param forceFullWindow true 时忽略水位，按昨天～今天整窗口抓取
+     * @return 同步结果
+     */
+    @DataSource(DataSourceType.SPD)
+    public Map<String, Object> syncInpatientCharge(boolean forceFullWindow)
+    {
+        Map<String, Object> result = new HashMap<>();
         try
         {
-            String driver = spdSystemConfigMapper.selectValueByKey("his.jdbc.driver");
-            String url = spdSystemConfigMapper.selectValueByKey("his.jdbc.url");
-            String username = spdSystemConfigMapper.selectValueByKey("his.jdbc.username");
-            String password = spdSystemConfigMapper.selectValueByKey("his.jdbc.password");
-
-            if (driver == null || url == null || username == null || password == null)
-            {
-                log.error("HIS数据库连接配置不完整");
-                result.put("success", false);
-                result.put("message", "HIS数据库连接配置不完整，请检查系统参数配置");
-                return result;
-            }
-
             String tenantId = resolveChargeMirrorTenantId();
-            log.info("开始同步HIS住院收费明细数据至镜像表，数据库URL: {}，tenantId: {}", url, tenantId);
-
-            Class.forName(driver);
-            hisConnection = DriverManager.getConnection(
-                appendSqlServerSocketTimeout(url, HIS_CHARGE_SYNC_QUERY_TIMEOUT_SECONDS), username, password);
-
-            String sql = HisChargeMirrorFetchSql.SQLSERVER_INPATIENT_YESTERDAY_TODAY;
-
-            PreparedStatement pstmt = hisConnection.prepareStatement(sql);
-            pstmt.setQueryTimeout(HIS_CHARGE_SYNC_QUERY_TIMEOUT_SECONDS);
-            ResultSet rs = pstmt.executeQuery();
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-
-            List<Map<String, Object>> dataList = new ArrayList<>();
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-
-            while (rs.next())
-            {
-                Map<String, Object> item = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++)
-                {
-                    String columnName = metaData.getColumnName(i).toLowerCase();
-                    Object value = rs.getObject(i);
-
-                    switch (columnName)
-                    {
-                        case "inpatient_charge_id":
-                            item.put("inpatientChargeId", value);
-                            break;
-                        case "inpatient_charge_id_tf":
-                            item.put("inpatientChargeIdTf", value);
-                            break;
-                        case "patient_id":
-                            item.put("patientId", value);
-                            break;
-                        case "patient_name":
-                            item.put("patientName", value != null ? value.toString().trim() : null);
-                            break;
-                        case "inpatient_no":
-                            item.put("inpatientNo", value != null ? value.toString().trim() : null);
-                            break;
-                        case "dept_code":
-                            item.put("deptCode", value != null ? value.toString().trim() : null);
-                            break;
-                        case "dept_name":
-                            item.put("deptName", value != null ? value.toString().trim() : null);
-                            break;
-                        case "exec_dept_id":
-                            item.put("execDeptId", value != null ? value.toString().trim() : null);
-                            break;
-                        case "exec_dept_name":
-                            item.put("execDeptName", value != null ? value.toString().trim() : null);
-                            break;
-                        case "doctor_id":
-                            item.put("doctorId", value != null ? value.toString().trim() : null);
-                            break;
-                        case "doctor_name":
-                            item.put("doctorName", value != null ? value.toString().trim() : null);
-                            break;
-                        case "charge_item_id":
-                            item.put("chargeItemId", value != null ? value.toString().trim() : null);
-                            break;
-                        case "item_name":
-                            item.put("itemName", value != null ? value.toString().trim() : null);
-                            break;
-                        case "spec_model":
-                            item.put("specModel", value != null ? value.toString().trim() : null);
-                            break;
-                        case "batch_no":
-                            item.put("batchNo", value != null ? value.toString().trim() : null);
-                            break;
-                        case "expire_date":
-                            item.put("expireDate", processDateValue(value, sdf));
-                            break;
-                        case "use_date":
-                            item.put("useDate", value);
-                            break;
-                        case "charge_date":
-                            item.put("chargeDate", value);
-                            break;
-                        case "quantity":
-                            item.put("quantity", value);
-                            break;
-                        case "unit_price":
-                            item.put("unitPrice", value);
-                            break;
-                        case "total_amount":
-                            item.put("totalAmount", value);
-                            break;
-                        case "charge_operator":
-                            item.put("chargeOperator", value != null ? value.toString().trim() : null);
-                            break;
-                        case "remark":
-                            item.put("remark", value != null ? value.toString().trim() : null);
-                            break;
-                    }
-                }
-                dataList.add(item);
-            }
-
-            rs.close();
-            pstmt.close();
-
-            log.info("从HIS数据库读取到 {} 条数据（昨天与今天）", dataList.size());
-
             String fetchBatchId = UUID.randomUUID().toString();
             Date createTime = new Date();
-            int[] counts = mergeInsertInpatientRows(tenantId, fetchBatchId, SYNC_CREATE_BY, createTime, dataList);
-            int inserted = counts[0];
-            int skipped = counts[1];
-            int drift = counts[2];
-
-            result.put("success", true);
-            result.put("fetchBatchId", fetchBatchId);
-            result.put("totalCount", dataList.size());
-            result.put("insertedCount", inserted);
-            result.put("skippedCount", skipped);
-            result.put("driftCount", drift);
-            result.put("newCount", inserted);
-            result.put("duplicateCount", skipped + drift);
-            result.put("successCount", inserted);
-            result.put("errorCount", 0);
-            result.put("message", String.format(
-                "同步完成(镜像表)，总计: %d, 新增: %d, 指纹一致跳过: %d, 指纹不一致(已存在): %d, 批次: %s",
-                dataList.size(), inserted, skipped, drift, fetchBatchId));
-
-            log.info("HIS住院收费明细镜像同步完成，总计: {}, 新增: {}, 跳过: {}, drift: {}, batch: {}",
-                dataList.size(), inserted, skipped, drift, fetchBatchId);
-
-            saveChargeFetchBatchLog(tenantId, "INPATIENT", fetchBatchId, createTime, inserted, skipped, drift);
-            triggerSpdAutoProcessAfterSync(tenantId, fetchBatchId, "INPATIENT", inserted);
+            ChargeSyncOutcome o = pullInpatientCharge(tenantId, fetchBatchId, createTime, forceFullWindow);
+            putChargeSyncResult(result, o, fetchBatchId);
+            saveChargeFetchBatchLog(tenantId, "INPATIENT", fetchBatchId, createTime, o.window.getWindowStart(), o.window.getWindowEnd(),
+                o.inserted, o.skipped, o.drift, fetchBatchRemark(o.window));
+            triggerSpdAutoProcessAfterSync(tenantId, fetchBatchId, "INPATIENT", o.inserted);
         }
         catch (Exception e)
         {
             log.error("同步HIS住院收费明细数据异常", e);
             result.put("success", false);
             result.put("message", "同步失败: " + e.getMessage());
-            errorCount++;
-            result.put("errorCount", errorCount);
+            result.put("errorCount", 1);
         }
-        finally
+        return result;
+    }
+
+    /**
+     * 从 HIS 流式抓取住院计费并合并写入镜像，成功后推进水位（不写批次日志、不触发 SPD 自动处理）。
+     * 须在 SPD 数据源上下文中调用。
+     */
+    private ChargeSyncOutcome pullInpatientCharge(String tenantId, String fetchBatchId, Date createTime, boolean forceFullWindow)
+        throws Exception
+    {
+        try (Connection hisConnection = hisDataSourceManager.getConnection())
         {
-            if (hisConnection != null)
+            log.info("开始同步HIS住院收费明细数据至镜像表，数据库URL: {}，tenantId: {}", hisDataSourceManager.getUrl(), tenantId);
+            if (hisChargeFingerprintIndex.isEnabled())
             {
-                try
-                {
-                    hisConnection.close();
-                }
-                catch (Exception e)
-                {
-                    log.warn("关闭HIS数据库连接异常", e);
-                }
+                hisChargeFingerprintIndex.reconcileIfDue(tenantId, "INPATIENT", ids -> loadInpatientFingerprints(tenantId, ids));
             }
-        }
 
-        return result;
+            final HisChargeFetchWindow window = hisChargeSyncWatermarkService.resolveWindow(tenantId, "INPATIENT", forceFullWindow);
+            final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            final Set<String> seen = new HashSet<>();
+            final int[] counts = new int[3];
+            final Date[] maxChargeAt = new Date[1];
+            final HisChargeStreamingReader.StreamStats stats = new HisChargeStreamingReader.StreamStats();
+            int totalCount = HisChargeStreamingReader.stream(
+                hisConnection,
+                window.isIncremental()
+                    ? HisChargeMirrorFetchSql.SQLSERVER_INPATIENT_SINCE
+                    : HisChargeMirrorFetchSql.SQLSERVER_INPATIENT_YESTERDAY_TODAY,
+                window.isIncremental() ? new Object[] { sdf.format(window.getWindowStart()) } : null,
+                HIS_CHARGE_SYNC_QUERY_TIMEOUT_SECONDS,
+                HIS_CHARGE_FETCH_SIZE,
+                HIS_CHARGE_STREAM_CHUNK_SIZE,
+                new HisInpatientChargeRowMapper(tenantId, fetchBatchId, SYNC_CREATE_BY, createTime),
+                chunk -> {
+                    maxChargeAt[0] = HisChargeMirrorSyncSupport.maxInpatientChargeAt(chunk, maxChargeAt[0]);
+                    mergeInsertInpatientChunk(tenantId, chunk, seen, counts);
+                },
+                stats);
+
+            log.info("从HIS数据库流式读取 {} 条数据（{}，起 {}），分块大小 {}，查询 {}ms，取行 {}ms，行映射 {}ms（{} 行/秒），合并写入 {}ms",
+                totalCount, window.isIncremental() ? "增量" : "昨天与今天", sdf.format(window.getWindowStart()),
+                HIS_CHARGE_STREAM_CHUNK_SIZE, stats.getQueryMillis(), stats.getFetchMillis(), stats.getMapMillis(),
+                stats.mapRowsPerSecond(totalCount), stats.getHandleMillis());
+
+            ChargeSyncOutcome o = new ChargeSyncOutcome(window, totalCount, counts[0], counts[1], counts[2]);
+            log.info("HIS住院收费明细镜像同步完成，总计: {}, 新增: {}, 跳过: {}, drift: {}, batch: {}",
+                o.totalCount, o.inserted, o.skipped, o.drift, fetchBatchId);
+
+            hisChargeSyncWatermarkService.advance(tenantId, "INPATIENT", maxChargeAt[0], fetchBatchId);
+            return o;
+        }
     }
 
     /**
      * 同步门诊收费明细数据
      * 从HIS数据库的v_outpatient_consumable_charge视图读取昨天与今天的数据，写入 SPD 库
      * {@code his_outpatient_charge_mirror} 与 {@code his_patient_charge_mirror_unified}（去重逻辑对齐 SPD）
+     * <p>
+     * 只进游标流式读取，按 {@link #HIS_CHARGE_STREAM_CHUNK_SIZE} 分块完成指纹比对与写入，内存占用与窗口行数无关。
      * 
      * @return 同步结果
      */
     @DataSource(DataSourceType.SPD)
     public Map<String, Object> syncOutpatientCharge()
     {
-        Map<String, Object> result = new HashMap<>();
-        int errorCount = 0;
-        Connection hisConnection = null;
+        return syncOutpatientCharge(false);
+    }
 
+    /**
+     * 同步门诊收费明细数据；开启增量（{@code his.charge.sync.incremental=1}）时仅抓取水位之后的行。
+     *
+     * @param forceFullWindow true 时忽略水位，按昨天～今天整窗口抓取
+     * @return 同步结果
+     */
+    @DataSource(DataSourceType.SPD)
+    public Map<String, Object> syncOutpatientCharge(boolean forceFullWindow)
+    {
+        Map<String, Object> result = new HashMap<>();
         try
         {
-            String driver = spdSystemConfigMapper.selectValueByKey("his.jdbc.driver");
-            String url = spdSystemConfigMapper.selectValueByKey("his.jdbc.url");
-            String username = spdSystemConfigMapper.selectValueByKey("his.jdbc.username");
-            String password = spdSystemConfigMapper.selectValueByKey("his.jdbc.password");
-
-            if (driver == null || url == null || username == null || password == null)
-            {
-                log.error("HIS数据库连接配置不完整");
-                result.put("success", false);
-                result.put("message", "HIS数据库连接配置不完整，请检查系统参数配置");
-                return result;
-            }
-
             String tenantId = resolveChargeMirrorTenantId();
-            log.info("开始同步HIS门诊收费明细数据至镜像表，数据库URL: {}，tenantId: {}", url, tenantId);
-
-            Class.forName(driver);
-            hisConnection = DriverManager.getConnection(
-                appendSqlServerSocketTimeout(url, HIS_CHARGE_SYNC_QUERY_TIMEOUT_SECONDS), username, password);
-
-            String sql = HisChargeMirrorFetchSql.SQLSERVER_OUTPATIENT_YESTERDAY_TODAY;
-
-            PreparedStatement pstmt = hisConnection.prepareStatement(sql);
-            pstmt.setQueryTimeout(HIS_CHARGE_SYNC_QUERY_TIMEOUT_SECONDS);
-            ResultSet rs = pstmt.executeQuery();
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-
-            List<Map<String, Object>> dataList = new ArrayList<>();
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-
-            while (rs.next())
-            {
-                Map<String, Object> item = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++)
-                {
-                    String columnName = metaData.getColumnName(i).toLowerCase();
-                    Object value = rs.getObject(i);
-
-                    switch (columnName)
-                    {
-                        case "outpatient_charge_id":
-                            item.put("outpatientChargeId", value);
-                            break;
-                        case "outpatient_charge_id_tf":
-                            item.put("outpatientChargeIdTf", value);
-                            break;
-                        case "patient_id":
-                            item.put("patientId", value);
-                            break;
-                        case "patient_name":
-                            item.put("patientName", value != null ? value.toString().trim() : null);
-                            break;
-                        case "outpatient_no":
-                            item.put("outpatientNo", value != null ? value.toString().trim() : null);
-                            break;
-                        case "clinic_code":
-                            item.put("clinicCode", value != null ? value.toString().trim() : null);
-                            break;
-                        case "clinic_name":
-                            item.put("clinicName", value != null ? value.toString().trim() : null);
-                            break;
-                        case "exec_dept_id":
-                            item.put("execDeptId", value != null ? value.toString().trim() : null);
-                            break;
-                        case "exec_dept_name":
-                            item.put("execDeptName", value != null ? value.toString().trim() : null);
-                            break;
-                        case "doctor_id":
-                            item.put("doctorId", value != null ? value.toString().trim() : null);
-                            break;
-                        case "doctor_name":
-                            item.put("doctorName", value != null ? value.toString().trim() : null);
-                            break;
-                        case "charge_item_id":
-                            item.put("chargeItemId", value != null ? value.toString().trim() : null);
-                            break;
-                        case "item_name":
-                            item.put("itemName", value != null ? value.toString().trim() : null);
-                            break;
-                        case "spec_model":
-                            item.put("specModel", value != null ? value.toString().trim() : null);
-                            break;
-                        case "batch_no":
-                            item.put("batchNo", value != null ? value.toString().trim() : null);
-                            break;
-                        case "expire_date":
-                            item.put("expireDate", processDateValue(value, sdf));
-                            break;
-                        case "charge_date":
-                            item.put("chargeDate", value);
-                            break;
-                        case "quantity":
-                            item.put("quantity", value);
-                            break;
-                        case "unit_price":
-                            item.put("unitPrice", value);
-                            break;
-                        case "total_amount":
-                            item.put("totalAmount", value);
-                            break;
-                        case "charge_operator":
-                            item.put("chargeOperator", value != null ? value.toString().trim() : null);
-                            break;
-                        case "payment_type":
-                            item.put("paymentType", value != null ? value.toString().trim() : null);
-                            break;
-                        case "receipt_no":
-                            item.put("receiptNo", value != null ? value.toString().trim() : null);
-                            break;
-                        case "remark":
-                            item.put("remark", value != null ? value.toString().trim() : null);
-                            break;
-                    }
-                }
-                dataList.add(item);
-            }
-
-            rs.close();
-            pstmt.close();
-
-            log.info("从HIS数据库读取到 {} 条数据（昨天与今天）", dataList.size());
-
             String fetchBatchId = UUID.randomUUID().toString();
             Date createTime = new Date();
-            int[] counts = mergeInsertOutpatientRows(tenantId, fetchBatchId, SYNC_CREATE_BY, createTime, dataList);
-            int inserted = counts[0];
-            int skipped = counts[1];
-            int drift = counts[2];
-
-            result.put("success", true);
-            result.put("fetchBatchId", fetchBatchId);
-            result.put("totalCount", dataList.size());
-            result.put("insertedCount", inserted);
-            result.put("skippedCount", skipped);
-            result.put("driftCount", drift);
-            result.put("newCount", inserted);
-            result.put("duplicateCount", skipped + drift);
-            result.put("successCount", inserted);
-            result.put("errorCount", 0);
-            result.put("message", String.format(
-                "同步完成(镜像表)，总计: %d, 新增: %d, 指纹一致跳过: %d, 指纹不一致(已存在): %d, 批次: %s",
-                dataList.size(), inserted, skipped, drift, fetchBatchId));
-
-            log.info("HIS门诊收费明细镜像同步完成，总计: {}, 新增: {}, 跳过: {}, drift: {}, batch: {}",
-                dataList.size(), inserted, skipped, drift, fetchBatchId);
-
-            saveChargeFetchBatchLog(tenantId, "OUTPATIENT", fetchBatchId, createTime, inserted, skipped, drift);
-            triggerSpdAutoProcessAfterSync(tenantId, fetchBatchId, "OUTPATIENT", inserted);
+            ChargeSyncOutcome o = pullOutpatientCharge(tenantId, fetchBatchId, createTime, forceFullWindow);
+            putChargeSyncResult(result, o, fetchBatchId);
+            saveChargeFetchBatchLog(tenantId, "OUTPATIENT", fetchBatchId, createTime, o.window.getWindowStart(), o.window.getWindowEnd(),
+                o.inserted, o.skipped, o.drift, fetchBatchRemark(o.window));
+            triggerSpdAutoProcessAfterSync(tenantId, fetchBatchId, "OUTPATIENT", o.inserted);
         }
         catch (Exception e)
         {
             log.error("同步HIS门诊收费明细数据异常", e);
             result.put("success", false);
             result.put("message", "同步失败: " + e.getMessage());
-            errorCount++;
-            result.put("errorCount", errorCount);
+            result.put("errorCount", 1);
         }
-        finally
+        return result;
+    }
+
+    /**
+     * 从 HIS 流式抓取门诊计费并合并写入镜像，成功后推进水位（不写批次日志、不触发 SPD 自动处理）。
+     * 须在 SPD 数据源上下文中调用。
+     */
+    private ChargeSyncOutcome pullOutpatientCharge(String tenantId, String fetchBatchId, Date createTime, boolean forceFullWindow)
+        throws Exception
+    {
+        try (Connection hisConnection = hisDataSourceManager.getConnection())
         {
-            if (hisConnection != null)
+            log.info("开始同步HIS门诊收费明细数据至镜像表，数据库URL: {}，tenantId: {}", hisDataSourceManager.getUrl(), tenantId);
+            if (hisChargeFingerprintIndex.isEnabled())
             {
-                try
-                {
-                    hisConnection.close();
-                }
-                catch (Exception e)
-                {
-                    log.warn("关闭HIS数据库连接异常", e);
-                }
+                hisChargeFingerprintIndex.reconcileIfDue(tenantId, "OUTPATIENT", ids -> loadOutpatientFingerprints(tenantId, ids));
             }
+
+            final HisChargeFetchWindow window = hisChargeSyncWatermarkService.resolveWindow(tenantId, "OUTPATIENT", forceFullWindow);
+            final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            final Set<String> seen = new HashSet<>();
+            final int[] counts = new int[3];
+            final Date[] maxChargeAt = new Date[1];
+            final HisChargeStreamingReader.StreamStats stats = new HisChargeStreamingReader.StreamStats();
+            int totalCount = HisChargeStreamingReader.stream(
+                hisConnection,
+                window.isIncremental()
+                    ? HisChargeMirrorFetchSql.SQLSERVER_OUTPATIENT_SINCE
+                    : HisChargeMirrorFetchSql.SQLSERVER_OUTPATIENT_YESTERDAY_TODAY,
+                window.isIncremental() ? new Object[] { sdf.format(window.getWindowStart()) } : null,
+                HIS_CHARGE_SYNC_QUERY_TIMEOUT_SECONDS,
+                HIS_CHARGE_FETCH_SIZE,
+                HIS_CHARGE_STREAM_CHUNK_SIZE,
+                new HisOutpatientChargeRowMapper(tenantId, fetchBatchId, SYNC_CREATE_BY, createTime),
+                chunk -> {
+                    maxChargeAt[0] = HisChargeMirrorSyncSupport.maxOutpatientChargeAt(chunk, maxChargeAt[0]);
+                    mergeInsertOutpatientChunk(tenantId, chunk, seen, counts);
+                },
+                stats);
+
+            log.info("从HIS数据库流式读取 {} 条数据（{}，起 {}），分块大小 {}，查询 {}ms，取行 {}ms，行映射 {}ms（{} 行/秒），合并写入 {}ms",
+                totalCount, window.isIncremental() ? "增量" : "昨天与今天", sdf.format(window.getWindowStart()),
+                HIS_CHARGE_STREAM_CHUNK_SIZE, stats.getQueryMillis(), stats.getFetchMillis(), stats.getMapMillis(),
+                stats.mapRowsPerSecond(totalCount), stats.getHandleMillis());
+
+            ChargeSyncOutcome o = new ChargeSyncOutcome(window, totalCount, counts[0], counts[1], counts[2]);
+            log.info("HIS门诊收费明细镜像同步完成，总计: {}, 新增: {}, 跳过: {}, drift: {}, batch: {}",
+                o.totalCount, o.inserted, o.skipped, o.drift, fetchBatchId);
+
+            hisChargeSyncWatermarkService.advance(tenantId, "OUTPATIENT", maxChargeAt[0], fetchBatchId);
+            return o;
         }
+    }
 
+    /**
+     * 住院与门诊计费镜像合并同步：两类在有界线程池上并行抓取（各自占用一个 HIS 连接），
+     * 共用租户解析；与单独同步一样，住院、门诊各用独立抓取批次号，各写一条 INPATIENT / OUTPATIENT 批次记录并分别触发 SPD 自动处理。
+     * 任一类失败不影响另一类写入与触发，整体结果标记为失败。
+     *
+     * @param forceFullWindow true 时忽略水位，按昨天～今天整窗口抓取
+     * @return 同步结果（inpatient / outpatient 为各类明细）
+     */
+    @DataSource(DataSourceType.SPD)
+    public Map<String, Object> syncPatientCharge(boolean forceFullWindow)
+    {
+        Map<String, Object> result = new HashMap<>();
+        long begin = System.currentTimeMillis();
+        String tenantId = resolveChargeMirrorTenantId();
+        String inFetchBatchId = UUID.randomUUID().toString();
+        String outFetchBatchId = UUID.randomUUID().toString();
+        Date createTime = new Date();
+        Future<ChargeSyncOutcome> inFuture = chargeSyncExecutor.submit(
+            () -> callInSpdContext(() -> pullInpatientCharge(tenantId, inFetchBatchId, createTime, forceFullWindow)));
+        Future<ChargeSyncOutcome> outFuture = chargeSyncExecutor.submit(
+            () -> callInSpdContext(() -> pullOutpatientCharge(tenantId, outFetchBatchId, createTime, forceFullWindow)));
+        Map<String, Object> inResult = new HashMap<>();
+        Map<String, Object> outResult = new HashMap<>();
+        ChargeSyncOutcome in = awaitChargeSync(inFuture, "住院", inResult, inFetchBatchId);
+        ChargeSyncOutcome out = awaitChargeSync(outFuture, "门诊", outResult, outFetchBatchId);
+
+        if (in != null)
+        {
+            saveChargeFetchBatchLog(tenantId, "INPATIENT", inFetchBatchId, createTime, in.window.getWindowStart(), in.window.getWindowEnd(),
+                in.inserted, in.skipped, in.drift, fetchBatchRemark(in.window));
+            triggerSpdAutoProcessAfterSync(tenantId, inFetchBatchId, "INPATIENT", in.inserted);
+        }
+        if (out != null)
+        {
+            saveChargeFetchBatchLog(tenantId, "OUTPATIENT", outFetchBatchId, createTime, out.window.getWindowStart(), out.window.getWindowEnd(),
+                out.inserted, out.skipped, out.drift, fetchBatchRemark(out.window));
+            triggerSpdAutoProcessAfterSync(tenantId, outFetchBatchId, "OUTPATIENT", out.inserted);
+        }
+
+        long millis = System.currentTimeMillis() - begin;
+        boolean ok = in != null && out != null;
+        result.put("success", ok);
+        result.put("inpatient", inResult);
+        result.put("outpatient", outResult);
+        result.put("totalCount", (in != null ? in.totalCount : 0) + (out != null ? out.totalCount : 0));
+        result.put("insertedCount", (in != null ? in.inserted : 0) + (out != null ? out.inserted : 0));
+        result.put("skippedCount", (in != null ? in.skipped : 0) + (out != null ? out.skipped : 0));
+        result.put("driftCount", (in != null ? in.drift : 0) + (out != null ? out.drift : 0));
+        result.put("elapsedMs", millis);
+        result.put("message", String.format("住院：%s；门诊：%s；耗时 %dms",
+            inResult.get("message"), outResult.get("message"), millis));
+        log.info("HIS住院+门诊收费明细合并同步结束，住院 batch: {}，门诊 batch: {}，成功: {}，耗时 {}ms",
+            inFetchBatchId, outFetchBatchId, ok, millis);
         return result;
     }
 
-    private HisInpatientChargeMirrorRow mapToInpatientMirrorRow(
-        Map<String, Object> m, String tenantId, String fetchBatchId, String createBy, Date createTime)
+    private ChargeSyncOutcome awaitChargeSync(Future<ChargeSyncOutcome> future, String label, Map<String, Object> result,
+        String fetchBatchId)
     {
-        String hid = HisChargeMirrorSyncSupport.toHisIdString(m.get("inpatientChargeId"));
-        if (HisChargeMirrorSyncSupport.isBlank(hid))
-        {
-            return null;
-        }
-        HisInpatientChargeMirrorRow r = new HisInpatientChargeMirrorRow();
-        r.setTenantId(tenantId);
-        r.setFetchBatchId(fetchBatchId);
-        r.setHisInpatientChargeId(hid);
-        r.setHisInpatientChargeIdTf(HisChargeMirrorSyncSupport.toHisIdString(m.get("inpatientChargeIdTf")));
-        r.setPatientId(HisChargeMirrorSyncSupport.toHisIdString(m.get("patientId")));
-        r.setPatientName(strTrim(m.get("patientName")));
-        r.setInpatientNo(strTrim(m.get("inpatientNo")));
-        r.setDeptCode(HisChargeMirrorSyncSupport.trimToNull(strTrim(m.get("deptCode"))));
-        r.setDeptName(strTrim(m.get("deptName")));
-        r.setExecDeptId(HisChargeMirrorSyncSupport.trimToNull(strTrim(m.get("execDeptId"))));
-        r.setExecDeptName(HisChargeMirrorSyncSupport.trimToNull(strTrim(m.get("execDeptName"))));
-        r.setDoctorId(HisChargeMirrorSyncSupport.trimToNull(strTrim(m.get("doctorId"))));
-        r.setDoctorName(strTrim(m.get("doctorName")));
-        r.setChargeItemId(HisChargeMirrorSyncSupport.trimToNull(strTrim(m.get("chargeItemId"))));
-        r.setItemName(strTrim(m.get("itemName")));
-        r.setSpecModel(strTrim(m.get("specModel")));
-        r.setBatchNo(strTrim(m.get("batchNo")));
-        r.setExpireDate(strTrim(m.get("expireDate")));
-        r.setUseDate(HisChargeMirrorSyncSupport.parseHisDateTime(m.get("useDate")));
-        r.setChargeDate(HisChargeMirrorSyncSupport.parseHisDateTime(m.get("chargeDate")));
-        r.setQuantity(HisChargeMirrorSyncSupport.toBigDecimal(m.get("quantity")));
-        r.setUnitPrice(HisChargeMirrorSyncSupport.toBigDecimal(m.get("unitPrice")));
-        BigDecimal inQty = r.getQuantity();
-        BigDecimal inUp = r.getUnitPrice();
-        r.setTotalAmount(HisChargeMirrorSyncSupport.resolveDetailLineAmount(
-            inQty, inUp, HisChargeMirrorSyncSupport.toBigDecimal(m.get("totalAmount"))));
-        r.setChargeOperator(strTrim(m.get("chargeOperator")));
-        r.setRemark(strTrim(m.get("remark")));
-        r.setProcessStatus("PENDING_CONSUME");
-        r.setCreateBy(createBy);
-        r.setCreateTime(createTime);
-        r.setRowFingerprint(HisChargeMirrorSyncSupport.fingerprintInpatient(r));
-        return r;
+        try
+        {
+            ChargeSyncOutcome o = future.get();
+            putChargeSyncResult(result, o, fetchBatchId);
+            return o;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            result.put("success", false);
+            result.put("message", "同步被中断");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("同步HIS{}收费明细数据异常", label, cause);
+            result.put("success", false);
+            result.put("message", "同步失败: " + cause.getMessage());
+            result.put("errorCount", 1);
+        }
+        return null;
     }
 
-    private HisOutpatientChargeMirrorRow mapToOutpatientMirrorRow(
-        Map<String, Object> m, String tenantId, String fetchBatchId, String createBy, Date createTime)
+    /**
+     * 在工作线程中以 SPD 数据源上下文执行（切面不作用于线程池内的私有调用）。
+     * 水位、指纹索引与镜像写入组件均不声明 {@code @DataSource}，依赖此处设置的上下文：
+     * 嵌套切面返回时会清空数据源，事务也在该上下文中取连接。
+     */
+    private static <T> T callInSpdContext(Callable<T> task) throws Exception
     {
-        String hid = HisChargeMirrorSyncSupport.toHisIdString(m.get("outpatientChargeId"));
-        if (HisChargeMirrorSyncSupport.isBlank(hid))
-        {
-            return null;
-        }
-        HisOutpatientChargeMirrorRow r = new HisOutpatientChargeMirrorRow();
-        r.setTenantId(tenantId);
-        r.setFetchBatchId(fetchBatchId);
-        r.setHisOutpatientChargeId(hid);
-        r.setHisOutpatientChargeIdTf(HisChargeMirrorSyncSupport.toHisIdString(m.get("outpatientChargeIdTf")));
-        r.setPatientId(HisChargeMirrorSyncSupport.toHisIdString(m.get("patientId")));
-        r.setPatientName(strTrim(m.get("patientName")));
-        r.setOutpatientNo(strTrim(m.get("outpatientNo")));
-        r.setClinicCode(HisChargeMirrorSyncSupport.trimToNull(strTrim(m.get("clinicCode"))));
-        r.setClinicName(strTrim(m.get("clinicName")));
-        r.setExecDeptId(HisChargeMirrorSyncSupport.trimToNull(strTrim(m.get("execDeptId"))));
-        r.setExecDeptName(HisChargeMirrorSyncSupport.trimToNull(strTrim(m.get("execDeptName"))));
-        r.setDoctorId(HisChargeMirrorSyncSupport.trimToNull(strTrim(m.get("doctorId"))));
-        r.setDoctorName(strTrim(m.get("doctorName")));
-        r.setChargeItemId(HisChargeMirrorSyncSupport.trimToNull(strTrim(m.get("chargeItemId"))));
-        r.setItemName(strTrim(m.get("itemName")));
-        r.setSpecModel(strTrim(m.get("specModel")));
-        r.setBatchNo(strTrim(m.get("batchNo")));
-        r.setExpireDate(strTrim(m.get("expireDate")));
-        Object rawCharge = m.get("chargeDate");
-        Date chargeAt = HisChargeMirrorSyncSupport.parseHisDateTime(rawCharge);
-        String chargeDisp = chargeAt != null
-            ? clipOutpatientChargeDate(HisChargeMirrorSyncSupport.formatChargeDateDisplay(chargeAt))
-            : clipOutpatientChargeDate(rawCharge == null ? null : String.valueOf(rawCharge).trim());
-        r.setChargeDate(chargeDisp);
-        r.setQuantity(HisChargeMirrorSyncSupport.toBigDecimal(m.get("quantity")));
-        r.setUnitPrice(HisChargeMirrorSyncSupport.toBigDecimal(m.get("unitPrice")));
-        BigDecimal outQty = r.getQuantity();
-        BigDecimal outUp = r.getUnitPrice();
-        r.setTotalAmount(HisChargeMirrorSyncSupport.resolveDetailLineAmount(
-            outQty, outUp, HisChargeMirrorSyncSupport.toBigDecimal(m.get("totalAmount"))));
-        r.setChargeOperator(strTrim(m.get("chargeOperator")));
-        r.setPaymentType(strTrim(m.get("paymentType")));
-        r.setReceiptNo(HisChargeMirrorSyncSupport.trimToNull(strTrim(m.get("receiptNo"))));
-        r.setRemark(strTrim(m.get("remark")));
-        r.setProcessStatus("PENDING_CONSUME");
-        r.setCreateBy(createBy);
-        r.setCreateTime(createTime);
-        r.setRowFingerprint(HisChargeMirrorSyncSupport.fingerprintOutpatient(r));
-        return r;
+        DynamicDataSourceContextHolder.setDataSourceType(DataSourceType.SPD.name());
+        try
+        {
+            return task.call();
+        }
+        finally
+        {
+            DynamicDataSourceContextHolder.clearDataSourceType();
+        }
     }
 
-    private int[] mergeInsertInpatientRows(
-        String tenantId, String fetchBatchId, String createBy, Date createTime, List<Map<String, Object>> dataList)
+    @PreDestroy
+    public void shutdownChargeSyncExecutor()
     {
-        List<HisInpatientChargeMirrorRow> candidates = new ArrayList<>();
-        Set<String> seen = new HashSet<>();
-        for (Map<String, Object> m : dataList)
+        chargeSyncExecutor.shutdownNow();
+    }
+
+    /**
+     * 合并一块镜像行：窗口内按 HIS 主键去重（{@code seen} 跨块保留），指纹比对后插入新增行，
+     * 计数累加至 {@code counts}（0=新增，1=指纹一致跳过，2=指纹不一致）。
+     */
+    private void mergeInsertInpatientChunk(
+        String tenantId, List<HisInpatientChargeMirrorRow> chunk, Set<String> seen, int[] counts)
+    {
+        List<HisInpatientChargeMirrorRow> candidates = new ArrayList<>(chunk.size());
+        for (HisInpatientChargeMirrorRow r : chunk)
         {
-            HisInpatientChargeMirrorRow r = mapToInpatientMirrorRow(m, tenantId, fetchBatchId, createBy, createTime);
-            if (r == null)
-            {
-                continue;
-            }
             if (!seen.add(r.getHisInpatientChargeId()))
             {
                 continue;
@@ -881,57 +682,63 @@ public class HengshuiTaskService
         }
         if (candidates.isEmpty())
         {
-            return new int[] { 0, 0, 0 };
-        }
-        List<String> ids = new ArrayList<>(candidates.size());
-        for (HisInpatientChargeMirrorRow c : candidates)
-        {
-            ids.add(c.getHisInpatientChargeId());
+            return;
         }
-        Map<String, String> existing = loadInpatientFingerprints(tenantId, ids);
+        Map<String, HisIdFingerprintRow> existing = lookupInpatientFingerprints(tenantId, candidates);
         List<HisInpatientChargeMirrorRow> toInsert = new ArrayList<>();
+        List<HisExecDeptBackfillRow> execBackfill = new ArrayList<>();
         int skipped = 0;
         int drift = 0;
         for (HisInpatientChargeMirrorRow r : candidates)
         {
             String hid = r.getHisInpatientChargeId();
             String fp = r.getRowFingerprint();
-            String old = existing.get(hid);
+            HisIdFingerprintRow old = existing.get(hid);
             if (old == null)
             {
                 r.setId(UUID.randomUUID().toString());
                 toInsert.add(r);
-                existing.put(hid, fp);
             }
-            else if (HisChargeMirrorSyncSupport.fingerprintEquals(old, fp))
+            else if (HisChargeMirrorSyncSupport.fingerprintEquals(old.getRowFingerprint(), fp))
             {
                 skipped++;
             }
-            else if (applyInpatientExecDeptBackfill(tenantId, r))
+            else if (HisChargeMirrorSyncSupport.isBlank(old.getExecDeptId())
+                && !HisChargeMirrorSyncSupport.isBlank(r.getExecDeptId()))
             {
-                skipped++;
+                execBackfill.add(new HisExecDeptBackfillRow(hid, r.getExecDeptId(), r.getExecDeptName(), fp));
             }
             else
             {
                 drift++;
             }
         }
-        insertInpatientBatches(toInsert);
-        return new int[] { toInsert.size(), skipped, drift };
+        // 指纹差异仅因执行科室补录：整块一次多行更新，成功计入跳过，其余仍按指纹不一致
+        int backfilled = applyInpatientExecDeptBatch(tenantId, execBackfill);
+        hisChargeMirrorWriter.writeInpatient(toInsert);
+        if (hisChargeFingerprintIndex.isEnabled())
+        {
+            for (HisInpatientChargeMirrorRow r : toInsert)
+            {
+                hisChargeFingerprintIndex.put(tenantId, "INPATIENT", r.getHisInpatientChargeId(), r.getRowFingerprint(),
+                    r.getExecDeptId(), r.getChargeDate());
+            }
+        }
+        counts[0] += toInsert.size();
+        counts[1] += skipped + backfilled;
+        counts[2] += drift + execBackfill.size() - backfilled;
     }
 
-    private int[] mergeInsertOutpatientRows(
-        String tenantId, String fetchBatchId, String createBy, Date createTime, List<Map<String, Object>> dataList)
+    /**
+     * 合并一块镜像行：窗口内按 HIS 主键去重（{@code seen} 跨块保留），指纹比对后插入新增行，
+     * 计数累加至 {@code counts}（0=新增，1=指纹一致跳过，2=指纹不一致）。
+     */
+    private void mergeInsertOutpatientChunk(
+        String tenantId, List<HisOutpatientChargeMirrorRow> chunk, Set<String> seen, int[] counts)
     {
-        List<HisOutpatientChargeMirrorRow> candidates = new ArrayList<>();
-        Set<String> seen = new HashSet<>();
-        for (Map<String, Object> m : dataList)
+        List<HisOutpatientChargeMirrorRow> candidates = new ArrayList<>(chunk.size());
+        for (HisOutpatientChargeMirrorRow r : chunk)
         {
-            HisOutpatientChargeMirrorRow r = mapToOutpatientMirrorRow(m, tenantId, fetchBatchId, createBy, createTime);
-            if (r == null)
-            {
-                continue;
-            }
             if (!seen.add(r.getHisOutpatientChargeId()))
             {
                 continue;
@@ -940,82 +747,102 @@ public class HengshuiTaskService
         }
         if (candidates.isEmpty())
         {
-            return new int[] { 0, 0, 0 };
-        }
-        List<String> ids = new ArrayList<>(candidates.size());
-        for (HisOutpatientChargeMirrorRow c : candidates)
-        {
-            ids.add(c.getHisOutpatientChargeId());
+            return;
         }
-        Map<String, String> existing = loadOutpatientFingerprints(tenantId, ids);
+        Map<String, HisIdFingerprintRow> existing = lookupOutpatientFingerprints(tenantId, candidates);
         List<HisOutpatientChargeMirrorRow> toInsert = new ArrayList<>();
+        List<HisExecDeptBackfillRow> execBackfill = new ArrayList<>();
         int skipped = 0;
         int drift = 0;
         for (HisOutpatientChargeMirrorRow r : candidates)
         {
             String hid = r.getHisOutpatientChargeId();
             String fp = r.getRowFingerprint();
-            String old = existing.get(hid);
+            HisIdFingerprintRow old = existing.get(hid);
             if (old == null)
             {
                 r.setId(UUID.randomUUID().toString());
                 toInsert.add(r);
-                existing.put(hid, fp);
             }
-            else if (HisChargeMirrorSyncSupport.fingerprintEquals(old, fp))
+            else if (HisChargeMirrorSyncSupport.fingerprintEquals(old.getRowFingerprint(), fp))
             {
                 skipped++;
             }
-            else if (applyOutpatientExecDeptBackfill(tenantId, r))
+            else if (HisChargeMirrorSyncSupport.isBlank(old.getExecDeptId())
+                && !HisChargeMirrorSyncSupport.isBlank(r.getExecDeptId()))
             {
-                skipped++;
+                execBackfill.add(new HisExecDeptBackfillRow(hid, r.getExecDeptId(), r.getExecDeptName(), fp));
             }
             else
             {
                 drift++;
             }
         }
-        insertOutpatientBatches(toInsert);
-        return new int[] { toInsert.size(), skipped, drift };
+        // 指纹差异仅因执行科室补录：整块一次多行更新，成功计入跳过，其余仍按指纹不一致
+        int backfilled = applyOutpatientExecDeptBatch(tenantId, execBackfill);
+        hisChargeMirrorWriter.writeOutpatient(toInsert);
+        if (hisChargeFingerprintIndex.isEnabled())
+        {
+            for (HisOutpatientChargeMirrorRow r : toInsert)
+            {
+                hisChargeFingerprintIndex.put(tenantId, "OUTPATIENT", r.getHisOutpatientChargeId(), r.getRowFingerprint(),
+                    r.getExecDeptId(), HisChargeMirrorSyncSupport.parseChargeAtFromDisplay(r.getChargeDate()));
+            }
+        }
+        counts[0] += toInsert.size();
+        counts[1] += skipped + backfilled;
+        counts[2] += drift + execBackfill.size() - backfilled;
     }
 
-    private Map<String, String> loadInpatientFingerprints(String tenantId, List<String> ids)
+    /**
+     * 查询一块候选行的镜像现有指纹：启用指纹索引时先查索引，仅未命中的主键回查数据库并回填索引。
+     */
+    private Map<String, HisIdFingerprintRow> lookupInpatientFingerprints(String tenantId, List<HisInpatientChargeMirrorRow> candidates)
     {
-        Map<String, String> map = new HashMap<>();
-        for (int i = 0; i < ids.size(); i += HIS_ID_QUERY_BATCH)
+        List<String> ids = new ArrayList<>(candidates.size());
+        for (HisInpatientChargeMirrorRow c : candidates)
         {
-            int end = Math.min(i + HIS_ID_QUERY_BATCH, ids.size());
-            List<String> sub = ids.subList(i, end);
-            List<HisIdFingerprintRow> rows = hisInpatientChargeMirrorSyncMapper.selectFingerprintsByHisIds(tenantId, sub);
-            if (rows != null)
+            ids.add(c.getHisInpatientChargeId());
+        }
+        if (!hisChargeFingerprintIndex.isEnabled())
+        {
+            return loadInpatientFingerprints(tenantId, ids);
+        }
+        List<String> misses = new ArrayList<>();
+        Map<String, HisIdFingerprintRow> existing = hisChargeFingerprintIndex.lookup(tenantId, "INPATIENT", ids, misses);
+        if (!misses.isEmpty())
+        {
+            Map<String, HisIdFingerprintRow> loaded = loadInpatientFingerprints(tenantId, misses);
+            existing.putAll(loaded);
+            for (HisInpatientChargeMirrorRow c : candidates)
             {
-                for (HisIdFingerprintRow row : rows)
+                HisIdFingerprintRow row = loaded.get(c.getHisInpatientChargeId());
+                if (row != null)
                 {
-                    if (row != null && row.getHisChargeId() != null)
-                    {
-                        map.put(row.getHisChargeId(), row.getRowFingerprint());
-                    }
+                    hisChargeFingerprintIndex.put(tenantId, "INPATIENT", row.getHisChargeId(), row.getRowFingerprint(),
+                        row.getExecDeptId(), c.getChargeDate());
                 }
             }
         }
-        return map;
+        return existing;
     }
 
-    private Map<String, String> loadOutpatientFingerprints(String tenantId, List<String> ids)
+    /** 按 HIS 主键分批查询镜像现有指纹与执行科室（键为 HIS 计费主键） */
+    private Map<String, HisIdFingerprintRow> loadInpatientFingerprints(String tenantId, List<String> ids)
     {
-        Map<String, String> map = new HashMap<>();
+        Map<String, HisIdFingerprintRow> map = new HashMap<>();
         for (int i = 0; i < ids.size(); i += HIS_ID_QUERY_BATCH)
         {
             int end = Math.min(i + HIS_ID_QUERY_BATCH, ids.size());
             List<String> sub = ids.subList(i, end);
-            List<HisIdFingerprintRow> rows = hisOutpatientChargeMirrorSyncMapper.selectFingerprintsByHisIds(tenantId, sub);
+            List<HisIdFingerprintRow> rows = hisInpatientChargeMirrorSyncMapper.selectFingerprintsByHisIds(tenantId, sub);
             if (rows != null)
             {
                 for (HisIdFingerprintRow row : rows)
                 {
                     if (row != null && row.getHisChargeId() != null)
                     {
-                        map.put(row.getHisChargeId(), row.getRowFingerprint());
+                        map.put(row.getHisChargeId(), row);
                     }
                 }
             }
@@ -1023,50 +850,60 @@ public class HengshuiTaskService
         return map;
     }
 
-    private void insertInpatientBatches(List<HisInpatientChargeMirrorRow> rows)
+    /**
+     * 查询一块候选行的镜像现有指纹：启用指纹索引时先查索引，仅未命中的主键回查数据库并回填索引。
+     */
+    private Map<String, HisIdFingerprintRow> lookupOutpatientFingerprints(String tenantId, List<HisOutpatientChargeMirrorRow> candidates)
     {
-        if (rows == null || rows.isEmpty())
+        List<String> ids = new ArrayList<>(candidates.size());
+        for (HisOutpatientChargeMirrorRow c : candidates)
         {
-            return;
+            ids.add(c.getHisOutpatientChargeId());
         }
-        for (int i = 0; i < rows.size(); i += INSERT_BATCH_SIZE)
+        if (!hisChargeFingerprintIndex.isEnabled())
         {
-            int end = Math.min(i + INSERT_BATCH_SIZE, rows.size());
-            List<HisInpatientChargeMirrorRow> slice = new ArrayList<>(rows.subList(i, end));
-            hisInpatientChargeMirrorSyncMapper.insertBatch(slice);
-            List<HisPatientChargeMirrorUnifiedRow> unified = new ArrayList<>(slice.size());
-            for (HisInpatientChargeMirrorRow e : slice)
-            {
-                unified.add(HisChargeMirrorSyncSupport.unifiedFromInpatient(e));
-            }
-            if (!unified.isEmpty())
+            return loadOutpatientFingerprints(tenantId, ids);
+        }
+        List<String> misses = new ArrayList<>();
+        Map<String, HisIdFingerprintRow> existing = hisChargeFingerprintIndex.lookup(tenantId, "OUTPATIENT", ids, misses);
+        if (!misses.isEmpty())
+        {
+            Map<String, HisIdFingerprintRow> loaded = loadOutpatientFingerprints(tenantId, misses);
+            existing.putAll(loaded);
+            for (HisOutpatientChargeMirrorRow c : candidates)
             {
-                hisPatientChargeMirrorUnifiedSyncMapper.insertBatch(unified);
+                HisIdFingerprintRow row = loaded.get(c.getHisOutpatientChargeId());
+                if (row != null)
+                {
+                    hisChargeFingerprintIndex.put(tenantId, "OUTPATIENT", row.getHisChargeId(), row.getRowFingerprint(),
+                        row.getExecDeptId(), HisChargeMirrorSyncSupport.parseChargeAtFromDisplay(c.getChargeDate()));
+                }
             }
         }
+        return existing;
     }
 
-    private void insertOutpatientBatches(List<HisOutpatientChargeMirrorRow> rows)
+    /** 按 HIS 主键分批查询镜像现有指纹与执行科室（键为 HIS 计费主键） */
+    private Map<String, HisIdFingerprintRow> loadOutpatientFingerprints(String tenantId, List<String> ids)
     {
-        if (rows == null || rows.isEmpty())
-        {
-            return;
-        }
-        for (int i = 0; i < rows.size(); i += INSERT_BATCH_SIZE)
+        Map<String, HisIdFingerprintRow> map = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += HIS_ID_QUERY_BATCH)
         {
-            int end = Math.min(i + INSERT_BATCH_SIZE, rows.size());
-            List<HisOutpatientChargeMirrorRow> slice = new ArrayList<>(rows.subList(i, end));
-            hisOutpatientChargeMirrorSyncMapper.insertBatch(slice);
-            List<HisPatientChargeMirrorUnifiedRow> unified = new ArrayList<>(slice.size());
-            for (HisOutpatientChargeMirrorRow e : slice)
-            {
-                unified.add(HisChargeMirrorSyncSupport.unifiedFromOutpatient(e));
-            }
-            if (!unified.isEmpty())
+            int end = Math.min(i + HIS_ID_QUERY_BATCH, ids.size());
+            List<String> sub = ids.subList(i, end);
+            List<HisIdFingerprintRow> rows = hisOutpatientChargeMirrorSyncMapper.selectFingerprintsByHisIds(tenantId, sub);
+            if (rows != null)
             {
-                hisPatientChargeMirrorUnifiedSyncMapper.insertBatch(unified);
+                for (HisIdFingerprintRow row : rows)
+                {
+                    if (row != null && row.getHisChargeId() != null)
+                    {
+                        map.put(row.getHisChargeId(), row);
+                    }
+                }
             }
         }
+        return map;
     }
 
     /**
@@ -1089,10 +926,10 @@ public class HengshuiTaskService
     }
 
     /**
-     * 写入 his_charge_fetch_batch，供 SPD「抓取记录」追溯（窗口与昨今同步 SQL 一致：昨天0点～明天0点）。
+     * 写入 his_charge_fetch_batch，供 SPD「抓取记录」追溯（窗口即本次实际抓取区间：整窗口为昨天0点～明天0点，增量为水位下界～明天0点）。
      */
     private void saveChargeFetchBatchLog(String tenantId, String chargeKind, String fetchBatchId, Date createTime,
-        int inserted, int skipped, int drift)
+        Date windowStart, Date windowEnd, int inserted, int skipped, int drift, String remark)
     {
         if (HisChargeMirrorSyncSupport.isBlank(tenantId) || HisChargeMirrorSyncSupport.isBlank(fetchBatchId))
         {
@@ -1100,9 +937,6 @@ public class HengshuiTaskService
         }
         try
         {
-            LocalDate today = LocalDate.now();
-            Date windowStart = java.sql.Timestamp.valueOf(today.minusDays(1).atStartOfDay());
-            Date windowEnd = java.sql.Timestamp.valueOf(today.plusDays(1).atStartOfDay());
             hisChargeFetchBatchSyncMapper.insertFetchBatch(
                 fetchBatchId,
                 tenantId,
@@ -1112,7 +946,7 @@ public class HengshuiTaskService
                 inserted,
                 skipped,
                 drift,
-                "定时同步（昨天～今天）",
+                remark,
                 SYNC_CREATE_BY,
                 createTime != null ? createTime : new Date());
         }
@@ -1122,57 +956,72 @@ public class HengshuiTaskService
         }
     }
 
-    private static final int EXEC_DEPT_BACKFILL_MAX_DAYS = 31;
-    private static final int EXEC_DEPT_BACKFILL_CHUNK_DAYS = 7;
+    private static String fetchBatchRemark(HisChargeFetchWindow window)
+    {
+        return window.isIncremental() ? "定时同步（增量）" : "定时同步（昨天～今天）";
+    }
+
+    private static void putChargeSyncResult(Map<String, Object> result, ChargeSyncOutcome o, String fetchBatchId)
+    {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        result.put("success", true);
+        result.put("fetchBatchId", fetchBatchId);
+        result.put("totalCount", o.totalCount);
+        result.put("insertedCount", o.inserted);
+        result.put("skippedCount", o.skipped);
+        result.put("driftCount", o.drift);
+        result.put("newCount", o.inserted);
+        result.put("duplicateCount", o.skipped + o.drift);
+        result.put("successCount", o.inserted);
+        result.put("errorCount", 0);
+        result.put("message", String.format(
+            "同步完成(镜像表)，总计: %d, 新增: %d, 指纹一致跳过: %d, 指纹不一致(已存在): %d, 批次: %s",
+            o.totalCount, o.inserted, o.skipped, o.drift, fetchBatchId));
+        result.put("incremental", o.window.isIncremental());
+        result.put("windowStart", sdf.format(o.window.getWindowStart()));
+    }
+
+    /** 单就诊类型一次抓取的结果 */
+    private static final class ChargeSyncOutcome
+    {
+        final HisChargeFetchWindow window;
+        final int totalCount;
+        final int inserted;
+        final int skipped;
+        final int drift;
+
+        ChargeSyncOutcome(HisChargeFetchWindow window, int totalCount, int inserted, int skipped, int drift)
+        {
+            this.window = window;
+            this.totalCount = totalCount;
+            this.inserted = inserted;
+            this.skipped = skipped;
+            this.drift = drift;
+        }
+    }
+
+    /** 单次补全最大跨度（天）：并行按天切片后可覆盖一个季度以上 */
+    private static final int EXEC_DEPT_BACKFILL_MAX_DAYS = 366;
+    /** 并行补全时间片长度（天） */
+    private static final int EXEC_DEPT_BACKFILL_SLICE_DAYS = 1;
+    /** 单个时间片最大尝试次数（含首次） */
+    private static final int EXEC_DEPT_BACKFILL_MAX_ATTEMPTS = 3;
+    /** 可选：补全并发数（同时占用的 HIS 连接数），默认 {@link #DEFAULT_EXEC_DEPT_BACKFILL_PARALLELISM} */
+    private static final String CONFIG_EXEC_DEPT_BACKFILL_PARALLELISM = "his.charge.backfill.parallelism";
+    private static final int DEFAULT_EXEC_DEPT_BACKFILL_PARALLELISM = 4;
+    private static final int MAX_EXEC_DEPT_BACKFILL_PARALLELISM = 8;
     private static final DateTimeFormatter HIS_RANGE_TIME_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    /** 各就诊类型最近一次补全进度（同一类型同时只允许一个补全任务） */
+    private final Map<String, HisExecDeptBackfillProgress> execDeptBackfillProgress = new ConcurrentHashMap<>();
+
     /**
      * 从 HIS 按计费时间区间补全历史住院镜像缺失的执行科室（仅更新 exec_dept_id/name，不新增行）。
      */
     @DataSource(DataSourceType.SPD)
     public Map<String, Object> backfillInpatientExecDept(String beginDate, String endDate)
     {
-        Map<String, Object> result = new HashMap<>();
-        Connection hisConnection = null;
-        try
-        {
-            LocalDateTime[] win = parseBackfillWindow(beginDate, endDate);
-            String tenantId = resolveChargeMirrorTenantId();
-            hisConnection = openHisConnection();
-            HisExecDeptBackfillResult stats = new HisExecDeptBackfillResult();
-            LocalDateTime cursor = win[0];
-            while (cursor.isBefore(win[1]))
-            {
-                LocalDateTime next = cursor.plusDays(EXEC_DEPT_BACKFILL_CHUNK_DAYS);
-                if (next.isAfter(win[1]))
-                {
-                    next = win[1];
-                }
-                List<Map<String, Object>> dataList = queryInpatientRangeFromHis(
-                    hisConnection, cursor.format(HIS_RANGE_TIME_FMT), next.format(HIS_RANGE_TIME_FMT));
-                mergeBackfillInpatientExecDept(tenantId, dataList, stats);
-                cursor = next;
-            }
-            stats.setUnifiedSyncedCount(hisPatientChargeMirrorUnifiedSyncMapper.syncInpatientExecDeptFromMirror(tenantId));
-            result.put("success", true);
-            result.put("message", String.format("住院执行科室补全完成，更新 %d 条", stats.getUpdatedCount()));
-            result.put("updatedCount", stats.getUpdatedCount());
-            result.put("skippedCount", stats.getSkippedCount());
-            result.put("hisMissingExecCount", stats.getHisMissingExecCount());
-            result.put("notFoundCount", stats.getNotFoundCount());
-            result.put("unifiedSyncedCount", stats.getUnifiedSyncedCount());
-        }
-        catch (Exception e)
-        {
-            log.error("住院执行科室补全异常", e);
-            result.put("success", false);
-            result.put("message", "补全失败: " + e.getMessage());
-        }
-        finally
-        {
-            closeQuietly(hisConnection);
-        }
-        return result;
+        return runExecDeptBackfill("INPATIENT", "住院", beginDate, endDate);
     }
 
     /**
@@ -1180,79 +1029,130 @@ public class HengshuiTaskService
      */
     @DataSource(DataSourceType.SPD)
     public Map<String, Object> backfillOutpatientExecDept(String beginDate, String endDate)
+    {
+        return runExecDeptBackfill("OUTPATIENT", "门诊", beginDate, endDate);
+    }
+
+    /**
+     * 最近一次执行科室补全进度（visitKind：INPATIENT / OUTPATIENT），无记录时返回 null。
+     */
+    public Map<String, Object> getExecDeptBackfillProgress(String visitKind)
+    {
+        HisExecDeptBackfillProgress p = visitKind == null ? null : execDeptBackfillProgress.get(visitKind.trim().toUpperCase());
+        return p != null ? p.toMap() : null;
+    }
+
+    /**
+     * 按天切片并行补全：每个时间片在工作线程中使用独立的池化 HIS 连接流式读取并批量写回 SPD，
+     * 失败片按退避重试；并发数受配置与 HIS 连接池上限约束。
+     */
+    private Map<String, Object> runExecDeptBackfill(String visitKind, String label, String beginDate, String endDate)
     {
         Map<String, Object> result = new HashMap<>();
-        Connection hisConnection = null;
+        HisExecDeptBackfillProgress progress = null;
         try
         {
             LocalDateTime[] win = parseBackfillWindow(beginDate, endDate);
             String tenantId = resolveChargeMirrorTenantId();
-            hisConnection = openHisConnection();
-            HisExecDeptBackfillResult stats = new HisExecDeptBackfillResult();
-            LocalDateTime cursor = win[0];
-            while (cursor.isBefore(win[1]))
+            int parallelism = resolveExecDeptBackfillParallelism();
+            List<LocalDateTime[]> slices = HisBackfillSliceRunner.split(win[0], win[1], EXEC_DEPT_BACKFILL_SLICE_DAYS);
+            HisExecDeptBackfillProgress created = new HisExecDeptBackfillProgress(visitKind,
+                win[0].format(HIS_RANGE_TIME_FMT), win[1].format(HIS_RANGE_TIME_FMT), slices.size(), parallelism);
+            synchronized (execDeptBackfillProgress)
             {
-                LocalDateTime next = cursor.plusDays(EXEC_DEPT_BACKFILL_CHUNK_DAYS);
-                if (next.isAfter(win[1]))
+                HisExecDeptBackfillProgress running = execDeptBackfillProgress.get(visitKind);
+                if (running != null && running.isRunning())
                 {
-                    next = win[1];
+                    result.put("success", false);
+                    result.put("message", label + "执行科室补全正在执行中，请稍后再试");
+                    return result;
                 }
-                List<Map<String, Object>> dataList = queryOutpatientRangeFromHis(
-                    hisConnection, cursor.format(HIS_RANGE_TIME_FMT), next.format(HIS_RANGE_TIME_FMT));
-                mergeBackfillOutpatientExecDept(tenantId, dataList, stats);
-                cursor = next;
+                execDeptBackfillProgress.put(visitKind, created);
             }
-            stats.setUnifiedSyncedCount(hisPatientChargeMirrorUnifiedSyncMapper.syncOutpatientExecDeptFromMirror(tenantId));
-            result.put("success", true);
-            result.put("message", String.format("门诊执行科室补全完成，更新 %d 条", stats.getUpdatedCount()));
+            progress = created;
+            log.info("开始{}执行科室补全：{} ~ {}，时间片 {} 个，并发 {}", label,
+                win[0].format(HIS_RANGE_TIME_FMT), win[1].format(HIS_RANGE_TIME_FMT), slices.size(), parallelism);
+
+            boolean inpatient = "INPATIENT".equals(visitKind);
+            HisBackfillSliceRunner.run(visitKind.toLowerCase(), slices, parallelism, EXEC_DEPT_BACKFILL_MAX_ATTEMPTS, progress,
+                (lo, hi) -> {
+                    HisExecDeptBackfillResult sliceStats = new HisExecDeptBackfillResult();
+                    DynamicDataSourceContextHolder.setDataSourceType(DataSourceType.SPD.name());
+                    try (Connection hisConnection = openHisConnection())
+                    {
+                        if (inpatient)
+                        {
+                            backfillInpatientRange(hisConnection, tenantId, lo, hi, sliceStats);
+                        }
+                        else
+                        {
+                            backfillOutpatientRange(hisConnection, tenantId, lo, hi, sliceStats);
+                        }
+                    }
+                    finally
+                    {
+                        DynamicDataSourceContextHolder.clearDataSourceType();
+                    }
+                    return sliceStats;
+                });
+
+            HisExecDeptBackfillResult stats = progress.getStats();
+            stats.setUnifiedSyncedCount(inpatient
+                ? hisPatientChargeMirrorUnifiedSyncMapper.syncInpatientExecDeptFromMirror(tenantId)
+                : hisPatientChargeMirrorUnifiedSyncMapper.syncOutpatientExecDeptFromMirror(tenantId));
+            List<String> failed = progress.getFailedSlices();
+            result.put("success", failed.isEmpty());
+            result.put("message", failed.isEmpty()
+                ? String.format("%s执行科室补全完成，更新 %d 条", label, stats.getUpdatedCount())
+                : String.format("%s执行科室补全部分失败：更新 %d 条，失败时间片 %d 个（%s），请对失败区间重新补全",
+                    label, stats.getUpdatedCount(), failed.size(), String.join("；", failed)));
             result.put("updatedCount", stats.getUpdatedCount());
             result.put("skippedCount", stats.getSkippedCount());
             result.put("hisMissingExecCount", stats.getHisMissingExecCount());
             result.put("notFoundCount", stats.getNotFoundCount());
             result.put("unifiedSyncedCount", stats.getUnifiedSyncedCount());
+            result.put("totalSlices", slices.size());
+            result.put("failedSlices", failed);
         }
         catch (Exception e)
         {
-            log.error("门诊执行科室补全异常", e);
+            log.error("{}执行科室补全异常", label, e);
             result.put("success", false);
             result.put("message", "补全失败: " + e.getMessage());
         }
         finally
         {
-            closeQuietly(hisConnection);
+            if (progress != null)
+            {
+                progress.finish();
+            }
         }
         return result;
     }
 
-    private Connection openHisConnection() throws Exception
-    {
-        String driver = spdSystemConfigMapper.selectValueByKey("his.jdbc.driver");
-        String url = spdSystemConfigMapper.selectValueByKey("his.jdbc.url");
-        String username = spdSystemConfigMapper.selectValueByKey("his.jdbc.username");
-        String password = spdSystemConfigMapper.selectValueByKey("his.jdbc.password");
-        if (driver == null || url == null || username == null || password == null)
-        {
-            throw new IllegalStateException("HIS数据库连接配置不完整，请检查系统参数配置");
-        }
-        Class.forName(driver);
-        return DriverManager.getConnection(
-            appendSqlServerSocketTimeout(url, HIS_CHARGE_SYNC_QUERY_TIMEOUT_SECONDS), username, password);
-    }
-
-    private static void closeQuietly(Connection conn)
+    private int resolveExecDeptBackfillParallelism()
     {
-        if (conn == null)
-        {
-            return;
-        }
+        int n = DEFAULT_EXEC_DEPT_BACKFILL_PARALLELISM;
         try
         {
-            conn.close();
+            String v = systemConfigCache.getSpdSystemConfig(CONFIG_EXEC_DEPT_BACKFILL_PARALLELISM);
+            if (v != null && !v.trim().isEmpty())
+            {
+                n = Integer.parseInt(v.trim());
+            }
         }
         catch (Exception e)
         {
-            log.warn("关闭HIS数据库连接异常", e);
+            log.debug("读取 {} 失败: {}", CONFIG_EXEC_DEPT_BACKFILL_PARALLELISM, e.getMessage());
         }
+        // 至少给定时同步留一个 HIS 连接
+        int poolCap = Math.max(1, hisDataSourceManager.getMaxActive() - 1);
+        return Math.max(1, Math.min(Math.min(n, MAX_EXEC_DEPT_BACKFILL_PARALLELISM), poolCap));
+    }
+
+    private Connection openHisConnection() throws Exception
+    {
+        return hisDataSourceManager.getConnection();
     }
 
     private LocalDateTime[] parseBackfillWindow(String beginDate, String endDate)
@@ -1307,180 +1207,101 @@ public class HengshuiTaskService
         }
     }
 
-    private List<Map<String, Object>> queryInpatientRangeFromHis(Connection hisConnection, String lo, String hi) throws Exception
+    /**
+     * 流式读取一个时间片的 HIS 计费，按块暂存执行科室补全元组并批量写入（片内按 HIS 主键去重）。
+     */
+    private void backfillInpatientRange(Connection hisConnection, String tenantId, LocalDateTime lo, LocalDateTime hi,
+        HisExecDeptBackfillResult stats) throws Exception
     {
-        PreparedStatement pstmt = hisConnection.prepareStatement(HisChargeMirrorFetchSql.SQLSERVER_INPATIENT_RANGE);
-        pstmt.setQueryTimeout(HIS_CHARGE_SYNC_QUERY_TIMEOUT_SECONDS);
-        pstmt.setString(1, lo);
-        pstmt.setString(2, hi);
-        ResultSet rs = pstmt.executeQuery();
-        List<Map<String, Object>> dataList = mapInpatientResultSet(rs);
-        rs.close();
-        pstmt.close();
-        return dataList;
+        Date createTime = new Date();
+        Set<String> seen = new HashSet<>();
+        HisChargeStreamingReader.stream(
+            hisConnection,
+            HisChargeMirrorFetchSql.SQLSERVER_INPATIENT_RANGE,
+            new Object[] { lo.format(HIS_RANGE_TIME_FMT), hi.format(HIS_RANGE_TIME_FMT) },
+            HIS_CHARGE_SYNC_QUERY_TIMEOUT_SECONDS,
+            HIS_CHARGE_FETCH_SIZE,
+            HIS_ID_QUERY_BATCH,
+            new HisInpatientChargeRowMapper(tenantId, null, SYNC_CREATE_BY, createTime),
+            chunk -> mergeBackfillInpatientExecDept(tenantId, chunk, seen, stats));
     }
 
-    private List<Map<String, Object>> queryOutpatientRangeFromHis(Connection hisConnection, String lo, String hi) throws Exception
+    /**
+     * 流式读取一个时间片的 HIS 计费，按块暂存执行科室补全元组并批量写入（片内按 HIS 主键去重）。
+     */
+    private void backfillOutpatientRange(Connection hisConnection, String tenantId, LocalDateTime lo, LocalDateTime hi,
+        HisExecDeptBackfillResult stats) throws Exception
     {
-        PreparedStatement pstmt = hisConnection.prepareStatement(HisChargeMirrorFetchSql.SQLSERVER_OUTPATIENT_RANGE);
-        pstmt.setQueryTimeout(HIS_CHARGE_SYNC_QUERY_TIMEOUT_SECONDS);
-        pstmt.setString(1, lo);
-        pstmt.setString(2, hi);
-        ResultSet rs = pstmt.executeQuery();
-        List<Map<String, Object>> dataList = mapOutpatientResultSet(rs);
-        rs.close();
-        pstmt.close();
-        return dataList;
+        Date createTime = new Date();
+        Set<String> seen = new HashSet<>();
+        HisChargeStreamingReader.stream(
+            hisConnection,
+            HisChargeMirrorFetchSql.SQLSERVER_OUTPATIENT_RANGE,
+            new Object[] { lo.format(HIS_RANGE_TIME_FMT), hi.format(HIS_RANGE_TIME_FMT) },
+            HIS_CHARGE_SYNC_QUERY_TIMEOUT_SECONDS,
+            HIS_CHARGE_FETCH_SIZE,
+            HIS_ID_QUERY_BATCH,
+            new HisOutpatientChargeRowMapper(tenantId, null, SYNC_CREATE_BY, createTime),
+            chunk -> mergeBackfillOutpatientExecDept(tenantId, chunk, seen, stats));
     }
 
-    private List<Map<String, Object>> mapInpatientResultSet(ResultSet rs) throws Exception
+    private void mergeBackfillInpatientExecDept(String tenantId, List<HisInpatientChargeMirrorRow> chunk, Set<String> seen,
+        HisExecDeptBackfillResult stats)
     {
-        ResultSetMetaData metaData = rs.getMetaData();
-        int columnCount = metaData.getColumnCount();
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        List<Map<String, Object>> dataList = new ArrayList<>();
-        while (rs.next())
+        List<HisExecDeptBackfillRow> candidates = new ArrayList<>(chunk.size());
+        for (HisInpatientChargeMirrorRow r : chunk)
         {
-            Map<String, Object> item = new HashMap<>();
-            for (int i = 1; i <= columnCount; i++)
+            if (HisChargeMirrorSyncSupport.isBlank(r.getHisInpatientChargeId()) || !seen.add(r.getHisInpatientChargeId()))
             {
-                String columnName = metaData.getColumnName(i).toLowerCase();
-                Object value = rs.getObject(i);
-                putInpatientColumn(item, columnName, value, sdf);
+                continue;
             }
-            dataList.add(item);
-        }
-        return dataList;
-    }
-
-    private List<Map<String, Object>> mapOutpatientResultSet(ResultSet rs) throws Exception
-    {
-        ResultSetMetaData metaData = rs.getMetaData();
-        int columnCount = metaData.getColumnCount();
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        List<Map<String, Object>> dataList = new ArrayList<>();
-        while (rs.next())
-        {
-            Map<String, Object> item = new HashMap<>();
-            for (int i = 1; i <= columnCount; i++)
+            if (HisChargeMirrorSyncSupport.isBlank(r.getExecDeptId()))
             {
-                String columnName = metaData.getColumnName(i).toLowerCase();
-                Object value = rs.getObject(i);
-                putOutpatientColumn(item, columnName, value, sdf);
+                stats.setHisMissingExecCount(stats.getHisMissingExecCount() + 1);
+                continue;
             }
-            dataList.add(item);
-        }
-        return dataList;
-    }
-
-    private void putInpatientColumn(Map<String, Object> item, String columnName, Object value, SimpleDateFormat sdf)
-    {
-        switch (columnName)
-        {
-            case "inpatient_charge_id": item.put("inpatientChargeId", value); break;
-            case "inpatient_charge_id_tf": item.put("inpatientChargeIdTf", value); break;
-            case "patient_id": item.put("patientId", value); break;
-            case "patient_name": item.put("patientName", value != null ? value.toString().trim() : null); break;
-            case "inpatient_no": item.put("inpatientNo", value != null ? value.toString().trim() : null); break;
-            case "dept_code": item.put("deptCode", value != null ? value.toString().trim() : null); break;
-            case "dept_name": item.put("deptName", value != null ? value.toString().trim() : null); break;
-            case "exec_dept_id": item.put("execDeptId", value != null ? value.toString().trim() : null); break;
-            case "exec_dept_name": item.put("execDeptName", value != null ? value.toString().trim() : null); break;
-            case "doctor_id": item.put("doctorId", value != null ? value.toString().trim() : null); break;
-            case "doctor_name": item.put("doctorName", value != null ? value.toString().trim() : null); break;
-            case "charge_item_id": item.put("chargeItemId", value != null ? value.toString().trim() : null); break;
-            case "item_name": item.put("itemName", value != null ? value.toString().trim() : null); break;
-            case "spec_model": item.put("specModel", value != null ? value.toString().trim() : null); break;
-            case "batch_no": item.put("batchNo", value != null ? value.toString().trim() : null); break;
-            case "expire_date": item.put("expireDate", processDateValue(value, sdf)); break;
-            case "use_date": item.put("useDate", value); break;
-            case "charge_date": item.put("chargeDate", value); break;
-            case "quantity": item.put("quantity", value); break;
-            case "unit_price": item.put("unitPrice", value); break;
-            case "total_amount": item.put("totalAmount", value); break;
-            case "charge_operator": item.put("chargeOperator", value != null ? value.toString().trim() : null); break;
-            case "remark": item.put("remark", value != null ? value.toString().trim() : null); break;
-            default: break;
-        }
-    }
-
-    private void putOutpatientColumn(Map<String, Object> item, String columnName, Object value, SimpleDateFormat sdf)
-    {
-        switch (columnName)
-        {
-            case "outpatient_charge_id": item.put("outpatientChargeId", value); break;
-            case "outpatient_charge_id_tf": item.put("outpatientChargeIdTf", value); break;
-            case "patient_id": item.put("patientId", value); break;
-            case "patient_name": item.put("patientName", value != null ? value.toString().trim() : null); break;
-            case "outpatient_no": item.put("outpatientNo", value != null ? value.toString().trim() : null); break;
-            case "clinic_code": item.put("clinicCode", value != null ? value.toString().trim() : null); break;
-            case "clinic_name": item.put("clinicName", value != null ? value.toString().trim() : null); break;
-            case "exec_dept_id": item.put("execDeptId", value != null ? value.toString().trim() : null); break;
-            case "exec_dept_name": item.put("execDeptName", value != null ? value.toString().trim() : null); break;
-            case "doctor_id": item.put("doctorId", value != null ? value.toString().trim() : null); break;
-            case "doctor_name": item.put("doctorName", value != null ? value.toString().trim() : null); break;
-            case "charge_item_id": item.put("chargeItemId", value != null ? value.toString().trim() : null); break;
-            case "item_name": item.put("itemName", value != null ? value.toString().trim() : null); break;
-            case "spec_model": item.put("specModel", value != null ? value.toString().trim() : null); break;
-            case "batch_no": item.put("batchNo", value != null ? value.toString().trim() : null); break;
-            case "expire_date": item.put("expireDate", processDateValue(value, sdf)); break;
-            case "charge_date": item.put("chargeDate", value); break;
-            case "quantity": item.put("quantity", value); break;
-            case "unit_price": item.put("unitPrice", value); break;
-            case "total_amount": item.put("totalAmount", value); break;
-            case "charge_operator": item.put("chargeOperator", value != null ? value.toString().trim() : null); break;
-            case "payment_type": item.put("paymentType", value != null ? value.toString().trim() : null); break;
-            case "receipt_no": item.put("receiptNo", value != null ? value.toString().trim() : null); break;
-            case "remark": item.put("remark", value != null ? value.toString().trim() : null); break;
-            default: break;
+            candidates.add(new HisExecDeptBackfillRow(
+                r.getHisInpatientChargeId(), r.getExecDeptId(), r.getExecDeptName(), r.getRowFingerprint()));
         }
-    }
-
-    private void mergeBackfillInpatientExecDept(String tenantId, List<Map<String, Object>> dataList, HisExecDeptBackfillResult stats)
-    {
-        if (dataList == null || dataList.isEmpty())
+        if (candidates.isEmpty())
         {
             return;
         }
-        Set<String> seen = new HashSet<>();
-        for (Map<String, Object> m : dataList)
+        List<String> ids = new ArrayList<>(candidates.size());
+        for (HisExecDeptBackfillRow c : candidates)
         {
-            HisInpatientChargeMirrorRow r = mapToInpatientMirrorRow(m, tenantId, null, SYNC_CREATE_BY, new Date());
-            if (r == null || HisChargeMirrorSyncSupport.isBlank(r.getHisInpatientChargeId()) || !seen.add(r.getHisInpatientChargeId()))
-            {
-                continue;
-            }
-            if (HisChargeMirrorSyncSupport.isBlank(r.getExecDeptId()))
-            {
-                stats.setHisMissingExecCount(stats.getHisMissingExecCount() + 1);
-                continue;
-            }
-            if (applyInpatientExecDeptBackfill(tenantId, r))
+            ids.add(c.getHisChargeId());
+        }
+        Map<String, HisIdFingerprintRow> existing = loadInpatientFingerprints(tenantId, ids);
+        List<HisExecDeptBackfillRow> staged = new ArrayList<>(candidates.size());
+        for (HisExecDeptBackfillRow c : candidates)
+        {
+            HisIdFingerprintRow old = existing.get(c.getHisChargeId());
+            if (old == null)
             {
-                stats.setUpdatedCount(stats.getUpdatedCount() + 1);
+                stats.setNotFoundCount(stats.getNotFoundCount() + 1);
             }
-            else if (hisInpatientChargeMirrorSyncMapper.selectMirrorIdByHisChargeId(tenantId, r.getHisInpatientChargeId()) == null)
+            else if (!HisChargeMirrorSyncSupport.isBlank(old.getExecDeptId()))
             {
-                stats.setNotFoundCount(stats.getNotFoundCount() + 1);
+                stats.setSkippedCount(stats.getSkippedCount() + 1);
             }
             else
             {
-                stats.setSkippedCount(stats.getSkippedCount() + 1);
+                staged.add(c);
             }
         }
+        int updated = applyInpatientExecDeptBatch(tenantId, staged);
+        stats.setUpdatedCount(stats.getUpdatedCount() + updated);
+        stats.setSkippedCount(stats.getSkippedCount() + staged.size() - updated);
     }
 
-    private void mergeBackfillOutpatientExecDept(String tenantId, List<Map<String, Object>> dataList, HisExecDeptBackfillResult stats)
+    private void mergeBackfillOutpatientExecDept(String tenantId, List<HisOutpatientChargeMirrorRow> chunk, Set<String> seen,
+        HisExecDeptBackfillResult stats)
     {
-        if (dataList == null || dataList.isEmpty())
+        List<HisExecDeptBackfillRow> candidates = new ArrayList<>(chunk.size());
+        for (HisOutpatientChargeMirrorRow r : chunk)
         {
-            return;
-        }
-        Set<String> seen = new HashSet<>();
-        for (Map<String, Object> m : dataList)
-        {
-            HisOutpatientChargeMirrorRow r = mapToOutpatientMirrorRow(m, tenantId, null, SYNC_CREATE_BY, new Date());
-            if (r == null || HisChargeMirrorSyncSupport.isBlank(r.getHisOutpatientChargeId()) || !seen.add(r.getHisOutpatientChargeId()))
+            if (HisChargeMirrorSyncSupport.isBlank(r.getHisOutpatientChargeId()) || !seen.add(r.getHisOutpatientChargeId()))
             {
                 continue;
             }
@@ -1489,71 +1310,113 @@ public class HengshuiTaskService
                 stats.setHisMissingExecCount(stats.getHisMissingExecCount() + 1);
                 continue;
             }
-            if (applyOutpatientExecDeptBackfill(tenantId, r))
+            candidates.add(new HisExecDeptBackfillRow(
+                r.getHisOutpatientChargeId(), r.getExecDeptId(), r.getExecDeptName(), r.getRowFingerprint()));
+        }
+        if (candidates.isEmpty())
+        {
+            return;
+        }
+        List<String> ids = new ArrayList<>(candidates.size());
+        for (HisExecDeptBackfillRow c : candidates)
+        {
+            ids.add(c.getHisChargeId());
+        }
+        Map<String, HisIdFingerprintRow> existing = loadOutpatientFingerprints(tenantId, ids);
+        List<HisExecDeptBackfillRow> staged = new ArrayList<>(candidates.size());
+        for (HisExecDeptBackfillRow c : candidates)
+        {
+            HisIdFingerprintRow old = existing.get(c.getHisChargeId());
+            if (old == null)
             {
-                stats.setUpdatedCount(stats.getUpdatedCount() + 1);
+                stats.setNotFoundCount(stats.getNotFoundCount() + 1);
             }
-            else if (hisOutpatientChargeMirrorSyncMapper.selectMirrorIdByHisChargeId(tenantId, r.getHisOutpatientChargeId()) == null)
+            else if (!HisChargeMirrorSyncSupport.isBlank(old.getExecDeptId()))
             {
-                stats.setNotFoundCount(stats.getNotFoundCount() + 1);
+                stats.setSkippedCount(stats.getSkippedCount() + 1);
             }
             else
             {
-                stats.setSkippedCount(stats.getSkippedCount() + 1);
+                staged.add(c);
             }
         }
+        int updated = applyOutpatientExecDeptBatch(tenantId, staged);
+        stats.setUpdatedCount(stats.getUpdatedCount() + updated);
+        stats.setSkippedCount(stats.getSkippedCount() + staged.size() - updated);
     }
 
-    private boolean applyInpatientExecDeptBackfill(String tenantId, HisInpatientChargeMirrorRow r)
+    /**
+     * 多行 UPDATE…JOIN 补全住院镜像及统一表执行科室（仅原值为空的行），返回镜像更新行数。
+     */
+    private int applyInpatientExecDeptBatch(String tenantId, List<HisExecDeptBackfillRow> rows)
     {
-        if (r == null || HisChargeMirrorSyncSupport.isBlank(r.getExecDeptId()) || HisChargeMirrorSyncSupport.isBlank(r.getHisInpatientChargeId()))
+        if (rows == null || rows.isEmpty())
         {
-            return false;
+            return 0;
         }
-        int n = hisInpatientChargeMirrorSyncMapper.updateExecDeptIfMissing(
-            tenantId, r.getHisInpatientChargeId(), r.getExecDeptId(), r.getExecDeptName(), r.getRowFingerprint(), SYNC_CREATE_BY);
-        if (n <= 0)
+        int updated = 0;
+        for (int i = 0; i < rows.size(); i += HIS_ID_QUERY_BATCH)
         {
-            return false;
+            int end = Math.min(i + HIS_ID_QUERY_BATCH, rows.size());
+            List<HisExecDeptBackfillRow> slice = rows.subList(i, end);
+            int n = hisInpatientChargeMirrorSyncMapper.batchUpdateExecDeptIfMissing(tenantId, slice, SYNC_CREATE_BY);
+            if (n > 0)
+            {
+                hisPatientChargeMirrorUnifiedSyncMapper.batchUpdateInpatientExecDeptIfMissing(tenantId, slice);
+                updated += n;
+            }
+            syncFingerprintIndexAfterExecDeptBatch(tenantId, "INPATIENT", slice, n);
         }
-        hisPatientChargeMirrorUnifiedSyncMapper.updateInpatientExecDeptIfMissing(
-            tenantId, r.getHisInpatientChargeId(), r.getExecDeptId(), r.getExecDeptName(), r.getRowFingerprint());
-        return true;
+        return updated;
     }
 
-    private boolean applyOutpatientExecDeptBackfill(String tenantId, HisOutpatientChargeMirrorRow r)
+    /**
+     * 多行 UPDATE…JOIN 补全门诊镜像及统一表执行科室（仅原值为空的行），返回镜像更新行数。
+     */
+    private int applyOutpatientExecDeptBatch(String tenantId, List<HisExecDeptBackfillRow> rows)
     {
-        if (r == null || HisChargeMirrorSyncSupport.isBlank(r.getExecDeptId()) || HisChargeMirrorSyncSupport.isBlank(r.getHisOutpatientChargeId()))
+        if (rows == null || rows.isEmpty())
         {
-            return false;
+            return 0;
         }
-        int n = hisOutpatientChargeMirrorSyncMapper.updateExecDeptIfMissing(
-            tenantId, r.getHisOutpatientChargeId(), r.getExecDeptId(), r.getExecDeptName(), r.getRowFingerprint(), SYNC_CREATE_BY);
-        if (n <= 0)
+        int updated = 0;
+        for (int i = 0; i < rows.size(); i += HIS_ID_QUERY_BATCH)
         {
-            return false;
+            int end = Math.min(i + HIS_ID_QUERY_BATCH, rows.size());
+            List<HisExecDeptBackfillRow> slice = rows.subList(i, end);
+            int n = hisOutpatientChargeMirrorSyncMapper.batchUpdateExecDeptIfMissing(tenantId, slice, SYNC_CREATE_BY);
+            if (n > 0)
+            {
+                hisPatientChargeMirrorUnifiedSyncMapper.batchUpdateOutpatientExecDeptIfMissing(tenantId, slice);
+                updated += n;
+            }
+            syncFingerprintIndexAfterExecDeptBatch(tenantId, "OUTPATIENT", slice, n);
         }
-        hisPatientChargeMirrorUnifiedSyncMapper.updateOutpatientExecDeptIfMissing(
-            tenantId, r.getHisOutpatientChargeId(), r.getExecDeptId(), r.getExecDeptName(), r.getRowFingerprint());
-        return true;
+        return updated;
     }
 
-    /** SQL Server JDBC：避免仅 setQueryTimeout 仍出现 Read timed out（socket 默认较短） */
-    private static String appendSqlServerSocketTimeout(String url, int timeoutSeconds)
+    /**
+     * 执行科室批量补全后同步指纹索引：整片均更新成功时更新已缓存条目，否则移除该片条目待下次回查。
+     */
+    private void syncFingerprintIndexAfterExecDeptBatch(String tenantId, String visitKind, List<HisExecDeptBackfillRow> slice, int updated)
     {
-        if (url == null || url.isEmpty() || timeoutSeconds <= 0)
+        if (!hisChargeFingerprintIndex.isEnabled())
         {
-            return url;
+            return;
         }
-        String u = url.trim();
-        if (u.toLowerCase().contains("sockettimeout="))
+        if (updated == slice.size())
         {
-            return u;
+            for (HisExecDeptBackfillRow r : slice)
+            {
+                hisChargeFingerprintIndex.updateIfPresent(tenantId, visitKind, r.getHisChargeId(), r.getRowFingerprint(), r.getExecDeptId());
+            }
+            return;
         }
-        while (u.endsWith(";"))
+        List<String> ids = new ArrayList<>(slice.size());
+        for (HisExecDeptBackfillRow r : slice)
         {
-            u = u.substring(0, u.length() - 1);
+            ids.add(r.getHisChargeId());
         }
-        return u + ";socketTimeout=" + (timeoutSeconds * 1000L);
+        hisChargeFingerprintIndex.invalidate(tenantId, visitKind, ids);
     }
 }
@@ -0,0 +1,439 @@
+package com.scminterface.framework.web.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import com.scminterface.common.annotation.DataSource;
+import com.scminterface.common.enums.DataSourceType;
+import com.scminterface.framework.datasource.DataSourceAvailability;
+import com.scminterface.framework.datasource.DynamicDataSourceContextHolder;
+import com.scminterface.framework.web.mapper.SpdScheduledTaskRunMapper;
+
+/**
+ * 定时任务执行历史：任务包装方法在执行前后调用 {@link #begin} / {@link #finish} / {@link #fail}，
+ * 同一记录只提交一次（finish 之后的异常不再重复记录）；记录放入有界队列后立即返回，由后台线程批量写入 spd_scheduled_task_run（队列满时丢弃并计数，不阻塞任务）。
+ * <p>
+ * 统计接口按时间窗口读取执行记录，计算耗时 p50/p95/p99 与吞吐（行/秒、次/小时）。
+ *
+ * @author scminterface
+ */
+@Service
+public class ScheduledTaskHistoryService
+{
+    private static final Logger log = LoggerFactory.getLogger(ScheduledTaskHistoryService.class);
+
+    public static final String OUTCOME_SUCCESS = "SUCCESS";
+
+    public static final String OUTCOME_FAILED = "FAILED";
+
+    private static final int QUEUE_CAPACITY = 10000;
+
+    private static final int WRITE_BATCH_SIZE = 200;
+
+    private static final int MESSAGE_MAX_LENGTH = 500;
+
+    /** 统计时单次最多读取的执行记录数 */
+    private static final int STATS_MAX_ROWS = 50000;
+
+    private static final int RETENTION_DAYS = 30;
+
+    private static final long PURGE_INTERVAL_MS = 6 * 3600_000L;
+
+    private static final int PURGE_BATCH_SIZE = 10000;
+
+    @Autowired
+    private SpdScheduledTaskRunMapper spdScheduledTaskRunMapper;
+
+    @Autowired
+    private DataSourceAvailability dataSourceAvailability;
+
+    private final BlockingQueue<Map<String, Object>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong writeFailed = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    private volatile long lastPurgeMillis;
+
+    private Thread writer;
+
+    @PostConstruct
+    public void startWriter()
+    {
+        writer = new Thread(this::writeLoop, "task-history-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stopWriter()
+    {
+        running = false;
+        Thread t = writer;
+        if (t != null)
+        {
+            try
+            {
+                t.join(5000L);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 开始一次执行记录
+     *
+     * @param taskClass 任务类全限定名
+     * @param taskMethod 任务方法名
+     * @return 执行记录（传给 finish / fail）
+     */
+    public Map<String, Object> begin(String taskClass, String taskMethod)
+    {
+        Map<String, Object> run = new HashMap<>();
+        run.put("taskClass", taskClass);
+        run.put("taskMethod", taskMethod);
+        run.put("startTime", new Date());
+        run.put("threadName", clip(Thread.currentThread().getName(), 64));
+        return run;
+    }
+
+    /**
+     * 结束执行记录：结果 success=false 记为失败，并提取 totalCount/newCount/skippedCount/driftCount
+     *
+     * @param run begin 返回的执行记录（为 null 时忽略）
+     * @param result 服务返回结果（可为 null）
+     */
+    public void finish(Map<String, Object> run, Map<String, Object> result)
+    {
+        if (run == null)
+        {
+            return;
+        }
+        boolean failed = result != null && Boolean.FALSE.equals(result.get("success"));
+        if (result != null)
+        {
+            run.put("totalCount", intValue(result.get("totalCount")));
+            Object inserted = result.get("newCount") != null ? result.get("newCount") : result.get("insertedCount");
+            run.put("newCount", intValue(inserted));
+            run.put("skippedCount", intValue(result.get("skippedCount")));
+            run.put("driftCount", intValue(result.get("driftCount")));
+            run.put("message", clip(result.get("message") != null ? String.valueOf(result.get("message")) : null,
+                MESSAGE_MAX_LENGTH));
+        }
+        complete(run, failed ? OUTCOME_FAILED : OUTCOME_SUCCESS);
+    }
+
+    /**
+     * 以异常结束执行记录
+     *
+     * @param run begin 返回的执行记录（为 null 时忽略）
+     * @param e 异常
+     */
+    public void fail(Map<String, Object> run, Throwable e)
+    {
+        if (run == null)
+        {
+            return;
+        }
+        run.put("message", clip(e != null ? e.toString() : null, MESSAGE_MAX_LENGTH));
+        complete(run, OUTCOME_FAILED);
+    }
+
+    /**
+     * 最近的执行记录
+     *
+     * @param taskClass 任务类全限定名（为空时全部任务）
+     * @param taskMethod 任务方法名
+     * @param limit 最大行数
+     * @return 执行记录
+     */
+    @DataSource(DataSourceType.SPD)
+    public List<Map<String, Object>> getRecentRuns(String taskClass, String taskMethod, int limit)
+    {
+        return spdScheduledTaskRunMapper.selectRecent(taskClass, taskMethod, Math.max(1, Math.min(limit, 1000)));
+    }
+
+    /**
+     * 按任务统计时间窗口内的耗时分位与吞吐，并按 bucketMinutes 分段给出趋势
+     *
+     * @param taskClass 任务类全限定名（为空时全部任务）
+     * @param taskMethod 任务方法名
+     * @param hours 统计窗口（小时）
+     * @param bucketMinutes 分段长度（分钟，小于等于 0 时不分段）
+     * @return 统计结果，tasks 的 key 为 taskClass#taskMethod
+     */
+    @DataSource(DataSourceType.SPD)
+    public Map<String, Object> getStats(String taskClass, String taskMethod, int hours, int bucketMinutes)
+    {
+        int h = Math.max(1, hours);
+        Date since = new Date(System.currentTimeMillis() - h * 3600_000L);
+        List<Map<String, Object>> rows = spdScheduledTaskRunMapper.selectSince(taskClass, taskMethod, since, STATS_MAX_ROWS);
+
+        Map<String, List<Map<String, Object>>> byTask = new TreeMap<>();
+        for (Map<String, Object> row : rows)
+        {
+            String key = row.get("taskClass") + "#" + row.get("taskMethod");
+            byTask.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+        }
+
+        Map<String, Object> tasks = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Map<String, Object>>> e : byTask.entrySet())
+        {
+            Map<String, Object> summary = summarize(e.getValue(), h * 60L);
+            if (bucketMinutes > 0)
+            {
+                long bucketMs = bucketMinutes * 60_000L;
+                Map<Long, List<Map<String, Object>>> buckets = new TreeMap<>();
+                for (Map<String, Object> row : e.getValue())
+                {
+                    long start = toMillis(row.get("startTime"));
+                    buckets.computeIfAbsent(start - start % bucketMs, k -> new ArrayList<>()).add(row);
+                }
+                List<Map<String, Object>> series = new ArrayList<>();
+                for (Map.Entry<Long, List<Map<String, Object>>> b : buckets.entrySet())
+                {
+                    Map<String, Object> point = summarize(b.getValue(), bucketMinutes);
+                    point.put("bucketStart", new Date(b.getKey()));
+                    series.add(point);
+                }
+                summary.put("buckets", series);
+            }
+            tasks.put(e.getKey(), summary);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("since", since);
+        result.put("hours", h);
+        result.put("bucketMinutes", bucketMinutes);
+        result.put("rowCount", rows.size());
+        result.put("truncated", rows.size() >= STATS_MAX_ROWS);
+        if (rows.size() >= STATS_MAX_ROWS)
+        {
+            // 倒序读取，截断时实际统计范围从最后一行的开始时间起
+            result.put("coveredSince", rows.get(rows.size() - 1).get("startTime"));
+        }
+        result.put("tasks", tasks);
+        result.put("writer", getWriterStats());
+        return result;
+    }
+
+    /**
+     * 异步写入器运行状态
+     */
+    public Map<String, Object> getWriterStats()
+    {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("queued", queue.size());
+        m.put("written", written.get());
+        m.put("dropped", dropped.get());
+        m.put("writeFailed", writeFailed.get());
+        return m;
+    }
+
+    private void complete(Map<String, Object> run, String outcome)
+    {
+        if (run.containsKey("outcome"))
+        {
+            return;
+        }
+        Date end = new Date();
+        run.put("endTime", end);
+        run.put("durationMs", end.getTime() - ((Date) run.get("startTime")).getTime());
+        run.put("outcome", outcome);
+        if (!queue.offer(run))
+        {
+            long n = dropped.incrementAndGet();
+            if (n % 1000 == 1)
+            {
+                log.warn("定时任务执行历史队列已满，已丢弃 {} 条", n);
+            }
+        }
+    }
+
+    private void writeLoop()
+    {
+        List<Map<String, Object>> batch = new ArrayList<>(WRITE_BATCH_SIZE);
+        while (running || !queue.isEmpty())
+        {
+            try
+            {
+                Map<String, Object> first = queue.poll(1, TimeUnit.SECONDS);
+                if (first != null)
+                {
+                    batch.add(first);
+                    queue.drainTo(batch, WRITE_BATCH_SIZE - 1);
+                    write(batch);
+                    batch.clear();
+                }
+                purgeIfDue();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (Exception e)
+            {
+                log.warn("定时任务执行历史写入线程异常: {}", e.toString());
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Map<String, Object>> batch)
+    {
+        if (!dataSourceAvailability.isAvailable(DataSourceType.SPD))
+        {
+            dropped.addAndGet(batch.size());
+            return;
+        }
+        DynamicDataSourceContextHolder.setDataSourceType(DataSourceType.SPD.name());
+        try
+        {
+            spdScheduledTaskRunMapper.batchInsert(batch);
+            written.addAndGet(batch.size());
+        }
+        catch (Exception e)
+        {
+            writeFailed.addAndGet(batch.size());
+            log.debug("写入定时任务执行历史失败（请确认已执行 database/spd_scheduled_task_run.sql）: {}", e.getMessage());
+        }
+        finally
+        {
+            DynamicDataSourceContextHolder.clearDataSourceType();
+        }
+    }
+
+    private void purgeIfDue()
+    {
+        long now = System.currentTimeMillis();
+        if (now - lastPurgeMillis < PURGE_INTERVAL_MS || !dataSourceAvailability.isAvailable(DataSourceType.SPD))
+        {
+            return;
+        }
+        lastPurgeMillis = now;
+        DynamicDataSourceContextHolder.setDataSourceType(DataSourceType.SPD.name());
+        try
+        {
+            int n = spdScheduledTaskRunMapper.deleteBefore(new Date(now - RETENTION_DAYS * 86400_000L), PURGE_BATCH_SIZE);
+            if (n > 0)
+            {
+                log.info("已清理 {} 天前的定时任务执行历史 {} 条", RETENTION_DAYS, n);
+            }
+        }
+        catch (Exception e)
+        {
+            log.debug("清理定时任务执行历史失败: {}", e.getMessage());
+        }
+        finally
+        {
+            DynamicDataSourceContextHolder.clearDataSourceType();
+        }
+    }
+
+    private static Map<String, Object> summarize(List<Map<String, Object>> rows, long windowMinutes)
+    {
+        long[] durations = new long[rows.size()];
+        long durationSum = 0L;
+        long totalRows = 0L;
+        long newRows = 0L;
+        int failed = 0;
+        long lastStart = 0L;
+        for (int i = 0; i < rows.size(); i++)
+        {
+            Map<String, Object> row = rows.get(i);
+            durations[i] = longValue(row.get("durationMs"));
+            durationSum += durations[i];
+            totalRows += longValue(row.get("totalCount"));
+            newRows += longValue(row.get("newCount"));
+            if (OUTCOME_FAILED.equals(row.get("outcome")))
+            {
+                failed++;
+            }
+            lastStart = Math.max(lastStart, toMillis(row.get("startTime")));
+        }
+        Arrays.sort(durations);
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("runs", rows.size());
+        m.put("failed", failed);
+        m.put("p50Ms", percentile(durations, 50));
+        m.put("p95Ms", percentile(durations, 95));
+        m.put("p99Ms", percentile(durations, 99));
+        m.put("avgMs", rows.isEmpty() ? 0L : durationSum / rows.size());
+        m.put("maxMs", durations.length == 0 ? 0L : durations[durations.length - 1]);
+        m.put("totalRows", totalRows);
+        m.put("newRows", newRows);
+        m.put("rowsPerSecond", durationSum > 0 ? totalRows * 1000L / durationSum : 0L);
+        m.put("runsPerHour", windowMinutes > 0 ? Math.round(rows.size() * 600.0 / windowMinutes) / 10.0 : 0.0);
+        m.put("lastStart", lastStart > 0 ? new Date(lastStart) : null);
+        return m;
+    }
+
+    /** 最近秩法分位数（输入已升序） */
+    private static long percentile(long[] sorted, int p)
+    {
+        if (sorted.length == 0)
+        {
+            return 0L;
+        }
+        int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+    }
+
+    private static Integer intValue(Object v)
+    {
+        if (v instanceof Number)
+        {
+            return ((Number) v).intValue();
+        }
+        return null;
+    }
+
+    private static long longValue(Object v)
+    {
+        return v instanceof Number ? ((Number) v).longValue() : 0L;
+    }
+
+    /** DATETIME 列经 HashMap 映射后，视驱动版本为 Timestamp 或 LocalDateTime */
+    private static long toMillis(Object v)
+    {
+        if (v instanceof Date)
+        {
+            return ((Date) v).getTime();
+        }
+        if (v instanceof LocalDateTime)
+        {
+            return ((LocalDateTime) v).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        return 0L;
+    }
+
+    private static String clip(String s, int max)
+    {
+        return s != null && s.length() > max ? s.substring(0, max) : s;
+    }
+}
@@ -0,0 +1,235 @@
+package com.scminterface.framework.web.service;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import com.scminterface.common.annotation.DataSource;
+import com.scminterface.common.enums.DataSourceType;
+import com.scminterface.framework.config.properties.ScheduledTaskPoolProperties;
+import com.scminterface.framework.datasource.DataSourceAvailability;
+import com.scminterface.framework.datasource.DynamicDataSourceContextHolder;
+import com.scminterface.framework.web.mapper.SpdScheduledTaskLockMapper;
+
+/**
+ * 定时任务租约锁：多台前置机部署时，同一任务每次触发只由取得租约的节点执行。
+ * <p>
+ * 租约存于 SPD 库 spd_scheduled_task_lock，到期判断使用数据库时间；执行期间后台线程每 1/3 租约时长续期，
+ * 执行结束即释放（保留最短持有时长）。节点宕机后租约最迟一个租约时长后到期，由其它节点在下次触发时接管。
+ * 未开启（{@code scminterface.scheduler.lock-enabled}）或 SPD 数据源未启用时不加锁；
+ * 开启后锁表读写失败则本次不执行（宁可漏一次也不重复执行）。
+ * 由调度线程直接调用，不经数据源切面，内部自行切换 SPD 数据源。
+ *
+ * @author scminterface
+ */
+@Service
+public class ScheduledTaskLockService
+{
+    private static final Logger log = LoggerFactory.getLogger(ScheduledTaskLockService.class);
+
+    /**
+     * 最短持有时长：执行很快结束时租约仍保留到取得后该时长，
+     * 避免其它节点因时钟偏差稍晚触发同一次调度时重复执行（本节点可随时重新取得）
+     */
+    private static final long MIN_HOLD_MILLIS = 10_000L;
+
+    @Autowired
+    private SpdScheduledTaskLockMapper spdScheduledTaskLockMapper;
+
+    @Autowired
+    private DataSourceAvailability dataSourceAvailability;
+
+    @Autowired
+    private ScheduledTaskPoolProperties properties;
+
+    private final String owner = resolveOwner();
+
+    /** 本节点当前持有的租约 */
+    private final Map<String, Boolean> held = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService renewer;
+
+    @PostConstruct
+    public void startRenewer()
+    {
+        if (!properties.isLockEnabled())
+        {
+            return;
+        }
+        long period = Math.max(1000L, leaseMillis() / 3);
+        renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "task-lock-renewer");
+            t.setDaemon(true);
+            return t;
+        });
+        renewer.scheduleWithFixedDelay(this::renewHeld, period, period, TimeUnit.MILLISECONDS);
+        log.info("定时任务租约锁已启用，节点: {}，租约 {}ms，续期间隔 {}ms", owner, leaseMillis(), period);
+    }
+
+    @PreDestroy
+    public void stopRenewer()
+    {
+        if (renewer != null)
+        {
+            renewer.shutdownNow();
+        }
+        for (String lockKey : held.keySet())
+        {
+            release(lockKey);
+        }
+    }
+
+    /** 是否启用租约锁 */
+    public boolean isEnabled()
+    {
+        return properties.isLockEnabled() && dataSourceAvailability.isAvailable(DataSourceType.SPD);
+    }
+
+    /** 本节点标识 */
+    public String getOwner()
+    {
+        return owner;
+    }
+
+    /**
+     * 尝试取得任务租约；未启用时直接返回 true
+     *
+     * @param lockKey taskClass#taskMethod
+     * @return 是否可以执行
+     */
+    public boolean tryAcquire(String lockKey)
+    {
+        if (!isEnabled())
+        {
+            return true;
+        }
+        DynamicDataSourceContextHolder.setDataSourceType(DataSourceType.SPD.name());
+        try
+        {
+            if (spdScheduledTaskLockMapper.tryAcquire(lockKey, owner, leaseMillis()) == 0)
+            {
+                spdScheduledTaskLockMapper.insertIfAbsent(lockKey);
+                if (spdScheduledTaskLockMapper.tryAcquire(lockKey, owner, leaseMillis()) == 0)
+                {
+                    return false;
+                }
+            }
+            held.put(lockKey, Boolean.TRUE);
+            return true;
+        }
+        catch (Exception e)
+        {
+            log.warn("取得定时任务租约失败 {}，本次不执行（请确认已执行 database/spd_scheduled_task_lock.sql）: {}",
+                lockKey, e.getMessage());
+            return false;
+        }
+        finally
+        {
+            DynamicDataSourceContextHolder.clearDataSourceType();
+        }
+    }
+
+    /**
+     * 释放任务租约（未持有时忽略）
+     *
+     * @param lockKey taskClass#taskMethod
+     */
+    public void release(String lockKey)
+    {
+        if (held.remove(lockKey) == null)
+        {
+            return;
+        }
+        DynamicDataSourceContextHolder.setDataSourceType(DataSourceType.SPD.name());
+        try
+        {
+            spdScheduledTaskLockMapper.release(lockKey, owner, MIN_HOLD_MILLIS);
+        }
+        catch (Exception e)
+        {
+            log.warn("释放定时任务租约失败 {}（将在租约到期后自动失效）: {}", lockKey, e.getMessage());
+        }
+        finally
+        {
+            DynamicDataSourceContextHolder.clearDataSourceType();
+        }
+    }
+
+    /**
+     * 查询全部租约
+     *
+     * @return 租约列表（held 表示未到期）
+     */
+    @DataSource(DataSourceType.SPD)
+    public List<Map<String, Object>> listLocks()
+    {
+        return spdScheduledTaskLockMapper.selectAll();
+    }
+
+    private void renewHeld()
+    {
+        if (held.isEmpty())
+        {
+            return;
+        }
+        DynamicDataSourceContextHolder.setDataSourceType(DataSourceType.SPD.name());
+        try
+        {
+            for (String lockKey : held.keySet())
+            {
+                try
+                {
+                    if (spdScheduledTaskLockMapper.renew(lockKey, owner, leaseMillis()) == 0 && held.containsKey(lockKey))
+                    {
+                        log.warn("定时任务租约 {} 续期失败，已被其它节点接管（本节点执行可能超过租约时长）", lockKey);
+                    }
+                }
+                catch (Exception e)
+                {
+                    log.warn("定时任务租约 {} 续期异常: {}", lockKey, e.getMessage());
+                }
+            }
+        }
+        finally
+        {
+            DynamicDataSourceContextHolder.clearDataSourceType();
+        }
+    }
+
+    private long leaseMillis()
+    {
+        return Math.max(3, properties.getLockLeaseSeconds()) * 1000L;
+    }
+
+    private static String resolveOwner()
+    {
+        String host;
+        try
+        {
+            host = InetAddress.getLocalHost().getHostName();
+        }
+        catch (Exception e)
+        {
+            host = "unknown";
+        }
+        String pid = ManagementFactory.getRuntimeMXBean().getName();
+        int at = pid.indexOf('@');
+        if (at > 0)
+        {
+            pid = pid.substring(0, at);
+        }
+        String id = host + ":" + pid + ":" + UUID.randomUUID().toString().substring(0, 8);
+        return id.length() > 128 ? id.substring(id.length() - 128) : id;
+    }
+}
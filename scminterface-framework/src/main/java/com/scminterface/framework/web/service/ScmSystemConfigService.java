@@ -24,6 +24,9 @@ public class ScmSystemConfigService
     @Autowired
     private ScmSystemConfigMapper scmSystemConfigMapper;
 
+    @Autowired
+    private SystemConfigCache systemConfigCache;
+
     /**
      * 查询所有配置
      * 
@@ -36,7 +39,7 @@ public class ScmSystemConfigService
     }
 
     /**
-     * 根据配置键查询配置值
+     * 根据配置键查询配置值（读系统参数缓存）
      * 
      * @param configKey 配置键
      * @return 配置值
@@ -44,7 +47,7 @@ public class ScmSystemConfigService
     @DataSource(DataSourceType.SCM)
     public String getConfigValue(String configKey)
     {
-        return scmSystemConfigMapper.selectValueByKey(configKey);
+        return systemConfigCache.getScmSystemConfig(configKey);
     }
 
     /**
@@ -62,7 +65,9 @@ public class ScmSystemConfigService
         config.put("configKey", configKey);
         config.put("configValue", configValue);
         config.put("configDesc", configDesc);
-        return scmSystemConfigMapper.insertOrUpdate(config);
+        int rows = scmSystemConfigMapper.insertOrUpdate(config);
+        systemConfigCache.putScmSystemConfig(configKey, configValue);
+        return rows;
     }
 
     /**
@@ -74,6 +79,8 @@ public class ScmSystemConfigService
     @DataSource(DataSourceType.SCM)
     public int deleteConfig(String configKey)
     {
-        return scmSystemConfigMapper.deleteByKey(configKey);
+        int rows = scmSystemConfigMapper.deleteByKey(configKey);
+        systemConfigCache.removeScmSystemConfig(configKey);
+        return rows;
     }
 }
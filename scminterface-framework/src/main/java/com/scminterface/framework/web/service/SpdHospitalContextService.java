@@ -6,7 +6,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import com.scminterface.common.annotation.DataSource;
 import com.scminterface.common.enums.DataSourceType;
-import com.scminterface.framework.web.mapper.SpdSysConfigMapper;
 
 /**
  * 从 SPD {@code sys_config} 读取当前部署医院上下文。
@@ -17,18 +16,18 @@ public class SpdHospitalContextService
     private static final Logger log = LoggerFactory.getLogger(SpdHospitalContextService.class);
 
     @Autowired
-    private SpdSysConfigMapper spdSysConfigMapper;
+    private SystemConfigCache systemConfigCache;
 
     @DataSource(DataSourceType.SPD)
     public String getHospitalName()
     {
-        return trimToNull(spdSysConfigMapper.selectValueByKey(SpdSysConfigKeys.HOSPITAL_NAME));
+        return trimToNull(systemConfigCache.getSpdSysConfig(SpdSysConfigKeys.HOSPITAL_NAME));
     }
 
     @DataSource(DataSourceType.SPD)
     public String getDefaultCustomerId()
     {
-        return trimToNull(spdSysConfigMapper.selectValueByKey(SpdSysConfigKeys.DEFAULT_CUSTOMER_ID));
+        return trimToNull(systemConfigCache.getSpdSysConfig(SpdSysConfigKeys.DEFAULT_CUSTOMER_ID));
     }
 
     /**
@@ -24,6 +24,9 @@ public class SpdSystemConfigService
     @Autowired
     private SpdSystemConfigMapper spdSystemConfigMapper;
 
+    @Autowired
+    private SystemConfigCache systemConfigCache;
+
     /**
      * 查询所有配置
      * 
@@ -36,7 +39,7 @@ public class SpdSystemConfigService
     }
 
     /**
-     * 根据配置键查询配置值
+     * 根据配置键查询配置值（读系统参数缓存）
      * 
      * @param configKey 配置键
      * @return 配置值
@@ -44,7 +47,7 @@ public class SpdSystemConfigService
     @DataSource(DataSourceType.SPD)
     public String getConfigValue(String configKey)
     {
-        return spdSystemConfigMapper.selectValueByKey(configKey);
+        return systemConfigCache.getSpdSystemConfig(configKey);
     }
 
     /**
@@ -62,7 +65,9 @@ public class SpdSystemConfigService
         config.put("configKey", configKey);
         config.put("configValue", configValue);
         config.put("configDesc", configDesc);
-        return spdSystemConfigMapper.insertOrUpdate(config);
+        int rows = spdSystemConfigMapper.insertOrUpdate(config);
+        systemConfigCache.putSpdSystemConfig(configKey, configValue);
+        return rows;
     }
 
     /**
@@ -74,6 +79,8 @@ public class SpdSystemConfigService
     @DataSource(DataSourceType.SPD)
     public int deleteConfig(String configKey)
     {
-        return spdSystemConfigMapper.deleteByKey(configKey);
+        int rows = spdSystemConfigMapper.deleteByKey(configKey);
+        systemConfigCache.removeSpdSystemConfig(configKey);
+        return rows;
     }
 }
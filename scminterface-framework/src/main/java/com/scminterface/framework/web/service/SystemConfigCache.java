@@ -0,0 +1,263 @@
+package com.scminterface.framework.web.service;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import com.scminterface.common.enums.DataSourceType;
+import com.scminterface.framework.datasource.DataSourceAvailability;
+import com.scminterface.framework.datasource.DynamicDataSourceContextHolder;
+import com.scminterface.framework.web.mapper.ScmSystemConfigMapper;
+import com.scminterface.framework.web.mapper.SpdSysConfigMapper;
+import com.scminterface.framework.web.mapper.SpdSystemConfigMapper;
+
+/**
+ * 系统参数缓存：spd_system_config、SPD sys_config、scm_system_config 各自整表一次查询载入内存快照，
+ * 过期（{@code scminterface.config-cache.ttl-seconds}，默认 60 秒）后下一次读取时整表重载；
+ * 本节点保存/删除时写穿更新快照，其它节点最迟一个过期周期后生效。
+ * <p>
+ * 重载时自行切换到对应数据源并在结束后恢复调用方原有数据源，可在任意数据源上下文中调用（不声明 {@code @DataSource}，
+ * 避免切面在嵌套调用结束时清空调用方的数据源）。重载失败时继续使用旧快照，5 秒后重试；从未载入成功时抛出原异常。
+ *
+ * @author scminterface
+ */
+@Service
+public class SystemConfigCache
+{
+    private static final Logger log = LoggerFactory.getLogger(SystemConfigCache.class);
+
+    /** 重载失败后重试间隔 */
+    private static final long RETRY_AFTER_FAILURE_MS = 5000L;
+
+    @Autowired
+    private SpdSystemConfigMapper spdSystemConfigMapper;
+
+    @Autowired
+    private SpdSysConfigMapper spdSysConfigMapper;
+
+    @Autowired
+    private ScmSystemConfigMapper scmSystemConfigMapper;
+
+    @Autowired
+    private DataSourceAvailability dataSourceAvailability;
+
+    @Value("${scminterface.config-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private final Snapshot spdSystemConfig = new Snapshot("spd_system_config", DataSourceType.SPD,
+        () -> toValueMap(spdSystemConfigMapper.selectAll()));
+
+    private final Snapshot spdSysConfig = new Snapshot("sys_config", DataSourceType.SPD,
+        () -> toValueMap(spdSysConfigMapper.selectAll()));
+
+    private final Snapshot scmSystemConfig = new Snapshot("scm_system_config", DataSourceType.SCM,
+        () -> toValueMap(scmSystemConfigMapper.selectAll()));
+
+    /** SPD 库 spd_system_config 参数值（不存在时返回 null） */
+    public String getSpdSystemConfig(String configKey)
+    {
+        return spdSystemConfig.get(configKey);
+    }
+
+    /** SPD 库 sys_config（若依参数设置）参数值（不存在时返回 null） */
+    public String getSpdSysConfig(String configKey)
+    {
+        return spdSysConfig.get(configKey);
+    }
+
+    /** SCM 库 scm_system_config 参数值（不存在时返回 null） */
+    public String getScmSystemConfig(String configKey)
+    {
+        return scmSystemConfig.get(configKey);
+    }
+
+    /** 保存 spd_system_config 后写穿 */
+    public void putSpdSystemConfig(String configKey, String configValue)
+    {
+        spdSystemConfig.put(configKey, configValue);
+    }
+
+    /** 删除 spd_system_config 后写穿 */
+    public void removeSpdSystemConfig(String configKey)
+    {
+        spdSystemConfig.remove(configKey);
+    }
+
+    /** 保存 scm_system_config 后写穿 */
+    public void putScmSystemConfig(String configKey, String configValue)
+    {
+        scmSystemConfig.put(configKey, configValue);
+    }
+
+    /** 删除 scm_system_config 后写穿 */
+    public void removeScmSystemConfig(String configKey)
+    {
+        scmSystemConfig.remove(configKey);
+    }
+
+    /**
+     * 清空全部快照（直接改库后使用），下一次读取时整表重载
+     */
+    public void invalidateAll()
+    {
+        spdSystemConfig.invalidate();
+        spdSysConfig.invalidate();
+        scmSystemConfig.invalidate();
+        log.info("系统参数缓存已清空");
+    }
+
+    /**
+     * 各快照状态（条目数、载入时间、载入/失败次数）
+     */
+    public Map<String, Object> getStats()
+    {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("ttlSeconds", ttlSeconds);
+        m.put(spdSystemConfig.name, spdSystemConfig.stats());
+        m.put(spdSysConfig.name, spdSysConfig.stats());
+        m.put(scmSystemConfig.name, scmSystemConfig.stats());
+        return m;
+    }
+
+    private static Map<String, String> toValueMap(List<Map<String, Object>> rows)
+    {
+        Map<String, String> m = new HashMap<>();
+        if (rows != null)
+        {
+            for (Map<String, Object> row : rows)
+            {
+                Object key = row.get("configKey");
+                if (key != null)
+                {
+                    Object value = row.get("configValue");
+                    m.put(String.valueOf(key), value != null ? String.valueOf(value) : null);
+                }
+            }
+        }
+        return m;
+    }
+
+    /** 单表快照 */
+    private final class Snapshot
+    {
+        final String name;
+        final DataSourceType dataSourceType;
+        final Supplier<Map<String, String>> loader;
+        volatile Map<String, String> values;
+        volatile long loadedAt;
+        volatile long nextLoadAt;
+        long loadCount;
+        long failureCount;
+
+        Snapshot(String name, DataSourceType dataSourceType, Supplier<Map<String, String>> loader)
+        {
+            this.name = name;
+            this.dataSourceType = dataSourceType;
+            this.loader = loader;
+        }
+
+        String get(String configKey)
+        {
+            Map<String, String> v = values;
+            if (v == null || System.currentTimeMillis() >= nextLoadAt)
+            {
+                v = reload();
+            }
+            return configKey == null ? null : v.get(configKey);
+        }
+
+        synchronized void put(String configKey, String configValue)
+        {
+            Map<String, String> v = values;
+            if (v != null && configKey != null)
+            {
+                Map<String, String> copy = new HashMap<>(v);
+                copy.put(configKey, configValue);
+                values = copy;
+            }
+        }
+
+        synchronized void remove(String configKey)
+        {
+            Map<String, String> v = values;
+            if (v != null && configKey != null && v.containsKey(configKey))
+            {
+                Map<String, String> copy = new HashMap<>(v);
+                copy.remove(configKey);
+                values = copy;
+            }
+        }
+
+        synchronized void invalidate()
+        {
+            nextLoadAt = 0L;
+        }
+
+        private synchronized Map<String, String> reload()
+        {
+            long now = System.currentTimeMillis();
+            Map<String, String> current = values;
+            if (current != null && now < nextLoadAt)
+            {
+                return current;
+            }
+            if (!dataSourceAvailability.isAvailable(dataSourceType))
+            {
+                // 数据源未启用：按无配置处理，不缓存
+                return current != null ? current : Collections.<String, String>emptyMap();
+            }
+            String previous = DynamicDataSourceContextHolder.getDataSourceType();
+            DynamicDataSourceContextHolder.setDataSourceType(dataSourceType.name());
+            try
+            {
+                Map<String, String> loaded = loader.get();
+                values = loaded;
+                loadedAt = now;
+                nextLoadAt = now + Math.max(1L, ttlSeconds) * 1000L;
+                loadCount++;
+                return loaded;
+            }
+            catch (RuntimeException e)
+            {
+                failureCount++;
+                if (current == null)
+                {
+                    throw e;
+                }
+                nextLoadAt = now + RETRY_AFTER_FAILURE_MS;
+                log.warn("重载系统参数 {} 失败，继续使用 {} 秒前的快照: {}", name, (now - loadedAt) / 1000, e.getMessage());
+                return current;
+            }
+            finally
+            {
+                if (previous != null)
+                {
+                    DynamicDataSourceContextHolder.setDataSourceType(previous);
+                }
+                else
+                {
+                    DynamicDataSourceContextHolder.clearDataSourceType();
+                }
+            }
+        }
+
+        synchronized Map<String, Object> stats()
+        {
+            Map<String, Object> m = new LinkedHashMap<>();
+            Map<String, String> v = values;
+            m.put("entries", v != null ? v.size() : 0);
+            m.put("loadedAt", loadedAt > 0 ? new Date(loadedAt) : null);
+            m.put("loadCount", loadCount);
+            m.put("failureCount", failureCount);
+            return m;
+        }
+    }
+}
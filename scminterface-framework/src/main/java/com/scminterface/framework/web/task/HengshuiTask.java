@@ -10,6 +10,7 @@ import org.springframework.stereotype.Component;
 import com.scminterface.common.annotation.DataSource;
 import com.scminterface.common.enums.DataSourceType;
 import com.scminterface.framework.web.service.HengshuiTaskService;
+import com.scminterface.framework.web.service.ScheduledTaskHistoryService;
 import com.scminterface.framework.web.service.ScheduledTaskService;
 
 /**
@@ -25,6 +26,9 @@ public class HengshuiTask
     @Autowired
     private ScheduledTaskService scheduledTaskService;
 
+    @Autowired
+    private ScheduledTaskHistoryService scheduledTaskHistoryService;
+
     @Autowired
     private HengshuiTaskService hengshuiTaskService;
 
@@ -35,6 +39,7 @@ public class HengshuiTask
     @DataSource(DataSourceType.SPD)
     public void syncChargeItem()
     {
+        Map<String, Object> run = null;
         try
         {
             // 获取任务配置
@@ -71,7 +76,9 @@ public class HengshuiTask
             log.info("当前时间: {}", currentTime);
             log.info("执行次数: {}", currentExecCount);
 
+            run = scheduledTaskHistoryService.begin("com.scminterface.framework.web.task.HengshuiTask", "syncChargeItem");
             Map<String, Object> syncResult = hengshuiTaskService.syncChargeItem();
+            scheduledTaskHistoryService.finish(run, syncResult);
             
             if (syncResult != null && Boolean.TRUE.equals(syncResult.get("success")))
             {
@@ -94,6 +101,7 @@ public class HengshuiTask
         }
         catch (Exception e)
         {
+            scheduledTaskHistoryService.fail(run, e);
             log.error("衡水定时任务执行异常", e);
         }
     }
@@ -105,6 +113,7 @@ public class HengshuiTask
     @DataSource(DataSourceType.SPD)
     public void syncInpatientCharge()
     {
+        Map<String, Object> run = null;
         try
         {
             // 获取任务配置
@@ -141,7 +150,9 @@ public class HengshuiTask
             log.info("当前时间: {}", currentTime);
             log.info("执行次数: {}", currentExecCount);
 
+            run = scheduledTaskHistoryService.begin("com.scminterface.framework.web.task.HengshuiTask", "syncInpatientCharge");
             Map<String, Object> syncResult = hengshuiTaskService.syncInpatientCharge();
+            scheduledTaskHistoryService.finish(run, syncResult);
             
             if (syncResult != null && Boolean.TRUE.equals(syncResult.get("success")))
             {
@@ -166,6 +177,7 @@ public class HengshuiTask
         }
         catch (Exception e)
         {
+            scheduledTaskHistoryService.fail(run, e);
             log.error("衡水住院收费明细定时任务执行异常", e);
         }
     }
@@ -177,6 +189,7 @@ public class HengshuiTask
     @DataSource(DataSourceType.SPD)
     public void syncOutpatientCharge()
     {
+        Map<String, Object> run = null;
         try
         {
             // 获取任务配置
@@ -213,7 +226,9 @@ public class HengshuiTask
             log.info("当前时间: {}", currentTime);
             log.info("执行次数: {}", currentExecCount);
 
+            run = scheduledTaskHistoryService.begin("com.scminterface.framework.web.task.HengshuiTask", "syncOutpatientCharge");
             Map<String, Object> syncResult = hengshuiTaskService.syncOutpatientCharge();
+            scheduledTaskHistoryService.finish(run, syncResult);
             
             if (syncResult != null && Boolean.TRUE.equals(syncResult.get("success")))
             {
@@ -238,7 +253,73 @@ public class HengshuiTask
         }
         catch (Exception e)
         {
+            scheduledTaskHistoryService.fail(run, e);
             log.error("衡水门诊收费明细定时任务执行异常", e);
         }
     }
+
+    /**
+     * 住院与门诊收费明细合并同步（两类并行抓取，共用一个抓取批次）
+     * 默认停用；启用时应停用单独的住院/门诊同步任务，避免重复抓取
+     */
+    @DataSource(DataSourceType.SPD)
+    public void syncPatientCharge()
+    {
+        Map<String, Object> run = null;
+        try
+        {
+            Map<String, Object> taskConfig = scheduledTaskService.getTaskConfigByClassAndMethod(
+                "com.scminterface.framework.web.task.HengshuiTask", "syncPatientCharge");
+
+            if (taskConfig == null)
+            {
+                log.warn("衡水住院门诊收费明细合并定时任务配置不存在");
+                return;
+            }
+
+            String status = (String) taskConfig.get("status");
+            if (!"0".equals(status))
+            {
+                log.debug("衡水住院门诊收费明细合并定时任务已停用，跳过执行");
+                return;
+            }
+
+            Integer maxExecCount = (Integer) taskConfig.get("maxExecCount");
+            Integer currentExecCount = (Integer) taskConfig.get("currentExecCount");
+            if (maxExecCount != null && maxExecCount >= 0 && currentExecCount != null && currentExecCount >= maxExecCount)
+            {
+                log.info("衡水住院门诊收费明细合并定时任务已达到最大执行次数限制: {}/{}", currentExecCount, maxExecCount);
+                return;
+            }
+
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            String currentTime = sdf.format(new Date());
+            log.info("========== 衡水住院门诊收费明细合并定时任务执行开始 ==========");
+            log.info("当前时间: {}", currentTime);
+            log.info("执行次数: {}", currentExecCount);
+
+            run = scheduledTaskHistoryService.begin("com.scminterface.framework.web.task.HengshuiTask", "syncPatientCharge");
+            Map<String, Object> syncResult = hengshuiTaskService.syncPatientCharge(false);
+            scheduledTaskHistoryService.finish(run, syncResult);
+
+            if (syncResult != null && Boolean.TRUE.equals(syncResult.get("success")))
+            {
+                log.info("同步结果: {}", syncResult.get("message"));
+            }
+            else
+            {
+                log.error("同步失败: {}", syncResult != null ? syncResult.get("message") : "未知错误");
+            }
+
+            log.info("===================================");
+
+            scheduledTaskService.incrementTaskExecCount(
+                "com.scminterface.framework.web.task.HengshuiTask", "syncPatientCharge");
+        }
+        catch (Exception e)
+        {
+            scheduledTaskHistoryService.fail(run, e);
+            log.error("衡水住院门诊收费明细合并定时任务执行异常", e);
+        }
+    }
 }
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Component;
 import com.scminterface.common.annotation.DataSource;
 import com.scminterface.common.enums.DataSourceType;
 import com.scminterface.framework.datasource.DataSourceAvailability;
+import com.scminterface.framework.web.service.ScheduledTaskHistoryService;
 import com.scminterface.framework.web.service.ScheduledTaskService;
 
 /**
@@ -25,6 +26,9 @@ public class ScmScheduledTask
     @Autowired
     private ScheduledTaskService scheduledTaskService;
 
+    @Autowired
+    private ScheduledTaskHistoryService scheduledTaskHistoryService;
+
     @Autowired
     private DataSourceAvailability dataSourceAvailability;
 
@@ -39,6 +43,7 @@ public class ScmScheduledTask
             log.debug("SCM 数据源未启用，跳过 SCM 定时任务");
             return;
         }
+        Map<String, Object> run = null;
         try
         {
             // 获取任务配置
@@ -67,18 +72,21 @@ public class ScmScheduledTask
             }
 
             // 执行任务：输出当前时间到日志
+            run = scheduledTaskHistoryService.begin("com.scminterface.framework.web.task.ScmScheduledTask", "execute");
             SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
             String currentTime = sdf.format(new Date());
             log.info("========== SCM定时任务执行 ==========");
             log.info("当前时间: {}", currentTime);
             log.info("执行次数: {}", currentExecCount);
             log.info("===================================");
+            scheduledTaskHistoryService.finish(run, null);
 
             // 增加执行次数
             scheduledTaskService.incrementScmExecCount();
         }
         catch (Exception e)
         {
+            scheduledTaskHistoryService.fail(run, e);
             log.error("SCM定时任务执行异常", e);
         }
     }
@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import com.scminterface.common.annotation.DataSource;
 import com.scminterface.common.enums.DataSourceType;
+import com.scminterface.framework.web.service.ScheduledTaskHistoryService;
 import com.scminterface.framework.web.service.ScheduledTaskService;
 
 /**
@@ -24,12 +25,16 @@ public class SpdScheduledTask
     @Autowired
     private ScheduledTaskService scheduledTaskService;
 
+    @Autowired
+    private ScheduledTaskHistoryService scheduledTaskHistoryService;
+
     /**
      * 执行SPD定时任务
      */
     @DataSource(DataSourceType.SPD)
     public void execute()
     {
+        Map<String, Object> run = null;
         try
         {
             // 获取任务配置
@@ -58,18 +63,21 @@ public class SpdScheduledTask
             }
 
             // 执行任务：输出当前时间到日志
+            run = scheduledTaskHistoryService.begin("com.scminterface.framework.web.task.SpdScheduledTask", "execute");
             SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
             String currentTime = sdf.format(new Date());
             log.info("========== SPD定时任务执行 ==========");
             log.info("当前时间: {}", currentTime);
             log.info("执行次数: {}", currentExecCount);
             log.info("===================================");
+            scheduledTaskHistoryService.finish(run, null);
 
             // 增加执行次数
             scheduledTaskService.incrementSpdExecCount();
         }
         catch (Exception e)
         {
+            scheduledTaskHistoryService.fail(run, e);
             log.error("SPD定时任务执行异常", e);
         }
     }
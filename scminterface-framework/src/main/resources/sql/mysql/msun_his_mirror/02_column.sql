@@ -104,3 +104,23 @@ CALL add_mirror_column('m_msun_merge_stock', 'hospital_id', 'varchar(64)', '2.5.
 /
 CALL add_mirror_column('m_msun_merge_stock', 'org_id', 'varchar(64)', '2.5.82 回参 orgId', 'hospital_id');
 /
+
+-- ========== 批次分块落库进度：record_count 为已提交行数 ==========
+CALL add_mirror_column('m_msun_sync_batch', 'sync_status', 'varchar(16)', '落库状态 running/success/partial/failed', 'record_count');
+/
+CALL add_mirror_column('m_msun_sync_batch', 'chunk_size', 'int', '分块行数', 'sync_status');
+/
+CALL add_mirror_column('m_msun_sync_batch', 'chunk_total', 'int', '分块总数', 'chunk_size');
+/
+CALL add_mirror_column('m_msun_sync_batch', 'committed_chunks', 'int', '已提交分块数', 'chunk_total');
+/
+CALL add_mirror_column('m_msun_sync_batch', 'failed_chunks', 'text', '失败分块 JSON：chunk/fromRow/toRow/error', 'committed_chunks');
+/
+CALL add_mirror_column('m_msun_sync_batch', 'elapsed_millis', 'bigint', '落库耗时毫秒', 'failed_chunks');
+/
+
+-- ========== 分页落库：页批次登记基础批次号（按基础批次查询/同步时匹配其各页） ==========
+CALL add_mirror_column('m_msun_sync_batch', 'parent_batch_no', 'varchar(64)', '分页落库的基础批次号，页批次为「基础批次-P页码」', 'sync_batch_no');
+/
+CALL add_mirror_column('m_msun_sync_batch', 'failed_page_batches', 'text', '分页落库基础批次：镜像写入失败的页批次号 JSON 数组', 'failed_chunks');
+/